@@ -1,13 +1,17 @@
 package org.kiwiproject.elucidation.server;
 
+import static java.util.Objects.isNull;
+
 import com.google.common.annotations.VisibleForTesting;
 import io.dropwizard.core.Configuration;
 import io.dropwizard.core.ConfiguredBundle;
+import io.dropwizard.core.setup.Bootstrap;
 import io.dropwizard.core.setup.Environment;
 import io.dropwizard.db.DatabaseConfiguration;
 import io.dropwizard.jdbi3.JdbiFactory;
 import io.dropwizard.jdbi3.jersey.LoggingJdbiExceptionMapper;
 import io.dropwizard.jdbi3.jersey.LoggingSQLExceptionMapper;
+import io.dropwizard.util.Generics;
 import jakarta.ws.rs.client.Client;
 import jakarta.ws.rs.client.ClientBuilder;
 import lombok.extern.slf4j.Slf4j;
@@ -15,14 +19,27 @@ import org.eclipse.jetty.server.handler.CrossOriginHandler;
 import org.jdbi.v3.core.Jdbi;
 import org.jdbi.v3.sqlobject.SqlObjectPlugin;
 import org.kiwiproject.elucidation.common.definition.CommunicationDefinition;
+import org.kiwiproject.elucidation.server.cli.CompactDuplicateEventsCommand;
 import org.kiwiproject.elucidation.server.config.ElucidationConfiguration;
+import org.kiwiproject.elucidation.server.db.AsyncConnectionEventWriter;
 import org.kiwiproject.elucidation.server.db.ConnectionEventDao;
+import org.kiwiproject.elucidation.server.db.ConnectionEventWriter;
+import org.kiwiproject.elucidation.server.db.IndexingConnectionEventWriter;
+import org.kiwiproject.elucidation.server.db.SqlDialect;
 import org.kiwiproject.elucidation.server.db.TrackedConnectionIdentifierDao;
+import org.kiwiproject.elucidation.server.db.VersionTrackingConnectionEventWriter;
+import org.kiwiproject.elucidation.server.db.WriteBehindConnectionEventWriter;
+import org.kiwiproject.elucidation.server.graph.ConnectionGraphIndex;
 import org.kiwiproject.elucidation.server.jobs.ArchiveEventsJob;
 import org.kiwiproject.elucidation.server.jobs.PollForEventsJob;
+import org.kiwiproject.elucidation.server.resources.ConnectionEventBatchMessageBodyReader;
+import org.kiwiproject.elucidation.server.resources.IngestQueueFullExceptionMapper;
 import org.kiwiproject.elucidation.server.resources.RelationshipResource;
 import org.kiwiproject.elucidation.server.resources.TrackedConnectionIdentifierResource;
+import org.kiwiproject.elucidation.server.service.EventImporter;
+import org.kiwiproject.elucidation.server.service.GraphVersion;
 import org.kiwiproject.elucidation.server.service.RelationshipService;
+import org.kiwiproject.elucidation.server.service.ResultCache;
 import org.kiwiproject.elucidation.server.service.TrackedConnectionIdentifierService;
 
 import java.util.concurrent.TimeUnit;
@@ -49,6 +66,12 @@ public abstract class ElucidationBundle<T extends Configuration>
         this.client = client;
     }
 
+    @Override
+    public void initialize(Bootstrap<?> bootstrap) {
+        Class<T> configurationClass = Generics.getTypeParameter(getClass(), Configuration.class);
+        bootstrap.addCommand(new CompactDuplicateEventsCommand<>(this, configurationClass));
+    }
+
     @Override
     public void run(T configuration, Environment environment) {
         var jdbi = setupJdbi(configuration, environment);
@@ -56,19 +79,90 @@ public abstract class ElucidationBundle<T extends Configuration>
         var connectionEventDao = jdbi.onDemand(ConnectionEventDao.class);
         var trackedConnectionIdentifierDao = jdbi.onDemand(TrackedConnectionIdentifierDao.class);
 
+        var sqlDialect = getSqlDialect(configuration)
+                .orElseGet(() -> SqlDialect.fromJdbcUrl(getDataSourceFactory(configuration).getUrl()));
+        LOG.info("Using {} SQL dialect to write connection events", sqlDialect);
+
+        // The graph version must only change once events are written and indexed, hence it wraps the innermost writers.
+        // Write-behind must flush to a synchronous writer, so that it sees (and retries) failed writes; the async
+        // workers feed its buffer instead, and are stopped first since they are managed last.
+        var graphIndex = setupGraphIndexIfNecessary(configuration, environment, connectionEventDao);
+        var graphVersion = new GraphVersion(GraphVersion.DEFAULT_MAX_KNOWN_KEYS, getEntityTagMaxAge(configuration));
+        var connectionEventWriter = setupAsyncIngestIfNecessary(configuration, environment,
+                setupWriteBehindIfNecessary(configuration, environment,
+                        new VersionTrackingConnectionEventWriter(
+                                indexIfNecessary(sqlDialect.newConnectionEventWriter(jdbi, connectionEventDao),
+                                        graphIndex),
+                                graphVersion)));
+
+        var resultCache = setupResultCache(configuration, environment, graphVersion);
+
         var communicationDefinitions = getCommunicationDefinitions(configuration);
-        var relationshipService = new RelationshipService(connectionEventDao, CommunicationDefinition.toMap(communicationDefinitions));
+        var fetchSize = getStreamingFetchSize(configuration);
+        var relationshipService = new RelationshipService(connectionEventDao, connectionEventWriter,
+                CommunicationDefinition.toMap(communicationDefinitions), graphIndex, resultCache, fetchSize);
 
-        var trackedConnectionIdentifierService = new TrackedConnectionIdentifierService(trackedConnectionIdentifierDao, connectionEventDao);
+        var trackedConnectionIdentifierService = new TrackedConnectionIdentifierService(trackedConnectionIdentifierDao,
+                connectionEventDao, resultCache, fetchSize);
 
-        environment.jersey().register(new RelationshipResource(relationshipService));
-        environment.jersey().register(new TrackedConnectionIdentifierResource(trackedConnectionIdentifierService));
+        var eventImporter = new EventImporter(relationshipService, environment.getObjectMapper(),
+                environment.getValidator(), EventImporter.DEFAULT_CHUNK_SIZE);
 
-        setupArchiveJob(configuration, environment, connectionEventDao);
+        environment.jersey().register(new ConnectionEventBatchMessageBodyReader());
+        environment.jersey().register(new RelationshipResource(relationshipService, eventImporter,
+                environment.getObjectMapper(), graphVersion));
+        environment.jersey().register(new TrackedConnectionIdentifierResource(trackedConnectionIdentifierService,
+                environment.getObjectMapper(), graphVersion));
+
+        setupArchiveJob(configuration, environment, connectionEventDao, graphIndex, graphVersion);
         setupPollingIfNecessary(configuration, environment, relationshipService);
         setupCorsIfNecessary(configuration, environment);
     }
 
+    private ConnectionEventWriter setupAsyncIngestIfNecessary(T configuration,
+                                                              Environment environment,
+                                                              ConnectionEventWriter connectionEventWriter) {
+        var asyncIngestConfig = getAsyncIngestConfig(configuration);
+        if (asyncIngestConfig.isEmpty()) {
+            return connectionEventWriter;
+        }
+
+        var config = asyncIngestConfig.get();
+        var asyncWriter = new AsyncConnectionEventWriter(connectionEventWriter,
+                config.getWorkerThreads(), config.getQueueCapacity(), config.getShutdownTimeout(), environment.metrics());
+
+        environment.lifecycle().manage(asyncWriter);
+        environment.jersey().register(new IngestQueueFullExceptionMapper(config.getRetryAfter()));
+
+        return asyncWriter;
+    }
+
+    private ConnectionEventWriter setupWriteBehindIfNecessary(T configuration,
+                                                              Environment environment,
+                                                              ConnectionEventWriter connectionEventWriter) {
+        var writeBehindConfig = getWriteBehindConfig(configuration);
+        if (writeBehindConfig.isEmpty()) {
+            return connectionEventWriter;
+        }
+
+        var config = writeBehindConfig.get();
+        var writeBehindWriter = new WriteBehindConnectionEventWriter(connectionEventWriter,
+                config.getMaxPendingEvents(), config.getMaxBufferedEvents(), config.getBatchSize(),
+                environment.metrics());
+
+        var flushExecutorService = environment.lifecycle()
+                .scheduledExecutorService("Event-Write-Behind-Flush", true).build();
+
+        var flushIntervalMillis = config.getFlushInterval().toMilliseconds();
+        flushExecutorService.scheduleWithFixedDelay(
+                writeBehindWriter::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+
+        // Managed objects are stopped in reverse order, so this drains the buffer before the executor shuts down
+        environment.lifecycle().manage(writeBehindWriter);
+
+        return writeBehindWriter;
+    }
+
     private void setupPollingIfNecessary(T configuration, Environment environment, RelationshipService relationshipService) {
         if (shouldPoll(configuration)) {
             var pollingExecutorService = environment.lifecycle()
@@ -89,11 +183,45 @@ public abstract class ElucidationBundle<T extends Configuration>
         }
     }
 
-    private void setupArchiveJob(T configuration, Environment environment, ConnectionEventDao connectionEventDao) {
+    private static ConnectionEventWriter indexIfNecessary(ConnectionEventWriter connectionEventWriter,
+                                                          ConnectionGraphIndex graphIndex) {
+        if (isNull(graphIndex)) {
+            return connectionEventWriter;
+        }
+
+        return new IndexingConnectionEventWriter(connectionEventWriter, graphIndex);
+    }
+
+    private ConnectionGraphIndex setupGraphIndexIfNecessary(T configuration,
+                                                            Environment environment,
+                                                            ConnectionEventDao connectionEventDao) {
+        if (!isGraphIndexEnabled(configuration)) {
+            return null;
+        }
+
+        // The index is loaded when it is started, i.e. before the server accepts requests
+        var graphIndex = new ConnectionGraphIndex(connectionEventDao);
+        environment.lifecycle().manage(graphIndex);
+
+        return graphIndex;
+    }
+
+    private ResultCache setupResultCache(T configuration, Environment environment, GraphVersion graphVersion) {
+        return getResultCacheConfig(configuration)
+                .map(config -> new ResultCache(graphVersion, config.getMaxEntries(), config.getMaxStaleness(),
+                        environment.metrics()))
+                .orElseGet(() -> ResultCache.uncached(graphVersion));
+    }
+
+    private void setupArchiveJob(T configuration,
+                                 Environment environment,
+                                 ConnectionEventDao connectionEventDao,
+                                 ConnectionGraphIndex graphIndex,
+                                 GraphVersion graphVersion) {
         var archiveExecutorService = environment.lifecycle()
                 .scheduledExecutorService("Event-Archive-Job", true).build();
 
-        var archiveJob = new ArchiveEventsJob(connectionEventDao, getTimeToLive(configuration));
+        var archiveJob = new ArchiveEventsJob(connectionEventDao, getTimeToLive(configuration), graphIndex, graphVersion);
         archiveExecutorService.scheduleWithFixedDelay(archiveJob, 1, 60, TimeUnit.MINUTES);
     }
 
@@ -0,0 +1,71 @@
+package org.kiwiproject.elucidation.server.cli;
+
+import io.dropwizard.core.Configuration;
+import io.dropwizard.core.cli.ConfiguredCommand;
+import io.dropwizard.core.setup.Bootstrap;
+import io.dropwizard.db.DatabaseConfiguration;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.sqlobject.SqlObjectPlugin;
+import org.kiwiproject.elucidation.server.db.DuplicateConnectionEventDao;
+import org.kiwiproject.elucidation.server.jobs.CompactDuplicateEventsJob;
+
+/**
+ * One-shot command that merges duplicate connection events using the application's elucidation data source.
+ * <p>
+ * Intended to be run against large databases before migrating, so that the migration which adds the unique
+ * natural-key index has (almost) nothing left to merge in its single transaction. For example:
+ * <pre>
+ * java -jar app.jar compact-elucidation-events --batch-size 5000 config.yml
+ * java -jar app.jar db migrate config.yml
+ * </pre>
+ *
+ * @param <T> type of configuration
+ */
+public class CompactDuplicateEventsCommand<T extends Configuration> extends ConfiguredCommand<T> {
+
+    private static final String BATCH_SIZE = "batchSize";
+    private static final int DEFAULT_BATCH_SIZE = 1_000;
+
+    private final DatabaseConfiguration<T> databaseConfiguration;
+    private final Class<T> configurationClass;
+
+    public CompactDuplicateEventsCommand(DatabaseConfiguration<T> databaseConfiguration, Class<T> configurationClass) {
+        super("compact-elucidation-events", "Merges duplicate elucidation connection events");
+        this.databaseConfiguration = databaseConfiguration;
+        this.configurationClass = configurationClass;
+    }
+
+    @Override
+    protected Class<T> getConfigurationClass() {
+        return configurationClass;
+    }
+
+    @Override
+    public void configure(Subparser subparser) {
+        super.configure(subparser);
+
+        subparser.addArgument("--batch-size")
+                .dest(BATCH_SIZE)
+                .type(Integer.class)
+                .setDefault(DEFAULT_BATCH_SIZE)
+                .help("Number of duplicated connections to merge per transaction");
+    }
+
+    @Override
+    protected void run(Bootstrap<T> bootstrap, Namespace namespace, T configuration) throws Exception {
+        var dataSource = databaseConfiguration.getDataSourceFactory(configuration)
+                .build(bootstrap.getMetricRegistry(), "Elucidation-Compaction");
+
+        try {
+            var jdbi = Jdbi.create(dataSource);
+            jdbi.installPlugin(new SqlObjectPlugin());
+
+            var job = new CompactDuplicateEventsJob(jdbi.onDemand(DuplicateConnectionEventDao.class), namespace.getInt(BATCH_SIZE));
+            job.run();
+        } finally {
+            dataSource.stop();
+        }
+    }
+}
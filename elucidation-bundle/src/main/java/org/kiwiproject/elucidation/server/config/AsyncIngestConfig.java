@@ -0,0 +1,40 @@
+package org.kiwiproject.elucidation.server.config;
+
+import io.dropwizard.util.Duration;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+
+@Builder
+@Setter
+@Getter
+public class AsyncIngestConfig {
+
+    /**
+     * The number of worker threads writing queued events to the database.
+     */
+    @Builder.Default
+    private int workerThreads = 4;
+
+    /**
+     * The maximum number of writes that can be queued. Once the queue is full, new events are rejected.
+     */
+    @Builder.Default
+    private int queueCapacity = 10_000;
+
+    /**
+     * How long clients are asked to wait (via the Retry-After header) before retrying a rejected event.
+     */
+    @NonNull
+    @Builder.Default
+    private Duration retryAfter = Duration.seconds(1);
+
+    /**
+     * How long to wait for queued events to be written when the application stops.
+     */
+    @NonNull
+    @Builder.Default
+    private Duration shutdownTimeout = Duration.seconds(30);
+
+}
@@ -7,6 +7,8 @@ import jakarta.validation.constraints.NotNull;
 import org.kiwiproject.elucidation.common.definition.CommunicationDefinition;
 import org.kiwiproject.elucidation.common.definition.HttpCommunicationDefinition;
 import org.kiwiproject.elucidation.common.definition.JmsCommunicationDefinition;
+import org.kiwiproject.elucidation.server.db.SqlDialect;
+import org.kiwiproject.elucidation.server.service.RelationshipService;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -116,6 +118,122 @@ public interface ElucidationConfiguration<T extends Configuration> {
         return () -> getPollingConfig(configuration).orElseThrow().getPollingEndpoint();
     }
 
+    /**
+     * The SQL dialect used to write connection events with a single native upsert statement.
+     * <p>
+     * The default is an empty Optional, which means the dialect is determined from the JDBC URL of the data source,
+     * falling back to {@link SqlDialect#GENERIC} for unknown databases.
+     *
+     * @param configuration the Configuration, which can optionally be used to obtain a custom dialect
+     * @return An optional containing the SQL dialect to use
+     * @see SqlDialect#fromJdbcUrl(String)
+     */
+    default Optional<SqlDialect> getSqlDialect(T configuration) {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the asynchronous ingest config object from the main configuration. If empty, connection events are
+     * written on the thread that records them, e.g. the request thread.
+     * <p>
+     * When present, events are written by a pool of worker threads draining a bounded queue, and events recorded
+     * while the queue is full are rejected with a 503 Service Unavailable response.
+     * <p>
+     * The default is an empty Optional.
+     *
+     * @param configuration the Configuration, which can optionally be used to obtain a custom async ingest config
+     * @return An optional containing the async ingest config
+     */
+    default Optional<AsyncIngestConfig> getAsyncIngestConfig(T configuration) {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the write-behind config object from the main configuration. If empty, every connection event is written
+     * to the database as soon as it is recorded.
+     * <p>
+     * When present, recorded events are buffered in memory, coalesced by connection (keeping the latest observation),
+     * and written to the database in batches. Batches that fail to be written are retried on the next flush. If
+     * asynchronous ingest is configured as well, its worker threads only add events to the buffer, and the batches are
+     * still written directly to the database.
+     * <p>
+     * The default is an empty Optional.
+     *
+     * @param configuration the Configuration, which can optionally be used to obtain a custom write-behind config
+     * @return An optional containing the write-behind config
+     */
+    default Optional<WriteBehindConfig> getWriteBehindConfig(T configuration) {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the result cache config object from the main configuration. If empty, service details, dependencies,
+     * and unused identifiers are computed on every request.
+     * <p>
+     * When present, these results are cached until a new connection is recorded, events expire, or tracked
+     * identifiers are loaded, but no longer than the configured max staleness.
+     * <p>
+     * The default is an empty Optional.
+     *
+     * @param configuration the Configuration, which can optionally be used to obtain a custom result cache config
+     * @return An optional containing the result cache config
+     */
+    default Optional<ResultCacheConfig> getResultCacheConfig(T configuration) {
+        return Optional.empty();
+    }
+
+    /**
+     * The maximum time an entity tag returned for a conditional GET request keeps matching, even if no change was
+     * made through this instance since.
+     * <p>
+     * Entity tags are derived from in-memory counters, which only see changes made through this instance. When several
+     * instances share a database, or events are written or deleted by other means, this bounds how long a client can
+     * keep getting 304 Not Modified responses for data that changed. Zero means tags never expire, which is only
+     * appropriate when this is the only instance writing to the database.
+     * <p>
+     * The default is one minute.
+     *
+     * @param configuration the Configuration, which can optionally be used to obtain a custom max age
+     * @return the max entity tag age
+     */
+    default Duration getEntityTagMaxAge(T configuration) {
+        return Duration.minutes(1);
+    }
+
+    /**
+     * Whether to keep an in-memory index of the connection graph.
+     * <p>
+     * When enabled, all connection events are loaded into memory at startup, and the index is updated as events are
+     * recorded and expire. Service names, relationships, and dependencies are then computed from the index instead of
+     * the database, which is much cheaper for clients that refresh the whole graph frequently, at the cost of memory
+     * proportional to the number of connection events.
+     * <p>
+     * The index is only correct for single-instance deployments: it only sees the events recorded through this
+     * instance after it was loaded, so when several instances share a database, each of them serves a different,
+     * incomplete graph until it is restarted. Do not enable it when more than one instance writes to the database.
+     * <p>
+     * The default is false.
+     *
+     * @param configuration the Configuration, which can optionally be used to enable the index
+     * @return true to enable the graph index; false otherwise
+     */
+    default boolean isGraphIndexEnabled(T configuration) {
+        return false;
+    }
+
+    /**
+     * The number of rows to fetch from the database at a time when streaming potentially large results, i.e. the
+     * events of a service or connection identifier, and the tracked identifiers.
+     * <p>
+     * The default is {@link RelationshipService#DEFAULT_FETCH_SIZE}.
+     *
+     * @param configuration the Configuration, which can optionally be used to obtain a custom fetch size
+     * @return the fetch size
+     */
+    default int getStreamingFetchSize(T configuration) {
+        return RelationshipService.DEFAULT_FETCH_SIZE;
+    }
+
     /**
      * Whether to register the JDBI exception mappers or not.
      * <p>
@@ -0,0 +1,29 @@
+package org.kiwiproject.elucidation.server.config;
+
+import io.dropwizard.util.Duration;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+
+@Builder
+@Setter
+@Getter
+public class ResultCacheConfig {
+
+    /**
+     * The maximum number of cached results, i.e. distinct endpoint and parameter combinations.
+     */
+    @Builder.Default
+    private long maxEntries = 1_000;
+
+    /**
+     * The maximum time a result is cached, even if no new connection was recorded since. This bounds how far behind
+     * the observed times in cached results can be, since observing an already known connection again does not
+     * invalidate them.
+     */
+    @NonNull
+    @Builder.Default
+    private Duration maxStaleness = Duration.minutes(1);
+
+}
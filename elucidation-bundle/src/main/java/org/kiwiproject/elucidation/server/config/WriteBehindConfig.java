@@ -0,0 +1,41 @@
+package org.kiwiproject.elucidation.server.config;
+
+import io.dropwizard.util.Duration;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+
+@Builder
+@Setter
+@Getter
+public class WriteBehindConfig {
+
+    /**
+     * The duration between flushes of the buffered events to the database.
+     */
+    @NonNull
+    @Builder.Default
+    private Duration flushInterval = Duration.seconds(5);
+
+    /**
+     * The number of distinct connections that can be buffered before they are flushed without waiting for the
+     * flush interval.
+     */
+    @Builder.Default
+    private int maxPendingEvents = 1_000;
+
+    /**
+     * The maximum number of distinct connections that can be buffered, e.g. while the database is unavailable.
+     * Events for new connections are dropped once this is reached. Must be at least {@code maxPendingEvents}.
+     */
+    @Builder.Default
+    private int maxBufferedEvents = 10_000;
+
+    /**
+     * The maximum number of events written to the database in a single batch when flushing.
+     */
+    @Builder.Default
+    private int batchSize = 500;
+
+}
@@ -0,0 +1,26 @@
+package org.kiwiproject.elucidation.server.core;
+
+import lombok.Value;
+import org.kiwiproject.elucidation.common.model.ConnectionEvent;
+import org.kiwiproject.elucidation.common.model.Direction;
+
+/**
+ * The natural key of a {@link ConnectionEvent}, i.e. everything that identifies the observed connection except for
+ * the time it was observed.
+ */
+@Value
+public class ConnectionEventKey {
+
+    String serviceName;
+    Direction eventDirection;
+    String communicationType;
+    String connectionIdentifier;
+
+    public static ConnectionEventKey of(ConnectionEvent event) {
+        return new ConnectionEventKey(
+                event.getServiceName(),
+                event.getEventDirection(),
+                event.getCommunicationType(),
+                event.getConnectionIdentifier());
+    }
+}
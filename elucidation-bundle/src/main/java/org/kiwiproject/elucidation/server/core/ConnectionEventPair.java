@@ -0,0 +1,19 @@
+package org.kiwiproject.elucidation.server.core;
+
+import lombok.Value;
+import org.kiwiproject.elucidation.common.model.ConnectionEvent;
+
+/**
+ * A {@link ConnectionEvent} together with one of its associated events, i.e. an event of another (or the same)
+ * service with the same communication type and connection identifier, but the opposite direction.
+ * <p>
+ * When nothing was observed on the other side of the connection, the associated event is a synthetic event of
+ * {@link ConnectionEvent#UNKNOWN_SERVICE}, observed at the same time as the event itself.
+ */
+@Value
+public class ConnectionEventPair {
+
+    ConnectionEvent event;
+    ConnectionEvent associatedEvent;
+
+}
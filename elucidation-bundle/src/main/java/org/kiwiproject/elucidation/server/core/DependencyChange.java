@@ -0,0 +1,28 @@
+package org.kiwiproject.elucidation.server.core;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.Set;
+
+/**
+ * A dependency of one service on another whose communication types differ between two observation windows.
+ */
+@Builder
+@Value
+public class DependencyChange {
+
+    String serviceName;
+    String dependency;
+
+    /**
+     * The communication types of the dependency in the first window, which is empty if it did not exist then.
+     */
+    Set<String> communicationTypesBefore;
+
+    /**
+     * The communication types of the dependency in the second window, which is empty if it does not exist anymore.
+     */
+    Set<String> communicationTypesAfter;
+
+}
@@ -0,0 +1,27 @@
+package org.kiwiproject.elucidation.server.core;
+
+import lombok.Builder;
+import lombok.Value;
+import org.kiwiproject.elucidation.server.graph.DependencyEdge;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A group of services that (transitively) depend on each other.
+ */
+@Builder
+@Value
+public class DependencyCycle {
+
+    /**
+     * The services in the group, in order of name.
+     */
+    List<String> services;
+
+    /**
+     * The dependencies between the services in the group, by communication type.
+     */
+    Map<String, List<DependencyEdge>> edgesByCommunicationType;
+
+}
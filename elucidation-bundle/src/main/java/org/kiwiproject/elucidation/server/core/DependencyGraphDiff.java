@@ -0,0 +1,31 @@
+package org.kiwiproject.elucidation.server.core;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * The differences between the dependency graphs of two observation windows. Each list is in order of service name
+ * and dependency.
+ */
+@Builder
+@Value
+public class DependencyGraphDiff {
+
+    /**
+     * The dependencies that exist in the second window, but not in the first.
+     */
+    List<DependencyChange> added;
+
+    /**
+     * The dependencies that existed in the first window, but not in the second.
+     */
+    List<DependencyChange> removed;
+
+    /**
+     * The dependencies that exist in both windows, but over different communication types.
+     */
+    List<DependencyChange> changed;
+
+}
@@ -0,0 +1,25 @@
+package org.kiwiproject.elucidation.server.core;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * A chain of dependencies from one service to another.
+ */
+@Builder
+@Value
+public class DependencyPath {
+
+    /**
+     * The services along the path, starting with the dependent service.
+     */
+    List<String> services;
+
+    /**
+     * For every service but the last, its dependency on the next service and the connections it consists of.
+     */
+    List<DependencyRelationshipDetails> hops;
+
+}
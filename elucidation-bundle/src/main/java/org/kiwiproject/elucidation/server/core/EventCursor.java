@@ -0,0 +1,71 @@
+package org.kiwiproject.elucidation.server.core;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import lombok.Value;
+import org.kiwiproject.elucidation.common.model.ConnectionEvent;
+
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * A position in the feed of connection events, which is ordered by observed time and id. A cursor points just after
+ * the event with the given observed time and id, i.e. paging from a cursor returns the events that come after it.
+ * <p>
+ * Events written later with an earlier observed time land before existing cursors, so they are skipped by consumers
+ * that already moved past them.
+ * <p>
+ * Cursors are handed to clients in an opaque, URL-safe encoding.
+ */
+@Value
+public class EventCursor {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /**
+     * Points before all events.
+     */
+    public static final EventCursor START = new EventCursor(Long.MIN_VALUE, Long.MIN_VALUE);
+
+    long observedAt;
+    long id;
+
+    /**
+     * @param sinceInMillis the time in millis since the epoch
+     * @return a cursor pointing after all events observed at or before the given time
+     */
+    public static EventCursor since(long sinceInMillis) {
+        return new EventCursor(sinceInMillis, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param event an event read from the database
+     * @return a cursor pointing just after the given event
+     */
+    public static EventCursor after(ConnectionEvent event) {
+        return new EventCursor(event.getObservedAt(), event.getId());
+    }
+
+    /**
+     * @param encoded a cursor as returned by {@link #encode()}
+     * @return the decoded cursor, or an empty Optional if the given value is not a valid cursor
+     */
+    public static Optional<EventCursor> decode(String encoded) {
+        try {
+            var parts = new String(DECODER.decode(encoded), UTF_8).split(":", -1);
+            if (parts.length != 2) {
+                return Optional.empty();
+            }
+
+            return Optional.of(new EventCursor(Long.parseLong(parts[0]), Long.parseLong(parts[1])));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException is an IllegalArgumentException, too
+            return Optional.empty();
+        }
+    }
+
+    public String encode() {
+        return ENCODER.encodeToString((observedAt + ":" + id).getBytes(UTF_8));
+    }
+}
@@ -0,0 +1,18 @@
+package org.kiwiproject.elucidation.server.core;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * The outcome of importing one fixed-size chunk of lines from a bulk event import.
+ */
+@Builder
+@Getter
+public class EventImportChunk {
+
+    private long firstLine;
+    private long lastLine;
+    private int accepted;
+    private int rejected;
+
+}
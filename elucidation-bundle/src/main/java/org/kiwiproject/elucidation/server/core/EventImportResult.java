@@ -0,0 +1,19 @@
+package org.kiwiproject.elucidation.server.core;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * The outcome of a bulk event import, both in total and per chunk of lines.
+ */
+@Builder
+@Getter
+public class EventImportResult {
+
+    private long accepted;
+    private long rejected;
+    private List<EventImportChunk> chunks;
+
+}
@@ -0,0 +1,45 @@
+package org.kiwiproject.elucidation.server.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import lombok.Value;
+
+import java.util.Optional;
+
+/**
+ * A range of observed times, in millis since the epoch, to restrict graph queries to, e.g. to find out which services
+ * talked to each other in the last hour. Both ends are inclusive.
+ */
+@Value
+public class ObservationWindow {
+
+    /**
+     * Contains all observed times.
+     */
+    public static final ObservationWindow ALL = new ObservationWindow(Long.MIN_VALUE, Long.MAX_VALUE);
+
+    long from;
+    long to;
+
+    public ObservationWindow(long from, long to) {
+        checkArgument(from <= to, "from must not be after to");
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * @param from the start of the window, or null for no start
+     * @param to   the end of the window, or null for no end
+     * @return the window, or an empty Optional if {@code from} is after {@code to}
+     */
+    public static Optional<ObservationWindow> between(Long from, Long to) {
+        var start = from == null ? Long.MIN_VALUE : from;
+        var end = to == null ? Long.MAX_VALUE : to;
+
+        return start <= end ? Optional.of(new ObservationWindow(start, end)) : Optional.empty();
+    }
+
+    public boolean isUnbounded() {
+        return from == Long.MIN_VALUE && to == Long.MAX_VALUE;
+    }
+}
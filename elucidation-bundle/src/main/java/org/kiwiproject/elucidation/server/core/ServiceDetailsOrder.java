@@ -0,0 +1,31 @@
+package org.kiwiproject.elucidation.server.core;
+
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.comparingInt;
+
+import java.util.Comparator;
+
+/**
+ * The orders in which {@link ServiceDetails} can be listed. Ordering by a number of events puts the services with the
+ * most events first, and breaks ties by service name.
+ */
+public enum ServiceDetailsOrder {
+
+    NAME(comparing(ServiceDetails::getServiceName)),
+    INBOUND(comparingInt(ServiceDetails::getInboundEvents).reversed()
+            .thenComparing(ServiceDetails::getServiceName)),
+    OUTBOUND(comparingInt(ServiceDetails::getOutboundEvents).reversed()
+            .thenComparing(ServiceDetails::getServiceName)),
+    TOTAL(comparingInt((ServiceDetails details) -> details.getInboundEvents() + details.getOutboundEvents()).reversed()
+            .thenComparing(ServiceDetails::getServiceName));
+
+    private final Comparator<ServiceDetails> comparator;
+
+    ServiceDetailsOrder(Comparator<ServiceDetails> comparator) {
+        this.comparator = comparator;
+    }
+
+    public Comparator<ServiceDetails> comparator() {
+        return comparator;
+    }
+}
@@ -0,0 +1,16 @@
+package org.kiwiproject.elucidation.server.core;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * A service reached from another service by following dependencies, and the number of hops it took.
+ */
+@Builder
+@Value
+public class ServiceDistance {
+
+    String serviceName;
+    int distance;
+
+}
@@ -0,0 +1,17 @@
+package org.kiwiproject.elucidation.server.core;
+
+import lombok.Value;
+import org.kiwiproject.elucidation.common.model.Direction;
+
+/**
+ * The number of events of a service in one direction and with one communication type.
+ */
+@Value
+public class ServiceEventCount {
+
+    String serviceName;
+    Direction eventDirection;
+    String communicationType;
+    int count;
+
+}
@@ -0,0 +1,14 @@
+package org.kiwiproject.elucidation.server.core;
+
+import lombok.Value;
+
+/**
+ * An identifier of a service that nothing was observed consuming.
+ */
+@Value
+public class ServiceUnusedIdentifier {
+
+    String serviceName;
+    UnusedIdentifier identifier;
+
+}
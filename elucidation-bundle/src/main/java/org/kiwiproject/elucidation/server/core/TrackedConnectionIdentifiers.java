@@ -0,0 +1,26 @@
+package org.kiwiproject.elucidation.server.core;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * All connection identifiers to track for one service and communication type, which replace the ones tracked before.
+ */
+@Builder
+@Value
+public class TrackedConnectionIdentifiers {
+
+    @NotBlank
+    String serviceName;
+
+    @NotBlank
+    String communicationType;
+
+    @NotEmpty
+    List<@NotBlank String> connectionIdentifiers;
+
+}
@@ -0,0 +1,16 @@
+package org.kiwiproject.elucidation.server.core;
+
+import lombok.Value;
+
+/**
+ * A {@link ConnectionEventPair} together with whether the connection was alive during each of two observation
+ * windows that are being compared.
+ */
+@Value
+public class WindowedEventPair {
+
+    ConnectionEventPair pair;
+    boolean observedBefore;
+    boolean observedAfter;
+
+}
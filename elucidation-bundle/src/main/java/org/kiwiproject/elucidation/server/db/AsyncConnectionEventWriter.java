@@ -0,0 +1,126 @@
+package org.kiwiproject.elucidation.server.db;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.dropwizard.lifecycle.Managed;
+import io.dropwizard.util.Duration;
+import lombok.extern.slf4j.Slf4j;
+import org.kiwiproject.elucidation.common.model.ConnectionEvent;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link ConnectionEventWriter} that hands writes off to a bounded queue drained by a fixed pool of worker threads,
+ * so that callers (i.e. request threads) never wait on the database.
+ * <p>
+ * When the queue is full, writes are rejected with an {@link IngestQueueFullException} instead of blocking.
+ * The following metrics are registered:
+ * <ul>
+ *     <li>{@code queue-depth} - a gauge of the number of writes waiting in the queue</li>
+ *     <li>{@code dropped} - a meter of the events rejected because the queue was full</li>
+ *     <li>{@code failed} - a meter of the events whose write failed</li>
+ *     <li>{@code enqueue-to-commit} - a timer from the time a write is queued until it is written</li>
+ * </ul>
+ *
+ * @implNote A write that fails on a worker thread is logged and counted, but not retried.
+ */
+@Slf4j
+public class AsyncConnectionEventWriter implements ConnectionEventWriter, Managed {
+
+    private final ConnectionEventWriter delegate;
+    private final Duration shutdownTimeout;
+    private final BlockingQueue<Runnable> queue;
+    private final ThreadPoolExecutor executor;
+    private final Meter droppedMeter;
+    private final Meter failedMeter;
+    private final Timer enqueueToCommitTimer;
+
+    public AsyncConnectionEventWriter(ConnectionEventWriter delegate,
+                                      int workerThreads,
+                                      int queueCapacity,
+                                      Duration shutdownTimeout,
+                                      MetricRegistry metrics) {
+        checkArgument(workerThreads > 0, "workerThreads must be greater than zero");
+        checkArgument(queueCapacity > 0, "queueCapacity must be greater than zero");
+
+        this.delegate = delegate;
+        this.shutdownTimeout = shutdownTimeout;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        var threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("Event-Ingest-%d")
+                .setDaemon(true)
+                .build();
+        this.executor = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+                queue, threadFactory, new ThreadPoolExecutor.AbortPolicy());
+
+        metrics.gauge(name(AsyncConnectionEventWriter.class, "queue-depth"), () -> (Gauge<Integer>) queue::size);
+        this.droppedMeter = metrics.meter(name(AsyncConnectionEventWriter.class, "dropped"));
+        this.failedMeter = metrics.meter(name(AsyncConnectionEventWriter.class, "failed"));
+        this.enqueueToCommitTimer = metrics.timer(name(AsyncConnectionEventWriter.class, "enqueue-to-commit"));
+    }
+
+    @Override
+    public void write(ConnectionEvent event) {
+        enqueue(1, () -> delegate.write(event));
+    }
+
+    @Override
+    public void writeAll(List<ConnectionEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        enqueue(events.size(), () -> delegate.writeAll(events));
+    }
+
+    /**
+     * @return the number of writes waiting in the queue
+     */
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    @Override
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+
+        if (!executor.awaitTermination(shutdownTimeout.toMilliseconds(), TimeUnit.MILLISECONDS)) {
+            var numAbandoned = executor.shutdownNow().size();
+            LOG.warn("Timed out after {} waiting for queued events to be written; abandoned {} queued writes",
+                    shutdownTimeout, numAbandoned);
+        }
+    }
+
+    private void enqueue(int numEvents, Runnable write) {
+        var context = enqueueToCommitTimer.time();
+
+        try {
+            executor.execute(() -> writeAndRecord(numEvents, write, context));
+        } catch (RejectedExecutionException e) {
+            droppedMeter.mark(numEvents);
+            throw new IngestQueueFullException("Ingest queue is full; rejected " + numEvents + " event(s)", e);
+        }
+    }
+
+    private void writeAndRecord(int numEvents, Runnable write, Timer.Context context) {
+        try {
+            write.run();
+            context.stop();
+        } catch (Exception e) {
+            failedMeter.mark(numEvents);
+            LOG.error("Error writing {} queued connection event(s)", numEvents, e);
+        }
+    }
+}
@@ -2,66 +2,449 @@ package org.kiwiproject.elucidation.server.db;
 
 import org.kiwiproject.elucidation.common.model.ConnectionEvent;
 import org.kiwiproject.elucidation.common.model.Direction;
+import org.kiwiproject.elucidation.server.core.ConnectionEventPair;
+import org.kiwiproject.elucidation.server.core.EventCursor;
+import org.kiwiproject.elucidation.server.core.ObservationWindow;
+import org.kiwiproject.elucidation.server.core.ServiceEventCount;
+import org.kiwiproject.elucidation.server.core.ServiceUnusedIdentifier;
+import org.kiwiproject.elucidation.server.core.WindowedEventPair;
 import org.kiwiproject.elucidation.server.db.mapper.ConnectionEventMapper;
+import org.kiwiproject.elucidation.server.db.mapper.ConnectionEventPairMapper;
+import org.kiwiproject.elucidation.server.db.mapper.ServiceEventCountMapper;
+import org.kiwiproject.elucidation.server.db.mapper.ServiceUnusedIdentifierMapper;
+import org.kiwiproject.elucidation.server.db.mapper.WindowedEventPairMapper;
+import org.jdbi.v3.sqlobject.config.RegisterArgumentFactory;
 import org.jdbi.v3.sqlobject.config.RegisterRowMapper;
 import org.jdbi.v3.sqlobject.customizer.Bind;
 import org.jdbi.v3.sqlobject.customizer.BindBean;
+import org.jdbi.v3.sqlobject.customizer.FetchSize;
 import org.jdbi.v3.sqlobject.statement.GetGeneratedKeys;
+import org.jdbi.v3.sqlobject.statement.SqlBatch;
 import org.jdbi.v3.sqlobject.statement.SqlQuery;
 import org.jdbi.v3.sqlobject.statement.SqlUpdate;
+import org.jdbi.v3.sqlobject.transaction.Transaction;
 
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+/**
+ * Reads and writes connection events, which are stored in {@code connection_event_facts} with references to the
+ * {@code services}, {@code communication_types}, and {@code connection_identifiers} dimension tables. Queries join
+ * the dimensions back in, so callers only ever see {@link ConnectionEvent}s.
+ * <p>
+ * Events are written through a {@link ConnectionEventWriter} (see {@link SqlDialect}), which resolves the dimension
+ * ids of each event with {@link ConnectionEventDimensions} before storing its fact.
+ */
 @RegisterRowMapper(value = ConnectionEventMapper.class)
+@RegisterArgumentFactory(DirectionArgumentFactory.class)
 public interface ConnectionEventDao {
 
-    @SqlUpdate("insert into connection_events " +
-            "(service_name, event_direction, communication_type, connection_identifier, observed_at) " +
-            "values (:serviceName, :eventDirection, :communicationType, :connectionIdentifier, :observedAt)")
-    @GetGeneratedKeys("id")
-    Long insertConnection(@BindBean ConnectionEvent connection);
+    String SELECT_EVENTS = "select e.id, s.service_name, " +
+            "case e.event_direction when 1 then 'INBOUND' when 2 then 'OUTBOUND' end as event_direction, " +
+            "t.communication_type, i.connection_identifier, e.observed_at " +
+            "from connection_event_facts e " +
+            "join services s on s.id = e.service_id " +
+            "join communication_types t on t.id = e.communication_type_id " +
+            "join connection_identifiers i on i.id = e.connection_identifier_id ";
+
+    /**
+     * Rows written before {@code first_observed_at} existed only know when they were last observed.
+     */
+    String PAIR_FIRST_OBSERVED_AT = "greatest(coalesce(e.first_observed_at, e.observed_at), " +
+            "coalesce(a.first_observed_at, a.observed_at))";
+
+    String PAIR_LAST_OBSERVED_AT = "least(e.observed_at, a.observed_at)";
+
+    /**
+     * Whether an event was alive at some point between {@code :from} and {@code :to}, i.e. whether its first and last
+     * observed times overlap the window, even if it was observed again after the window.
+     */
+    String EVENT_ALIVE_BETWEEN = "coalesce(e.first_observed_at, e.observed_at) <= :to and e.observed_at >= :from";
+
+    String PAIR_ALIVE_BETWEEN = PAIR_FIRST_OBSERVED_AT + " <= :to and " + PAIR_LAST_OBSERVED_AT + " >= :from";
+
+    String PAIR_ALIVE_BEFORE = PAIR_FIRST_OBSERVED_AT + " <= :beforeTo and " +
+            PAIR_LAST_OBSERVED_AT + " >= :beforeFrom";
+
+    String PAIR_ALIVE_AFTER = PAIR_FIRST_OBSERVED_AT + " <= :afterTo and " +
+            PAIR_LAST_OBSERVED_AT + " >= :afterFrom";
+
+    String SELECT_EVENT_PAIRS_JOINING_ASSOCIATED_EVENTS = "select e.id, s.service_name, " +
+            "case e.event_direction when 1 then 'INBOUND' when 2 then 'OUTBOUND' end as event_direction, " +
+            "t.communication_type, i.connection_identifier, e.observed_at, " +
+            "a.id as associated_id, a_s.service_name as associated_service_name, a.observed_at as associated_observed_at " +
+            "from connection_event_facts e " +
+            "join services s on s.id = e.service_id " +
+            "join communication_types t on t.id = e.communication_type_id " +
+            "join connection_identifiers i on i.id = e.connection_identifier_id " +
+            "left join connection_event_facts a on a.connection_identifier_id = e.connection_identifier_id " +
+            "and a.communication_type_id = e.communication_type_id and a.event_direction <> e.event_direction ";
+
+    String SELECT_EVENT_PAIRS = SELECT_EVENT_PAIRS_JOINING_ASSOCIATED_EVENTS +
+            "left join services a_s on a_s.id = a.service_id ";
 
-    @SqlQuery("select * from connection_events where observed_at > :since order by observed_at desc limit 100")
-    List<ConnectionEvent> findEventsSince(@Bind("since") Long since);
+    /**
+     * Same as {@link #SELECT_EVENT_PAIRS}, but only selects events that were alive between {@code :from} and
+     * {@code :to} (inclusive), each paired with the associated events it was alive with during that window.
+     */
+    String SELECT_EVENT_PAIRS_OBSERVED_BETWEEN = SELECT_EVENT_PAIRS_JOINING_ASSOCIATED_EVENTS +
+            "and " + PAIR_ALIVE_BETWEEN + " " +
+            "left join services a_s on a_s.id = a.service_id " +
+            "where " + EVENT_ALIVE_BETWEEN + " ";
 
-    @SqlQuery("select * from connection_events where service_name = :serviceName")
+    /**
+     * Selects every event together with each of its associated events, flagged by whether the connection was alive
+     * during the {@code :before*} and {@code :after*} windows, i.e. whether both events were observed at some point
+     * during the window according to their first and last observed times. Only pairs alive in either window are
+     * selected, in order of the service names on both sides, so that the pairs of two services arrive together.
+     */
+    String SELECT_EVENT_PAIRS_OBSERVED_IN_EITHER_WINDOW = "select e.id, s.service_name, " +
+            "case e.event_direction when 1 then 'INBOUND' when 2 then 'OUTBOUND' end as event_direction, " +
+            "t.communication_type, i.connection_identifier, e.observed_at, " +
+            "a.id as associated_id, a_s.service_name as associated_service_name, a.observed_at as associated_observed_at, " +
+            "case when " + PAIR_ALIVE_BEFORE + " then 1 else 0 end as observed_before, " +
+            "case when " + PAIR_ALIVE_AFTER + " then 1 else 0 end as observed_after " +
+            "from connection_event_facts e " +
+            "join services s on s.id = e.service_id " +
+            "join communication_types t on t.id = e.communication_type_id " +
+            "join connection_identifiers i on i.id = e.connection_identifier_id " +
+            "join connection_event_facts a on a.connection_identifier_id = e.connection_identifier_id " +
+            "and a.communication_type_id = e.communication_type_id and a.event_direction <> e.event_direction " +
+            "join services a_s on a_s.id = a.service_id " +
+            "where (" + PAIR_ALIVE_BEFORE + ") or (" + PAIR_ALIVE_AFTER + ") " +
+            "order by s.service_name, a_s.service_name";
+
+    /**
+     * Selects the outbound events without any inbound event with the same communication type and connection
+     * identifier, using an anti-join that is answered from the index over the associated events.
+     */
+    String SELECT_UNUSED_OUTBOUND_EVENTS = "select s.service_name, t.communication_type, i.connection_identifier " +
+            "from connection_event_facts e " +
+            "join services s on s.id = e.service_id " +
+            "join communication_types t on t.id = e.communication_type_id " +
+            "join connection_identifiers i on i.id = e.connection_identifier_id " +
+            "where e.event_direction = 2 and not exists (select 1 from connection_event_facts a " +
+            "where a.connection_identifier_id = e.connection_identifier_id " +
+            "and a.communication_type_id = e.communication_type_id and a.event_direction = 1) ";
+
+    /**
+     * Selects the tracked identifiers without any inbound event with the same communication type and connection
+     * identifier.
+     */
+    String SELECT_UNUSED_TRACKED_IDENTIFIERS = "select c.service_name, c.communication_type, c.connection_identifier " +
+            "from tracked_connection_identifiers c " +
+            "where not exists (select 1 from connection_event_facts a " +
+            "join communication_types t on t.id = a.communication_type_id " +
+            "join connection_identifiers i on i.id = a.connection_identifier_id " +
+            "where t.communication_type = c.communication_type and i.connection_identifier = c.connection_identifier " +
+            "and a.event_direction = 1) ";
+
+    String UPDATE_OBSERVED_AT = "update connection_event_facts " +
+            "set first_observed_at = case when coalesce(first_observed_at, observed_at) > :observedAt " +
+            "then :observedAt else coalesce(first_observed_at, observed_at) end, " +
+            "observed_at = case when observed_at < :observedAt then :observedAt else observed_at end " +
+            "where service_id = :serviceId and event_direction = :eventDirection and " +
+            "communication_type_id = :communicationTypeId and connection_identifier_id = :connectionIdentifierId";
+
+    /**
+     * Selects the events after the position {@code (:observedAt, :id)} in order of observed time and id. The condition
+     * is spelled out (instead of using a row value comparison) so that every database can use an index for it.
+     */
+    String AFTER_POSITION = "e.observed_at >= :observedAt and (e.observed_at > :observedAt or e.id > :id) " +
+            "order by e.observed_at, e.id limit :limit";
+
+    @SqlBatch("insert into connection_event_facts " +
+            "(service_id, event_direction, communication_type_id, connection_identifier_id, observed_at, " +
+            "first_observed_at) " +
+            "values (:serviceId, :eventDirection, :communicationTypeId, :connectionIdentifierId, :observedAt, " +
+            ":observedAt)")
+    void insertFacts(@BindBean List<ConnectionEventFact> facts);
+
+    @SqlBatch(UPDATE_OBSERVED_AT)
+    int[] updateObservedAt(@BindBean List<ConnectionEventFact> facts);
+
+    @SqlUpdate(UPDATE_OBSERVED_AT)
+    int updateObservedAt(@BindBean ConnectionEventFact fact);
+
+    @SqlQuery(SELECT_EVENTS)
+    List<ConnectionEvent> findAllEvents();
+
+    /**
+     * Find the events after the given position in the feed of all events ordered by observed time and id.
+     *
+     * @param observedAt the observed time of the last event already seen
+     * @param id         the id of the last event already seen
+     * @param limit      the maximum number of events to return
+     * @return the next events, in ascending order of observed time and id
+     */
+    @SqlQuery(SELECT_EVENTS + "where " + AFTER_POSITION)
+    List<ConnectionEvent> findEventsAfter(@Bind("observedAt") long observedAt,
+                                          @Bind("id") long id,
+                                          @Bind("limit") int limit);
+
+    @SqlQuery(SELECT_EVENTS + "where s.service_name = :serviceName")
     List<ConnectionEvent> findEventsByServiceName(@Bind("serviceName") String serviceName);
 
-    @SqlQuery("select * from connection_events " +
-            "where event_direction = :eventDirection and connection_identifier = :connectionIdentifier and communication_type = :communicationType")
+    @SqlQuery(SELECT_EVENTS + "where s.service_name = :serviceName and " + AFTER_POSITION)
+    Stream<ConnectionEvent> streamEventsByServiceName(@Bind("serviceName") String serviceName,
+                                                      @Bind("observedAt") long observedAt,
+                                                      @Bind("id") long id,
+                                                      @Bind("limit") int limit,
+                                                      @FetchSize int fetchSize);
+
+    @SqlQuery(SELECT_EVENTS +
+            "where e.event_direction = :eventDirection and i.connection_identifier = :connectionIdentifier " +
+            "and t.communication_type = :communicationType")
     List<ConnectionEvent> findAssociatedEvents(@Bind("eventDirection") Direction eventDirection,
                                                @Bind("connectionIdentifier") String connectionIdentifier,
                                                @Bind("communicationType") String communicationType);
 
-    @SqlQuery("select distinct(service_name) from connection_events")
+    /**
+     * Find every event together with each of its associated events, i.e. the events with the same connection
+     * identifier and communication type, but the opposite direction. Events without associated events are returned
+     * once, paired with a synthetic event of {@link ConnectionEvent#UNKNOWN_SERVICE}.
+     *
+     * @return the pairs of all events
+     */
+    @SqlQuery(SELECT_EVENT_PAIRS)
+    @RegisterRowMapper(ConnectionEventPairMapper.class)
+    List<ConnectionEventPair> findAllEventPairs();
+
+    /**
+     * Same as {@link #findAllEventPairs()}, but only for the events of the given service.
+     *
+     * @param serviceName the service name
+     * @return the pairs of the events of the service
+     */
+    @SqlQuery(SELECT_EVENT_PAIRS + "where s.service_name = :serviceName")
+    @RegisterRowMapper(ConnectionEventPairMapper.class)
+    List<ConnectionEventPair> findEventPairsByServiceName(@Bind("serviceName") String serviceName);
+
+    /**
+     * Same as {@link #findAllEventPairs()}, but only for events alive in the given window, each paired with its
+     * associated events alive in the same window.
+     *
+     * @param from the start of the window (inclusive)
+     * @param to   the end of the window (inclusive)
+     * @return the pairs of the events alive in the window
+     */
+    @SqlQuery(SELECT_EVENT_PAIRS_OBSERVED_BETWEEN)
+    @RegisterRowMapper(ConnectionEventPairMapper.class)
+    List<ConnectionEventPair> findEventPairsObservedBetween(@Bind("from") long from, @Bind("to") long to);
+
+    /**
+     * Same as {@link #findEventPairsObservedBetween(long, long)}, but only for the events of the given service.
+     */
+    @SqlQuery(SELECT_EVENT_PAIRS_OBSERVED_BETWEEN + "and s.service_name = :serviceName")
+    @RegisterRowMapper(ConnectionEventPairMapper.class)
+    List<ConnectionEventPair> findEventPairsByServiceNameObservedBetween(@Bind("serviceName") String serviceName,
+                                                                        @Bind("from") long from,
+                                                                        @Bind("to") long to);
+
+    @SqlQuery(SELECT_EVENT_PAIRS_OBSERVED_IN_EITHER_WINDOW)
+    @RegisterRowMapper(WindowedEventPairMapper.class)
+    Stream<WindowedEventPair> streamEventPairsObservedInEitherWindow(@Bind("beforeFrom") long beforeFrom,
+                                                                     @Bind("beforeTo") long beforeTo,
+                                                                     @Bind("afterFrom") long afterFrom,
+                                                                     @Bind("afterTo") long afterTo,
+                                                                     @FetchSize int fetchSize);
+
+    /**
+     * Pass every pair of associated events that was alive in either of the given windows to the given action, in
+     * order of the service names on both sides, without holding all of them in memory.
+     * <p>
+     * This runs in a transaction for the same reason as {@link #forEachEventOfService}.
+     *
+     * @param before    the first window
+     * @param after     the second window
+     * @param fetchSize the number of rows to fetch from the database at a time
+     * @param action    the action to perform for each pair
+     */
+    @Transaction
+    default void forEachEventPairObservedInEitherWindow(ObservationWindow before,
+                                                        ObservationWindow after,
+                                                        int fetchSize,
+                                                        Consumer<WindowedEventPair> action) {
+        try (var pairs = streamEventPairsObservedInEitherWindow(before.getFrom(), before.getTo(),
+                after.getFrom(), after.getTo(), fetchSize)) {
+            pairs.forEach(action);
+        }
+    }
+
+    /**
+     * Find the identifiers that nothing was observed consuming, i.e. the outbound events and tracked identifiers
+     * without any inbound event with the same communication type and connection identifier, in a single statement.
+     *
+     * @return the unused identifiers, in order of service name
+     */
+    @SqlQuery(SELECT_UNUSED_OUTBOUND_EVENTS + "union all " + SELECT_UNUSED_TRACKED_IDENTIFIERS +
+            "order by service_name")
+    @RegisterRowMapper(ServiceUnusedIdentifierMapper.class)
+    List<ServiceUnusedIdentifier> findUnusedIdentifiers();
+
+    /**
+     * Same as {@link #findUnusedIdentifiers()}, but only for the given service.
+     */
+    @SqlQuery(SELECT_UNUSED_OUTBOUND_EVENTS + "and s.service_name = :serviceName " +
+            "union all " + SELECT_UNUSED_TRACKED_IDENTIFIERS + "and c.service_name = :serviceName")
+    @RegisterRowMapper(ServiceUnusedIdentifierMapper.class)
+    List<ServiceUnusedIdentifier> findUnusedIdentifiersByServiceName(@Bind("serviceName") String serviceName);
+
+    /**
+     * Count the events of every service per direction and communication type.
+     *
+     * @return the counts, ordered by service name
+     */
+    @SqlQuery("select s.service_name, " +
+            "case e.event_direction when 1 then 'INBOUND' when 2 then 'OUTBOUND' end as event_direction, " +
+            "t.communication_type, count(*) as event_count " +
+            "from connection_event_facts e " +
+            "join services s on s.id = e.service_id " +
+            "join communication_types t on t.id = e.communication_type_id " +
+            "group by s.service_name, e.event_direction, t.communication_type " +
+            "order by s.service_name")
+    @RegisterRowMapper(ServiceEventCountMapper.class)
+    List<ServiceEventCount> countEventsByServiceDirectionAndCommunicationType();
+
+    /**
+     * Same as {@link #countEventsByServiceDirectionAndCommunicationType()}, but only counts the events that were alive
+     * between {@code from} and {@code to} (inclusive).
+     */
+    @SqlQuery("select s.service_name, " +
+            "case e.event_direction when 1 then 'INBOUND' when 2 then 'OUTBOUND' end as event_direction, " +
+            "t.communication_type, count(*) as event_count " +
+            "from connection_event_facts e " +
+            "join services s on s.id = e.service_id " +
+            "join communication_types t on t.id = e.communication_type_id " +
+            "where " + EVENT_ALIVE_BETWEEN + " " +
+            "group by s.service_name, e.event_direction, t.communication_type " +
+            "order by s.service_name")
+    @RegisterRowMapper(ServiceEventCountMapper.class)
+    List<ServiceEventCount> countEventsByServiceDirectionAndCommunicationType(@Bind("from") long from,
+                                                                              @Bind("to") long to);
+
+    @SqlQuery("select s.service_name from services s " +
+            "where exists (select 1 from connection_event_facts e where e.service_id = s.id)")
     List<String> findAllServiceNames();
 
-    @SqlUpdate("delete from connection_events where observed_at < :expiresAt")
+    @SqlQuery("select distinct s.service_name from connection_event_facts e " +
+            "join services s on s.id = e.service_id " +
+            "where " + EVENT_ALIVE_BETWEEN)
+    List<String> findServiceNamesObservedBetween(@Bind("from") long from, @Bind("to") long to);
+
+    @SqlUpdate("delete from connection_event_facts where observed_at < :expiresAt")
     int deleteExpiredEvents(@Bind("expiresAt") long expiresAt);
 
-    @SqlQuery("select * from connection_events " +
-            "where service_name = :serviceName and event_direction = :eventDirection and " +
-            "communication_type = :communicationType and connection_identifier = :connectionIdentifier")
-    List<ConnectionEvent> findEventsByExample(@BindBean ConnectionEvent connection);
+    @SqlQuery(SELECT_EVENTS + "where i.connection_identifier = :connectionIdentifier")
+    List<ConnectionEvent> findEventsByConnectionIdentifier(@Bind("connectionIdentifier") String connectionIdentifier);
 
-    @SqlUpdate("update connection_events set observed_at = :newTimestamp " +
-            "where service_name = :serviceName and event_direction = :eventDirection and " +
-            "communication_type = :communicationType and connection_identifier = :connectionIdentifier")
-    void updateObservedAt(@BindBean ConnectionEvent connection, @Bind("newTimestamp") Long newTimestamp);
+    @SqlQuery(SELECT_EVENTS + "where i.connection_identifier = :connectionIdentifier and " + AFTER_POSITION)
+    Stream<ConnectionEvent> streamEventsByConnectionIdentifier(@Bind("connectionIdentifier") String connectionIdentifier,
+                                                               @Bind("observedAt") long observedAt,
+                                                               @Bind("id") long id,
+                                                               @Bind("limit") int limit,
+                                                               @FetchSize int fetchSize);
 
-    @SqlQuery("select * from connection_events where connection_identifier = :connectionIdentifier")
-    List<ConnectionEvent> findEventsByConnectionIdentifier(@Bind("connectionIdentifier") String connectionIdentifier);
     /**
-     * Utility to create or update a connection event.  Using this method over native insert or update (mysql) or
-     * update on conflict (postgres) to keep the system DB agnostic.
+     * Pass the events of the given service after the given position to the given action, in order of observed time
+     * and id, without holding all of them in memory.
+     * <p>
+     * This runs in a transaction, since some drivers, e.g. PostgreSQL, only fetch rows in batches of the
+     * fetch size within a transaction.
      *
-     * @param event The connection event to insert or update
+     * @param serviceName the service name
+     * @param cursor      the position to start after
+     * @param limit       the maximum number of events
+     * @param fetchSize   the number of rows to fetch from the database at a time
+     * @param action      the action to perform for each event
      */
-    default void createOrUpdate(final ConnectionEvent event) {
-        if (findEventsByExample(event).isEmpty()) {
-            insertConnection(event);
-        } else {
-            updateObservedAt(event, System.currentTimeMillis());
+    @Transaction
+    default void forEachEventOfService(String serviceName,
+                                       EventCursor cursor,
+                                       int limit,
+                                       int fetchSize,
+                                       Consumer<ConnectionEvent> action) {
+        try (var events = streamEventsByServiceName(serviceName, cursor.getObservedAt(), cursor.getId(), limit, fetchSize)) {
+            events.forEach(action);
+        }
+    }
+
+    /**
+     * Same as {@link #forEachEventOfService(String, EventCursor, int, int, Consumer)}, but for the events with the
+     * given connection identifier.
+     */
+    @Transaction
+    default void forEachEventWithConnectionIdentifier(String connectionIdentifier,
+                                                      EventCursor cursor,
+                                                      int limit,
+                                                      int fetchSize,
+                                                      Consumer<ConnectionEvent> action) {
+        try (var events = streamEventsByConnectionIdentifier(connectionIdentifier, cursor.getObservedAt(), cursor.getId(),
+                limit, fetchSize)) {
+            events.forEach(action);
+        }
+    }
+
+    @SqlQuery("select id from services where service_name = :serviceName")
+    Optional<Integer> findServiceId(@Bind("serviceName") String serviceName);
+
+    @SqlUpdate("insert into services (service_name) values (:serviceName)")
+    @GetGeneratedKeys("id")
+    int insertService(@Bind("serviceName") String serviceName);
+
+    @SqlQuery("select id from communication_types where communication_type = :communicationType")
+    Optional<Integer> findCommunicationTypeId(@Bind("communicationType") String communicationType);
+
+    @SqlUpdate("insert into communication_types (communication_type) values (:communicationType)")
+    @GetGeneratedKeys("id")
+    int insertCommunicationType(@Bind("communicationType") String communicationType);
+
+    @SqlQuery("select id from connection_identifiers where connection_identifier = :connectionIdentifier")
+    Optional<Integer> findConnectionIdentifierId(@Bind("connectionIdentifier") String connectionIdentifier);
+
+    @SqlUpdate("insert into connection_identifiers (connection_identifier) values (:connectionIdentifier)")
+    @GetGeneratedKeys("id")
+    int insertConnectionIdentifier(@Bind("connectionIdentifier") String connectionIdentifier);
+
+    /**
+     * Utility to create or update a batch of connection event facts within a single transaction. All facts are first
+     * updated in one batch, and then only the facts that did not match an existing row are inserted in a second
+     * batch. This costs two round trips per batch instead of two per event.
+     * <p>
+     * Some drivers (e.g. Oracle, or MySQL when rewriting batched statements) report
+     * {@link Statement#SUCCESS_NO_INFO} instead of the number of updated rows. The update is repeated for each of
+     * those facts on its own to find out whether it matched a row, which is harmless since it never moves the observed
+     * times the wrong way.
+     *
+     * @param facts The connection event facts to insert or update; these are expected to be distinct by service,
+     *              direction, communication type, and connection identifier
+     */
+    @Transaction
+    default void createOrUpdateFacts(final List<ConnectionEventFact> facts) {
+        if (facts.isEmpty()) {
+            return;
+        }
+
+        var updateCounts = updateObservedAt(facts);
+
+        var newFacts = new ArrayList<ConnectionEventFact>();
+        for (var index = 0; index < facts.size(); index++) {
+            var fact = facts.get(index);
+            var updateCount = updateCounts[index] == Statement.SUCCESS_NO_INFO
+                    ? updateObservedAt(fact)
+                    : updateCounts[index];
+
+            if (updateCount == 0) {
+                newFacts.add(fact);
+            }
+        }
+
+        if (!newFacts.isEmpty()) {
+            insertFacts(newFacts);
         }
     }
 
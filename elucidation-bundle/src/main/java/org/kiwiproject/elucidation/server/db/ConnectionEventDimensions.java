@@ -0,0 +1,93 @@
+package org.kiwiproject.elucidation.server.db;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.jdbi.v3.core.statement.UnableToExecuteStatementException;
+import org.kiwiproject.elucidation.common.model.ConnectionEvent;
+
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Resolves the service names, communication types, and connection identifiers of {@link ConnectionEvent}s to the ids
+ * of their rows in the dimension tables, creating rows as needed.
+ * <p>
+ * Resolved ids are cached, since the same few services and connections are reported over and over again, and
+ * dimension rows are never updated or deleted, so a cached id never goes stale.
+ */
+public class ConnectionEventDimensions {
+
+    @VisibleForTesting
+    static final long DEFAULT_MAX_CACHED_IDS = 100_000;
+
+    private final Dimension services;
+    private final Dimension communicationTypes;
+    private final Dimension connectionIdentifiers;
+
+    public ConnectionEventDimensions(ConnectionEventDao dao) {
+        this(dao, DEFAULT_MAX_CACHED_IDS);
+    }
+
+    /**
+     * @param dao          the DAO used to look up and create dimension rows
+     * @param maxCachedIds the maximum number of ids to cache for each dimension
+     */
+    public ConnectionEventDimensions(ConnectionEventDao dao, long maxCachedIds) {
+        this.services = new Dimension(dao::findServiceId, dao::insertService, maxCachedIds);
+        this.communicationTypes = new Dimension(dao::findCommunicationTypeId, dao::insertCommunicationType, maxCachedIds);
+        this.connectionIdentifiers = new Dimension(dao::findConnectionIdentifierId, dao::insertConnectionIdentifier, maxCachedIds);
+    }
+
+    /**
+     * Resolve the dimension ids of the given event.
+     *
+     * @param event the connection event
+     * @return the fact to store for the event
+     */
+    public ConnectionEventFact toFact(ConnectionEvent event) {
+        return ConnectionEventFact.builder()
+                .serviceId(services.idOf(event.getServiceName()))
+                .eventDirection(event.getEventDirection())
+                .communicationTypeId(communicationTypes.idOf(event.getCommunicationType()))
+                .connectionIdentifierId(connectionIdentifiers.idOf(event.getConnectionIdentifier()))
+                .observedAt(event.getObservedAt())
+                .build();
+    }
+
+    private static class Dimension {
+
+        private final Function<String, Optional<Integer>> finder;
+        private final ToIntFunction<String> inserter;
+        private final Cache<String, Integer> ids;
+
+        Dimension(Function<String, Optional<Integer>> finder, ToIntFunction<String> inserter, long maxCachedIds) {
+            this.finder = finder;
+            this.inserter = inserter;
+            this.ids = CacheBuilder.newBuilder().maximumSize(maxCachedIds).build();
+        }
+
+        int idOf(String value) {
+            var cachedId = ids.getIfPresent(value);
+            if (cachedId != null) {
+                return cachedId;
+            }
+
+            var id = finder.apply(value).orElseGet(() -> insert(value));
+            ids.put(value, id);
+            return id;
+        }
+
+        /**
+         * Insert a new row, falling back to the row a concurrent writer inserted first, if any.
+         */
+        private int insert(String value) {
+            try {
+                return inserter.applyAsInt(value);
+            } catch (UnableToExecuteStatementException e) {
+                return finder.apply(value).orElseThrow(() -> e);
+            }
+        }
+    }
+}
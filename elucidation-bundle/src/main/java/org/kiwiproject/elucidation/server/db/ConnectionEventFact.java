@@ -0,0 +1,23 @@
+package org.kiwiproject.elucidation.server.db;
+
+import lombok.Builder;
+import lombok.Value;
+import org.kiwiproject.elucidation.common.model.Direction;
+
+/**
+ * A connection event as it is stored in {@code connection_event_facts}, i.e. with the ids of its service,
+ * communication type, and connection identifier instead of their names.
+ *
+ * @see ConnectionEventDimensions
+ */
+@Value
+@Builder
+public class ConnectionEventFact {
+
+    int serviceId;
+    Direction eventDirection;
+    int communicationTypeId;
+    int connectionIdentifierId;
+    long observedAt;
+
+}
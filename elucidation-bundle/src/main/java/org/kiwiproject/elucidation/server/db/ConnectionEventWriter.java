@@ -0,0 +1,28 @@
+package org.kiwiproject.elucidation.server.db;
+
+import org.kiwiproject.elucidation.common.model.ConnectionEvent;
+
+import java.util.List;
+
+/**
+ * Strategy for persisting {@link ConnectionEvent}s, i.e. inserting an event the first time its connection is observed
+ * and moving its {@code observedAt} forward on every later observation.
+ *
+ * @see SqlDialect#newConnectionEventWriter(org.jdbi.v3.core.Jdbi, ConnectionEventDao)
+ */
+public interface ConnectionEventWriter {
+
+    /**
+     * Create or update a single connection event.
+     *
+     * @param event the event to write
+     */
+    void write(ConnectionEvent event);
+
+    /**
+     * Create or update a batch of connection events in a single transaction.
+     *
+     * @param events the events to write, which are expected to be distinct by their natural key
+     */
+    void writeAll(List<ConnectionEvent> events);
+}
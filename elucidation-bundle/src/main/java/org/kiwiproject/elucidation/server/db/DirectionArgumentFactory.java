@@ -0,0 +1,30 @@
+package org.kiwiproject.elucidation.server.db;
+
+import org.jdbi.v3.core.argument.AbstractArgumentFactory;
+import org.jdbi.v3.core.argument.Argument;
+import org.jdbi.v3.core.config.ConfigRegistry;
+import org.kiwiproject.elucidation.common.model.Direction;
+
+import java.sql.Types;
+
+/**
+ * Binds a {@link Direction} as the small integer stored in {@code connection_event_facts.event_direction}.
+ */
+public class DirectionArgumentFactory extends AbstractArgumentFactory<Direction> {
+
+    public static final short INBOUND_CODE = 1;
+    public static final short OUTBOUND_CODE = 2;
+
+    public DirectionArgumentFactory() {
+        super(Types.SMALLINT);
+    }
+
+    @Override
+    protected Argument build(Direction value, ConfigRegistry config) {
+        return (position, statement, ctx) -> statement.setShort(position, toCode(value));
+    }
+
+    public static short toCode(Direction direction) {
+        return direction == Direction.INBOUND ? INBOUND_CODE : OUTBOUND_CODE;
+    }
+}
@@ -0,0 +1,57 @@
+package org.kiwiproject.elucidation.server.db;
+
+import org.jdbi.v3.sqlobject.config.RegisterRowMapper;
+import org.jdbi.v3.sqlobject.customizer.Bind;
+import org.jdbi.v3.sqlobject.customizer.BindBean;
+import org.jdbi.v3.sqlobject.customizer.BindList;
+import org.jdbi.v3.sqlobject.statement.SqlQuery;
+import org.jdbi.v3.sqlobject.statement.SqlUpdate;
+import org.jdbi.v3.sqlobject.transaction.Transaction;
+import org.kiwiproject.elucidation.common.model.ConnectionEvent;
+import org.kiwiproject.elucidation.server.db.mapper.ConnectionEventMapper;
+
+import java.util.List;
+
+/**
+ * Finds and merges duplicate connection events in the {@code connection_events} table as it was before the unique
+ * natural-key index was added (changeset 3), so that large tables can be compacted ahead of that migration. This relies
+ * on that original layout, e.g. the event direction stored as its name.
+ * <p>
+ * Once all migrations have run, {@code connection_events} is a view over {@code connection_event_facts}, whose unique
+ * natural-key index prevents duplicates, so {@link #findDuplicatedEvents(int)} always returns an empty list.
+ */
+@RegisterRowMapper(value = ConnectionEventMapper.class)
+public interface DuplicateConnectionEventDao {
+
+    @SqlQuery("select min(id) as id, service_name, event_direction, communication_type, connection_identifier, " +
+            "max(observed_at) as observed_at from connection_events " +
+            "group by service_name, event_direction, communication_type, connection_identifier " +
+            "having count(*) > 1 " +
+            "limit :limit")
+    List<ConnectionEvent> findDuplicatedEvents(@Bind("limit") int limit);
+
+    @SqlQuery("select id from connection_events " +
+            "where service_name = :serviceName and event_direction = :eventDirection and " +
+            "communication_type = :communicationType and connection_identifier = :connectionIdentifier " +
+            "order by observed_at desc, id desc")
+    List<Long> findIdsByExample(@BindBean ConnectionEvent connection);
+
+    @SqlUpdate("delete from connection_events where id in (<ids>)")
+    int deleteEventsById(@BindList("ids") List<Long> ids);
+
+    /**
+     * Utility to merge the duplicates of the given events within a single transaction. For each event, only the row
+     * with the latest {@code observed_at} is kept.
+     *
+     * @param duplicatedEvents events whose natural key matches more than one row, e.g. from {@link #findDuplicatedEvents(int)}
+     * @return the number of rows that were deleted
+     */
+    @Transaction
+    default int mergeDuplicates(final List<ConnectionEvent> duplicatedEvents) {
+        return duplicatedEvents.stream()
+                .map(this::findIdsByExample)
+                .filter(ids -> ids.size() > 1)
+                .mapToInt(ids -> deleteEventsById(ids.subList(1, ids.size())))
+                .sum();
+    }
+}
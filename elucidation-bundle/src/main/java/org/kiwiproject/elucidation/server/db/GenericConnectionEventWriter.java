@@ -0,0 +1,59 @@
+package org.kiwiproject.elucidation.server.db;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jdbi.v3.core.statement.UnableToExecuteStatementException;
+import org.kiwiproject.elucidation.common.model.ConnectionEvent;
+
+import java.util.List;
+
+/**
+ * A {@link ConnectionEventWriter} that only relies on portable SQL by looking up existing events before deciding
+ * whether to insert or update them.
+ *
+ * @implNote This costs more than one statement per event, so it is only used for databases without a native upsert
+ * in {@link SqlDialect}. Dimension ids are resolved before the transaction that writes the facts starts. When a
+ * concurrent writer inserts the same connection first, the unique natural-key index rejects our insert and the write
+ * is retried, which then finds and updates the existing row.
+ */
+@Slf4j
+public class GenericConnectionEventWriter implements ConnectionEventWriter {
+
+    private final ConnectionEventDao dao;
+    private final ConnectionEventDimensions dimensions;
+
+    public GenericConnectionEventWriter(ConnectionEventDao dao) {
+        this(dao, new ConnectionEventDimensions(dao));
+    }
+
+    public GenericConnectionEventWriter(ConnectionEventDao dao, ConnectionEventDimensions dimensions) {
+        this.dao = dao;
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    public void write(ConnectionEvent event) {
+        writeFacts(List.of(dimensions.toFact(event)));
+    }
+
+    @Override
+    public void writeAll(List<ConnectionEvent> events) {
+        writeFacts(events.stream().map(dimensions::toFact).toList());
+    }
+
+    private void writeFacts(List<ConnectionEventFact> facts) {
+        try {
+            dao.createOrUpdateFacts(facts);
+        } catch (UnableToExecuteStatementException e) {
+            retryIfLostInsertRace(e);
+            dao.createOrUpdateFacts(facts);
+        }
+    }
+
+    private static void retryIfLostInsertRace(UnableToExecuteStatementException e) {
+        if (!SqlStates.isIntegrityConstraintViolation(e)) {
+            throw e;
+        }
+
+        LOG.debug("Lost an insert race with a concurrent writer; retrying", e);
+    }
+}
@@ -0,0 +1,37 @@
+package org.kiwiproject.elucidation.server.db;
+
+import org.kiwiproject.elucidation.common.model.ConnectionEvent;
+import org.kiwiproject.elucidation.server.graph.ConnectionGraphIndex;
+
+import java.util.List;
+
+/**
+ * A {@link ConnectionEventWriter} that adds events to a {@link ConnectionGraphIndex} once they have been written by
+ * its delegate.
+ * <p>
+ * This should be wrapped by a {@link VersionTrackingConnectionEventWriter}, so that the graph version only changes
+ * once events are both committed and indexed. Otherwise, a reader could compute a result from the index before it
+ * contains the new events and cache it under the new version.
+ */
+public class IndexingConnectionEventWriter implements ConnectionEventWriter {
+
+    private final ConnectionEventWriter delegate;
+    private final ConnectionGraphIndex graphIndex;
+
+    public IndexingConnectionEventWriter(ConnectionEventWriter delegate, ConnectionGraphIndex graphIndex) {
+        this.delegate = delegate;
+        this.graphIndex = graphIndex;
+    }
+
+    @Override
+    public void write(ConnectionEvent event) {
+        delegate.write(event);
+        graphIndex.add(event);
+    }
+
+    @Override
+    public void writeAll(List<ConnectionEvent> events) {
+        delegate.writeAll(events);
+        graphIndex.addAll(events);
+    }
+}
@@ -0,0 +1,13 @@
+package org.kiwiproject.elucidation.server.db;
+
+/**
+ * Thrown when an event cannot be accepted because the asynchronous ingest queue is full.
+ *
+ * @see AsyncConnectionEventWriter
+ */
+public class IngestQueueFullException extends RuntimeException {
+
+    public IngestQueueFullException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
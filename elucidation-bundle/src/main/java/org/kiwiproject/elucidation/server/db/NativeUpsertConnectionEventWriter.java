@@ -0,0 +1,50 @@
+package org.kiwiproject.elucidation.server.db;
+
+import org.jdbi.v3.core.Jdbi;
+import org.kiwiproject.elucidation.common.model.ConnectionEvent;
+
+import java.util.List;
+
+/**
+ * A {@link ConnectionEventWriter} that writes each event with a single, database-specific upsert statement, once the
+ * event's dimension ids have been resolved.
+ *
+ * @see SqlDialect
+ */
+public class NativeUpsertConnectionEventWriter implements ConnectionEventWriter {
+
+    private final Jdbi jdbi;
+    private final String upsertSql;
+    private final ConnectionEventDimensions dimensions;
+
+    public NativeUpsertConnectionEventWriter(Jdbi jdbi, String upsertSql, ConnectionEventDimensions dimensions) {
+        this.jdbi = jdbi;
+        this.upsertSql = upsertSql;
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    public void write(ConnectionEvent event) {
+        var fact = dimensions.toFact(event);
+
+        jdbi.useHandle(handle -> handle.createUpdate(upsertSql)
+                .registerArgument(new DirectionArgumentFactory())
+                .bindBean(fact)
+                .execute());
+    }
+
+    @Override
+    public void writeAll(List<ConnectionEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        var facts = events.stream().map(dimensions::toFact).toList();
+
+        jdbi.useTransaction(handle -> {
+            var batch = handle.prepareBatch(upsertSql).registerArgument(new DirectionArgumentFactory());
+            facts.forEach(fact -> batch.bindBean(fact).add());
+            batch.execute();
+        });
+    }
+}
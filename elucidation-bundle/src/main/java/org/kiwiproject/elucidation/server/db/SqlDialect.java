@@ -0,0 +1,109 @@
+package org.kiwiproject.elucidation.server.db;
+
+import static java.util.Objects.isNull;
+
+import org.jdbi.v3.core.Jdbi;
+
+import java.util.Locale;
+
+/**
+ * The SQL dialects for which elucidation knows how to write a {@link org.kiwiproject.elucidation.common.model.ConnectionEvent}
+ * using a single native upsert statement.
+ * <p>
+ * All native upserts rely on the unique index over the natural key of {@code connection_event_facts}, and they never
+ * move {@code observed_at} backwards (nor {@code first_observed_at} forwards), so that replayed or polled events keep
+ * their real timestamps. MySQL evaluates assignments in order, so {@code first_observed_at} is updated first. They
+ * bind a {@link ConnectionEventFact}, so the dimension ids of an event must be resolved first.
+ */
+public enum SqlDialect {
+
+    POSTGRES("""
+            insert into connection_event_facts \
+            (service_id, event_direction, communication_type_id, connection_identifier_id, observed_at, \
+            first_observed_at) \
+            values (:serviceId, :eventDirection, :communicationTypeId, :connectionIdentifierId, :observedAt, \
+            :observedAt) \
+            on conflict (service_id, event_direction, communication_type_id, connection_identifier_id) \
+            do update set observed_at = greatest(connection_event_facts.observed_at, excluded.observed_at), \
+            first_observed_at = least(coalesce(connection_event_facts.first_observed_at, \
+            connection_event_facts.observed_at), excluded.observed_at)"""),
+
+    H2("""
+            merge into connection_event_facts e \
+            using (select cast(:serviceId as int) as service_id, \
+            cast(:eventDirection as smallint) as event_direction, \
+            cast(:communicationTypeId as int) as communication_type_id, \
+            cast(:connectionIdentifierId as int) as connection_identifier_id, \
+            cast(:observedAt as bigint) as observed_at) v \
+            on e.service_id = v.service_id and e.event_direction = v.event_direction and \
+            e.communication_type_id = v.communication_type_id and e.connection_identifier_id = v.connection_identifier_id \
+            when matched then update set observed_at = greatest(e.observed_at, v.observed_at), \
+            first_observed_at = least(coalesce(e.first_observed_at, e.observed_at), v.observed_at) \
+            when not matched then insert \
+            (service_id, event_direction, communication_type_id, connection_identifier_id, observed_at, \
+            first_observed_at) \
+            values (v.service_id, v.event_direction, v.communication_type_id, v.connection_identifier_id, \
+            v.observed_at, v.observed_at)"""),
+
+    MYSQL("""
+            insert into connection_event_facts \
+            (service_id, event_direction, communication_type_id, connection_identifier_id, observed_at, \
+            first_observed_at) \
+            values (:serviceId, :eventDirection, :communicationTypeId, :connectionIdentifierId, :observedAt, \
+            :observedAt) \
+            on duplicate key update \
+            first_observed_at = least(coalesce(first_observed_at, observed_at), values(observed_at)), \
+            observed_at = greatest(observed_at, values(observed_at))"""),
+
+    /**
+     * Fallback for any other database, which looks up existing events before inserting or updating them.
+     */
+    GENERIC(null);
+
+    private final String upsertSql;
+
+    SqlDialect(String upsertSql) {
+        this.upsertSql = upsertSql;
+    }
+
+    /**
+     * Create the {@link ConnectionEventWriter} to use for this dialect.
+     *
+     * @param jdbi the Jdbi instance used for native upserts
+     * @param dao  the DAO used to resolve dimension ids, and to write events in the generic fallback
+     * @return a new writer
+     */
+    public ConnectionEventWriter newConnectionEventWriter(Jdbi jdbi, ConnectionEventDao dao) {
+        var dimensions = new ConnectionEventDimensions(dao);
+
+        if (isNull(upsertSql)) {
+            return new GenericConnectionEventWriter(dao, dimensions);
+        }
+
+        return new NativeUpsertConnectionEventWriter(jdbi, upsertSql, dimensions);
+    }
+
+    /**
+     * Determine the dialect from a JDBC URL, falling back to {@link #GENERIC} for unknown or missing URLs.
+     *
+     * @param jdbcUrl the JDBC URL of the data source, e.g. {@code jdbc:postgresql://localhost/elucidation}
+     * @return the matching dialect
+     */
+    public static SqlDialect fromJdbcUrl(String jdbcUrl) {
+        if (isNull(jdbcUrl)) {
+            return GENERIC;
+        }
+
+        var url = jdbcUrl.toLowerCase(Locale.ENGLISH);
+
+        if (url.startsWith("jdbc:postgresql:")) {
+            return POSTGRES;
+        } else if (url.startsWith("jdbc:h2:")) {
+            return H2;
+        } else if (url.startsWith("jdbc:mysql:") || url.startsWith("jdbc:mariadb:")) {
+            return MYSQL;
+        }
+
+        return GENERIC;
+    }
+}
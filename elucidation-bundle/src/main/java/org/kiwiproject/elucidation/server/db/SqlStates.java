@@ -0,0 +1,30 @@
+package org.kiwiproject.elucidation.server.db;
+
+import static java.util.Objects.nonNull;
+
+import org.jdbi.v3.core.statement.UnableToExecuteStatementException;
+
+import java.sql.SQLException;
+
+/**
+ * Classifies database errors by their SQLState, which is portable across databases.
+ */
+public final class SqlStates {
+
+    private static final String INTEGRITY_CONSTRAINT_VIOLATION_CLASS = "23";
+
+    private SqlStates() {
+        // utility class
+    }
+
+    /**
+     * @param e the exception thrown by a statement
+     * @return true if the statement violated an integrity constraint, e.g. a unique index, because a concurrent
+     * transaction inserted the same row first
+     */
+    public static boolean isIntegrityConstraintViolation(UnableToExecuteStatementException e) {
+        return e.getCause() instanceof SQLException sqlException
+                && nonNull(sqlException.getSQLState())
+                && sqlException.getSQLState().startsWith(INTEGRITY_CONSTRAINT_VIOLATION_CLASS);
+    }
+}
@@ -1,15 +1,24 @@
 package org.kiwiproject.elucidation.server.db;
 
+import com.google.common.collect.Sets;
 import org.kiwiproject.elucidation.common.model.TrackedConnectionIdentifier;
+import org.kiwiproject.elucidation.server.core.TrackedConnectionIdentifiers;
 import org.kiwiproject.elucidation.server.db.mapper.TrackedConnectionIdentifierMapper;
 import org.jdbi.v3.sqlobject.config.RegisterRowMapper;
 import org.jdbi.v3.sqlobject.customizer.Bind;
 import org.jdbi.v3.sqlobject.customizer.BindBean;
+import org.jdbi.v3.sqlobject.customizer.FetchSize;
 import org.jdbi.v3.sqlobject.statement.GetGeneratedKeys;
+import org.jdbi.v3.sqlobject.statement.SqlBatch;
 import org.jdbi.v3.sqlobject.statement.SqlQuery;
 import org.jdbi.v3.sqlobject.statement.SqlUpdate;
+import org.jdbi.v3.sqlobject.transaction.Transaction;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @RegisterRowMapper(value = TrackedConnectionIdentifierMapper.class)
 public interface TrackedConnectionIdentifierDao {
@@ -20,12 +29,93 @@ public interface TrackedConnectionIdentifierDao {
     @GetGeneratedKeys("id")
     long insertIdentifier(@BindBean TrackedConnectionIdentifier identifier);
 
+    @SqlBatch("insert into tracked_connection_identifiers " +
+            "(service_name, communication_type, connection_identifier) " +
+            "values (:serviceName, :communicationType, :connectionIdentifier)")
+    void insertIdentifiers(@Bind("serviceName") String serviceName,
+                           @Bind("communicationType") String communicationType,
+                           @Bind("connectionIdentifier") Collection<String> connectionIdentifiers);
+
+    @SqlBatch("delete from tracked_connection_identifiers where service_name = :serviceName " +
+            "and communication_type = :communicationType and connection_identifier = :connectionIdentifier")
+    void deleteIdentifiers(@Bind("serviceName") String serviceName,
+                           @Bind("communicationType") String communicationType,
+                           @Bind("connectionIdentifier") Collection<String> connectionIdentifiers);
+
+    @SqlQuery("select connection_identifier from tracked_connection_identifiers " +
+            "where service_name = :serviceName and communication_type = :communicationType")
+    Set<String> findConnectionIdentifiers(@Bind("serviceName") String serviceName,
+                                          @Bind("communicationType") String communicationType);
+
+    /**
+     * Make the given identifiers the tracked identifiers of the given service and communication type, by inserting
+     * only the identifiers that are not tracked yet and deleting only the ones that are not given anymore. This runs
+     * in a transaction, so readers never see a partially replaced set of identifiers.
+     *
+     * @return true if any identifiers were inserted or deleted
+     */
+    @Transaction
+    default boolean replaceIdentifiers(String serviceName,
+                                       String communicationType,
+                                       Set<String> connectionIdentifiers) {
+        var existing = findConnectionIdentifiers(serviceName, communicationType);
+
+        var added = Sets.difference(connectionIdentifiers, existing);
+        var removed = Sets.difference(existing, connectionIdentifiers);
+
+        if (!added.isEmpty()) {
+            insertIdentifiers(serviceName, communicationType, added);
+        }
+        if (!removed.isEmpty()) {
+            deleteIdentifiers(serviceName, communicationType, removed);
+        }
+
+        return !added.isEmpty() || !removed.isEmpty();
+    }
+
+    /**
+     * Same as {@link #replaceIdentifiers(String, String, Set)}, but for several services and communication types in
+     * a single transaction.
+     *
+     * @return true if any identifiers were inserted or deleted
+     */
+    @Transaction
+    default boolean replaceAllIdentifiers(List<TrackedConnectionIdentifiers> identifiers) {
+        var changed = false;
+
+        for (var tracked : identifiers) {
+            changed |= replaceIdentifiers(tracked.getServiceName(), tracked.getCommunicationType(),
+                    Set.copyOf(tracked.getConnectionIdentifiers()));
+        }
+
+        return changed;
+    }
+
     @SqlUpdate("delete from tracked_connection_identifiers where service_name = :serviceName and communication_type = :communicationType")
     int clearIdentifiersFor(@Bind("serviceName") String serviceName, @Bind("communicationType") String communicationType);
 
     @SqlQuery("select * from tracked_connection_identifiers")
     List<TrackedConnectionIdentifier> findIdentifiers();
 
+    @SqlQuery("select * from tracked_connection_identifiers where id > :afterId order by id limit :limit")
+    Stream<TrackedConnectionIdentifier> streamIdentifiers(@Bind("afterId") long afterId,
+                                                          @Bind("limit") int limit,
+                                                          @FetchSize int fetchSize);
+
+    /**
+     * Pass the identifiers with an id greater than the given one to the given action, in order of id, without holding
+     * all of them in memory.
+     * <p>
+     * This runs in a transaction, since some drivers, e.g. PostgreSQL, only fetch rows in batches of the
+     * fetch size within a transaction.
+     */
+    @Transaction
+    default void forEachIdentifier(long afterId, int limit, int fetchSize, Consumer<TrackedConnectionIdentifier> action) {
+        try (var identifiers = streamIdentifiers(afterId, limit, fetchSize)) {
+            identifiers.forEach(action);
+        }
+    }
+
     @SqlQuery("select distinct(service_name) from tracked_connection_identifiers")
     List<String> findAllServiceNames();
 
@@ -0,0 +1,36 @@
+package org.kiwiproject.elucidation.server.db;
+
+import org.kiwiproject.elucidation.common.model.ConnectionEvent;
+import org.kiwiproject.elucidation.server.service.GraphVersion;
+
+import java.util.List;
+
+/**
+ * A {@link ConnectionEventWriter} that updates a {@link GraphVersion} once events have been written by its delegate.
+ * <p>
+ * This should wrap the writer that writes to the database directly, i.e. it should be wrapped by any asynchronous or
+ * write-behind writer, so that the version only changes once events are committed. When a graph index is used, this
+ * should also wrap the {@link IndexingConnectionEventWriter}, so that the version only changes once events are indexed.
+ */
+public class VersionTrackingConnectionEventWriter implements ConnectionEventWriter {
+
+    private final ConnectionEventWriter delegate;
+    private final GraphVersion graphVersion;
+
+    public VersionTrackingConnectionEventWriter(ConnectionEventWriter delegate, GraphVersion graphVersion) {
+        this.delegate = delegate;
+        this.graphVersion = graphVersion;
+    }
+
+    @Override
+    public void write(ConnectionEvent event) {
+        delegate.write(event);
+        graphVersion.eventsRecorded(List.of(event));
+    }
+
+    @Override
+    public void writeAll(List<ConnectionEvent> events) {
+        delegate.writeAll(events);
+        graphVersion.eventsRecorded(events);
+    }
+}
@@ -0,0 +1,183 @@
+package org.kiwiproject.elucidation.server.db;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Comparator.comparingLong;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.Lists;
+import io.dropwizard.lifecycle.Managed;
+import lombok.extern.slf4j.Slf4j;
+import org.kiwiproject.elucidation.common.model.ConnectionEvent;
+import org.kiwiproject.elucidation.server.core.ConnectionEventKey;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BinaryOperator;
+
+/**
+ * A {@link ConnectionEventWriter} that buffers events in memory and writes them to a delegate writer in batches.
+ * <p>
+ * Buffered events are coalesced by their natural key (see {@link ConnectionEventKey}), keeping only the event that
+ * was observed last, so a connection that is observed many times between flushes is only written once. Events are
+ * flushed when {@link #flush()} is called, e.g. periodically by a scheduled executor, as soon as the number of
+ * buffered connections reaches {@code maxPendingEvents}, and when this writer is stopped.
+ * <p>
+ * The buffer never holds more than {@code maxBufferedEvents} distinct connections. Once it is full, e.g. because the
+ * database has been unavailable for several flushes, events for connections that are not already buffered are dropped.
+ * The following metrics are registered:
+ * <ul>
+ *     <li>{@code pending} - a gauge of the number of distinct connections waiting to be flushed</li>
+ *     <li>{@code dropped} - a meter of the events dropped because the buffer was full</li>
+ * </ul>
+ *
+ * @implNote Events that fail to be written are put back into the buffer and retried on the next flush, unless a
+ * newer observation of the same connection was buffered in the meantime, or the buffer is full. Until they are
+ * flushed, buffered events are not visible to readers of the database.
+ */
+@Slf4j
+public class WriteBehindConnectionEventWriter implements ConnectionEventWriter, Managed {
+
+    private static final BinaryOperator<ConnectionEvent> LATEST_OBSERVED =
+            BinaryOperator.maxBy(comparingLong(ConnectionEvent::getObservedAt));
+
+    private final ConnectionEventWriter delegate;
+    private final int maxPendingEvents;
+    private final int maxBufferedEvents;
+    private final int batchSize;
+    private final ConcurrentMap<ConnectionEventKey, ConnectionEvent> pendingEvents = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Meter droppedMeter;
+
+    public WriteBehindConnectionEventWriter(ConnectionEventWriter delegate,
+                                            int maxPendingEvents,
+                                            int maxBufferedEvents,
+                                            int batchSize,
+                                            MetricRegistry metrics) {
+        checkArgument(maxPendingEvents > 0, "maxPendingEvents must be greater than zero");
+        checkArgument(maxBufferedEvents >= maxPendingEvents,
+                "maxBufferedEvents must be greater than or equal to maxPendingEvents");
+        checkArgument(batchSize > 0, "batchSize must be greater than zero");
+
+        this.delegate = delegate;
+        this.maxPendingEvents = maxPendingEvents;
+        this.maxBufferedEvents = maxBufferedEvents;
+        this.batchSize = batchSize;
+
+        metrics.gauge(name(WriteBehindConnectionEventWriter.class, "pending"),
+                () -> (Gauge<Integer>) this::pendingCount);
+        this.droppedMeter = metrics.meter(name(WriteBehindConnectionEventWriter.class, "dropped"));
+    }
+
+    @Override
+    public void write(ConnectionEvent event) {
+        bufferAll(List.of(event));
+        flushIfFull();
+    }
+
+    @Override
+    public void writeAll(List<ConnectionEvent> events) {
+        bufferAll(events);
+        flushIfFull();
+    }
+
+    /**
+     * @return the number of distinct connections waiting to be flushed
+     */
+    public int pendingCount() {
+        return pendingEvents.size();
+    }
+
+    /**
+     * Write all buffered events to the delegate writer.
+     * <p>
+     * This never throws, so it is safe to schedule on an executor; failures are logged and the events are retried
+     * on the next flush.
+     *
+     * @return the number of events that were written
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            return flushPendingEvents();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void stop() {
+        var numFlushed = flush();
+        LOG.info("Flushed {} buffered connection events on stop; {} could not be written", numFlushed, pendingCount());
+    }
+
+    private void bufferAll(List<ConnectionEvent> events) {
+        var numDropped = events.stream().filter(event -> !buffer(event)).count();
+
+        if (numDropped > 0) {
+            droppedMeter.mark(numDropped);
+            LOG.warn("Write-behind buffer is full ({} connections); dropped {} connection event(s)",
+                    pendingCount(), numDropped);
+        }
+    }
+
+    private boolean buffer(ConnectionEvent event) {
+        var key = ConnectionEventKey.of(event);
+
+        // The size check is not atomic with the merge, so concurrent writers may overshoot the cap by a few entries
+        if (pendingEvents.size() >= maxBufferedEvents && !pendingEvents.containsKey(key)) {
+            return false;
+        }
+
+        pendingEvents.merge(key, event, LATEST_OBSERVED);
+        return true;
+    }
+
+    private void flushIfFull() {
+        if (pendingEvents.size() < maxPendingEvents || !flushLock.tryLock()) {
+            return;
+        }
+
+        try {
+            flushPendingEvents();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private int flushPendingEvents() {
+        var numFlushed = 0;
+
+        for (var batch : Lists.partition(drainPendingEvents(), batchSize)) {
+            try {
+                delegate.writeAll(batch);
+                numFlushed += batch.size();
+            } catch (Exception e) {
+                LOG.error("Error writing {} buffered connection events; they will be retried on the next flush",
+                        batch.size(), e);
+                bufferAll(batch);
+            }
+        }
+
+        LOG.debug("Flushed {} buffered connection events", numFlushed);
+        return numFlushed;
+    }
+
+    private List<ConnectionEvent> drainPendingEvents() {
+        var drained = new ArrayList<ConnectionEvent>(pendingEvents.size());
+
+        for (var key : pendingEvents.keySet()) {
+            var event = pendingEvents.remove(key);
+            if (event != null) {
+                drained.add(event);
+            }
+        }
+
+        return drained;
+    }
+}
@@ -0,0 +1,43 @@
+package org.kiwiproject.elucidation.server.db.mapper;
+
+import static java.util.Objects.isNull;
+
+import org.jdbi.v3.core.mapper.RowMapper;
+import org.jdbi.v3.core.statement.StatementContext;
+import org.kiwiproject.elucidation.common.model.ConnectionEvent;
+import org.kiwiproject.elucidation.server.core.ConnectionEventPair;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps an event and its associated event, whose service name, id, and observed time are expected in the
+ * {@code associated_service_name}, {@code associated_id}, and {@code associated_observed_at} columns. These are
+ * {@code null} when there is no associated event.
+ */
+public class ConnectionEventPairMapper implements RowMapper<ConnectionEventPair> {
+
+    private final ConnectionEventMapper eventMapper = new ConnectionEventMapper();
+
+    @Override
+    public ConnectionEventPair map(ResultSet rs, StatementContext ctx) throws SQLException {
+        var event = eventMapper.map(rs, ctx);
+        var associatedServiceName = rs.getString("associated_service_name");
+
+        var associatedEvent = ConnectionEvent.builder()
+                .eventDirection(event.getEventDirection().opposite())
+                .communicationType(event.getCommunicationType())
+                .connectionIdentifier(event.getConnectionIdentifier());
+
+        if (isNull(associatedServiceName)) {
+            associatedEvent.serviceName(ConnectionEvent.UNKNOWN_SERVICE)
+                    .observedAt(event.getObservedAt());
+        } else {
+            associatedEvent.id(rs.getLong("associated_id"))
+                    .serviceName(associatedServiceName)
+                    .observedAt(rs.getLong("associated_observed_at"));
+        }
+
+        return new ConnectionEventPair(event, associatedEvent.build());
+    }
+}
@@ -0,0 +1,21 @@
+package org.kiwiproject.elucidation.server.db.mapper;
+
+import org.jdbi.v3.core.mapper.RowMapper;
+import org.jdbi.v3.core.statement.StatementContext;
+import org.kiwiproject.elucidation.common.model.Direction;
+import org.kiwiproject.elucidation.server.core.ServiceEventCount;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public class ServiceEventCountMapper implements RowMapper<ServiceEventCount> {
+
+    @Override
+    public ServiceEventCount map(ResultSet rs, StatementContext ctx) throws SQLException {
+        return new ServiceEventCount(
+                rs.getString("service_name"),
+                Direction.valueOf(rs.getString("event_direction")),
+                rs.getString("communication_type"),
+                rs.getInt("event_count"));
+    }
+}
@@ -0,0 +1,22 @@
+package org.kiwiproject.elucidation.server.db.mapper;
+
+import org.jdbi.v3.core.mapper.RowMapper;
+import org.jdbi.v3.core.statement.StatementContext;
+import org.kiwiproject.elucidation.server.core.ServiceUnusedIdentifier;
+import org.kiwiproject.elucidation.server.core.UnusedIdentifier;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public class ServiceUnusedIdentifierMapper implements RowMapper<ServiceUnusedIdentifier> {
+
+    @Override
+    public ServiceUnusedIdentifier map(ResultSet rs, StatementContext ctx) throws SQLException {
+        return new ServiceUnusedIdentifier(
+                rs.getString("service_name"),
+                UnusedIdentifier.builder()
+                        .communicationType(rs.getString("communication_type"))
+                        .connectionIdentifier(rs.getString("connection_identifier"))
+                        .build());
+    }
+}
@@ -0,0 +1,24 @@
+package org.kiwiproject.elucidation.server.db.mapper;
+
+import org.jdbi.v3.core.mapper.RowMapper;
+import org.jdbi.v3.core.statement.StatementContext;
+import org.kiwiproject.elucidation.server.core.WindowedEventPair;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps a pair of associated events like {@link ConnectionEventPairMapper}, with flags in the {@code observed_before}
+ * and {@code observed_after} columns.
+ */
+public class WindowedEventPairMapper implements RowMapper<WindowedEventPair> {
+
+    private final ConnectionEventPairMapper pairMapper = new ConnectionEventPairMapper();
+
+    @Override
+    public WindowedEventPair map(ResultSet rs, StatementContext ctx) throws SQLException {
+        return new WindowedEventPair(pairMapper.map(rs, ctx),
+                rs.getInt("observed_before") == 1,
+                rs.getInt("observed_after") == 1);
+    }
+}
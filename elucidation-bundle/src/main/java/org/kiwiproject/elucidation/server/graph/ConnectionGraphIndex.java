@@ -0,0 +1,246 @@
+package org.kiwiproject.elucidation.server.graph;
+
+import io.dropwizard.lifecycle.Managed;
+import lombok.extern.slf4j.Slf4j;
+import org.kiwiproject.elucidation.common.model.ConnectionEvent;
+import org.kiwiproject.elucidation.common.model.Direction;
+import org.kiwiproject.elucidation.server.core.ConnectionEventKey;
+import org.kiwiproject.elucidation.server.core.ConnectionEventPair;
+import org.kiwiproject.elucidation.server.db.ConnectionEventDao;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory index of all connection events, which answers the same questions as
+ * {@link ConnectionEventDao#findAllEventPairs()} and {@link ConnectionEventDao#findEventPairsByServiceName(String)}
+ * without touching the database.
+ * <p>
+ * The index is loaded from the database when it is started, and is then expected to be kept up to date by calling
+ * {@link #add(ConnectionEvent)} for every recorded event and {@link #removeEventsObservedBefore(long)} whenever events
+ * expire. Every (communication type, connection identifier, direction) maps to the services that observed it, and
+ * every service maps to the connections it observed, so finding the pairs of a service takes time proportional to
+ * the number of its edges.
+ * <p>
+ * The index is per process: it never sees events recorded by other instances sharing the same database, so it is only
+ * correct for single-instance deployments.
+ *
+ * @implNote Pairs returned by this index do not have event ids, since ids are assigned by the database. Events are
+ * added once they are written to the database (see
+ * {@link org.kiwiproject.elucidation.server.db.IndexingConnectionEventWriter}).
+ */
+@Slf4j
+public class ConnectionGraphIndex implements Managed {
+
+    private final ConnectionEventDao dao;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<ConnectionEventKey, Long> observedAtByEvent = new HashMap<>();
+    private final Map<Endpoint, Set<String>> servicesByEndpoint = new HashMap<>();
+    private final Map<String, Set<Endpoint>> endpointsByService = new HashMap<>();
+
+    /**
+     * One side of a connection, i.e. everything that identifies a connection event except for its service.
+     */
+    private record Endpoint(String communicationType, String connectionIdentifier, Direction direction) {
+
+        static Endpoint of(ConnectionEvent event) {
+            return new Endpoint(event.getCommunicationType(), event.getConnectionIdentifier(), event.getEventDirection());
+        }
+
+        Endpoint opposite() {
+            return new Endpoint(communicationType, connectionIdentifier, direction.opposite());
+        }
+
+        ConnectionEventKey keyFor(String serviceName) {
+            return new ConnectionEventKey(serviceName, direction, communicationType, connectionIdentifier);
+        }
+    }
+
+    public ConnectionGraphIndex(ConnectionEventDao dao) {
+        this.dao = dao;
+    }
+
+    @Override
+    public void start() {
+        reload();
+    }
+
+    /**
+     * Replace the contents of this index with all events currently in the database.
+     */
+    public void reload() {
+        var events = dao.findAllEvents();
+
+        lock.writeLock().lock();
+        try {
+            observedAtByEvent.clear();
+            servicesByEndpoint.clear();
+            endpointsByService.clear();
+            events.forEach(this::addUnlocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        LOG.info("Loaded {} connection events into the graph index", events.size());
+    }
+
+    /**
+     * Add an event to the index, or move the observed time of an already indexed event forward.
+     *
+     * @param event the recorded event
+     */
+    public void add(ConnectionEvent event) {
+        lock.writeLock().lock();
+        try {
+            addUnlocked(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add a batch of events to the index.
+     *
+     * @param events the recorded events
+     * @see #add(ConnectionEvent)
+     */
+    public void addAll(List<ConnectionEvent> events) {
+        lock.writeLock().lock();
+        try {
+            events.forEach(this::addUnlocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addUnlocked(ConnectionEvent event) {
+        var endpoint = Endpoint.of(event);
+        var serviceName = event.getServiceName();
+
+        observedAtByEvent.merge(endpoint.keyFor(serviceName), event.getObservedAt(), Math::max);
+        servicesByEndpoint.computeIfAbsent(endpoint, key -> new HashSet<>()).add(serviceName);
+        endpointsByService.computeIfAbsent(serviceName, key -> new HashSet<>()).add(endpoint);
+    }
+
+    /**
+     * Remove all events that were last observed before the given time, matching
+     * {@link ConnectionEventDao#deleteExpiredEvents(long)}.
+     *
+     * @param expiresAt the time in millis since the epoch before which events are expired
+     * @return the number of removed events
+     */
+    public int removeEventsObservedBefore(long expiresAt) {
+        lock.writeLock().lock();
+        try {
+            var expiredEvents = observedAtByEvent.entrySet().stream()
+                    .filter(entry -> entry.getValue() < expiresAt)
+                    .map(Map.Entry::getKey)
+                    .toList();
+
+            expiredEvents.forEach(this::removeUnlocked);
+            return expiredEvents.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeUnlocked(ConnectionEventKey key) {
+        var endpoint = new Endpoint(key.getCommunicationType(), key.getConnectionIdentifier(), key.getEventDirection());
+        var serviceName = key.getServiceName();
+
+        observedAtByEvent.remove(key);
+        removeFromSet(servicesByEndpoint, endpoint, serviceName);
+        removeFromSet(endpointsByService, serviceName, endpoint);
+    }
+
+    private static <K, V> void removeFromSet(Map<K, Set<V>> map, K key, V value) {
+        var values = map.get(key);
+        if (values != null) {
+            values.remove(value);
+            if (values.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+
+    /**
+     * @return the names of all services with at least one indexed event, sorted
+     */
+    public List<String> serviceNames() {
+        lock.readLock().lock();
+        try {
+            return endpointsByService.keySet().stream().sorted().toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the pairs of all indexed events
+     * @see ConnectionEventDao#findAllEventPairs()
+     */
+    public List<ConnectionEventPair> allEventPairs() {
+        lock.readLock().lock();
+        try {
+            var pairs = new ArrayList<ConnectionEventPair>();
+            endpointsByService.keySet().forEach(serviceName -> addPairsUnlocked(serviceName, pairs));
+            return pairs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param serviceName the service name
+     * @return the pairs of the indexed events of the given service
+     * @see ConnectionEventDao#findEventPairsByServiceName(String)
+     */
+    public List<ConnectionEventPair> eventPairsForService(String serviceName) {
+        lock.readLock().lock();
+        try {
+            var pairs = new ArrayList<ConnectionEventPair>();
+            addPairsUnlocked(serviceName, pairs);
+            return pairs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addPairsUnlocked(String serviceName, List<ConnectionEventPair> pairs) {
+        for (var endpoint : endpointsByService.getOrDefault(serviceName, Set.of())) {
+            var event = toEvent(serviceName, endpoint);
+            var opposite = endpoint.opposite();
+            var associatedServices = servicesByEndpoint.getOrDefault(opposite, Set.of());
+
+            if (associatedServices.isEmpty()) {
+                pairs.add(new ConnectionEventPair(event, ConnectionEvent.builder()
+                        .serviceName(ConnectionEvent.UNKNOWN_SERVICE)
+                        .eventDirection(opposite.direction())
+                        .communicationType(opposite.communicationType())
+                        .connectionIdentifier(opposite.connectionIdentifier())
+                        .observedAt(event.getObservedAt())
+                        .build()));
+            } else {
+                associatedServices.forEach(associatedService ->
+                        pairs.add(new ConnectionEventPair(event, toEvent(associatedService, opposite))));
+            }
+        }
+    }
+
+    private ConnectionEvent toEvent(String serviceName, Endpoint endpoint) {
+        return ConnectionEvent.builder()
+                .serviceName(serviceName)
+                .eventDirection(endpoint.direction())
+                .communicationType(endpoint.communicationType())
+                .connectionIdentifier(endpoint.connectionIdentifier())
+                .observedAt(observedAtByEvent.get(endpoint.keyFor(serviceName)))
+                .build();
+    }
+}
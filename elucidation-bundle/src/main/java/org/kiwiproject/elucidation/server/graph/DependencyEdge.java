@@ -0,0 +1,33 @@
+package org.kiwiproject.elucidation.server.graph;
+
+import lombok.Value;
+
+/**
+ * A dependency of one service on another over one communication type, aggregated over all connection identifiers.
+ */
+@Value
+public class DependencyEdge {
+
+    /**
+     * The dependent service.
+     */
+    String from;
+
+    /**
+     * The service depended upon.
+     */
+    String to;
+
+    String communicationType;
+
+    /**
+     * The number of connection identifiers over which {@code from} depends on {@code to}.
+     */
+    int connections;
+
+    /**
+     * The latest time any of the connections was observed by {@code from}.
+     */
+    long lastObserved;
+
+}
@@ -0,0 +1,25 @@
+package org.kiwiproject.elucidation.server.graph;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * The dependencies between all services, for exporting to external tools.
+ *
+ * @see GraphFormat
+ */
+@Value
+public class DependencyGraph {
+
+    /**
+     * All services, in order of name, including those without any dependencies.
+     */
+    List<String> services;
+
+    /**
+     * All dependencies, in order of dependent service, service depended upon, and communication type.
+     */
+    List<DependencyEdge> edges;
+
+}
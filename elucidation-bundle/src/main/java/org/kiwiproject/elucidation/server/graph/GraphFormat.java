@@ -0,0 +1,198 @@
+package org.kiwiproject.elucidation.server.graph;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The formats a {@link DependencyGraph} can be exported in. Edges point from the dependent service to the service it
+ * depends upon, and are labeled with their communication type.
+ */
+public enum GraphFormat {
+
+    /**
+     * Graphviz DOT, e.g. for rendering with {@code dot -Tsvg}.
+     */
+    DOT("text/vnd.graphviz") {
+        @Override
+        public void write(DependencyGraph graph, OutputStream output) throws IOException {
+            var writer = new BufferedWriter(new OutputStreamWriter(output, UTF_8));
+
+            writer.write("digraph elucidation {\n");
+            for (var service : graph.getServices()) {
+                writer.write("  " + dotId(service) + ";\n");
+            }
+            for (var edge : graph.getEdges()) {
+                writer.write("  " + dotId(edge.getFrom()) + " -> " + dotId(edge.getTo()) +
+                        " [label=" + dotId(edge.getCommunicationType()) + "];\n");
+            }
+            writer.write("}\n");
+            writer.flush();
+        }
+    },
+
+    /**
+     * GraphML, e.g. for importing into Gephi or yEd. Edges also carry their number of connections and last observed
+     * time as data.
+     */
+    GRAPHML("application/graphml+xml") {
+        @Override
+        public void write(DependencyGraph graph, OutputStream output) throws IOException {
+            try {
+                var writer = XMLOutputFactory.newFactory().createXMLStreamWriter(output, UTF_8.name());
+                writer.writeStartDocument(UTF_8.name(), "1.0");
+                writer.writeStartElement("graphml");
+                writer.writeDefaultNamespace("http://graphml.graphdrawing.org/xmlns");
+                writeGraphMlKey(writer, "communicationType", "string");
+                writeGraphMlKey(writer, "connections", "int");
+                writeGraphMlKey(writer, "lastObserved", "long");
+
+                writer.writeStartElement("graph");
+                writer.writeAttribute("id", "elucidation");
+                writer.writeAttribute("edgedefault", "directed");
+
+                for (var service : graph.getServices()) {
+                    writer.writeEmptyElement("node");
+                    writer.writeAttribute("id", service);
+                }
+                for (var edge : graph.getEdges()) {
+                    writer.writeStartElement("edge");
+                    writer.writeAttribute("source", edge.getFrom());
+                    writer.writeAttribute("target", edge.getTo());
+                    writeGraphMlData(writer, "communicationType", edge.getCommunicationType());
+                    writeGraphMlData(writer, "connections", String.valueOf(edge.getConnections()));
+                    writeGraphMlData(writer, "lastObserved", String.valueOf(edge.getLastObserved()));
+                    writer.writeEndElement();
+                }
+
+                writer.writeEndDocument();
+                writer.flush();
+            } catch (XMLStreamException e) {
+                throw new IOException("Failed to write GraphML", e);
+            }
+        }
+    },
+
+    /**
+     * A compact JSON adjacency list, i.e. a sparse adjacency matrix in coordinate form. Services and communication
+     * types are listed once, and every edge is an array of the indexes of its dependent service, the service depended
+     * upon, and its communication type, followed by its number of connections and last observed time:
+     * <pre>
+     * {"services":["a","b"],"communicationTypes":["HTTP"],"edges":[[0,1,0,3,1700000000000]]}
+     * </pre>
+     */
+    ADJACENCY("application/json") {
+        @Override
+        public void write(DependencyGraph graph, OutputStream output) throws IOException {
+            var serviceIndexes = indexesOf(graph.getServices());
+            var communicationTypeIndexes = indexesOf(graph.getEdges().stream()
+                    .map(DependencyEdge::getCommunicationType)
+                    .distinct()
+                    .sorted()
+                    .toList());
+
+            try (var generator = JSON_FACTORY.createGenerator(output)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.writeStartObject();
+
+                generator.writeArrayFieldStart("services");
+                for (var service : serviceIndexes.keySet()) {
+                    generator.writeString(service);
+                }
+                generator.writeEndArray();
+
+                generator.writeArrayFieldStart("communicationTypes");
+                for (var communicationType : communicationTypeIndexes.keySet()) {
+                    generator.writeString(communicationType);
+                }
+                generator.writeEndArray();
+
+                generator.writeArrayFieldStart("edges");
+                for (var edge : graph.getEdges()) {
+                    generator.writeStartArray();
+                    generator.writeNumber(serviceIndexes.get(edge.getFrom()));
+                    generator.writeNumber(serviceIndexes.get(edge.getTo()));
+                    generator.writeNumber(communicationTypeIndexes.get(edge.getCommunicationType()));
+                    generator.writeNumber(edge.getConnections());
+                    generator.writeNumber(edge.getLastObserved());
+                    generator.writeEndArray();
+                }
+                generator.writeEndArray();
+
+                generator.writeEndObject();
+            }
+        }
+    };
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final String mediaType;
+
+    GraphFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Write the given graph in this format. The stream is not closed.
+     *
+     * @param graph  the graph to write
+     * @param output the stream to write to
+     * @throws IOException if writing to the stream fails
+     */
+    public abstract void write(DependencyGraph graph, OutputStream output) throws IOException;
+
+    /**
+     * @param name the name of a format, ignoring case
+     * @return the format, or an empty Optional if there is no format with the given name
+     */
+    public static Optional<GraphFormat> fromName(String name) {
+        return Arrays.stream(values())
+                .filter(format -> format.name().equalsIgnoreCase(name))
+                .findFirst();
+    }
+
+    private static String dotId(String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    private static void writeGraphMlKey(XMLStreamWriter writer, String name, String type) throws XMLStreamException {
+        writer.writeEmptyElement("key");
+        writer.writeAttribute("id", name);
+        writer.writeAttribute("for", "edge");
+        writer.writeAttribute("attr.name", name);
+        writer.writeAttribute("attr.type", type);
+    }
+
+    private static void writeGraphMlData(XMLStreamWriter writer, String key, String value) throws XMLStreamException {
+        writer.writeStartElement("data");
+        writer.writeAttribute("key", key);
+        writer.writeCharacters(value);
+        writer.writeEndElement();
+    }
+
+    private static Map<String, Integer> indexesOf(List<String> values) {
+        var indexes = new LinkedHashMap<String, Integer>();
+        for (var value : values) {
+            indexes.putIfAbsent(value, indexes.size());
+        }
+        return indexes;
+    }
+}
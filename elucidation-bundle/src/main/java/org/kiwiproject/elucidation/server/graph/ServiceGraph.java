@@ -0,0 +1,422 @@
+package org.kiwiproject.elucidation.server.graph;
+
+import static java.util.Comparator.comparingInt;
+
+import org.kiwiproject.elucidation.server.core.ServiceDistance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * An immutable snapshot of the dependencies between services, laid out for fast traversal.
+ * <p>
+ * Services are numbered in order of name, and the dependencies and dependents of every service are stored in
+ * compressed sparse row form, i.e. as one array of neighbor numbers per direction plus an array of offsets into it.
+ * Dependencies over several communication types count as a single edge. Traversals therefore only touch primitive
+ * arrays, and take time proportional to the number of services and edges they reach.
+ */
+public class ServiceGraph {
+
+    private final String[] names;
+    private final Map<String, Integer> indexes;
+    private final Adjacency dependencies;
+    private final Adjacency dependents;
+
+    /**
+     * The neighbors of service {@code i} are {@code targets[offsets[i]]} up to (excluding)
+     * {@code targets[offsets[i + 1]]}, in ascending order.
+     */
+    private record Adjacency(int[] offsets, int[] targets) {
+
+        int start(int service) {
+            return offsets[service];
+        }
+
+        int end(int service) {
+            return offsets[service + 1];
+        }
+
+        int target(int slot) {
+            return targets[slot];
+        }
+    }
+
+    private ServiceGraph(String[] names, Map<String, Integer> indexes, int[][] edges) {
+        this.names = names;
+        this.indexes = indexes;
+        this.dependencies = adjacency(names.length, edges, 0, 1);
+        this.dependents = adjacency(names.length, edges, 1, 0);
+    }
+
+    /**
+     * @param graph the dependency graph; every service of its edges must be one of its services
+     * @return a snapshot of the graph
+     */
+    public static ServiceGraph of(DependencyGraph graph) {
+        var names = graph.getServices().toArray(String[]::new);
+        var indexes = new HashMap<String, Integer>();
+        for (var i = 0; i < names.length; i++) {
+            indexes.put(names[i], i);
+        }
+
+        var edges = graph.getEdges().stream()
+                .map(edge -> new int[] { indexes.get(edge.getFrom()), indexes.get(edge.getTo()) })
+                .toArray(int[][]::new);
+
+        return new ServiceGraph(names, indexes, edges);
+    }
+
+    private static Adjacency adjacency(int numServices, int[][] edges, int source, int target) {
+        var sorted = edges.clone();
+        Arrays.sort(sorted, comparingInt((int[] edge) -> edge[source]).thenComparingInt(edge -> edge[target]));
+
+        var offsets = new int[numServices + 1];
+        var targets = new int[sorted.length];
+        var numTargets = 0;
+
+        for (var i = 0; i < sorted.length; i++) {
+            var edge = sorted[i];
+            var isDuplicate = i > 0 && sorted[i - 1][source] == edge[source] && sorted[i - 1][target] == edge[target];
+
+            if (!isDuplicate) {
+                targets[numTargets++] = edge[target];
+                offsets[edge[source] + 1]++;
+            }
+        }
+
+        for (var i = 0; i < numServices; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        return new Adjacency(offsets, Arrays.copyOf(targets, numTargets));
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * List everything the given service ultimately depends on.
+     *
+     * @param serviceName the service
+     * @param maxDepth    the maximum number of hops to follow
+     * @return the services reached, in order of distance and name, excluding the service itself
+     */
+    public List<ServiceDistance> dependenciesOf(String serviceName, int maxDepth) {
+        return closure(dependencies, serviceName, maxDepth);
+    }
+
+    /**
+     * List everything that ultimately depends on the given service, i.e. everything that may break if it goes down.
+     *
+     * @param serviceName the service
+     * @param maxDepth    the maximum number of hops to follow
+     * @return the services reached, in order of distance and name, excluding the service itself
+     */
+    public List<ServiceDistance> dependentsOf(String serviceName, int maxDepth) {
+        return closure(dependents, serviceName, maxDepth);
+    }
+
+    /**
+     * Find the groups of services that (transitively) depend on each other, i.e. the strongly connected components of
+     * the graph that contain a cycle, using an iterative version of Tarjan's algorithm, which takes linear time.
+     *
+     * @return the groups, largest first, each in order of name
+     */
+    public List<List<String>> cycles() {
+        var numServices = names.length;
+        var visitOrder = new int[numServices];
+        var lowLinks = new int[numServices];
+        var nextSlots = new int[numServices];
+        var onStack = new boolean[numServices];
+        var stack = new int[numServices];
+        var callStack = new int[numServices];
+        var stackSize = 0;
+        var nextIndex = 0;
+        var cycles = new ArrayList<List<String>>();
+
+        Arrays.fill(visitOrder, -1);
+
+        for (var root = 0; root < numServices; root++) {
+            if (visitOrder[root] >= 0) {
+                continue;
+            }
+
+            var depth = 0;
+            callStack[depth++] = root;
+            visitOrder[root] = lowLinks[root] = nextIndex++;
+            nextSlots[root] = dependencies.start(root);
+            stack[stackSize++] = root;
+            onStack[root] = true;
+
+            while (depth > 0) {
+                var service = callStack[depth - 1];
+
+                if (nextSlots[service] < dependencies.end(service)) {
+                    var next = dependencies.target(nextSlots[service]++);
+
+                    if (visitOrder[next] < 0) {
+                        callStack[depth++] = next;
+                        visitOrder[next] = lowLinks[next] = nextIndex++;
+                        nextSlots[next] = dependencies.start(next);
+                        stack[stackSize++] = next;
+                        onStack[next] = true;
+                    } else if (onStack[next]) {
+                        lowLinks[service] = Math.min(lowLinks[service], visitOrder[next]);
+                    }
+                    continue;
+                }
+
+                depth--;
+                if (depth > 0) {
+                    var caller = callStack[depth - 1];
+                    lowLinks[caller] = Math.min(lowLinks[caller], lowLinks[service]);
+                }
+
+                if (lowLinks[service] == visitOrder[service]) {
+                    var start = stackSize;
+                    do {
+                        onStack[stack[--start]] = false;
+                    } while (stack[start] != service);
+
+                    if (stackSize - start > 1 || dependsOnItself(service)) {
+                        cycles.add(namesOf(Arrays.copyOfRange(stack, start, stackSize)));
+                    }
+                    stackSize = start;
+                }
+            }
+        }
+
+        cycles.sort(Comparator.<List<String>>comparingInt(List::size).reversed().thenComparing(cycle -> cycle.get(0)));
+        return cycles;
+    }
+
+    /**
+     * Find the shortest dependency paths from one service to another using Yen's algorithm, where every shortest path
+     * is found by a bidirectional breadth-first search.
+     *
+     * @param from     the dependent service
+     * @param to       the service depended upon
+     * @param maxPaths the maximum number of paths to find
+     * @return the paths, shortest first, each starting with {@code from} and ending with {@code to}; empty if there is
+     * no path or either service is unknown
+     */
+    public List<List<String>> shortestPaths(String from, String to, int maxPaths) {
+        var source = indexes.get(from);
+        var target = indexes.get(to);
+        if (source == null || target == null) {
+            return List.of();
+        }
+
+        var firstPath = shortestPath(source, target, new boolean[names.length], Set.of());
+        if (firstPath == null) {
+            return List.of();
+        }
+
+        var paths = new ArrayList<int[]>();
+        paths.add(firstPath);
+        var candidates = new TreeSet<int[]>(comparingInt((int[] path) -> path.length).thenComparing(Arrays::compare));
+
+        while (paths.size() < maxPaths) {
+            var previousPath = paths.get(paths.size() - 1);
+
+            for (var spur = 0; spur < previousPath.length - 1; spur++) {
+                var rootLength = spur + 1;
+
+                var excludedEdges = new HashSet<Long>();
+                for (var path : paths) {
+                    if (path.length > rootLength && Arrays.equals(path, 0, rootLength, previousPath, 0, rootLength)) {
+                        excludedEdges.add(edgeKey(path[spur], path[spur + 1]));
+                    }
+                }
+
+                var excludedServices = new boolean[names.length];
+                for (var i = 0; i < spur; i++) {
+                    excludedServices[previousPath[i]] = true;
+                }
+
+                var spurPath = shortestPath(previousPath[spur], target, excludedServices, excludedEdges);
+                if (spurPath != null) {
+                    var candidate = Arrays.copyOf(previousPath, spur + spurPath.length);
+                    System.arraycopy(spurPath, 0, candidate, spur, spurPath.length);
+                    candidates.add(candidate);
+                }
+            }
+
+            var nextPath = candidates.pollFirst();
+            if (nextPath == null) {
+                break;
+            }
+            paths.add(nextPath);
+        }
+
+        return paths.stream().map(this::namesAlong).toList();
+    }
+
+    /**
+     * Search forwards from the source and backwards from the target at the same time, always expanding the smaller
+     * frontier by one level, until the searches meet.
+     *
+     * @return the path, or null if there is none
+     */
+    private int[] shortestPath(int source, int target, boolean[] excludedServices, Set<Long> excludedEdges) {
+        if (source == target) {
+            return new int[] { source };
+        }
+
+        var forward = new Search(dependencies, source, names.length, false);
+        var backward = new Search(dependents, target, names.length, true);
+
+        while (forward.size > 0 && backward.size > 0) {
+            var meeting = forward.size <= backward.size
+                    ? forward.expand(backward, excludedServices, excludedEdges)
+                    : backward.expand(forward, excludedServices, excludedEdges);
+
+            if (meeting >= 0) {
+                return join(forward, backward, meeting);
+            }
+        }
+
+        return null;
+    }
+
+    private int[] join(Search forward, Search backward, int meeting) {
+        var path = new ArrayList<Integer>();
+        for (var service = meeting; service >= 0; service = forward.parents[service]) {
+            path.add(0, service);
+        }
+        for (var service = backward.parents[meeting]; service >= 0; service = backward.parents[service]) {
+            path.add(service);
+        }
+
+        return path.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private long edgeKey(int from, int to) {
+        return (long) from * names.length + to;
+    }
+
+    /**
+     * One direction of a bidirectional breadth-first search. The parent of a service is the service it was reached
+     * from, i.e. the previous service on the path when searching forwards and the next one when searching backwards.
+     */
+    private class Search {
+
+        final Adjacency adjacency;
+        final boolean backwards;
+        final int[] parents;
+        final boolean[] seen;
+        int[] frontier;
+        int size;
+
+        Search(Adjacency adjacency, int start, int numServices, boolean backwards) {
+            this.adjacency = adjacency;
+            this.backwards = backwards;
+            this.parents = new int[numServices];
+            this.seen = new boolean[numServices];
+            this.frontier = new int[] { start };
+            this.size = 1;
+
+            Arrays.fill(parents, -1);
+            seen[start] = true;
+        }
+
+        /**
+         * Expand the frontier by one level.
+         *
+         * @return the first service also seen by the other search, or -1 if there is none yet
+         */
+        int expand(Search other, boolean[] excludedServices, Set<Long> excludedEdges) {
+            var nextFrontier = new int[seen.length];
+            var nextSize = 0;
+
+            for (var i = 0; i < size; i++) {
+                var service = frontier[i];
+
+                for (var slot = adjacency.start(service); slot < adjacency.end(service); slot++) {
+                    var next = adjacency.target(slot);
+                    var edge = backwards ? edgeKey(next, service) : edgeKey(service, next);
+
+                    if (seen[next] || excludedServices[next] || excludedEdges.contains(edge)) {
+                        continue;
+                    }
+
+                    seen[next] = true;
+                    parents[next] = service;
+                    if (other.seen[next]) {
+                        return next;
+                    }
+                    nextFrontier[nextSize++] = next;
+                }
+            }
+
+            frontier = nextFrontier;
+            size = nextSize;
+            return -1;
+        }
+    }
+
+    private boolean dependsOnItself(int service) {
+        return Arrays.binarySearch(dependencies.targets(), dependencies.start(service), dependencies.end(service),
+                service) >= 0;
+    }
+
+    private List<String> namesOf(int[] services) {
+        Arrays.sort(services);
+        return namesAlong(services);
+    }
+
+    private List<String> namesAlong(int[] services) {
+        return Arrays.stream(services).mapToObj(service -> names[service]).toList();
+    }
+
+    private List<ServiceDistance> closure(Adjacency adjacency, String serviceName, int maxDepth) {
+        var start = indexes.get(serviceName);
+        if (start == null) {
+            return List.of();
+        }
+
+        var distances = new int[names.length];
+        Arrays.fill(distances, -1);
+        distances[start] = 0;
+
+        var queue = new int[names.length];
+        var head = 0;
+        var tail = 0;
+        queue[tail++] = start;
+
+        var reached = new ArrayList<ServiceDistance>();
+
+        while (head < tail) {
+            var service = queue[head++];
+            var distance = distances[service];
+
+            if (service != start) {
+                reached.add(ServiceDistance.builder().serviceName(names[service]).distance(distance).build());
+            }
+
+            if (distance == maxDepth) {
+                continue;
+            }
+
+            for (var slot = adjacency.start(service); slot < adjacency.end(service); slot++) {
+                var next = adjacency.target(slot);
+
+                if (distances[next] < 0) {
+                    distances[next] = distance + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        reached.sort(comparingInt(ServiceDistance::getDistance).thenComparing(ServiceDistance::getServiceName));
+        return reached;
+    }
+}
@@ -1,7 +1,11 @@
 package org.kiwiproject.elucidation.server.jobs;
 
+import static java.util.Objects.nonNull;
+
 import org.kiwiproject.elucidation.server.db.ConnectionEventDao;
 import io.dropwizard.util.Duration;
+import org.kiwiproject.elucidation.server.graph.ConnectionGraphIndex;
+import org.kiwiproject.elucidation.server.service.GraphVersion;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.ZonedDateTime;
@@ -11,10 +15,25 @@ public class ArchiveEventsJob implements Runnable {
 
     private final ConnectionEventDao dao;
     private final Duration timeToLive;
+    private final ConnectionGraphIndex graphIndex;
+    private final GraphVersion graphVersion;
 
     public ArchiveEventsJob(ConnectionEventDao dao, Duration timeToLive) {
+        this(dao, timeToLive, null, new GraphVersion());
+    }
+
+    /**
+     * @param graphIndex   if not null, expired events are removed from this index as well
+     * @param graphVersion the graph version to update when events are deleted
+     */
+    public ArchiveEventsJob(ConnectionEventDao dao,
+                            Duration timeToLive,
+                            ConnectionGraphIndex graphIndex,
+                            GraphVersion graphVersion) {
         this.dao = dao;
         this.timeToLive = timeToLive;
+        this.graphIndex = graphIndex;
+        this.graphVersion = graphVersion;
     }
 
     @Override
@@ -22,8 +41,21 @@ public class ArchiveEventsJob implements Runnable {
         LOG.debug("Cleaning up expired events");
 
         try {
-            int numDeleted = dao.deleteExpiredEvents(ZonedDateTime.now().minusMinutes(timeToLive.toMinutes()).toInstant().toEpochMilli());
+            var expiresAt = ZonedDateTime.now().minusMinutes(timeToLive.toMinutes()).toInstant().toEpochMilli();
+            int numDeleted = dao.deleteExpiredEvents(expiresAt);
             LOG.info("Deleted {} events", numDeleted);
+
+            var numRemoved = 0;
+            if (nonNull(graphIndex)) {
+                numRemoved = graphIndex.removeEventsObservedBefore(expiresAt);
+                LOG.debug("Removed {} events from the graph index", numRemoved);
+            }
+
+            // The index can hold expired events that are already gone from the database, e.g. when another instance
+            // deleted them, and cached results built from the index must not outlive them
+            if (numDeleted > 0 || numRemoved > 0) {
+                graphVersion.eventsRemoved();
+            }
         } catch (Exception e) {
             LOG.error("Error when attempting to clean up events", e);
         }
@@ -0,0 +1,53 @@
+package org.kiwiproject.elucidation.server.jobs;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import lombok.extern.slf4j.Slf4j;
+import org.kiwiproject.elucidation.server.db.DuplicateConnectionEventDao;
+
+/**
+ * Merges connection events that share the same natural key, keeping only the latest observation of each.
+ * <p>
+ * Duplicates are merged in batches, each in its own transaction, so that this can be run against tables with
+ * millions of rows before applying the migration that adds the unique natural-key index.
+ */
+@Slf4j
+public class CompactDuplicateEventsJob implements Runnable {
+
+    private final DuplicateConnectionEventDao dao;
+    private final int batchSize;
+
+    public CompactDuplicateEventsJob(DuplicateConnectionEventDao dao, int batchSize) {
+        checkArgument(batchSize > 0, "batchSize must be positive");
+
+        this.dao = dao;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run() {
+        LOG.info("Compacting duplicate events in batches of {}", batchSize);
+        var numDeleted = compact();
+        LOG.info("Deleted {} duplicate events", numDeleted);
+    }
+
+    /**
+     * Merge all duplicates.
+     *
+     * @return the total number of rows that were deleted
+     */
+    public long compact() {
+        long totalDeleted = 0;
+
+        var duplicatedEvents = dao.findDuplicatedEvents(batchSize);
+        while (!duplicatedEvents.isEmpty()) {
+            var numDeleted = dao.mergeDuplicates(duplicatedEvents);
+            totalDeleted += numDeleted;
+            LOG.debug("Merged duplicates of {} connections, deleting {} events", duplicatedEvents.size(), numDeleted);
+
+            duplicatedEvents = dao.findDuplicatedEvents(batchSize);
+        }
+
+        return totalDeleted;
+    }
+}
@@ -1,10 +1,14 @@
 package org.kiwiproject.elucidation.server.jobs;
 
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 import static org.apache.commons.lang3.math.NumberUtils.max;
 
 import jakarta.ws.rs.client.Client;
 import jakarta.ws.rs.core.GenericType;
+import lombok.extern.slf4j.Slf4j;
 import org.kiwiproject.elucidation.common.model.ConnectionEvent;
+import org.kiwiproject.elucidation.server.resources.RelationshipResource;
 import org.kiwiproject.elucidation.server.service.RelationshipService;
 
 import java.time.ZonedDateTime;
@@ -12,9 +16,19 @@ import java.util.List;
 import java.util.function.Supplier;
 
 /**
+ * Copies the events of another elucidation server by following its event feed. Each run reads pages until the feed
+ * is drained, and the next run continues where the previous one left off. Servers that do not return a cursor are
+ * polled by the latest observed time seen so far instead.
+ * <p>
+ * Each page is written as one batch. When writing a page fails, e.g. because the ingest queue is full, the error is
+ * logged and the run ends without moving past that page, so that the next run reads it again. Events that the other
+ * server writes with an observed time before the cursor are not copied (see
+ * {@link org.kiwiproject.elucidation.server.core.EventCursor}).
+ *
  * @implNote This should only be run in a single background thread, e.g., via an
  * {@link java.util.concurrent.ExecutorService}, and is therefore <em>not thread-safe</em>.
  */
+@Slf4j
 public class PollForEventsJob implements Runnable {
 
     private static final GenericType<List<ConnectionEvent>> GENERIC_LIST_OF_CONNECTION_EVENTS = new GenericType<>() {
@@ -23,32 +37,63 @@ public class PollForEventsJob implements Runnable {
     private final Supplier<String> elucidationEndpointSupplier;
     private final Client client;
     private final RelationshipService relationshipService;
+    private final int pageSize;
     private long lastEventTimestamp = ZonedDateTime.now().minusDays(7).toInstant().toEpochMilli();
+    private String cursor;
 
     public PollForEventsJob(Supplier<String> elucidationEndpointSupplier,
                             Client client,
                             RelationshipService relationshipService) {
 
+        this(elucidationEndpointSupplier, client, relationshipService, RelationshipResource.MAX_PAGE_SIZE);
+    }
+
+    public PollForEventsJob(Supplier<String> elucidationEndpointSupplier,
+                            Client client,
+                            RelationshipService relationshipService,
+                            int pageSize) {
+
         this.elucidationEndpointSupplier = elucidationEndpointSupplier;
         this.client = client;
         this.relationshipService = relationshipService;
+        this.pageSize = pageSize;
     }
 
     @Override
     public void run() {
+        try {
+            pollUntilDrained();
+        } catch (Exception e) {
+            LOG.error("Error when attempting to poll for events; the last page will be retried on the next run", e);
+        }
+    }
+
+    private void pollUntilDrained() {
         String endpoint = elucidationEndpointSupplier.get();
 
-        var response = client.target(endpoint)
-                .path("/elucidate/events")
-                .queryParam("since", lastEventTimestamp)
-                .request()
-                .get();
+        List<ConnectionEvent> connectionEvents;
+        String nextCursor;
+        do {
+            var target = client.target(endpoint)
+                    .path("/elucidate/events")
+                    .queryParam("limit", pageSize);
+
+            var response = isNull(cursor)
+                    ? target.queryParam("since", lastEventTimestamp).request().get()
+                    : target.queryParam("cursor", cursor).request().get();
+
+            nextCursor = response.getHeaderString(RelationshipResource.NEXT_CURSOR_HEADER);
+            connectionEvents = response.readEntity(GENERIC_LIST_OF_CONNECTION_EVENTS);
 
-        var connectionEvents = response.readEntity(GENERIC_LIST_OF_CONNECTION_EVENTS);
+            if (!connectionEvents.isEmpty()) {
+                relationshipService.createEvents(connectionEvents.stream().map(event -> event.withId(null)).toList());
+            }
 
-        connectionEvents.forEach(event -> {
-            lastEventTimestamp = max(lastEventTimestamp, event.getObservedAt());
-            relationshipService.createEvent(event.withId(null));
-        });
+            // Only move past the page once it has been written, so that a failed page is read again next time
+            connectionEvents.forEach(event -> lastEventTimestamp = max(lastEventTimestamp, event.getObservedAt()));
+            if (nonNull(nextCursor)) {
+                cursor = nextCursor;
+            }
+        } while (nonNull(nextCursor) && connectionEvents.size() >= pageSize);
     }
 }
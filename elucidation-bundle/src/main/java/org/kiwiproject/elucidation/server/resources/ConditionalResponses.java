@@ -0,0 +1,65 @@
+package org.kiwiproject.elucidation.server.resources;
+
+import static java.util.Objects.nonNull;
+
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import org.kiwiproject.elucidation.server.service.GraphVersion;
+
+import java.util.function.Supplier;
+
+/**
+ * Builds responses to conditional GET requests, whose strong entity tags are derived from a {@link GraphVersion}.
+ * <p>
+ * Representations that only depend on which connections exist (e.g. dependencies) are tagged with the graph version,
+ * so they keep matching while known connections are observed again. Representations that contain observed times are
+ * tagged with the change sequence instead.
+ * <p>
+ * Tags also include the graph version's {@link GraphVersion#period() period}, so that they expire even if changes made
+ * by other instances sharing the database go unnoticed by this one.
+ */
+final class ConditionalResponses {
+
+    private ConditionalResponses() {
+        // utility class
+    }
+
+    static EntityTag graphTag(GraphVersion graphVersion) {
+        return new EntityTag(graphVersion.epoch() + "-g" + graphVersion.current() + "-" + graphVersion.period());
+    }
+
+    static EntityTag changeTag(GraphVersion graphVersion) {
+        return new EntityTag(graphVersion.epoch() + "-c" + graphVersion.changeSequence() + "-" + graphVersion.period());
+    }
+
+    /**
+     * Respond with 304 Not Modified if the request's {@code If-None-Match} header matches the given tag, without
+     * computing the entity. Otherwise, respond with 200 OK, the entity, and the tag.
+     *
+     * @param request the request
+     * @param tag     the current tag, which must be determined before the entity is computed
+     * @param entity  computes the entity
+     * @return the response
+     */
+    static Response okUnlessNotModified(Request request, EntityTag tag, Supplier<?> entity) {
+        return unlessNotModified(request, tag, () -> Response.ok(entity.get()));
+    }
+
+    /**
+     * Same as {@link #okUnlessNotModified(Request, EntityTag, Supplier)}, for responses that need more than an entity.
+     *
+     * @param request  the request
+     * @param tag      the current tag, which must be determined before the response is computed
+     * @param response computes the response, which is then tagged
+     * @return the response
+     */
+    static Response unlessNotModified(Request request, EntityTag tag, Supplier<Response.ResponseBuilder> response) {
+        var notModified = request.evaluatePreconditions(tag);
+        if (nonNull(notModified)) {
+            return notModified.tag(tag).build();
+        }
+
+        return response.get().tag(tag).build();
+    }
+}
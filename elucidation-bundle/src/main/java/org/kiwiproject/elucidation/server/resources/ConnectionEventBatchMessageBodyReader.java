@@ -0,0 +1,49 @@
+package org.kiwiproject.elucidation.server.resources;
+
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyReader;
+import jakarta.ws.rs.ext.Provider;
+import org.kiwiproject.elucidation.common.codec.ConnectionEventBatchCodec;
+import org.kiwiproject.elucidation.common.model.ConnectionEvent;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Reads a {@code List<ConnectionEvent>} from a request body encoded with {@link ConnectionEventBatchCodec}.
+ */
+@Provider
+@Consumes(ConnectionEventBatchCodec.MEDIA_TYPE)
+public class ConnectionEventBatchMessageBodyReader implements MessageBodyReader<List<ConnectionEvent>> {
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return List.class.isAssignableFrom(type)
+                && genericType instanceof ParameterizedType parameterizedType
+                && parameterizedType.getActualTypeArguments()[0] == ConnectionEvent.class;
+    }
+
+    @Override
+    public List<ConnectionEvent> readFrom(Class<List<ConnectionEvent>> type,
+                                          Type genericType,
+                                          Annotation[] annotations,
+                                          MediaType mediaType,
+                                          MultivaluedMap<String, String> httpHeaders,
+                                          InputStream entityStream) throws IOException {
+        try {
+            return ConnectionEventBatchCodec.decode(new BufferedInputStream(entityStream));
+        } catch (EOFException | StreamCorruptedException e) {
+            throw new BadRequestException("Invalid connection event batch: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.kiwiproject.elucidation.server.resources;
+
+import static jakarta.ws.rs.core.MediaType.APPLICATION_JSON;
+
+import io.dropwizard.jersey.errors.ErrorMessage;
+import io.dropwizard.util.Duration;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.Status;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import org.kiwiproject.elucidation.server.db.IngestQueueFullException;
+
+/**
+ * Sheds load by mapping an {@link IngestQueueFullException} to a 503 Service Unavailable response with a
+ * {@code Retry-After} header.
+ */
+public class IngestQueueFullExceptionMapper implements ExceptionMapper<IngestQueueFullException> {
+
+    private final Duration retryAfter;
+
+    public IngestQueueFullExceptionMapper(Duration retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
+    @Override
+    public Response toResponse(IngestQueueFullException exception) {
+        var status = Status.SERVICE_UNAVAILABLE;
+
+        return Response.status(status)
+                .header(HttpHeaders.RETRY_AFTER, Math.max(1, retryAfter.toSeconds()))
+                .type(APPLICATION_JSON)
+                .entity(new ErrorMessage(status.getStatusCode(), exception.getMessage()))
+                .build();
+    }
+}
@@ -0,0 +1,55 @@
+package org.kiwiproject.elucidation.server.resources;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes JSON arrays element by element as the elements are produced, e.g. while rows are read from the database,
+ * so that large results never have to be held in memory as a whole.
+ * <p>
+ * Once the first element is written the response is committed, so an error while producing the remaining elements
+ * can only abort the response, leaving the client with an incomplete array.
+ */
+final class JsonArrayStreams {
+
+    private final ObjectMapper mapper;
+
+    /**
+     * @param mapper the mapper used to write the elements, which should be the application's mapper so that the
+     *               elements are written the same way as all other responses
+     */
+    JsonArrayStreams(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * @param producer passes each element to the consumer it is given
+     * @param <T>      the type of the elements
+     * @return output writing the produced elements as a JSON array
+     */
+    <T> StreamingOutput jsonArray(Consumer<Consumer<T>> producer) {
+        return output -> {
+            try (var generator = mapper.getFactory().createGenerator(output)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.writeStartArray();
+                producer.accept(element -> writeElement(generator, element));
+                generator.writeEndArray();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    private static void writeElement(JsonGenerator generator, Object element) {
+        try {
+            generator.writeObject(element);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,35 +1,128 @@
 package org.kiwiproject.elucidation.server.resources;
 
 import static jakarta.ws.rs.core.MediaType.APPLICATION_JSON;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.kiwiproject.elucidation.server.resources.ConditionalResponses.changeTag;
+import static org.kiwiproject.elucidation.server.resources.ConditionalResponses.graphTag;
+import static org.kiwiproject.elucidation.server.resources.ConditionalResponses.okUnlessNotModified;
+import static org.kiwiproject.elucidation.server.resources.ConditionalResponses.unlessNotModified;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
-import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.Response.Status;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.kiwiproject.elucidation.common.codec.ConnectionEventBatchCodec;
 import org.kiwiproject.elucidation.common.model.ConnectionEvent;
+import org.kiwiproject.elucidation.server.core.EventCursor;
+import org.kiwiproject.elucidation.server.core.ObservationWindow;
+import org.kiwiproject.elucidation.server.core.ServiceDetailsOrder;
+import org.kiwiproject.elucidation.server.core.ServiceDistance;
+import org.kiwiproject.elucidation.server.graph.GraphFormat;
+import org.kiwiproject.elucidation.server.service.EventImporter;
+import org.kiwiproject.elucidation.server.service.GraphVersion;
 import org.kiwiproject.elucidation.server.service.RelationshipService;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
 
+/**
+ * Records connection events and serves views of them.
+ * <p>
+ * All GET responses carry a strong {@code ETag} derived from the {@link GraphVersion}, and requests with a matching
+ * {@code If-None-Match} header are answered with 304 Not Modified without querying the database.
+ */
 @Consumes(APPLICATION_JSON)
 @Produces(APPLICATION_JSON)
 @Path("/elucidate")
 public class RelationshipResource {
 
+    /**
+     * The maximum number of events accepted in a single batch request.
+     */
+    public static final int MAX_EVENTS_PER_BATCH = 10_000;
+
+    /**
+     * The media type of newline-delimited JSON, i.e. one JSON document per line.
+     */
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    /**
+     * The default number of events returned by a single request for the event feed.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    /**
+     * The maximum number of events returned by a single request for the event feed.
+     */
+    public static final int MAX_PAGE_SIZE = 10_000;
+
+    /**
+     * The maximum number of shortest paths between two services returned by a single request.
+     */
+    public static final int MAX_PATHS = 10;
+
+    /**
+     * The response header containing the cursor to continue the event feed from.
+     */
+    public static final String NEXT_CURSOR_HEADER = "Elucidation-Next-Cursor";
+
     private final RelationshipService service;
+    private final EventImporter eventImporter;
+    private final GraphVersion graphVersion;
+    private final JsonArrayStreams jsonArrays;
+
+    public RelationshipResource(RelationshipService service, EventImporter eventImporter, ObjectMapper objectMapper) {
+        this(service, eventImporter, objectMapper, service.getGraphVersion());
+    }
 
-    public RelationshipResource(RelationshipService service) {
+    /**
+     * @param service       the service
+     * @param eventImporter used to import newline-delimited JSON events
+     * @param objectMapper  the application's mapper, used to write streamed responses
+     * @param graphVersion  used to tag GET responses, so that clients can make conditional requests
+     */
+    public RelationshipResource(RelationshipService service,
+                                EventImporter eventImporter,
+                                ObjectMapper objectMapper,
+                                GraphVersion graphVersion) {
         this.service = service;
+        this.eventImporter = eventImporter;
+        this.graphVersion = graphVersion;
+        this.jsonArrays = new JsonArrayStreams(objectMapper);
     }
 
     @Path("/event")
@@ -39,20 +132,123 @@ public class RelationshipResource {
         return Response.accepted().build();
     }
 
+    @Path("/events")
+    @POST
+    @Consumes({ APPLICATION_JSON, ConnectionEventBatchCodec.MEDIA_TYPE })
+    public Response recordEvents(@NotEmpty @Size(max = MAX_EVENTS_PER_BATCH) List<@Valid ConnectionEvent> events) {
+        service.createEvents(events);
+        return Response.accepted().build();
+    }
+
+    /**
+     * Import events from newline-delimited JSON, optionally gzip-compressed (i.e. {@code Content-Encoding: gzip}).
+     * The body is read and written in chunks, so it can be arbitrarily large.
+     */
+    @Path("/events")
+    @POST
+    @Consumes(APPLICATION_NDJSON)
+    public Response importEvents(@HeaderParam(HttpHeaders.CONTENT_ENCODING) String contentEncoding,
+                                 InputStream body) throws IOException {
+        try (var reader = newReader(contentEncoding, body)) {
+            return Response.ok(eventImporter.importEvents(reader)).build();
+        } catch (ZipException e) {
+            return Response.status(Status.BAD_REQUEST)
+                    .entity(Map.of(
+                        "error", "request body is not valid gzip: " + e.getMessage()
+                    ))
+                    .build();
+        }
+    }
+
+    private static BufferedReader newReader(String contentEncoding, InputStream body) throws IOException {
+        var inputStream = "gzip".equalsIgnoreCase(contentEncoding) ? new GZIPInputStream(body) : body;
+        return new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Page through all events in ascending order of observed time (and id), starting either after the given time, or
+     * after the position of a cursor returned by a previous request, which takes precedence. When the page is not
+     * empty, the {@value #NEXT_CURSOR_HEADER} header contains the cursor to continue after its last event. A page with
+     * fewer than {@code limit} events is the last one, for now.
+     * <p>
+     * Since the feed is keyed on client-assigned observed times, events that are first written with an observed time
+     * before a consumer's cursor, e.g. replayed events or transactions that commit late, are never returned to that
+     * consumer. Consumers that need every event must re-read an overlapping window.
+     */
     @Path("/events")
     @GET
-    public Response viewEventsSince(@NotNull @QueryParam("since") String sinceInMillisParam) {
-        var sinceInMillisOptional = parseLong(sinceInMillisParam);
+    public Response viewEvents(@Context Request request,
+                               @QueryParam("since") String sinceInMillisParam,
+                               @QueryParam("cursor") String cursorParam,
+                               @QueryParam("limit") String limitParam) {
+        var cursor = isNull(cursorParam)
+                ? parseLong(sinceInMillisParam).stream().mapToObj(EventCursor::since).findFirst()
+                : EventCursor.decode(cursorParam);
+        var limit = isNull(limitParam) ? OptionalInt.of(DEFAULT_PAGE_SIZE) : parseLimit(limitParam);
+
+        if (cursor.isEmpty() || limit.isEmpty()) {
+            return Response.status(Status.BAD_REQUEST).build();
+        }
 
-        if (sinceInMillisOptional.isEmpty()) {
+        return eventPage(request, cursor.get(), limit.getAsInt(),
+                (pageCursor, pageLimit, action) -> service.listEventsAfter(pageCursor, pageLimit).forEach(action));
+    }
+
+    /**
+     * Events of a single service or connection identifier are ordered by observed time (and id), too. Without a
+     * {@code limit}, all of them are streamed to the client as they are read from the database. With a
+     * {@code limit}, they are paged like the event feed. Either way, they start after the given cursor, if any.
+     */
+    private Response viewEventsOf(Request request, String cursorParam, String limitParam, EventSource source) {
+        var cursor = isNull(cursorParam) ? Optional.of(EventCursor.START) : EventCursor.decode(cursorParam);
+        var limit = isNull(limitParam) ? OptionalInt.empty() : parseLimit(limitParam);
+
+        if (cursor.isEmpty() || (nonNull(limitParam) && limit.isEmpty())) {
             return Response.status(Status.BAD_REQUEST).build();
         }
 
-        var sinceInMillis = sinceInMillisOptional.orElseThrow();
-        return Response.ok(service.listEventsSince(sinceInMillis)).build();
+        if (limit.isEmpty()) {
+            return unlessNotModified(request, changeTag(graphVersion), () -> Response.ok(
+                    jsonArrays.jsonArray(action -> source.forEach(cursor.get(), Integer.MAX_VALUE, action))));
+        }
+
+        return eventPage(request, cursor.get(), limit.getAsInt(), source);
+    }
+
+    private Response eventPage(Request request, EventCursor cursor, int limit, EventSource source) {
+        return unlessNotModified(request, changeTag(graphVersion), () -> {
+            var events = new ArrayList<ConnectionEvent>();
+            source.forEach(cursor, limit, events::add);
+            var response = Response.ok(events);
+
+            if (!events.isEmpty()) {
+                response.header(NEXT_CURSOR_HEADER, EventCursor.after(events.get(events.size() - 1)).encode());
+            }
+
+            return response;
+        });
+    }
+
+    @FunctionalInterface
+    private interface EventSource {
+        void forEach(EventCursor cursor, int limit, Consumer<ConnectionEvent> action);
+    }
+
+    private static OptionalInt parseLimit(String value) {
+        var limit = parseLong(value);
+
+        if (limit.isEmpty() || limit.getAsLong() < 1 || limit.getAsLong() > MAX_PAGE_SIZE) {
+            return OptionalInt.empty();
+        }
+
+        return OptionalInt.of((int) limit.getAsLong());
     }
 
     private static OptionalLong parseLong(String value) {
+        if (isNull(value)) {
+            return OptionalLong.empty();
+        }
+
         try {
             return OptionalLong.of(Long.parseLong(value));
         } catch (NumberFormatException e) {
@@ -62,49 +258,259 @@ public class RelationshipResource {
 
     @Path("/service/{serviceName}/events")
     @GET
-    public Response viewEventsForService(@PathParam("serviceName") String serviceName) {
-        return Response.ok(service.listEventsForService(serviceName)).build();
+    public Response viewEventsForService(@Context Request request,
+                                         @PathParam("serviceName") String serviceName,
+                                         @QueryParam("cursor") String cursorParam,
+                                         @QueryParam("limit") String limitParam) {
+        return viewEventsOf(request, cursorParam, limitParam,
+                (cursor, limit, action) -> service.forEachEventOfService(serviceName, cursor, limit, action));
     }
 
     @Path("/service/{serviceName}/relationships")
     @GET
-    public Response calculateRelationships(@PathParam("serviceName") String serviceName) {
-        return Response.ok(service.buildRelationships(serviceName)).build();
+    public Response calculateRelationships(@Context Request request,
+                                           @PathParam("serviceName") String serviceName,
+                                           @QueryParam("from") String fromParam,
+                                           @QueryParam("to") String toParam) {
+        var window = parseWindow(fromParam, toParam);
+        if (window.isEmpty()) {
+            return Response.status(Status.BAD_REQUEST).build();
+        }
+
+        return okUnlessNotModified(request, structureTag(window.get()),
+                () -> service.buildRelationships(serviceName, window.get()));
+    }
+
+    /**
+     * List everything that ultimately depends on the given service, i.e. its blast radius, with the number of hops
+     * from it. Optionally, {@code maxDepth} limits the number of hops that are followed.
+     */
+    @Path("/service/{serviceName}/dependents")
+    @GET
+    public Response calculateTransitiveDependents(@Context Request request,
+                                                  @PathParam("serviceName") String serviceName,
+                                                  @QueryParam("maxDepth") String maxDepthParam) {
+        return closure(request, maxDepthParam, maxDepth -> service.buildTransitiveDependents(serviceName, maxDepth));
+    }
+
+    /**
+     * List everything the given service ultimately depends on, with the number of hops from it. Optionally,
+     * {@code maxDepth} limits the number of hops that are followed.
+     */
+    @Path("/service/{serviceName}/dependencies")
+    @GET
+    public Response calculateTransitiveDependencies(@Context Request request,
+                                                    @PathParam("serviceName") String serviceName,
+                                                    @QueryParam("maxDepth") String maxDepthParam) {
+        return closure(request, maxDepthParam, maxDepth -> service.buildTransitiveDependencies(serviceName, maxDepth));
+    }
+
+    private Response closure(Request request, String maxDepthParam, IntFunction<List<ServiceDistance>> traversal) {
+        var maxDepth = isNull(maxDepthParam) ? OptionalLong.of(Integer.MAX_VALUE) : parseLong(maxDepthParam);
+
+        if (maxDepth.isEmpty() || maxDepth.getAsLong() < 1) {
+            return Response.status(Status.BAD_REQUEST).build();
+        }
+
+        var depth = (int) Math.min(maxDepth.getAsLong(), Integer.MAX_VALUE);
+        return okUnlessNotModified(request, graphTag(graphVersion), () -> traversal.apply(depth));
     }
 
     @Path("/service/{serviceName}/relationship/{relatedServiceName}")
     @GET
-    public Response viewRelationshipDetails(@PathParam("serviceName") String serviceName, @PathParam("relatedServiceName") String relatedServiceName) {
-        return Response.ok(service.findRelationshipDetails(serviceName, relatedServiceName)).build();
+    public Response viewRelationshipDetails(@Context Request request,
+                                            @PathParam("serviceName") String serviceName,
+                                            @PathParam("relatedServiceName") String relatedServiceName,
+                                            @QueryParam("from") String fromParam,
+                                            @QueryParam("to") String toParam) {
+        var window = parseWindow(fromParam, toParam);
+        if (window.isEmpty()) {
+            return Response.status(Status.BAD_REQUEST).build();
+        }
+
+        return okUnlessNotModified(request, changeTag(graphVersion),
+                () -> service.findRelationshipDetails(serviceName, relatedServiceName, window.get()));
+    }
+
+    /**
+     * Find the shortest chain of dependencies from one service to another, with the connections of every hop.
+     * Optionally, {@code k} finds up to the given number of shortest paths instead, shortest first.
+     */
+    @Path("/path/{fromService}/{toService}")
+    @GET
+    public Response findDependencyPaths(@Context Request request,
+                                        @PathParam("fromService") String fromService,
+                                        @PathParam("toService") String toService,
+                                        @QueryParam("k") String maxPathsParam) {
+        var maxPaths = isNull(maxPathsParam) ? OptionalLong.of(1) : parseLong(maxPathsParam);
+
+        if (maxPaths.isEmpty() || maxPaths.getAsLong() < 1 || maxPaths.getAsLong() > MAX_PATHS) {
+            return Response.status(Status.BAD_REQUEST).build();
+        }
+
+        return okUnlessNotModified(request, changeTag(graphVersion),
+                () -> service.findDependencyPaths(fromService, toService, (int) maxPaths.getAsLong()));
     }
 
     @Path("/services")
     @GET
-    public Response currentServiceNames() {
-        return Response.ok(new HashSet<>(service.currentServiceNames())).build();
+    public Response currentServiceNames(@Context Request request) {
+        return okUnlessNotModified(request, graphTag(graphVersion), () -> new HashSet<>(service.currentServiceNames()));
     }
 
+    /**
+     * List the details of all services, ordered by name. Optionally, {@code sort} orders them by {@code name}, or by
+     * the number of {@code inbound}, {@code outbound}, or {@code total} events (the most first), and {@code limit}
+     * lists only the first services, e.g. {@code ?sort=inbound&limit=10} lists the ten services with the most inbound
+     * events.
+     */
     @Path("/services/details")
     @GET
-    public Response currentServiceDetails() {
-        return Response.ok(service.currentServiceDetails()).build();
+    public Response currentServiceDetails(@Context Request request,
+                                          @QueryParam("sort") String sortParam,
+                                          @QueryParam("limit") String limitParam,
+                                          @QueryParam("from") String fromParam,
+                                          @QueryParam("to") String toParam) {
+        var order = isNull(sortParam) ? Optional.of(ServiceDetailsOrder.NAME) : parseOrder(sortParam);
+        var limit = isNull(limitParam) ? OptionalLong.of(Integer.MAX_VALUE) : parseLong(limitParam);
+        var window = parseWindow(fromParam, toParam);
+
+        if (order.isEmpty() || limit.isEmpty() || limit.getAsLong() < 1 || window.isEmpty()) {
+            return Response.status(Status.BAD_REQUEST).build();
+        }
+
+        var maxServices = (int) Math.min(limit.getAsLong(), Integer.MAX_VALUE);
+        return okUnlessNotModified(request, structureTag(window.get()),
+                () -> service.currentServiceDetails(order.get(), maxServices, window.get()));
+    }
+
+    private static Optional<ServiceDetailsOrder> parseOrder(String value) {
+        return Arrays.stream(ServiceDetailsOrder.values())
+                .filter(order -> order.name().equalsIgnoreCase(value))
+                .findFirst();
     }
 
     @Path("/dependencies")
     @GET
-    public Response calculateAllDependencies() {
-        return Response.ok(service.buildAllDependencies()).build();
+    public Response calculateAllDependencies(@Context Request request,
+                                             @QueryParam("from") String fromParam,
+                                             @QueryParam("to") String toParam) {
+        var window = parseWindow(fromParam, toParam);
+        if (window.isEmpty()) {
+            return Response.status(Status.BAD_REQUEST).build();
+        }
+
+        return okUnlessNotModified(request, structureTag(window.get()),
+                () -> service.buildAllDependencies(window.get()));
+    }
+
+    /**
+     * List all groups of services that (transitively) depend on each other, largest first, with the dependencies
+     * between them by communication type.
+     */
+    @Path("/dependencies/cycles")
+    @GET
+    public Response findDependencyCycles(@Context Request request) {
+        return okUnlessNotModified(request, graphTag(graphVersion), service::findDependencyCycles);
+    }
+
+    /**
+     * Compare the dependencies in the window from {@code beforeFrom} to {@code beforeTo} with those in the window from
+     * {@code afterFrom} to {@code afterTo}, listing the dependencies that were added, removed, or changed
+     * communication types. Missing bounds are unbounded, just like for the other graph endpoints.
+     */
+    @Path("/dependencies/diff")
+    @GET
+    public Response diffDependencies(@Context Request request,
+                                     @QueryParam("beforeFrom") String beforeFromParam,
+                                     @QueryParam("beforeTo") String beforeToParam,
+                                     @QueryParam("afterFrom") String afterFromParam,
+                                     @QueryParam("afterTo") String afterToParam) {
+        var before = parseWindow(beforeFromParam, beforeToParam);
+        var after = parseWindow(afterFromParam, afterToParam);
+        if (before.isEmpty() || after.isEmpty()) {
+            return Response.status(Status.BAD_REQUEST).build();
+        }
+
+        return okUnlessNotModified(request, changeTag(graphVersion),
+                () -> service.diffDependencies(before.get(), after.get()));
     }
 
     @Path("/dependencies/details")
     @GET
-    public Response calculateAllDependenciesWithDetails() {
-        return Response.ok(service.buildAllDependenciesWithDetails()).build();
+    public Response calculateAllDependenciesWithDetails(@Context Request request,
+                                                        @QueryParam("from") String fromParam,
+                                                        @QueryParam("to") String toParam) {
+        var window = parseWindow(fromParam, toParam);
+        if (window.isEmpty()) {
+            return Response.status(Status.BAD_REQUEST).build();
+        }
+
+        return okUnlessNotModified(request, changeTag(graphVersion),
+                () -> service.buildAllDependenciesWithDetails(window.get()));
+    }
+
+    /**
+     * Parse the optional {@code from} and {@code to} parameters (in millis since the epoch) of the graph endpoints,
+     * which restrict them to the connections alive in that window.
+     */
+    private static Optional<ObservationWindow> parseWindow(String fromParam, String toParam) {
+        var from = isNull(fromParam) ? OptionalLong.of(Long.MIN_VALUE) : parseLong(fromParam);
+        var to = isNull(toParam) ? OptionalLong.of(Long.MAX_VALUE) : parseLong(toParam);
+
+        if (from.isEmpty() || to.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return ObservationWindow.between(from.getAsLong(), to.getAsLong());
+    }
+
+    /**
+     * Results that only depend on which connections exist keep their tag while known connections are observed again,
+     * unless they are restricted to a window, which connections can move into or out of whenever they are observed.
+     */
+    private EntityTag structureTag(ObservationWindow window) {
+        return window.isUnbounded() ? graphTag(graphVersion) : changeTag(graphVersion);
+    }
+
+    /**
+     * Export the graph of dependencies between all services as Graphviz DOT ({@code format=dot}, the default),
+     * GraphML ({@code format=graphml}), or a compact JSON adjacency list ({@code format=adjacency}). Optionally,
+     * {@code communicationType} (which may be repeated) only includes dependencies over the given communication types,
+     * and {@code from} and {@code to} only include connections alive in the given window, in millis since the
+     * epoch.
+     *
+     * @see GraphFormat
+     */
+    @Path("/graph")
+    @GET
+    @Produces({ "text/vnd.graphviz", "application/graphml+xml", APPLICATION_JSON })
+    public Response exportGraph(@Context Request request,
+                                @QueryParam("format") @DefaultValue("dot") String formatParam,
+                                @QueryParam("communicationType") List<String> communicationTypes,
+                                @QueryParam("from") String fromParam,
+                                @QueryParam("to") String toParam) {
+        var format = GraphFormat.fromName(formatParam);
+        var window = parseWindow(fromParam, toParam);
+
+        if (format.isEmpty() || window.isEmpty()) {
+            return Response.status(Status.BAD_REQUEST).build();
+        }
+
+        return unlessNotModified(request, changeTag(graphVersion), () -> {
+            var graph = service.buildDependencyGraph(Set.copyOf(communicationTypes), window.get());
+            StreamingOutput output = outputStream -> format.get().write(graph, outputStream);
+
+            return Response.ok(output, format.get().getMediaType());
+        });
     }
 
     @Path("/connectionIdentifier/events")
     @GET
-    public Response viewEventsForConnectionIdentifier(@QueryParam("connectionIdentifier") String connectionIdentifier) {
+    public Response viewEventsForConnectionIdentifier(@Context Request request,
+                                                      @QueryParam("connectionIdentifier") String connectionIdentifier,
+                                                      @QueryParam("cursor") String cursorParam,
+                                                      @QueryParam("limit") String limitParam) {
         if (isBlank(connectionIdentifier)) {
             return Response.status(Status.BAD_REQUEST)
                     .entity(Map.of(
@@ -113,7 +519,8 @@ public class RelationshipResource {
                     .build();
         }
 
-        return Response.ok(service.findAllEventsByConnectionIdentifier(connectionIdentifier)).build();
+        return viewEventsOf(request, cursorParam, limitParam, (cursor, limit, action) ->
+                service.forEachEventWithConnectionIdentifier(connectionIdentifier, cursor, limit, action));
     }
 
 }
@@ -1,19 +1,32 @@
 package org.kiwiproject.elucidation.server.resources;
 
 import static jakarta.ws.rs.core.MediaType.APPLICATION_JSON;
+import static java.util.Objects.isNull;
+import static org.kiwiproject.elucidation.server.resources.ConditionalResponses.graphTag;
+import static org.kiwiproject.elucidation.server.resources.ConditionalResponses.okUnlessNotModified;
+import static org.kiwiproject.elucidation.server.resources.ConditionalResponses.unlessNotModified;
 
 import com.codahale.metrics.annotation.ExceptionMetered;
 import com.codahale.metrics.annotation.Timed;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.kiwiproject.elucidation.server.core.TrackedConnectionIdentifiers;
+import org.kiwiproject.elucidation.server.service.GraphVersion;
 import org.kiwiproject.elucidation.server.service.TrackedConnectionIdentifierService;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import java.util.List;
 
@@ -23,9 +36,24 @@ import java.util.List;
 public class TrackedConnectionIdentifierResource {
 
     private final TrackedConnectionIdentifierService service;
+    private final GraphVersion graphVersion;
+    private final JsonArrayStreams jsonArrays;
 
-    public TrackedConnectionIdentifierResource(TrackedConnectionIdentifierService service) {
+    public TrackedConnectionIdentifierResource(TrackedConnectionIdentifierService service, ObjectMapper objectMapper) {
+        this(service, objectMapper, service.getGraphVersion());
+    }
+
+    /**
+     * @param service      the service
+     * @param objectMapper the application's mapper, used to write streamed responses
+     * @param graphVersion used to tag GET responses, so that clients can make conditional requests
+     */
+    public TrackedConnectionIdentifierResource(TrackedConnectionIdentifierService service,
+                                               ObjectMapper objectMapper,
+                                               GraphVersion graphVersion) {
         this.service = service;
+        this.graphVersion = graphVersion;
+        this.jsonArrays = new JsonArrayStreams(objectMapper);
     }
 
     @POST
@@ -40,30 +68,52 @@ public class TrackedConnectionIdentifierResource {
         return Response.accepted().build();
     }
 
+    /**
+     * Same as {@link #loadTrackedIdentifiers(String, String, List)}, but replaces the tracked identifiers of several
+     * services and communication types at once.
+     */
+    @POST
+    @Path("/trackedIdentifiers")
+    @Timed
+    @ExceptionMetered
+    public Response loadAllTrackedIdentifiers(@NotEmpty List<@Valid TrackedConnectionIdentifiers> identifiers) {
+        service.loadNewIdentifiers(identifiers);
+        return Response.accepted().build();
+    }
+
     @GET
     @Path("/connectionIdentifier/unused")
     @Timed
     @ExceptionMetered
-    public Response findUnusedIdentifiers() {
-        var unused = service.findUnusedIdentifiers();
-
-        return Response.ok(unused).build();
+    public Response findUnusedIdentifiers(@Context Request request) {
+        return okUnlessNotModified(request, graphTag(graphVersion), service::findUnusedIdentifiers);
     }
 
+    /**
+     * Streams the tracked identifiers in order of id as they are read from the database. To page through them, pass
+     * a {@code limit}, and the id of the last identifier received as {@code after} in the next request.
+     */
     @GET
     @Path("/trackedIdentifiers")
     @Timed
     @ExceptionMetered
-    public Response allTrackedIdentifiers() {
-        return Response.ok(service.allTrackedConnectionIdentifiers()).build();
+    public Response allTrackedIdentifiers(@Context Request request,
+                                          @QueryParam("after") @DefaultValue("0") @Min(0) long afterId,
+                                          @QueryParam("limit") @Min(1) Integer limit) {
+        var maxIdentifiers = isNull(limit) ? Integer.MAX_VALUE : limit;
+
+        return unlessNotModified(request, graphTag(graphVersion), () -> Response.ok(jsonArrays.jsonArray(
+                action -> service.forEachTrackedConnectionIdentifier(afterId, maxIdentifiers, action))));
     }
 
     @GET
     @Path("/connectionIdentifier/{serviceName}/unused")
     @Timed
     @ExceptionMetered
-    public Response findUnusedIdentifiersForService(@PathParam("serviceName") String serviceName) {
-        return Response.ok(service.findUnusedIdentifiersForService(serviceName)).build();
+    public Response findUnusedIdentifiersForService(@Context Request request,
+                                                    @PathParam("serviceName") String serviceName) {
+        return okUnlessNotModified(request, graphTag(graphVersion),
+                () -> service.findUnusedIdentifiersForService(serviceName));
     }
 
 }
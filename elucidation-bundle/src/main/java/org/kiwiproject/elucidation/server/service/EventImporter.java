@@ -0,0 +1,232 @@
+package org.kiwiproject.elucidation.server.service;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.isNull;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.kiwiproject.elucidation.common.model.ConnectionEvent;
+import org.kiwiproject.elucidation.server.core.EventImportChunk;
+import org.kiwiproject.elucidation.server.core.EventImportResult;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Imports connection events from newline-delimited JSON, one event per line.
+ * <p>
+ * Lines are read, validated, and written in chunks of a fixed number of lines, so an import never holds more than one
+ * chunk of events in memory regardless of how large the input is. Lines that are not valid JSON (including lines with
+ * anything after the event), that fail validation, or that are longer than the maximum line length are rejected and
+ * counted, but do not stop the import. Blank lines are ignored.
+ *
+ * @implNote Chunks are written as they are read, so if writing a chunk fails, the chunks before it have already been
+ * imported. Since events are upserted, re-importing the same input is safe.
+ */
+@Slf4j
+public class EventImporter {
+
+    /**
+     * The default number of lines in each chunk.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1_000;
+
+    /**
+     * The default maximum number of characters in a line, which is far more than any valid event needs.
+     */
+    public static final int DEFAULT_MAX_LINE_LENGTH = 64 * 1_024;
+
+    private final RelationshipService service;
+    private final ObjectReader eventReader;
+    private final Validator validator;
+    private final int chunkSize;
+    private final int maxLineLength;
+
+    public EventImporter(RelationshipService service, ObjectMapper objectMapper, Validator validator, int chunkSize) {
+        this(service, objectMapper, validator, chunkSize, DEFAULT_MAX_LINE_LENGTH);
+    }
+
+    /**
+     * @param service       the service the events are written to
+     * @param objectMapper  the mapper used to read the events
+     * @param validator     the validator used to validate the events
+     * @param chunkSize     the number of lines in each chunk
+     * @param maxLineLength the maximum number of characters in a line; longer lines are skipped without being held in
+     *                      memory as a whole, and rejected
+     */
+    public EventImporter(RelationshipService service,
+                         ObjectMapper objectMapper,
+                         Validator validator,
+                         int chunkSize,
+                         int maxLineLength) {
+        checkArgument(chunkSize > 0, "chunkSize must be greater than zero");
+        checkArgument(maxLineLength > 0, "maxLineLength must be greater than zero");
+
+        this.service = service;
+        this.eventReader = objectMapper.readerFor(ConnectionEvent.class)
+                .with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+        this.maxLineLength = maxLineLength;
+    }
+
+    public EventImportResult importEvents(BufferedReader reader) throws IOException {
+        var chunks = new ArrayList<EventImportChunk>();
+        var chunk = new ChunkBuilder(1);
+
+        var lines = new BoundedLineReader(reader, maxLineLength);
+        String line;
+        long lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+
+            if (lines.isTruncated()) {
+                chunk.reject(lineNumber, "longer than " + maxLineLength + " characters");
+            } else if (isBlank(line)) {
+                continue;
+            } else {
+                chunk.add(lineNumber, line);
+            }
+
+            if (chunk.size() == chunkSize) {
+                chunks.add(chunk.write());
+                chunk = new ChunkBuilder(lineNumber + 1);
+            }
+        }
+
+        if (chunk.size() > 0) {
+            chunks.add(chunk.write());
+        }
+
+        return EventImportResult.builder()
+                .accepted(chunks.stream().mapToLong(EventImportChunk::getAccepted).sum())
+                .rejected(chunks.stream().mapToLong(EventImportChunk::getRejected).sum())
+                .chunks(chunks)
+                .build();
+    }
+
+    private class ChunkBuilder {
+
+        private final long firstLine;
+        private final List<ConnectionEvent> events = new ArrayList<>();
+        private long lastLine;
+        private int rejected;
+
+        ChunkBuilder(long firstLine) {
+            this.firstLine = firstLine;
+        }
+
+        void add(long lineNumber, String line) {
+            lastLine = lineNumber;
+
+            try {
+                var event = eventReader.<ConnectionEvent>readValue(line);
+
+                if (isNull(event)) {
+                    reject(lineNumber, "null event");
+                    return;
+                }
+
+                var violations = validator.validate(event);
+                if (violations.isEmpty()) {
+                    events.add(event);
+                } else {
+                    reject(lineNumber, violations);
+                }
+            } catch (JsonProcessingException e) {
+                reject(lineNumber, e.getOriginalMessage());
+            }
+        }
+
+        void reject(long lineNumber, Object reason) {
+            LOG.debug("Rejecting line {}: {}", lineNumber, reason);
+            lastLine = lineNumber;
+            rejected++;
+        }
+
+        int size() {
+            return events.size() + rejected;
+        }
+
+        EventImportChunk write() {
+            if (!events.isEmpty()) {
+                service.createEvents(events);
+            }
+
+            return EventImportChunk.builder()
+                    .firstLine(firstLine)
+                    .lastLine(lastLine)
+                    .accepted(events.size())
+                    .rejected(rejected)
+                    .build();
+        }
+    }
+
+    /**
+     * Reads lines like {@link BufferedReader#readLine()}, but stops keeping the characters of a line once it is longer
+     * than the maximum length, so that a single huge line cannot exhaust the heap.
+     */
+    private static class BoundedLineReader {
+
+        private final Reader reader;
+        private final int maxLineLength;
+        private final StringBuilder line = new StringBuilder();
+        private boolean truncated;
+        private boolean skipLineFeed;
+
+        BoundedLineReader(Reader reader, int maxLineLength) {
+            this.reader = reader;
+            this.maxLineLength = maxLineLength;
+        }
+
+        /**
+         * @return the next line without its terminator, or {@code null} at the end of the input; only the first
+         * {@code maxLineLength} characters of a longer line are returned
+         */
+        String readLine() throws IOException {
+            line.setLength(0);
+            truncated = false;
+
+            var readAnything = false;
+            int next;
+            while ((next = reader.read()) != -1) {
+                if (skipLineFeed) {
+                    skipLineFeed = false;
+                    if (next == '\n') {
+                        continue;
+                    }
+                }
+
+                readAnything = true;
+
+                if (next == '\n') {
+                    return line.toString();
+                } else if (next == '\r') {
+                    skipLineFeed = true;
+                    return line.toString();
+                } else if (line.length() < maxLineLength) {
+                    line.append((char) next);
+                } else {
+                    truncated = true;
+                }
+            }
+
+            return readAnything ? line.toString() : null;
+        }
+
+        /**
+         * @return whether the last line read was longer than the maximum length
+         */
+        boolean isTruncated() {
+            return truncated;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.kiwiproject.elucidation.server.service;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.dropwizard.util.Duration;
+import org.kiwiproject.elucidation.common.model.ConnectionEvent;
+import org.kiwiproject.elucidation.server.core.ConnectionEventKey;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A counter that is incremented whenever the connection graph may have changed, i.e. when a connection is recorded
+ * for the first time, when events expire, or when tracked identifiers are loaded.
+ * <p>
+ * Observing an already known connection again only moves its observed time forward, so it does not change the
+ * version. To tell new connections from known ones, the keys of recorded events are remembered, up to a maximum
+ * number; a forgotten key is treated as new, which at worst changes the version more often than necessary.
+ * <p>
+ * In addition, a change sequence is incremented on every change, including observed times moving forward.
+ * Both counters start over when the application restarts, so they are qualified by a random epoch wherever they are
+ * exposed to clients.
+ * <p>
+ * The counters only see changes made through this instance. When several instances share a database, or events are
+ * written or deleted by other means, they can miss changes, so tags derived from them should expire: the
+ * {@link #period()} advances once per max tag age, and is meant to be included in such tags.
+ *
+ * @implNote The counters must be updated <em>after</em> changes are committed, so that a result computed from the
+ * old data is never tagged with the new version.
+ * @see ResultCache
+ */
+public class GraphVersion {
+
+    public static final long DEFAULT_MAX_KNOWN_KEYS = 100_000;
+
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, Character.MAX_RADIX);
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong changeSequence = new AtomicLong();
+    private final Cache<ConnectionEventKey, Boolean> knownKeys;
+    private final long maxTagAgeMillis;
+    private final LongSupplier clock;
+
+    public GraphVersion() {
+        this(DEFAULT_MAX_KNOWN_KEYS);
+    }
+
+    public GraphVersion(long maxKnownKeys) {
+        this(maxKnownKeys, Duration.milliseconds(0));
+    }
+
+    /**
+     * @param maxKnownKeys the maximum number of connections remembered to tell new connections from known ones
+     * @param maxTagAge    how often the {@link #period()} advances; zero means never, which is only appropriate when
+     *                     all changes to the database are made through this instance
+     */
+    public GraphVersion(long maxKnownKeys, Duration maxTagAge) {
+        this(maxKnownKeys, maxTagAge, System::currentTimeMillis);
+    }
+
+    @VisibleForTesting
+    GraphVersion(long maxKnownKeys, Duration maxTagAge, LongSupplier clock) {
+        this.knownKeys = CacheBuilder.newBuilder().maximumSize(maxKnownKeys).build();
+        this.maxTagAgeMillis = maxTagAge.toMilliseconds();
+        this.clock = clock;
+    }
+
+    /**
+     * @return a random value identifying this instance, and thereby the run of the application
+     */
+    public String epoch() {
+        return epoch;
+    }
+
+    /**
+     * @return the current version
+     */
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * @return the current change sequence
+     */
+    public long changeSequence() {
+        return changeSequence.get();
+    }
+
+    /**
+     * @return the number of whole max tag ages elapsed since the Unix epoch, or zero if the max tag age is zero
+     */
+    public long period() {
+        return maxTagAgeMillis > 0 ? clock.getAsLong() / maxTagAgeMillis : 0;
+    }
+
+    /**
+     * Increment the version (and the change sequence) unconditionally.
+     */
+    public void increment() {
+        changeSequence.incrementAndGet();
+        version.incrementAndGet();
+    }
+
+    /**
+     * Increment the version if any of the given events is for a connection that was not recorded before, and the
+     * change sequence in any case.
+     *
+     * @param events the recorded events
+     */
+    public void eventsRecorded(Collection<ConnectionEvent> events) {
+        var anyNewKeys = false;
+
+        for (var event : events) {
+            var key = ConnectionEventKey.of(event);
+            if (knownKeys.asMap().putIfAbsent(key, Boolean.TRUE) == null) {
+                anyNewKeys = true;
+            }
+        }
+
+        if (anyNewKeys) {
+            increment();
+        } else if (!events.isEmpty()) {
+            changeSequence.incrementAndGet();
+        }
+    }
+
+    /**
+     * Increment the version and forget all known keys, since events may have been deleted.
+     */
+    public void eventsRemoved() {
+        knownKeys.invalidateAll();
+        increment();
+    }
+}
@@ -1,103 +1,336 @@
 package org.kiwiproject.elucidation.server.service;
 
-import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Sets.newHashSet;
-import static java.util.Objects.isNull;
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.comparingLong;
+import static java.util.Objects.nonNull;
 import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toSet;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 
 import org.kiwiproject.elucidation.common.definition.CommunicationDefinition;
 import org.kiwiproject.elucidation.common.model.ConnectionEvent;
 import org.kiwiproject.elucidation.common.model.Direction;
 import org.kiwiproject.elucidation.common.model.RelationshipDetails;
+import org.kiwiproject.elucidation.server.core.ConnectionEventKey;
+import org.kiwiproject.elucidation.server.core.ConnectionEventPair;
 import org.kiwiproject.elucidation.server.core.ConnectionSummary;
+import org.kiwiproject.elucidation.server.core.DependencyChange;
+import org.kiwiproject.elucidation.server.core.DependencyCycle;
+import org.kiwiproject.elucidation.server.core.DependencyGraphDiff;
+import org.kiwiproject.elucidation.server.core.DependencyPath;
 import org.kiwiproject.elucidation.server.core.DependencyRelationshipDetails;
+import org.kiwiproject.elucidation.server.core.EventCursor;
+import org.kiwiproject.elucidation.server.core.ObservationWindow;
 import org.kiwiproject.elucidation.server.core.ServiceConnections;
 import org.kiwiproject.elucidation.server.core.ServiceDependencies;
 import org.kiwiproject.elucidation.server.core.ServiceDependencyDetails;
 import org.kiwiproject.elucidation.server.core.ServiceDetails;
+import org.kiwiproject.elucidation.server.core.ServiceDetailsOrder;
+import org.kiwiproject.elucidation.server.core.ServiceDistance;
+import org.kiwiproject.elucidation.server.core.ServiceEventCount;
+import org.kiwiproject.elucidation.server.core.WindowedEventPair;
 import org.kiwiproject.elucidation.server.db.ConnectionEventDao;
-
+import org.kiwiproject.elucidation.server.db.ConnectionEventWriter;
+import org.kiwiproject.elucidation.server.db.GenericConnectionEventWriter;
+import org.kiwiproject.elucidation.server.graph.ConnectionGraphIndex;
+import org.kiwiproject.elucidation.server.graph.DependencyEdge;
+import org.kiwiproject.elucidation.server.graph.DependencyGraph;
+import org.kiwiproject.elucidation.server.graph.ServiceGraph;
+
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 public class RelationshipService {
 
+    /**
+     * The default number of rows to fetch from the database at a time when streaming results.
+     */
+    public static final int DEFAULT_FETCH_SIZE = 1_000;
+
     private final ConnectionEventDao dao;
+    private final ConnectionEventWriter writer;
     private final Map<String, CommunicationDefinition> communicationDefinitions;
+    private final ConnectionGraphIndex graphIndex;
+    private final ResultCache resultCache;
+    private final int fetchSize;
 
     public RelationshipService(ConnectionEventDao dao, Map<String, CommunicationDefinition> communicationDefinitions) {
+        this(dao, new GenericConnectionEventWriter(dao), communicationDefinitions);
+    }
+
+    public RelationshipService(ConnectionEventDao dao,
+                               ConnectionEventWriter writer,
+                               Map<String, CommunicationDefinition> communicationDefinitions) {
+        this(dao, writer, communicationDefinitions, null);
+    }
+
+    /**
+     * @param graphIndex if not null, service names, relationships, and dependencies are read from this index instead
+     *                   of the database; it is expected to be updated as events are written, e.g. by wrapping the
+     *                   writer in an {@link org.kiwiproject.elucidation.server.db.IndexingConnectionEventWriter}
+     */
+    public RelationshipService(ConnectionEventDao dao,
+                               ConnectionEventWriter writer,
+                               Map<String, CommunicationDefinition> communicationDefinitions,
+                               ConnectionGraphIndex graphIndex) {
+        this(dao, writer, communicationDefinitions, graphIndex, ResultCache.uncached(new GraphVersion()));
+    }
+
+    /**
+     * @param graphIndex  if not null, service names, relationships, and dependencies are read from this index
+     *                    instead of the database; it is expected to be updated as events are written, e.g. by
+     *                    wrapping the writer in an
+     *                    {@link org.kiwiproject.elucidation.server.db.IndexingConnectionEventWriter}
+     * @param resultCache caches service details and dependencies; its graph version is expected to be updated as
+     *                    events are written and indexed, e.g. by wrapping the writer in a
+     *                    {@link org.kiwiproject.elucidation.server.db.VersionTrackingConnectionEventWriter}
+     */
+    public RelationshipService(ConnectionEventDao dao,
+                               ConnectionEventWriter writer,
+                               Map<String, CommunicationDefinition> communicationDefinitions,
+                               ConnectionGraphIndex graphIndex,
+                               ResultCache resultCache) {
+        this(dao, writer, communicationDefinitions, graphIndex, resultCache, DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * @param graphIndex  if not null, service names, relationships, and dependencies are read from this index
+     *                    instead of the database; it is expected to be updated as events are written, e.g. by
+     *                    wrapping the writer in an
+     *                    {@link org.kiwiproject.elucidation.server.db.IndexingConnectionEventWriter}
+     * @param resultCache caches service details and dependencies; its graph version is expected to be updated as
+     *                    events are written and indexed, e.g. by wrapping the writer in a
+     *                    {@link org.kiwiproject.elucidation.server.db.VersionTrackingConnectionEventWriter}
+     * @param fetchSize   the number of rows to fetch from the database at a time when streaming events
+     */
+    public RelationshipService(ConnectionEventDao dao,
+                               ConnectionEventWriter writer,
+                               Map<String, CommunicationDefinition> communicationDefinitions,
+                               ConnectionGraphIndex graphIndex,
+                               ResultCache resultCache,
+                               int fetchSize) {
         this.dao = dao;
+        this.writer = writer;
         this.communicationDefinitions = communicationDefinitions;
+        this.graphIndex = graphIndex;
+        this.resultCache = resultCache;
+        this.fetchSize = fetchSize;
+    }
+
+    public GraphVersion getGraphVersion() {
+        return resultCache.getGraphVersion();
     }
 
     public void createEvent(ConnectionEvent event) {
-        dao.createOrUpdate(event);
+        writer.write(event);
     }
 
-    public List<ConnectionEvent> listEventsSince(long sinceInMillis) {
-        return dao.findEventsSince(sinceInMillis);
+    /**
+     * Creates or updates a batch of events in a single transaction.
+     * <p>
+     * Events in the batch that share the same natural key (see {@link ConnectionEventKey}) are collapsed into the one
+     * that was observed last, so that a single batch never writes the same connection twice.
+     */
+    public void createEvents(List<ConnectionEvent> events) {
+        var latestEventsByKey = events.stream()
+                .collect(toMap(
+                        ConnectionEventKey::of,
+                        Function.identity(),
+                        BinaryOperator.maxBy(comparingLong(ConnectionEvent::getObservedAt)),
+                        LinkedHashMap::new));
+
+        writer.writeAll(List.copyOf(latestEventsByKey.values()));
+    }
+
+    /**
+     * Page through the feed of all events, which is ordered by observed time and id.
+     *
+     * @param cursor the position to continue after
+     * @param limit  the maximum number of events to return
+     * @return the events after the cursor
+     * @see EventCursor#after(ConnectionEvent) to continue after the last of the returned events
+     */
+    public List<ConnectionEvent> listEventsAfter(EventCursor cursor, int limit) {
+        return dao.findEventsAfter(cursor.getObservedAt(), cursor.getId(), limit);
     }
 
     public List<ConnectionEvent> listEventsForService(String serviceName) {
         return dao.findEventsByServiceName(serviceName);
     }
 
+    /**
+     * Pass the events of the given service to the given action, in order of observed time and id, without holding
+     * all of them in memory.
+     *
+     * @param serviceName the service name
+     * @param cursor      the position to start after
+     * @param limit       the maximum number of events
+     * @param action      the action to perform for each event
+     */
+    public void forEachEventOfService(String serviceName, EventCursor cursor, int limit, Consumer<ConnectionEvent> action) {
+        dao.forEachEventOfService(serviceName, cursor, limit, fetchSize, action);
+    }
+
     public List<String> currentServiceNames() {
+        if (nonNull(graphIndex)) {
+            return graphIndex.serviceNames();
+        }
+
         return dao.findAllServiceNames();
     }
 
+    private List<String> serviceNames(ObservationWindow window) {
+        if (window.isUnbounded()) {
+            return currentServiceNames();
+        }
+
+        return dao.findServiceNamesObservedBetween(window.getFrom(), window.getTo());
+    }
+
     public List<ServiceDetails> currentServiceDetails() {
-        var serviceNames = currentServiceNames();
+        return currentServiceDetails(ObservationWindow.ALL);
+    }
+
+    /**
+     * List the details of the services with events alive in the given window, counting only those events.
+     *
+     * @param window the observation window
+     * @return the details of the services, in order of name
+     */
+    public List<ServiceDetails> currentServiceDetails(ObservationWindow window) {
+        return cachedUnlessWindowed("services/details", window, () -> buildServiceDetails(window));
+    }
+
+    /**
+     * List the details of the current services in the given order.
+     *
+     * @param order the order
+     * @param limit the maximum number of services to list, e.g. to list the services with the most inbound events
+     * @return the details of up to {@code limit} services
+     */
+    public List<ServiceDetails> currentServiceDetails(ServiceDetailsOrder order, int limit) {
+        return currentServiceDetails(order, limit, ObservationWindow.ALL);
+    }
 
-        return serviceNames.stream()
-                .map(this::buildDetails)
+    /**
+     * Same as {@link #currentServiceDetails(ServiceDetailsOrder, int)}, but only for the events observed in the given
+     * window.
+     */
+    public List<ServiceDetails> currentServiceDetails(ServiceDetailsOrder order, int limit, ObservationWindow window) {
+        return currentServiceDetails(window).stream()
+                .sorted(order.comparator())
+                .limit(limit)
                 .toList();
     }
 
-    private ServiceDetails buildDetails(String serviceName) {
-        var events = dao.findEventsByServiceName(serviceName);
-        var eventsByDirectionCounts = events.stream().collect(groupingBy(ConnectionEvent::getEventDirection));
-        var eventsByCommunicationType = events.stream().collect(groupingBy(ConnectionEvent::getCommunicationType));
+    private List<ServiceDetails> buildServiceDetails(ObservationWindow window) {
+        var counts = window.isUnbounded()
+                ? dao.countEventsByServiceDirectionAndCommunicationType()
+                : dao.countEventsByServiceDirectionAndCommunicationType(window.getFrom(), window.getTo());
+        var countsByService = counts.stream()
+                .collect(groupingBy(ServiceEventCount::getServiceName, LinkedHashMap::new, toList()));
 
-        var eventsByCommunicationTypeCounts = eventsByCommunicationType.entrySet().stream()
-                .collect(toMap(
-                        Map.Entry::getKey,
-                        entry-> entry.getValue().size()
-                ));
+        return countsByService.entrySet().stream()
+                .map(entry -> buildDetails(entry.getKey(), entry.getValue()))
+                .toList();
+    }
 
+    private static ServiceDetails buildDetails(String serviceName, List<ServiceEventCount> counts) {
         return ServiceDetails.builder()
                 .serviceName(serviceName)
-                .inboundEvents(eventsByDirectionCounts.getOrDefault(Direction.INBOUND, newArrayList()).size())
-                .outboundEvents(eventsByDirectionCounts.getOrDefault(Direction.OUTBOUND, newArrayList()).size())
-                .communicationTypes(eventsByCommunicationTypeCounts)
+                .inboundEvents(sumOfCounts(counts, Direction.INBOUND))
+                .outboundEvents(sumOfCounts(counts, Direction.OUTBOUND))
+                .communicationTypes(counts.stream()
+                        .collect(toMap(ServiceEventCount::getCommunicationType, ServiceEventCount::getCount, Integer::sum)))
                 .build();
     }
 
+    private static int sumOfCounts(List<ServiceEventCount> counts, Direction direction) {
+        return counts.stream()
+                .filter(count -> count.getEventDirection() == direction)
+                .mapToInt(ServiceEventCount::getCount)
+                .sum();
+    }
+
     public List<ServiceDependencies> buildAllDependencies() {
-        return dao.findAllServiceNames().stream()
+        return buildAllDependencies(ObservationWindow.ALL);
+    }
+
+    /**
+     * List the dependencies of the services with events alive in the given window, i.e. observed at some point during
+     * it judging by their first and last observed times, only considering connections whose events were both alive in
+     * the window.
+     *
+     * @param window the observation window
+     * @return the dependencies of the services
+     */
+    public List<ServiceDependencies> buildAllDependencies(ObservationWindow window) {
+        return cachedUnlessWindowed("dependencies", window, () -> buildAllDependenciesUncached(window));
+    }
+
+    private List<ServiceDependencies> buildAllDependenciesUncached(ObservationWindow window) {
+        var dependenciesByService = allEventPairs(window).stream()
+                .filter(pair -> isDependentEvent(pair.getEvent()))
+                .collect(groupingBy(pair -> pair.getEvent().getServiceName(),
+                        mapping(pair -> pair.getAssociatedEvent().getServiceName(), toSet())));
+
+        return serviceNames(window).stream()
                 .distinct()
-                .map(this::findDependencies)
+                .map(serviceName -> ServiceDependencies.builder()
+                        .serviceName(serviceName)
+                        .dependencies(dependenciesByService.getOrDefault(serviceName, newHashSet()))
+                        .build())
                 .toList();
     }
 
     public List<ServiceDependencyDetails> buildAllDependenciesWithDetails() {
-        var servicesWithDependencies = buildAllDependencies();
+        return buildAllDependenciesWithDetails(ObservationWindow.ALL);
+    }
+
+    /**
+     * Same as {@link #buildAllDependencies(ObservationWindow)}, but with the details of every dependency.
+     */
+    public List<ServiceDependencyDetails> buildAllDependenciesWithDetails(ObservationWindow window) {
+        return cachedUnlessWindowed("dependencies/details", window,
+                () -> buildAllDependenciesWithDetailsUncached(window));
+    }
 
-        return servicesWithDependencies.stream()
-                .map(this::expandDetails)
+    private List<ServiceDependencyDetails> buildAllDependenciesWithDetailsUncached(ObservationWindow window) {
+        var pairsByService = allEventPairs(window).stream()
+                .collect(groupingBy(pair -> pair.getEvent().getServiceName()));
+
+        return serviceNames(window).stream()
+                .distinct()
+                .map(serviceName -> expandDetails(serviceName, pairsByService.getOrDefault(serviceName, List.of())))
                 .toList();
     }
 
-    private ServiceDependencyDetails expandDetails(ServiceDependencies service) {
-        var serviceName = service.getServiceName();
-        var depsWithDetails = service.getDependencies().stream()
-                .map(dep -> detailsForDependency(serviceName, dep))
+    private ServiceDependencyDetails expandDetails(String serviceName, List<ConnectionEventPair> pairs) {
+        var dependencies = pairs.stream()
+                .filter(pair -> isDependentEvent(pair.getEvent()))
+                .map(pair -> pair.getAssociatedEvent().getServiceName())
+                .collect(toSet());
+
+        var depsWithDetails = dependencies.stream()
+                .map(dep -> DependencyRelationshipDetails.builder()
+                        .serviceName(dep)
+                        .details(relationshipDetails(pairs, dep))
+                        .build())
                 .toList();
 
         return ServiceDependencyDetails.builder()
@@ -106,39 +339,201 @@ public class RelationshipService {
                 .build();
     }
 
-    private DependencyRelationshipDetails detailsForDependency(String fromService, String toService) {
-        return DependencyRelationshipDetails.builder()
-                .serviceName(toService)
-                .details(findRelationshipDetails(fromService, toService))
-                .build();
+    private boolean isDependentEvent(ConnectionEvent event) {
+        var communicationType = event.getCommunicationType();
+        var communicationDefinition = communicationDefinitions.get(communicationType);
+
+        return communicationDefinition.isDependentEvent(event);
     }
 
-    private ServiceDependencies findDependencies(String serviceName) {
-        List<ConnectionEvent> dependentEvents = dao.findEventsByServiceName(serviceName).stream()
-                .filter(this::isDependentEvent)
+    /**
+     * Build the graph of dependencies between all services in a single pass over the event pairs, aggregating the
+     * connections of each pair of services per communication type.
+     *
+     * @param communicationTypes only include dependencies over these communication types, or all if empty
+     * @param window             only include connections whose events were both alive in this window
+     * @return the graph, which includes all services with events in the window even if none of their dependencies
+     * are included
+     */
+    public DependencyGraph buildDependencyGraph(Set<String> communicationTypes, ObservationWindow window) {
+        if (!window.isUnbounded()) {
+            return buildDependencyGraphUncached(communicationTypes, window);
+        }
+
+        return resultCache.get("graph", () -> buildDependencyGraphUncached(communicationTypes, window),
+                new TreeSet<>(communicationTypes));
+    }
+
+    private DependencyGraph buildDependencyGraphUncached(Set<String> communicationTypes, ObservationWindow window) {
+        var edgesByKey = new HashMap<List<String>, DependencyEdge>();
+
+        for (var pair : allEventPairs(window)) {
+            var event = pair.getEvent();
+            var observedAt = event.getObservedAt();
+
+            if ((!communicationTypes.isEmpty() && !communicationTypes.contains(event.getCommunicationType()))
+                    || !isDependentEvent(event)) {
+                continue;
+            }
+
+            var from = event.getServiceName();
+            var to = pair.getAssociatedEvent().getServiceName();
+            edgesByKey.merge(List.of(from, to, event.getCommunicationType()),
+                    new DependencyEdge(from, to, event.getCommunicationType(), 1, observedAt),
+                    (edge, other) -> new DependencyEdge(from, to, edge.getCommunicationType(),
+                            edge.getConnections() + 1, Math.max(edge.getLastObserved(), other.getLastObserved())));
+        }
+
+        var services = new TreeSet<>(serviceNames(window));
+        edgesByKey.values().forEach(edge -> {
+            services.add(edge.getFrom());
+            services.add(edge.getTo());
+        });
+
+        var edges = edgesByKey.values().stream()
+                .sorted(comparing(DependencyEdge::getFrom)
+                        .thenComparing(DependencyEdge::getTo)
+                        .thenComparing(DependencyEdge::getCommunicationType))
                 .toList();
 
-        return ServiceDependencies.builder()
-                .serviceName(serviceName)
-                .dependencies(populateOppositeConnections(dependentEvents))
-                .build();
+        return new DependencyGraph(List.copyOf(services), edges);
     }
 
-    private boolean isDependentEvent(ConnectionEvent event) {
-        var communicationType = event.getCommunicationType();
-        var communicationDefinition = communicationDefinitions.get(communicationType);
+    /**
+     * @return a snapshot of the dependencies between all services for traversals, which is rebuilt when the graph
+     * version changes
+     */
+    public ServiceGraph currentServiceGraph() {
+        return resultCache.get("graph/snapshot",
+                () -> ServiceGraph.of(buildDependencyGraph(Set.of(), ObservationWindow.ALL)));
+    }
 
-        return communicationDefinition.isDependentEvent(event);
+    /**
+     * @see ServiceGraph#dependenciesOf(String, int)
+     */
+    public List<ServiceDistance> buildTransitiveDependencies(String serviceName, int maxDepth) {
+        return currentServiceGraph().dependenciesOf(serviceName, maxDepth);
     }
 
-    public ServiceConnections buildRelationships(String serviceName) {
-        List<ConnectionEvent> events = dao.findEventsByServiceName(serviceName);
+    /**
+     * @see ServiceGraph#dependentsOf(String, int)
+     */
+    public List<ServiceDistance> buildTransitiveDependents(String serviceName, int maxDepth) {
+        return currentServiceGraph().dependentsOf(serviceName, maxDepth);
+    }
+
+    /**
+     * Find all groups of services that (transitively) depend on each other, e.g. services that cannot be started
+     * before each other.
+     *
+     * @return the groups, largest first
+     * @see ServiceGraph#cycles()
+     */
+    public List<DependencyCycle> findDependencyCycles() {
+        return resultCache.get("graph/cycles", this::findDependencyCyclesUncached);
+    }
+
+    private List<DependencyCycle> findDependencyCyclesUncached() {
+        var edges = buildDependencyGraph(Set.of(), ObservationWindow.ALL).getEdges();
+
+        return currentServiceGraph().cycles().stream()
+                .map(services -> {
+                    var members = Set.copyOf(services);
+                    var edgesByCommunicationType = edges.stream()
+                            .filter(edge -> members.contains(edge.getFrom()) && members.contains(edge.getTo()))
+                            .collect(groupingBy(DependencyEdge::getCommunicationType, TreeMap::new, toList()));
+
+                    return DependencyCycle.builder()
+                            .services(services)
+                            .edgesByCommunicationType(edgesByCommunicationType)
+                            .build();
+                })
+                .toList();
+    }
+
+    /**
+     * Find the shortest chains of dependencies from one service to another, with the details of every hop. The paths
+     * are found in the {@link #currentServiceGraph() graph snapshot}, and the details of all hops are then collected
+     * in a single pass over the event pairs.
+     *
+     * @param fromService the dependent service
+     * @param toService   the service depended upon
+     * @param maxPaths    the maximum number of paths to find
+     * @return the paths, shortest first
+     * @see ServiceGraph#shortestPaths(String, String, int)
+     */
+    public List<DependencyPath> findDependencyPaths(String fromService, String toService, int maxPaths) {
+        var paths = currentServiceGraph().shortestPaths(fromService, toService, maxPaths);
+        if (paths.isEmpty()) {
+            return List.of();
+        }
+
+        var hops = paths.stream()
+                .flatMap(path -> IntStream.range(0, path.size() - 1).mapToObj(i -> path.subList(i, i + 2)))
+                .collect(toSet());
+
+        var detailsByHop = allEventPairs(ObservationWindow.ALL).stream()
+                .filter(pair -> hops.contains(List.of(pair.getEvent().getServiceName(),
+                        pair.getAssociatedEvent().getServiceName())))
+                .filter(pair -> isDependentEvent(pair.getEvent()))
+                .collect(groupingBy(pair -> List.of(pair.getEvent().getServiceName(),
+                                pair.getAssociatedEvent().getServiceName()),
+                        mapping(pair -> toRelationshipDetails(pair.getAssociatedEvent()), toList())));
+
+        return paths.stream()
+                .map(path -> DependencyPath.builder()
+                        .services(path)
+                        .hops(IntStream.range(0, path.size() - 1)
+                                .mapToObj(i -> DependencyRelationshipDetails.builder()
+                                        .serviceName(path.get(i + 1))
+                                        .details(detailsByHop.getOrDefault(path.subList(i, i + 2), List.of()))
+                                        .build())
+                                .toList())
+                        .build())
+                .toList();
+    }
 
-        Map<Direction, List<ConnectionEvent>> eventsByDirection = events.stream()
-                .collect(groupingBy(ConnectionEvent::getEventDirection));
+    /**
+     * Compare the dependencies between services in two observation windows, in a single pass over the pairs of
+     * associated events that were alive in either window, ordered by the services on both sides. A connection is
+     * considered alive in a window when both of its events were observed at some point during the window, judging by
+     * when they were first and last observed.
+     *
+     * @param before the first window
+     * @param after  the second window
+     * @return the dependencies that were added, removed, or changed communication types from one window to the next
+     */
+    public DependencyGraphDiff diffDependencies(ObservationWindow before, ObservationWindow after) {
+        var collector = new DependencyDiffCollector();
+
+        dao.forEachEventPairObservedInEitherWindow(before, after, fetchSize, windowedPair -> {
+            if (isDependentEvent(windowedPair.getPair().getEvent())) {
+                collector.accept(windowedPair);
+            }
+        });
+
+        return collector.finish();
+    }
 
-        Set<String> inboundConnections = populateOppositeConnections(eventsByDirection.get(Direction.INBOUND));
-        Set<String> outboundConnections = populateOppositeConnections(eventsByDirection.get(Direction.OUTBOUND));
+    public ServiceConnections buildRelationships(String serviceName) {
+        return buildRelationships(serviceName, ObservationWindow.ALL);
+    }
+
+    /**
+     * Find the services the given service is connected to, only considering connections whose events were both
+     * alive in the given window.
+     *
+     * @param serviceName the service name
+     * @param window      the observation window
+     * @return the connections of the service
+     */
+    public ServiceConnections buildRelationships(String serviceName, ObservationWindow window) {
+        Map<Direction, Set<String>> connectedServicesByDirection = eventPairsForService(serviceName, window).stream()
+                .collect(groupingBy(pair -> pair.getEvent().getEventDirection(),
+                        mapping(pair -> pair.getAssociatedEvent().getServiceName(), toSet())));
+
+        Set<String> inboundConnections = connectedServicesByDirection.getOrDefault(Direction.INBOUND, newHashSet());
+        Set<String> outboundConnections = connectedServicesByDirection.getOrDefault(Direction.OUTBOUND, newHashSet());
 
         Map<String, ConnectionSummary> inboundSummaries = inboundConnections.stream()
                 .map(connectedServiceName -> ConnectionSummary.builder()
@@ -166,59 +561,66 @@ public class RelationshipService {
     }
 
     public List<RelationshipDetails> findRelationshipDetails(String fromService, String toService) {
-        List<ConnectionEvent> events = dao.findEventsByServiceName(fromService);
+        return findRelationshipDetails(fromService, toService, ObservationWindow.ALL);
+    }
 
-        return events.stream()
-                .map(this::findAssociatedEventsOrUnknown)
-                .flatMap(List::stream)
-                .filter(event -> event.getServiceName().equalsIgnoreCase(toService))
-                .map(event -> RelationshipDetails.builder()
-                        .communicationType(event.getCommunicationType())
-                        .connectionIdentifier(event.getConnectionIdentifier())
-                        .eventDirection(event.getEventDirection().opposite())
-                        .lastObserved(event.getObservedAt())
-                        .build())
-                .toList();
+    /**
+     * Same as {@link #findRelationshipDetails(String, String)}, but only for connections whose events were both
+     * alive in the given window.
+     */
+    public List<RelationshipDetails> findRelationshipDetails(String fromService,
+                                                             String toService,
+                                                             ObservationWindow window) {
+        return relationshipDetails(eventPairsForService(fromService, window), toService);
     }
 
-    private Set<String> populateOppositeConnections(List<ConnectionEvent> events) {
-        if (isNull(events)) {
-            return newHashSet();
+    /**
+     * Windows are always queried from the database, where they only need to read the events in the window, while the
+     * graph index (if any) would have to look at all of its events.
+     */
+    private List<ConnectionEventPair> allEventPairs(ObservationWindow window) {
+        if (!window.isUnbounded()) {
+            return dao.findEventPairsObservedBetween(window.getFrom(), window.getTo());
         }
 
-        return events.stream()
-                .map(this::findAssociatedEventsOrUnknown)
-                .flatMap(List::stream)
-                .map(ConnectionEvent::getServiceName)
-                .collect(toSet());
+        if (nonNull(graphIndex)) {
+            return graphIndex.allEventPairs();
+        }
+
+        return dao.findAllEventPairs();
     }
 
-    private List<ConnectionEvent> findAssociatedEventsOrUnknown(ConnectionEvent event) {
-        List<ConnectionEvent> associatedEvents = dao.findAssociatedEvents(
-                event.getEventDirection().opposite(),
-                event.getConnectionIdentifier(),
-                event.getCommunicationType());
+    private List<ConnectionEventPair> eventPairsForService(String serviceName, ObservationWindow window) {
+        if (!window.isUnbounded()) {
+            return dao.findEventPairsByServiceNameObservedBetween(serviceName, window.getFrom(), window.getTo());
+        }
+
+        if (nonNull(graphIndex)) {
+            return graphIndex.eventPairsForService(serviceName);
+        }
 
-        return associatedEventsOrUnknown(event, associatedEvents);
+        return dao.findEventPairsByServiceName(serviceName);
     }
 
-    private static List<ConnectionEvent> associatedEventsOrUnknown(ConnectionEvent event,
-                                                                   List<ConnectionEvent> associatedEvents) {
-        if (associatedEvents.isEmpty()) {
-            ConnectionEvent syntheticEvent = syntheticConnectionEvent(event);
-            return List.of(syntheticEvent);
-        }
+    private <T> T cachedUnlessWindowed(String name, ObservationWindow window, Supplier<T> loader) {
+        // Windows usually end at the time of the request, so their results are hardly ever reused
+        return window.isUnbounded() ? resultCache.get(name, loader) : loader.get();
+    }
 
-        return associatedEvents;
+    private static List<RelationshipDetails> relationshipDetails(List<ConnectionEventPair> pairs, String toService) {
+        return pairs.stream()
+                .map(ConnectionEventPair::getAssociatedEvent)
+                .filter(event -> event.getServiceName().equalsIgnoreCase(toService))
+                .map(RelationshipService::toRelationshipDetails)
+                .toList();
     }
 
-    private static ConnectionEvent syntheticConnectionEvent(ConnectionEvent event) {
-        return ConnectionEvent.builder()
-                .serviceName(ConnectionEvent.UNKNOWN_SERVICE)
-                .eventDirection(event.getEventDirection().opposite())
-                .communicationType(event.getCommunicationType())
-                .connectionIdentifier(event.getConnectionIdentifier())
-                .observedAt(event.getObservedAt())
+    private static RelationshipDetails toRelationshipDetails(ConnectionEvent associatedEvent) {
+        return RelationshipDetails.builder()
+                .communicationType(associatedEvent.getCommunicationType())
+                .connectionIdentifier(associatedEvent.getConnectionIdentifier())
+                .eventDirection(associatedEvent.getEventDirection().opposite())
+                .lastObserved(associatedEvent.getObservedAt())
                 .build();
     }
 
@@ -226,4 +628,81 @@ public class RelationshipService {
         return dao.findEventsByConnectionIdentifier(connectionIdentifier);
     }
 
+    /**
+     * Same as {@link #forEachEventOfService(String, EventCursor, int, Consumer)}, but for the events with the given
+     * connection identifier.
+     */
+    public void forEachEventWithConnectionIdentifier(String connectionIdentifier,
+                                                     EventCursor cursor,
+                                                     int limit,
+                                                     Consumer<ConnectionEvent> action) {
+        dao.forEachEventWithConnectionIdentifier(connectionIdentifier, cursor, limit, fetchSize, action);
+    }
+
+    /**
+     * Collects the communication types of each dependency in both windows from pairs arriving grouped by dependency,
+     * and classifies a dependency as soon as the next one starts, so only one dependency is held at a time.
+     */
+    private static class DependencyDiffCollector implements Consumer<WindowedEventPair> {
+
+        private final List<DependencyChange> added = new ArrayList<>();
+        private final List<DependencyChange> removed = new ArrayList<>();
+        private final List<DependencyChange> changed = new ArrayList<>();
+
+        private final Set<String> communicationTypesBefore = new TreeSet<>();
+        private final Set<String> communicationTypesAfter = new TreeSet<>();
+        private String serviceName;
+        private String dependency;
+
+        @Override
+        public void accept(WindowedEventPair windowedPair) {
+            var event = windowedPair.getPair().getEvent();
+            var associatedServiceName = windowedPair.getPair().getAssociatedEvent().getServiceName();
+
+            if (!event.getServiceName().equals(serviceName) || !associatedServiceName.equals(dependency)) {
+                flush();
+                serviceName = event.getServiceName();
+                dependency = associatedServiceName;
+            }
+
+            if (windowedPair.isObservedBefore()) {
+                communicationTypesBefore.add(event.getCommunicationType());
+            }
+            if (windowedPair.isObservedAfter()) {
+                communicationTypesAfter.add(event.getCommunicationType());
+            }
+        }
+
+        DependencyGraphDiff finish() {
+            flush();
+
+            return DependencyGraphDiff.builder()
+                    .added(added)
+                    .removed(removed)
+                    .changed(changed)
+                    .build();
+        }
+
+        private void flush() {
+            if (nonNull(serviceName) && !communicationTypesBefore.equals(communicationTypesAfter)) {
+                var change = DependencyChange.builder()
+                        .serviceName(serviceName)
+                        .dependency(dependency)
+                        .communicationTypesBefore(new TreeSet<>(communicationTypesBefore))
+                        .communicationTypesAfter(new TreeSet<>(communicationTypesAfter))
+                        .build();
+
+                if (communicationTypesBefore.isEmpty()) {
+                    added.add(change);
+                } else if (communicationTypesAfter.isEmpty()) {
+                    removed.add(change);
+                } else {
+                    changed.add(change);
+                }
+            }
+
+            communicationTypesBefore.clear();
+            communicationTypesAfter.clear();
+        }
+    }
 }
@@ -0,0 +1,103 @@
+package org.kiwiproject.elucidation.server.service;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.dropwizard.util.Duration;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Caches the results of expensive graph computations, keyed by a name (e.g. the endpoint) and its parameters.
+ * <p>
+ * Every result is tagged with the {@link GraphVersion} that was current when its computation started, and is only
+ * returned while the version is unchanged. Results are also evicted once they are older than the max staleness, and
+ * the least recently used results are evicted when there are more than the max entries.
+ * The following metrics are registered:
+ * <ul>
+ *     <li>{@code hits} - a meter of results returned from the cache</li>
+ *     <li>{@code misses} - a meter of results that had to be computed</li>
+ *     <li>{@code rebuild-time} - a timer of the computations</li>
+ * </ul>
+ */
+public class ResultCache {
+
+    private final GraphVersion graphVersion;
+    private final Cache<Key, VersionedResult> results;
+    private final Meter hitMeter;
+    private final Meter missMeter;
+    private final Timer rebuildTimer;
+
+    private record Key(String name, List<Object> parameters) {
+    }
+
+    private record VersionedResult(long version, Object result) {
+    }
+
+    public ResultCache(GraphVersion graphVersion, long maxEntries, Duration maxStaleness, MetricRegistry metrics) {
+        this.graphVersion = graphVersion;
+        this.results = CacheBuilder.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(maxStaleness.toMilliseconds(), TimeUnit.MILLISECONDS)
+                .build();
+        this.hitMeter = metrics.meter(name(ResultCache.class, "hits"));
+        this.missMeter = metrics.meter(name(ResultCache.class, "misses"));
+        this.rebuildTimer = metrics.timer(name(ResultCache.class, "rebuild-time"));
+    }
+
+    /**
+     * Create a cache that never caches anything, e.g. when caching is disabled.
+     *
+     * @param graphVersion the graph version, which is still maintained
+     * @return a new cache
+     */
+    public static ResultCache uncached(GraphVersion graphVersion) {
+        return new ResultCache(graphVersion, 0, Duration.milliseconds(0), new MetricRegistry());
+    }
+
+    /**
+     * @return the graph version that results are tagged with
+     */
+    public GraphVersion getGraphVersion() {
+        return graphVersion;
+    }
+
+    /**
+     * Return the cached result for the given name and parameters, or compute and cache it if there is none for the
+     * current graph version.
+     *
+     * @param name       the name of the computation, e.g. the endpoint
+     * @param loader     computes the result; it should not return {@code null}, and must return an immutable result
+     * @param parameters the parameters of the computation
+     * @param <T>        the type of result
+     * @return the result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String name, Supplier<T> loader, Object... parameters) {
+        var key = new Key(name, Arrays.asList(parameters));
+        var version = graphVersion.current();
+
+        var cached = results.getIfPresent(key);
+        if (cached != null && cached.version() == version) {
+            hitMeter.mark();
+            return (T) cached.result();
+        }
+
+        missMeter.mark();
+
+        T result;
+        try (var ignored = rebuildTimer.time()) {
+            result = loader.get();
+        }
+
+        results.put(key, new VersionedResult(version, result));
+        return result;
+    }
+}
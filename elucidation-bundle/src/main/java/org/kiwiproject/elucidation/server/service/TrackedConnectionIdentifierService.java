@@ -1,99 +1,161 @@
 package org.kiwiproject.elucidation.server.service;
 
-import static java.util.stream.Collectors.toSet;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toList;
 
-import org.kiwiproject.elucidation.common.model.Direction;
+import lombok.extern.slf4j.Slf4j;
+import org.jdbi.v3.core.statement.UnableToExecuteStatementException;
 import org.kiwiproject.elucidation.common.model.TrackedConnectionIdentifier;
-import org.kiwiproject.elucidation.server.core.UnusedIdentifier;
+import org.kiwiproject.elucidation.server.core.ServiceUnusedIdentifier;
+import org.kiwiproject.elucidation.server.core.TrackedConnectionIdentifiers;
 import org.kiwiproject.elucidation.server.core.UnusedServiceIdentifiers;
 import org.kiwiproject.elucidation.server.db.ConnectionEventDao;
+import org.kiwiproject.elucidation.server.db.SqlStates;
 import org.kiwiproject.elucidation.server.db.TrackedConnectionIdentifierDao;
 
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
+@Slf4j
 public class TrackedConnectionIdentifierService {
 
     private final TrackedConnectionIdentifierDao trackedConnectionIdentifierDao;
     private final ConnectionEventDao connectionEventDao;
+    private final ResultCache resultCache;
+    private final int fetchSize;
 
     public TrackedConnectionIdentifierService(TrackedConnectionIdentifierDao trackedConnectionIdentifierDao, ConnectionEventDao connectionEventDao) {
+        this(trackedConnectionIdentifierDao, connectionEventDao, ResultCache.uncached(new GraphVersion()));
+    }
+
+    /**
+     * @param resultCache caches unused identifiers; its graph version is incremented when tracked identifiers are loaded
+     */
+    public TrackedConnectionIdentifierService(TrackedConnectionIdentifierDao trackedConnectionIdentifierDao,
+                                              ConnectionEventDao connectionEventDao,
+                                              ResultCache resultCache) {
+        this(trackedConnectionIdentifierDao, connectionEventDao, resultCache, RelationshipService.DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * @param resultCache caches unused identifiers; its graph version is incremented when tracked identifiers are loaded
+     * @param fetchSize   the number of rows to fetch from the database at a time when streaming tracked identifiers
+     */
+    public TrackedConnectionIdentifierService(TrackedConnectionIdentifierDao trackedConnectionIdentifierDao,
+                                              ConnectionEventDao connectionEventDao,
+                                              ResultCache resultCache,
+                                              int fetchSize) {
         this.trackedConnectionIdentifierDao = trackedConnectionIdentifierDao;
         this.connectionEventDao = connectionEventDao;
+        this.resultCache = resultCache;
+        this.fetchSize = fetchSize;
+    }
+
+    public GraphVersion getGraphVersion() {
+        return resultCache.getGraphVersion();
     }
 
     /**
      * Loads new tracked identifiers for use in determining unused identifiers that can't be determined by the data
      *
-     * @implNote If any tracked identifiers for the given service and communication type exist, they will be removed prior
-     * to the load.
+     * @return the number of distinct identifiers now tracked for the service and communication type
+     * @implNote The given identifiers replace any tracked identifiers for the given service and communication type.
+     * Only the differences are written, in a single transaction, so reloading unchanged identifiers (e.g. whenever a
+     * service starts) does not write anything or invalidate cached results. When several instances load the same
+     * identifiers at the same time, all but the first are rejected by the unique index and retried, which then finds
+     * the identifiers inserted by the first.
      */
     public int loadNewIdentifiers(String serviceName, String communicationType, List<String> connectionIdentifiers) {
-        var trackedConnectionIdentifiers = connectionIdentifiers.stream()
-                .map(identifier -> TrackedConnectionIdentifier.builder()
-                        .serviceName(serviceName)
-                        .communicationType(communicationType)
-                        .connectionIdentifier(identifier)
-                        .build())
-                .toList();
+        var identifiers = Set.copyOf(connectionIdentifiers);
 
-        trackedConnectionIdentifierDao.clearIdentifiersFor(serviceName, communicationType);
+        if (replaceRetryingLostInsertRace(() ->
+                trackedConnectionIdentifierDao.replaceIdentifiers(serviceName, communicationType, identifiers))) {
+            resultCache.getGraphVersion().increment();
+        }
 
-        trackedConnectionIdentifiers.forEach(trackedConnectionIdentifierDao::insertIdentifier);
-        return trackedConnectionIdentifiers.size();
+        return identifiers.size();
     }
 
-    public List<UnusedServiceIdentifiers> findUnusedIdentifiers() {
-        var serviceNamesFromEvents = connectionEventDao.findAllServiceNames();
-        var serviceNamesFromTracked = trackedConnectionIdentifierDao.findAllServiceNames();
-
-        var serviceNames = Stream.concat(serviceNamesFromEvents.stream(), serviceNamesFromTracked.stream())
-                .collect(toSet());
-
-        return serviceNames.stream()
-                .map(this::createUnusedServiceIdentifierFor)
-                .filter(unused -> !unused.getIdentifiers().isEmpty())
-                .toList();
+    /**
+     * Same as {@link #loadNewIdentifiers(String, String, List)}, but for several services and communication types in a
+     * single transaction.
+     *
+     * @return the number of distinct identifiers now tracked for the given services and communication types
+     */
+    public int loadNewIdentifiers(List<TrackedConnectionIdentifiers> identifiers) {
+        if (replaceRetryingLostInsertRace(() -> trackedConnectionIdentifierDao.replaceAllIdentifiers(identifiers))) {
+            resultCache.getGraphVersion().increment();
+        }
+
+        return identifiers.stream()
+                .mapToInt(tracked -> Set.copyOf(tracked.getConnectionIdentifiers()).size())
+                .sum();
     }
 
-    private UnusedServiceIdentifiers createUnusedServiceIdentifierFor(String serviceName) {
-        var unusedFromEvents = findUnusedFromEvents(serviceName);
-        var unusedFromTracked = findUnusedFromTracked(serviceName);
+    private static boolean replaceRetryingLostInsertRace(BooleanSupplier replace) {
+        try {
+            return replace.getAsBoolean();
+        } catch (UnableToExecuteStatementException e) {
+            if (!SqlStates.isIntegrityConstraintViolation(e)) {
+                throw e;
+            }
+
+            LOG.debug("Lost an insert race with a concurrent load of the same identifiers; retrying", e);
+            return replace.getAsBoolean();
+        }
+    }
 
-        return UnusedServiceIdentifiers.builder()
-                .serviceName(serviceName)
-                .identifiers(Stream.concat(unusedFromEvents.stream(), unusedFromTracked.stream()).toList())
-                .build();
+    public List<UnusedServiceIdentifiers> findUnusedIdentifiers() {
+        return resultCache.get("connectionIdentifier/unused", this::findUnusedIdentifiersUncached);
     }
 
-    private List<UnusedIdentifier> findUnusedFromEvents(String serviceName) {
-        return connectionEventDao.findEventsByServiceName(serviceName)
+    /**
+     * Groups the unused identifiers of all services, which the database finds with anti-joins against the inbound
+     * events, instead of looking up the associated events of every identifier one at a time.
+     */
+    private List<UnusedServiceIdentifiers> findUnusedIdentifiersUncached() {
+        return connectionEventDao.findUnusedIdentifiers().stream()
+                .collect(groupingBy(ServiceUnusedIdentifier::getServiceName, LinkedHashMap::new,
+                        mapping(ServiceUnusedIdentifier::getIdentifier, toList())))
+                .entrySet()
                 .stream()
-                .filter(event -> event.getEventDirection() == Direction.OUTBOUND)
-                .filter(event -> connectionEventDao.findAssociatedEvents(Direction.INBOUND, event.getConnectionIdentifier(), event.getCommunicationType()).isEmpty())
-                .map(event -> UnusedIdentifier.builder()
-                        .communicationType(event.getCommunicationType())
-                        .connectionIdentifier(event.getConnectionIdentifier())
+                .map(entry -> UnusedServiceIdentifiers.builder()
+                        .serviceName(entry.getKey())
+                        .identifiers(entry.getValue())
                         .build())
                 .toList();
     }
 
-    private List<UnusedIdentifier> findUnusedFromTracked(String serviceName) {
-        return trackedConnectionIdentifierDao.findByServiceName(serviceName)
-                .stream()
-                .filter(tracked -> connectionEventDao.findAssociatedEvents(Direction.INBOUND, tracked.getConnectionIdentifier(), tracked.getCommunicationType()).isEmpty())
-                .map(tracked -> UnusedIdentifier.builder()
-                        .communicationType(tracked.getCommunicationType())
-                        .connectionIdentifier(tracked.getConnectionIdentifier())
-                        .build())
-                .toList();
+    private UnusedServiceIdentifiers createUnusedServiceIdentifierFor(String serviceName) {
+        return UnusedServiceIdentifiers.builder()
+                .serviceName(serviceName)
+                .identifiers(connectionEventDao.findUnusedIdentifiersByServiceName(serviceName).stream()
+                        .map(ServiceUnusedIdentifier::getIdentifier)
+                        .toList())
+                .build();
     }
 
     public List<TrackedConnectionIdentifier> allTrackedConnectionIdentifiers() {
         return trackedConnectionIdentifierDao.findIdentifiers();
     }
 
+    /**
+     * Pass the tracked identifiers to the given action, in order of id, without holding all of them in memory.
+     *
+     * @param afterId the id to start after
+     * @param limit   the maximum number of identifiers
+     * @param action  the action to perform for each identifier
+     */
+    public void forEachTrackedConnectionIdentifier(long afterId, int limit, Consumer<TrackedConnectionIdentifier> action) {
+        trackedConnectionIdentifierDao.forEachIdentifier(afterId, limit, fetchSize, action);
+    }
+
     public UnusedServiceIdentifiers findUnusedIdentifiersForService(String serviceName) {
-        return createUnusedServiceIdentifierFor(serviceName);
+        return resultCache.get("connectionIdentifier/{serviceName}/unused",
+                () -> createUnusedServiceIdentifierFor(serviceName), serviceName);
     }
 }
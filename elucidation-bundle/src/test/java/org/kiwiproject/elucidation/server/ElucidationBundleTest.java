@@ -1,8 +1,10 @@
 package org.kiwiproject.elucidation.server;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -10,10 +12,12 @@ import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import com.codahale.metrics.MetricRegistry;
 import io.dropwizard.core.Configuration;
 import io.dropwizard.core.setup.Environment;
 import io.dropwizard.db.DataSourceFactory;
 import io.dropwizard.db.PooledDataSourceFactory;
+import io.dropwizard.jackson.Jackson;
 import io.dropwizard.jdbi3.JdbiFactory;
 import io.dropwizard.jdbi3.jersey.LoggingJdbiExceptionMapper;
 import io.dropwizard.jdbi3.jersey.LoggingSQLExceptionMapper;
@@ -21,6 +25,7 @@ import io.dropwizard.jersey.setup.JerseyEnvironment;
 import io.dropwizard.jetty.MutableServletContextHandler;
 import io.dropwizard.lifecycle.setup.LifecycleEnvironment;
 import io.dropwizard.lifecycle.setup.ScheduledExecutorServiceBuilder;
+import io.dropwizard.util.Duration;
 import jakarta.ws.rs.client.Client;
 import jakarta.ws.rs.client.ClientBuilder;
 import lombok.Getter;
@@ -31,10 +36,18 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.kiwiproject.elucidation.server.config.AsyncIngestConfig;
 import org.kiwiproject.elucidation.server.config.PollingConfig;
+import org.kiwiproject.elucidation.server.config.ResultCacheConfig;
+import org.kiwiproject.elucidation.server.config.WriteBehindConfig;
+import org.kiwiproject.elucidation.server.db.AsyncConnectionEventWriter;
+import org.kiwiproject.elucidation.server.db.WriteBehindConnectionEventWriter;
+import org.kiwiproject.elucidation.server.graph.ConnectionGraphIndex;
 import org.kiwiproject.elucidation.server.jobs.ArchiveEventsJob;
 import org.kiwiproject.elucidation.server.jobs.PollForEventsJob;
+import org.kiwiproject.elucidation.server.resources.IngestQueueFullExceptionMapper;
 import org.kiwiproject.elucidation.server.resources.RelationshipResource;
+import org.kiwiproject.elucidation.server.service.ResultCache;
 import org.mockito.ArgumentCaptor;
 
 import java.util.Optional;
@@ -83,6 +96,7 @@ class ElucidationBundleTest {
                 "Elucidation-Data-Source")).thenReturn(jdbi);
 
         when(environment.jersey()).thenReturn(jerseyEnvironment);
+        when(environment.getObjectMapper()).thenReturn(Jackson.newObjectMapper());
         when(environment.lifecycle()).thenReturn(lifecycle);
         when(environment.getApplicationContext()).thenReturn(appContext);
         when(lifecycle.scheduledExecutorService("Event-Archive-Job", true))
@@ -181,6 +195,129 @@ class ElucidationBundleTest {
                 verify(executor).scheduleWithFixedDelay(isA(ArchiveEventsJob.class), eq(1L), eq(60L), eq(TimeUnit.MINUTES));
                 verify(executor).scheduleWithFixedDelay(isA(PollForEventsJob.class), eq(1L), eq(1L), eq(TimeUnit.MINUTES));
             }
+
+            @Test
+            void shouldSetupWriteBehindFlushWhenConfigured() {
+                var writeBehindConfig = WriteBehindConfig.builder()
+                        .flushInterval(Duration.seconds(10))
+                        .build();
+
+                var bundleWithWriteBehind = new ElucidationBundle<>(jdbiFactory, client) {
+                    @Override
+                    public PooledDataSourceFactory getDataSourceFactory(Configuration configuration) {
+                        return dataSourceFactory;
+                    }
+
+                    @Override
+                    public Optional<WriteBehindConfig> getWriteBehindConfig(Configuration configuration) {
+                        return Optional.of(writeBehindConfig);
+                    }
+                };
+
+                when(lifecycle.scheduledExecutorService("Event-Write-Behind-Flush", true))
+                        .thenReturn(scheduledExecutorServiceBuilder);
+                when(environment.metrics()).thenReturn(new MetricRegistry());
+
+                bundleWithWriteBehind.run(configuration, environment);
+                verify(executor).scheduleWithFixedDelay(any(Runnable.class), eq(10_000L), eq(10_000L), eq(TimeUnit.MILLISECONDS));
+                verify(lifecycle).manage(isA(WriteBehindConnectionEventWriter.class));
+            }
+
+            @Test
+            void shouldSetupAsyncIngestWhenConfigured() {
+                var asyncIngestConfig = AsyncIngestConfig.builder().build();
+
+                var bundleWithAsyncIngest = new ElucidationBundle<>(jdbiFactory, client) {
+                    @Override
+                    public PooledDataSourceFactory getDataSourceFactory(Configuration configuration) {
+                        return dataSourceFactory;
+                    }
+
+                    @Override
+                    public Optional<AsyncIngestConfig> getAsyncIngestConfig(Configuration configuration) {
+                        return Optional.of(asyncIngestConfig);
+                    }
+                };
+
+                when(environment.metrics()).thenReturn(new MetricRegistry());
+
+                bundleWithAsyncIngest.run(configuration, environment);
+                verify(lifecycle).manage(isA(AsyncConnectionEventWriter.class));
+                verify(jerseyEnvironment).register(isA(IngestQueueFullExceptionMapper.class));
+            }
+
+            @Test
+            void shouldSetupWriteBehindUnderAsyncIngest_WhenBothAreConfigured() {
+                var writeBehindConfig = WriteBehindConfig.builder().build();
+                var asyncIngestConfig = AsyncIngestConfig.builder().build();
+
+                var bundleWithBoth = new ElucidationBundle<>(jdbiFactory, client) {
+                    @Override
+                    public PooledDataSourceFactory getDataSourceFactory(Configuration configuration) {
+                        return dataSourceFactory;
+                    }
+
+                    @Override
+                    public Optional<WriteBehindConfig> getWriteBehindConfig(Configuration configuration) {
+                        return Optional.of(writeBehindConfig);
+                    }
+
+                    @Override
+                    public Optional<AsyncIngestConfig> getAsyncIngestConfig(Configuration configuration) {
+                        return Optional.of(asyncIngestConfig);
+                    }
+                };
+
+                when(lifecycle.scheduledExecutorService("Event-Write-Behind-Flush", true))
+                        .thenReturn(scheduledExecutorServiceBuilder);
+                when(environment.metrics()).thenReturn(new MetricRegistry());
+
+                bundleWithBoth.run(configuration, environment);
+
+                // The write-behind writer wraps the synchronous writer, and must be managed first so it is stopped last
+                var inOrder = inOrder(lifecycle);
+                inOrder.verify(lifecycle).manage(isA(WriteBehindConnectionEventWriter.class));
+                inOrder.verify(lifecycle).manage(isA(AsyncConnectionEventWriter.class));
+            }
+        }
+
+        @Test
+        void shouldManageGraphIndexWhenEnabled() {
+            var bundleWithGraphIndex = new ElucidationBundle<>(jdbiFactory, client) {
+                @Override
+                public PooledDataSourceFactory getDataSourceFactory(Configuration configuration) {
+                    return dataSourceFactory;
+                }
+
+                @Override
+                public boolean isGraphIndexEnabled(Configuration configuration) {
+                    return true;
+                }
+            };
+
+            bundleWithGraphIndex.run(configuration, environment);
+            verify(lifecycle).manage(isA(ConnectionGraphIndex.class));
+        }
+
+        @Test
+        void shouldRegisterResultCacheMetricsWhenConfigured() {
+            var bundleWithResultCache = new ElucidationBundle<>(jdbiFactory, client) {
+                @Override
+                public PooledDataSourceFactory getDataSourceFactory(Configuration configuration) {
+                    return dataSourceFactory;
+                }
+
+                @Override
+                public Optional<ResultCacheConfig> getResultCacheConfig(Configuration configuration) {
+                    return Optional.of(ResultCacheConfig.builder().build());
+                }
+            };
+
+            var metrics = new MetricRegistry();
+            when(environment.metrics()).thenReturn(metrics);
+
+            bundleWithResultCache.run(configuration, environment);
+            assertThat(metrics.getMeters()).containsKey(MetricRegistry.name(ResultCache.class, "hits"));
         }
 
         @Test
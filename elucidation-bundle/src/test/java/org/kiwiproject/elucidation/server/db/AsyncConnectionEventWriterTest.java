@@ -0,0 +1,117 @@
+package org.kiwiproject.elucidation.server.db;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.kiwiproject.elucidation.common.test.ConnectionEvents.newConnectionEvent;
+import static org.kiwiproject.elucidation.server.test.TestConstants.A_SERVICE_NAME;
+import static org.kiwiproject.elucidation.server.test.TestConstants.MSG_FROM_ANOTHER_SERVICE;
+import static org.kiwiproject.elucidation.server.test.TestConstants.MSG_TO_ANOTHER_SERVICE;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.util.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.elucidation.common.model.Direction;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@DisplayName("AsyncConnectionEventWriter")
+class AsyncConnectionEventWriterTest {
+
+    private ConnectionEventWriter delegate;
+    private MetricRegistry metrics;
+    private AsyncConnectionEventWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(ConnectionEventWriter.class);
+        metrics = new MetricRegistry();
+        writer = new AsyncConnectionEventWriter(delegate, 1, 1, Duration.seconds(5), metrics);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writer.stop();
+    }
+
+    @Test
+    void shouldRequirePositiveLimits() {
+        assertThatIllegalArgumentException().isThrownBy(() ->
+                new AsyncConnectionEventWriter(delegate, 0, 1, Duration.seconds(5), metrics));
+
+        assertThatIllegalArgumentException().isThrownBy(() ->
+                new AsyncConnectionEventWriter(delegate, 1, 0, Duration.seconds(5), metrics));
+    }
+
+    @Test
+    void shouldWriteEventsOnAWorkerThread() throws InterruptedException {
+        var event = newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE);
+
+        writer.write(event);
+        writer.stop();
+
+        verify(delegate).write(event);
+        assertThat(metrics.timer(name(AsyncConnectionEventWriter.class, "enqueue-to-commit")).getCount())
+                .isOne();
+    }
+
+    @Test
+    void shouldNotQueueEmptyBatches() {
+        writer.writeAll(List.of());
+
+        verifyNoInteractions(delegate);
+    }
+
+    @Test
+    void shouldRejectEvents_WhenTheQueueIsFull() throws InterruptedException {
+        var writing = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(delegate).write(any());
+
+        writer.write(newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE));
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        writer.write(newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE));
+        assertThat(writer.queueDepth()).isOne();
+
+        var events = List.of(
+                newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, "another-message"),
+                newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, "another-message"));
+        assertThatThrownBy(() -> writer.writeAll(events))
+                .isExactlyInstanceOf(IngestQueueFullException.class);
+
+        assertThat(metrics.meter(name(AsyncConnectionEventWriter.class, "dropped")).getCount()).isEqualTo(2);
+        assertThat(metrics.getGauges()).containsKey(name(AsyncConnectionEventWriter.class, "queue-depth"));
+
+        release.countDown();
+    }
+
+    @Test
+    void shouldCountFailedWrites() throws InterruptedException {
+        var event = newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE);
+        doThrow(new IllegalStateException("database is down")).when(delegate).write(event);
+
+        writer.write(event);
+        writer.stop();
+
+        verify(delegate).write(event);
+        var failedMeter = metrics.meter(name(AsyncConnectionEventWriter.class, "failed"));
+        assertThat(failedMeter.getCount()).isOne();
+    }
+}
@@ -1,6 +1,7 @@
 package org.kiwiproject.elucidation.server.db;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 import org.jdbi.v3.core.Handle;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,12 +11,18 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.kiwiproject.elucidation.common.model.ConnectionEvent;
 import org.kiwiproject.elucidation.common.model.Direction;
+import org.kiwiproject.elucidation.server.core.EventCursor;
+import org.kiwiproject.elucidation.server.core.ObservationWindow;
+import org.kiwiproject.elucidation.server.core.ServiceUnusedIdentifier;
+import org.kiwiproject.elucidation.server.core.WindowedEventPair;
 import org.kiwiproject.elucidation.server.db.mapper.ConnectionEventMapper;
 import org.kiwiproject.test.junit.jupiter.Jdbi3DaoExtension;
 import org.kiwiproject.test.junit.jupiter.PostgresLiquibaseTestExtension;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @DisplayName("ConnectionEventDao")
 @SuppressWarnings("SqlNoDataSourceInspection")
@@ -35,16 +42,18 @@ class ConnectionEventDaoTest {
     private static final String SERVICE_NAME_PROPERTY = "serviceName";
 
     private ConnectionEventDao dao;
+    private ConnectionEventWriter writer;
     private Handle handle;
 
     @BeforeEach
     void setUp() {
         dao = daoExtension.getDao();
+        writer = new GenericConnectionEventWriter(dao);
         handle = daoExtension.getHandle();
     }
 
     @Nested
-    class InsertConnection {
+    class InsertFacts {
         @Test
         void shouldSuccessfullyInsertANewConnectionEvent() {
             var preSaved = ConnectionEvent.builder()
@@ -55,33 +64,143 @@ class ConnectionEventDaoTest {
                     .observedAt(System.currentTimeMillis())
                     .build();
 
-            var newId = dao.insertConnection(preSaved);
+            writer.write(preSaved);
 
-            assertThat(newId).isNotNull();
-
-            var serviceNames = handle.createQuery("select service_name from connection_events where id = ?")
-                            .bind(0, newId)
+            var serviceNames = handle.createQuery("select service_name from connection_events")
                             .mapTo(String.class)
                             .list();
 
             assertThat(serviceNames).hasSize(1).containsExactly(TEST_SERVICE_NAME);
         }
+
+        @Test
+        void shouldReuseExistingDimensionRows() {
+            setupConnectionEvent(TEST_SERVICE_NAME, Direction.OUTBOUND);
+            setupConnectionEvent(TEST_SERVICE_NAME, Direction.INBOUND);
+
+            assertThat(countRows("services")).isOne();
+            assertThat(countRows("communication_types")).isOne();
+            assertThat(countRows("connection_identifiers")).isOne();
+            assertThat(countRows("connection_event_facts")).isEqualTo(2);
+        }
+
+        private int countRows(String table) {
+            return handle.createQuery("select count(*) from " + table)
+                    .mapTo(Integer.class)
+                    .one();
+        }
     }
 
     @Nested
-    class FindEventsSince {
+    class FindEventsAfter {
         @Test
-        void shouldReturnAllEventsStoredInTheDatabaseSinceAGivenTime() {
+        void shouldReturnEventsObservedAfterAGivenTime_InAscendingOrder() {
             var initialTime = System.currentTimeMillis();
 
             IntStream.rangeClosed(1,3)
                     .forEach(idx -> setupConnectionEvent(TEST_SERVICE_NAME + idx, Direction.INBOUND, (initialTime * idx)));
 
-            var allEvents = dao.findEventsSince(initialTime);
+            var allEvents = dao.findEventsAfter(initialTime, Long.MAX_VALUE, 100);
 
             assertThat(allEvents).hasSize(2)
                     .extracting(SERVICE_NAME_PROPERTY)
-                    .containsExactly(TEST_SERVICE_NAME + 3, TEST_SERVICE_NAME + 2);
+                    .containsExactly(TEST_SERVICE_NAME + 2, TEST_SERVICE_NAME + 3);
+        }
+
+        @Test
+        void shouldPageThroughEventsObservedAtTheSameTime_WithoutSkippingAny() {
+            var observedAt = System.currentTimeMillis();
+
+            IntStream.rangeClosed(1,5)
+                    .forEach(idx -> setupConnectionEvent(TEST_SERVICE_NAME + idx, Direction.INBOUND, observedAt));
+
+            var firstPage = dao.findEventsAfter(observedAt - 1, Long.MAX_VALUE, 2);
+            var lastOfFirstPage = firstPage.get(firstPage.size() - 1);
+            var secondPage = dao.findEventsAfter(lastOfFirstPage.getObservedAt(), lastOfFirstPage.getId(), 2);
+            var lastOfSecondPage = secondPage.get(secondPage.size() - 1);
+            var lastPage = dao.findEventsAfter(lastOfSecondPage.getObservedAt(), lastOfSecondPage.getId(), 2);
+
+            assertThat(firstPage).hasSize(2);
+            assertThat(secondPage).hasSize(2);
+            assertThat(lastPage).hasSize(1);
+            assertThat(Stream.of(firstPage, secondPage, lastPage).flatMap(List::stream).toList())
+                    .extracting(SERVICE_NAME_PROPERTY)
+                    .containsExactlyInAnyOrder(
+                            TEST_SERVICE_NAME + 1,
+                            TEST_SERVICE_NAME + 2,
+                            TEST_SERVICE_NAME + 3,
+                            TEST_SERVICE_NAME + 4,
+                            TEST_SERVICE_NAME + 5);
+        }
+    }
+
+    @Nested
+    class ForEachEventOfService {
+        @Test
+        void shouldPassEventsOfTheServiceInOrder_UpToTheLimit() {
+            var observedAt = System.currentTimeMillis();
+            setupConnectionEvent(TEST_SERVICE_NAME, Direction.OUTBOUND, observedAt + 2);
+            setupConnectionEvent(TEST_SERVICE_NAME, Direction.INBOUND, observedAt + 1);
+            setupConnectionEvent(TEST_SERVICE_NAME + 2, Direction.INBOUND, observedAt);
+
+            var events = new ArrayList<ConnectionEvent>();
+            dao.forEachEventOfService(TEST_SERVICE_NAME, EventCursor.START, 10, 1, events::add);
+
+            assertThat(events)
+                    .extracting(ConnectionEvent::getEventDirection)
+                    .containsExactly(Direction.INBOUND, Direction.OUTBOUND);
+
+            var remaining = new ArrayList<ConnectionEvent>();
+            dao.forEachEventOfService(TEST_SERVICE_NAME, EventCursor.after(events.get(0)), 10, 1, remaining::add);
+
+            assertThat(remaining)
+                    .extracting(ConnectionEvent::getEventDirection)
+                    .containsExactly(Direction.OUTBOUND);
+        }
+    }
+
+    @Nested
+    class ForEachEventWithConnectionIdentifier {
+        @Test
+        void shouldPassEventsWithTheConnectionIdentifier_UpToTheLimit() {
+            IntStream.rangeClosed(1,3)
+                    .forEach(idx -> setupConnectionEvent(TEST_SERVICE_NAME + idx, Direction.INBOUND));
+
+            var events = new ArrayList<ConnectionEvent>();
+            dao.forEachEventWithConnectionIdentifier(TEST_CONNECTION_PATH, EventCursor.START, 2, 1, events::add);
+
+            assertThat(events).hasSize(2);
+        }
+    }
+
+    @Nested
+    class CountEventsByServiceDirectionAndCommunicationType {
+        @Test
+        void shouldCountEventsPerServiceDirectionAndCommunicationType() {
+            setupConnectionEvent(TEST_SERVICE_NAME, Direction.INBOUND);
+            setupConnectionEvent(TEST_SERVICE_NAME, Direction.OUTBOUND);
+            setupConnectionEvent(TEST_SERVICE_NAME + 2, Direction.INBOUND);
+
+            var counts = dao.countEventsByServiceDirectionAndCommunicationType();
+
+            assertThat(counts)
+                    .extracting("serviceName", "eventDirection", "communicationType", "count")
+                    .containsExactlyInAnyOrder(
+                            tuple(TEST_SERVICE_NAME, Direction.INBOUND, "HTTP", 1),
+                            tuple(TEST_SERVICE_NAME, Direction.OUTBOUND, "HTTP", 1),
+                            tuple(TEST_SERVICE_NAME + 2, Direction.INBOUND, "HTTP", 1));
+        }
+
+        @Test
+        void shouldCountEventsAliveInTheWindow_EvenIfObservedAgainAfterIt() {
+            setupLongLivedConnectionEvent(TEST_SERVICE_NAME, Direction.INBOUND, 500L, 6_000L);
+            setupConnectionEvent(TEST_SERVICE_NAME, Direction.OUTBOUND, 3_000L);
+
+            var counts = dao.countEventsByServiceDirectionAndCommunicationType(1_000L, 2_000L);
+
+            assertThat(counts)
+                    .extracting("serviceName", "eventDirection", "communicationType", "count")
+                    .containsExactly(tuple(TEST_SERVICE_NAME, Direction.INBOUND, "HTTP", 1));
         }
     }
 
@@ -116,6 +235,186 @@ class ConnectionEventDaoTest {
         }
     }
 
+    @Nested
+    class FindEventPairs {
+        @Test
+        void shouldPairEventsWithTheirAssociatedEvents() {
+            setupConnectionEvent("test-producer", Direction.OUTBOUND, 1_000L);
+            setupConnectionEvent("test-consumer", Direction.INBOUND, 2_000L);
+            setupConnectionEvent("test-other-consumer", Direction.INBOUND, 3_000L);
+
+            var pairs = dao.findEventPairsByServiceName("test-producer");
+
+            assertThat(pairs)
+                    .extracting(pair -> pair.getAssociatedEvent().getServiceName(),
+                            pair -> pair.getAssociatedEvent().getEventDirection(),
+                            pair -> pair.getAssociatedEvent().getObservedAt())
+                    .containsExactlyInAnyOrder(
+                            tuple("test-consumer", Direction.INBOUND, 2_000L),
+                            tuple("test-other-consumer", Direction.INBOUND, 3_000L));
+            assertThat(pairs).extracting(pair -> pair.getEvent().getServiceName()).containsOnly("test-producer");
+        }
+
+        @Test
+        void shouldPairEventsWithoutAssociatedEvents_WithAnUnknownService() {
+            setupConnectionEvent(TEST_SERVICE_NAME, Direction.OUTBOUND, 1_000L);
+
+            var pairs = dao.findAllEventPairs();
+
+            assertThat(pairs).hasSize(1);
+
+            var associatedEvent = pairs.get(0).getAssociatedEvent();
+            assertThat(associatedEvent.getServiceName()).isEqualTo(ConnectionEvent.UNKNOWN_SERVICE);
+            assertThat(associatedEvent.getEventDirection()).isEqualTo(Direction.INBOUND);
+            assertThat(associatedEvent.getConnectionIdentifier()).isEqualTo(TEST_CONNECTION_PATH);
+            assertThat(associatedEvent.getObservedAt()).isEqualTo(1_000L);
+        }
+
+        @Test
+        void shouldOnlyPairEventsObservedInTheWindow() {
+            setupConnectionEvent("test-producer", Direction.OUTBOUND, 1_000L);
+            setupConnectionEvent("test-consumer", Direction.INBOUND, 2_000L);
+            setupConnectionEvent("test-other-consumer", Direction.INBOUND, 3_000L);
+
+            assertThat(dao.findEventPairsObservedBetween(1_000L, 2_000L))
+                    .extracting(pair -> pair.getEvent().getServiceName(),
+                            pair -> pair.getAssociatedEvent().getServiceName())
+                    .containsExactlyInAnyOrder(
+                            tuple("test-producer", "test-consumer"),
+                            tuple("test-consumer", "test-producer"));
+
+            assertThat(dao.findEventPairsByServiceNameObservedBetween("test-other-consumer", 2_000L, 3_000L))
+                    .extracting(pair -> pair.getAssociatedEvent().getServiceName())
+                    .containsExactly(ConnectionEvent.UNKNOWN_SERVICE);
+        }
+
+        @Test
+        void shouldPairEventsAliveInTheWindow_EvenIfObservedAgainAfterIt() {
+            setupLongLivedConnectionEvent("test-producer", Direction.OUTBOUND, 500L, 6_000L);
+            setupLongLivedConnectionEvent("test-consumer", Direction.INBOUND, 500L, 6_000L);
+
+            assertThat(dao.findEventPairsObservedBetween(1_000L, 2_000L))
+                    .extracting(pair -> pair.getEvent().getServiceName(),
+                            pair -> pair.getAssociatedEvent().getServiceName())
+                    .containsExactlyInAnyOrder(
+                            tuple("test-producer", "test-consumer"),
+                            tuple("test-consumer", "test-producer"));
+
+            assertThat(dao.findEventPairsByServiceNameObservedBetween("test-producer", 1_000L, 2_000L))
+                    .extracting(pair -> pair.getAssociatedEvent().getServiceName())
+                    .containsExactly("test-consumer");
+        }
+    }
+
+    @Nested
+    class ForEachEventPairObservedInEitherWindow {
+
+        private final ObservationWindow before = new ObservationWindow(1_000L, 2_000L);
+        private final ObservationWindow after = new ObservationWindow(4_000L, 5_000L);
+
+        @Test
+        void shouldFlagWhetherPairsWereAliveInEachWindow() {
+            setupConnectionEvent("test-producer", Direction.OUTBOUND, 1_500L);
+            setupConnectionEvent("test-old-consumer", Direction.INBOUND, 1_500L);
+            setupConnectionEvent("test-new-consumer", Direction.INBOUND, 4_500L);
+            writer.write(ConnectionEvent.builder()
+                    .serviceName("test-producer")
+                    .eventDirection(Direction.OUTBOUND)
+                    .communicationType("HTTP")
+                    .connectionIdentifier(TEST_CONNECTION_PATH)
+                    .observedAt(4_500L)
+                    .build());
+
+            var pairs = new ArrayList<WindowedEventPair>();
+            dao.forEachEventPairObservedInEitherWindow(before, after, 1, pairs::add);
+
+            assertThat(pairs)
+                    .extracting(pair -> pair.getPair().getEvent().getServiceName(),
+                            pair -> pair.getPair().getAssociatedEvent().getServiceName(),
+                            WindowedEventPair::isObservedBefore,
+                            WindowedEventPair::isObservedAfter)
+                    .containsExactly(
+                            tuple("test-new-consumer", "test-producer", false, true),
+                            tuple("test-old-consumer", "test-producer", true, false),
+                            tuple("test-producer", "test-new-consumer", false, true),
+                            tuple("test-producer", "test-old-consumer", true, false));
+        }
+
+        @Test
+        void shouldConsiderPairsAliveBetweenTheirFirstAndLastObservedTimes() {
+            setupConnectionEvent("test-producer", Direction.OUTBOUND, 500L);
+            setupConnectionEvent("test-consumer", Direction.INBOUND, 500L);
+            Stream.of(Direction.OUTBOUND, Direction.INBOUND).forEach(direction -> writer.write(
+                    ConnectionEvent.builder()
+                            .serviceName(direction == Direction.OUTBOUND ? "test-producer" : "test-consumer")
+                            .eventDirection(direction)
+                            .communicationType("HTTP")
+                            .connectionIdentifier(TEST_CONNECTION_PATH)
+                            .observedAt(6_000L)
+                            .build()));
+
+            var pairs = new ArrayList<WindowedEventPair>();
+            dao.forEachEventPairObservedInEitherWindow(before, after, 1, pairs::add);
+
+            assertThat(pairs).hasSize(2)
+                    .allMatch(pair -> pair.isObservedBefore() && pair.isObservedAfter());
+        }
+
+        @Test
+        void shouldSkipPairsAliveInNeitherWindow() {
+            setupConnectionEvent("test-producer", Direction.OUTBOUND, 3_000L);
+            setupConnectionEvent("test-consumer", Direction.INBOUND, 3_000L);
+            setupConnectionEvent("test-other-producer", Direction.OUTBOUND, 1_500L);
+
+            var pairs = new ArrayList<WindowedEventPair>();
+            dao.forEachEventPairObservedInEitherWindow(before, after, 1, pairs::add);
+
+            assertThat(pairs).isEmpty();
+        }
+    }
+
+    @Nested
+    class FindUnusedIdentifiers {
+
+        @Test
+        void shouldFindOutboundEventsAndTrackedIdentifiersWithoutInboundEvents() {
+            setupConnectionEvent("test-producer", Direction.OUTBOUND);
+            setupConnectionEvent("test-consumer", Direction.INBOUND);
+            writer.write(ConnectionEvent.builder()
+                    .serviceName("test-producer")
+                    .eventDirection(Direction.OUTBOUND)
+                    .communicationType("HTTP")
+                    .connectionIdentifier("GET /unused")
+                    .observedAt(1_000L)
+                    .build());
+            trackIdentifier("test-consumer", TEST_CONNECTION_PATH);
+            trackIdentifier("test-consumer", "GET /never/called");
+
+            assertThat(dao.findUnusedIdentifiers())
+                    .extracting(ServiceUnusedIdentifier::getServiceName,
+                            unused -> unused.getIdentifier().getConnectionIdentifier())
+                    .containsExactly(
+                            tuple("test-consumer", "GET /never/called"),
+                            tuple("test-producer", "GET /unused"));
+        }
+
+        @Test
+        void shouldOnlyFindTheIdentifiersOfTheGivenService() {
+            setupConnectionEvent("test-producer", Direction.OUTBOUND);
+            trackIdentifier("test-consumer", "GET /never/called");
+
+            assertThat(dao.findUnusedIdentifiersByServiceName("test-consumer"))
+                    .extracting(unused -> unused.getIdentifier().getConnectionIdentifier())
+                    .containsExactly("GET /never/called");
+        }
+
+        private void trackIdentifier(String serviceName, String connectionIdentifier) {
+            handle.execute("insert into tracked_connection_identifiers " +
+                            "(service_name, communication_type, connection_identifier) values (?, ?, ?)",
+                    serviceName, "HTTP", connectionIdentifier);
+        }
+    }
+
     @Nested
     class FindAllServiceNames {
         @Test
@@ -130,6 +429,22 @@ class ConnectionEventDaoTest {
 
             assertThat(serviceNames).hasSize(2).containsOnly(associateServiceName, otherServiceName);
         }
+
+        @Test
+        void shouldOnlyReturnServicesWithEventsObservedInTheWindow() {
+            setupConnectionEvent("test-producer", Direction.OUTBOUND, 1_000L);
+            setupConnectionEvent("test-consumer", Direction.INBOUND, 2_000L);
+
+            assertThat(dao.findServiceNamesObservedBetween(1_500L, 2_500L)).containsExactly("test-consumer");
+        }
+
+        @Test
+        void shouldReturnServicesWithEventsAliveInTheWindow_EvenIfObservedAgainAfterIt() {
+            setupLongLivedConnectionEvent("test-producer", Direction.OUTBOUND, 500L, 6_000L);
+            setupConnectionEvent("test-consumer", Direction.INBOUND, 3_000L);
+
+            assertThat(dao.findServiceNamesObservedBetween(1_000L, 2_000L)).containsExactly("test-producer");
+        }
     }
 
     @Nested
@@ -149,7 +464,7 @@ class ConnectionEventDaoTest {
     }
 
     @Nested
-    class CreateOrUpdate {
+    class CreateOrUpdateFacts {
 
         @Test
         void shouldCreateANewRecord_WhenOneDoesNotExist() {
@@ -165,7 +480,7 @@ class ConnectionEventDaoTest {
 
             assertThat(servicesPreInsert).isEmpty();
 
-            dao.createOrUpdate(preSaved);
+            writer.write(preSaved);
 
             var servicesPostInsert = dao.findEventsByServiceName(TEST_SERVICE_NAME);
 
@@ -180,7 +495,7 @@ class ConnectionEventDaoTest {
 
             assertThat(initialEvents).hasSize(1);
 
-            dao.createOrUpdate(ConnectionEvent.builder()
+            writer.write(ConnectionEvent.builder()
                     .serviceName(TEST_SERVICE_NAME)
                     .eventDirection(Direction.OUTBOUND)
                     .communicationType("HTTP")
@@ -192,7 +507,7 @@ class ConnectionEventDaoTest {
             assertThat(eventsAfterFirstUpdate).hasSize(1);
 
             var existingEvent = eventsAfterFirstUpdate.get(0);
-            dao.createOrUpdate(existingEvent);
+            writer.write(observedLater(existingEvent));
             var eventsAfterSecondUpdate = eventsForService();
 
             assertThat(eventsAfterSecondUpdate).extracting(ConnectionEvent::getId).containsOnly(existingEvent.getId());
@@ -202,6 +517,65 @@ class ConnectionEventDaoTest {
             assertThat(updatedEvent.getObservedAt()).isGreaterThan(existingEvent.getObservedAt());
         }
 
+        @Test
+        void shouldKeepTheObservedAtOfTheEvent_InsteadOfTheCurrentTime() {
+            setupConnectionEvent(TEST_SERVICE_NAME, Direction.OUTBOUND, 1_000L);
+
+            writer.write(ConnectionEvent.builder()
+                    .serviceName(TEST_SERVICE_NAME)
+                    .eventDirection(Direction.OUTBOUND)
+                    .communicationType("HTTP")
+                    .connectionIdentifier(TEST_CONNECTION_PATH)
+                    .observedAt(2_000L)
+                    .build());
+
+            assertThat(eventsForService()).extracting(ConnectionEvent::getObservedAt).containsExactly(2_000L);
+        }
+
+        @Test
+        void shouldNotMoveObservedAtBackwards() {
+            setupConnectionEvent(TEST_SERVICE_NAME, Direction.OUTBOUND, 2_000L);
+
+            writer.write(ConnectionEvent.builder()
+                    .serviceName(TEST_SERVICE_NAME)
+                    .eventDirection(Direction.OUTBOUND)
+                    .communicationType("HTTP")
+                    .connectionIdentifier(TEST_CONNECTION_PATH)
+                    .observedAt(1_000L)
+                    .build());
+
+            assertThat(eventsForService()).extracting(ConnectionEvent::getObservedAt).containsExactly(2_000L);
+        }
+
+        @Test
+        void shouldMoveFirstObservedAtBackwards() {
+            setupConnectionEvent(TEST_SERVICE_NAME, Direction.OUTBOUND, 2_000L);
+
+            writer.write(ConnectionEvent.builder()
+                    .serviceName(TEST_SERVICE_NAME)
+                    .eventDirection(Direction.OUTBOUND)
+                    .communicationType("HTTP")
+                    .connectionIdentifier(TEST_CONNECTION_PATH)
+                    .observedAt(1_000L)
+                    .build());
+
+            var firstObservedAt = handle.createQuery("select first_observed_at from connection_event_facts")
+                    .mapTo(Long.class)
+                    .one();
+
+            assertThat(firstObservedAt).isEqualTo(1_000L);
+        }
+
+        private ConnectionEvent observedLater(ConnectionEvent event) {
+            return ConnectionEvent.builder()
+                    .serviceName(event.getServiceName())
+                    .eventDirection(event.getEventDirection())
+                    .communicationType(event.getCommunicationType())
+                    .connectionIdentifier(event.getConnectionIdentifier())
+                    .observedAt(event.getObservedAt() + 1)
+                    .build();
+        }
+
         private List<ConnectionEvent> eventsForService() {
             return handle.createQuery("select * from connection_events where service_name = :serviceName")
                             .bind(SERVICE_NAME_PROPERTY, ConnectionEventDaoTest.TEST_SERVICE_NAME)
@@ -211,16 +585,75 @@ class ConnectionEventDaoTest {
 
     }
 
+    @Nested
+    class CreateOrUpdateFactsInBatch {
+
+        @Test
+        void shouldInsertNewRecordsAndUpdateExistingRecords() {
+            setupConnectionEvent(TEST_SERVICE_NAME, Direction.OUTBOUND, 1L);
+
+            var existingEvent = ConnectionEvent.builder()
+                    .serviceName(TEST_SERVICE_NAME)
+                    .eventDirection(Direction.OUTBOUND)
+                    .communicationType("HTTP")
+                    .connectionIdentifier(TEST_CONNECTION_PATH)
+                    .build();
+
+            var newEvent = ConnectionEvent.builder()
+                    .serviceName(TEST_SERVICE_NAME)
+                    .eventDirection(Direction.INBOUND)
+                    .communicationType("HTTP")
+                    .connectionIdentifier("GET /doSomething")
+                    .build();
+
+            writer.writeAll(List.of(existingEvent, newEvent));
+
+            var events = dao.findEventsByServiceName(TEST_SERVICE_NAME);
+
+            assertThat(events).hasSize(2)
+                    .extracting(ConnectionEvent::getConnectionIdentifier)
+                    .containsExactlyInAnyOrder(TEST_CONNECTION_PATH, "GET /doSomething");
+
+            assertThat(events)
+                    .filteredOn(event -> event.getConnectionIdentifier().equals(TEST_CONNECTION_PATH))
+                    .extracting(ConnectionEvent::getObservedAt)
+                    .allMatch(observedAt -> observedAt > 1L);
+        }
+
+        @Test
+        void shouldDoNothing_WhenGivenAnEmptyList() {
+            writer.writeAll(List.of());
+
+            assertThat(dao.findEventsByServiceName(TEST_SERVICE_NAME)).isEmpty();
+        }
+    }
+
     private void setupConnectionEvent(String serviceName, Direction direction) {
         setupConnectionEvent(serviceName, direction, System.currentTimeMillis());
     }
 
+    private void setupLongLivedConnectionEvent(String serviceName,
+                                               Direction direction,
+                                               long firstObservedAt,
+                                               long lastObservedAt) {
+        setupConnectionEvent(serviceName, direction, firstObservedAt);
+        writer.write(ConnectionEvent.builder()
+                .serviceName(serviceName)
+                .eventDirection(direction)
+                .communicationType("HTTP")
+                .connectionIdentifier(TEST_CONNECTION_PATH)
+                .observedAt(lastObservedAt)
+                .build());
+    }
+
     private void setupConnectionEvent(String serviceName, Direction direction, Long observedAt) {
-        handle.execute("""
-                        insert into connection_events \
-                        (service_name, event_direction, communication_type, connection_identifier, observed_at) \
-                        values (?, ?, ?, ?, ?)""",
-                        serviceName, direction.name(), "HTTP", TEST_CONNECTION_PATH, observedAt);
+        writer.write(ConnectionEvent.builder()
+                .serviceName(serviceName)
+                .eventDirection(direction)
+                .communicationType("HTTP")
+                .connectionIdentifier(TEST_CONNECTION_PATH)
+                .observedAt(observedAt)
+                .build());
     }
 
 }
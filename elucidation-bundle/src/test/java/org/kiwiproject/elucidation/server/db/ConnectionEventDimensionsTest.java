@@ -0,0 +1,91 @@
+package org.kiwiproject.elucidation.server.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.kiwiproject.elucidation.common.test.ConnectionEvents.newConnectionEvent;
+import static org.kiwiproject.elucidation.server.test.TestConstants.A_SERVICE_NAME;
+import static org.kiwiproject.elucidation.server.test.TestConstants.MSG_TO_ANOTHER_SERVICE;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.jdbi.v3.core.statement.StatementContext;
+import org.jdbi.v3.core.statement.UnableToExecuteStatementException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.elucidation.common.model.Direction;
+
+import java.sql.SQLException;
+import java.util.Optional;
+
+@DisplayName("ConnectionEventDimensions")
+class ConnectionEventDimensionsTest {
+
+    private ConnectionEventDao dao;
+    private ConnectionEventDimensions dimensions;
+
+    @BeforeEach
+    void setUp() {
+        dao = mock(ConnectionEventDao.class);
+        when(dao.findCommunicationTypeId(anyString())).thenReturn(Optional.of(2));
+        when(dao.findConnectionIdentifierId(anyString())).thenReturn(Optional.of(3));
+
+        dimensions = new ConnectionEventDimensions(dao);
+    }
+
+    @Test
+    void shouldCreateMissingRows() {
+        when(dao.findServiceId(A_SERVICE_NAME)).thenReturn(Optional.empty());
+        when(dao.insertService(A_SERVICE_NAME)).thenReturn(1);
+
+        var event = newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE, 1_000L);
+
+        assertThat(dimensions.toFact(event)).isEqualTo(ConnectionEventFact.builder()
+                .serviceId(1)
+                .eventDirection(Direction.OUTBOUND)
+                .communicationTypeId(2)
+                .connectionIdentifierId(3)
+                .observedAt(1_000L)
+                .build());
+    }
+
+    @Test
+    void shouldCacheResolvedIds() {
+        when(dao.findServiceId(A_SERVICE_NAME)).thenReturn(Optional.of(1));
+
+        dimensions.toFact(newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE));
+        dimensions.toFact(newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_TO_ANOTHER_SERVICE));
+
+        verify(dao, times(1)).findServiceId(A_SERVICE_NAME);
+        verify(dao, times(1)).findConnectionIdentifierId(MSG_TO_ANOTHER_SERVICE);
+    }
+
+    @Test
+    void shouldUseTheConcurrentlyInsertedRow_WhenItLosesAnInsertRace() {
+        when(dao.findServiceId(A_SERVICE_NAME)).thenReturn(Optional.empty(), Optional.of(7));
+        when(dao.insertService(A_SERVICE_NAME)).thenThrow(newStatementException());
+
+        var fact = dimensions.toFact(newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE));
+
+        assertThat(fact.getServiceId()).isEqualTo(7);
+    }
+
+    @Test
+    void shouldRethrow_WhenInsertFailsForAnotherReason() {
+        var exception = newStatementException();
+        when(dao.findServiceId(A_SERVICE_NAME)).thenReturn(Optional.empty());
+        when(dao.insertService(A_SERVICE_NAME)).thenThrow(exception);
+
+        var event = newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE);
+
+        assertThatThrownBy(() -> dimensions.toFact(event)).isSameAs(exception);
+    }
+
+    private static UnableToExecuteStatementException newStatementException() {
+        return new UnableToExecuteStatementException(
+                new SQLException("statement failed", "23505"), mock(StatementContext.class));
+    }
+}
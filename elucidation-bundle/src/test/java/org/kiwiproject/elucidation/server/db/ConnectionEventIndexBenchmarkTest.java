@@ -0,0 +1,121 @@
+package org.kiwiproject.elucidation.server.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jdbi.v3.core.Handle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.kiwiproject.elucidation.common.model.Direction;
+import org.kiwiproject.test.junit.jupiter.Jdbi3DaoExtension;
+import org.kiwiproject.test.junit.jupiter.PostgresLiquibaseTestExtension;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the composite indexes on {@code connection_event_facts} with the single-column indexes they replaced, on a
+ * dataset of 500,000 events. Everything is rolled back with the test transaction.
+ * <p>
+ * This takes a while, so it only runs when the {@code elucidation.benchmarks} system property is {@code true}, e.g.
+ * {@code mvn test -Dtest=ConnectionEventIndexBenchmarkTest -Delucidation.benchmarks=true}. The timings are logged.
+ */
+@Slf4j
+@DisplayName("ConnectionEvent index benchmark")
+@EnabledIfSystemProperty(named = "elucidation.benchmarks", matches = "true")
+@SuppressWarnings("SqlNoDataSourceInspection")
+class ConnectionEventIndexBenchmarkTest {
+
+    @RegisterExtension
+    static final PostgresLiquibaseTestExtension POSTGRES = new PostgresLiquibaseTestExtension("elucidation-migrations.xml");
+
+    @RegisterExtension
+    final Jdbi3DaoExtension<ConnectionEventDao> daoExtension = Jdbi3DaoExtension.<ConnectionEventDao>builder()
+            .daoType(ConnectionEventDao.class)
+            .dataSource(POSTGRES.getTestDataSource())
+            .build();
+
+    private static final int NUM_SERVICES = 50;
+    private static final int NUM_COMMUNICATION_TYPES = 5;
+    private static final int NUM_CONNECTION_IDENTIFIERS = 5_000;
+    private static final int NUM_LOOKUPS = 2_000;
+
+    private ConnectionEventDao dao;
+    private Handle handle;
+
+    @BeforeEach
+    void setUp() {
+        dao = daoExtension.getDao();
+        handle = daoExtension.getHandle();
+
+        handle.execute("insert into services (service_name) select 'service-' || n from generate_series(1, ?) n",
+                NUM_SERVICES);
+        handle.execute("insert into communication_types (communication_type) select 'type-' || n from generate_series(1, ?) n",
+                NUM_COMMUNICATION_TYPES);
+        handle.execute("insert into connection_identifiers (connection_identifier) " +
+                "select 'GET /some/endpoint/' || n from generate_series(1, ?) n", NUM_CONNECTION_IDENTIFIERS);
+
+        // Every service reports every identifier in both directions, with the type derived from the identifier
+        handle.execute("""
+                insert into connection_event_facts \
+                (service_id, event_direction, communication_type_id, connection_identifier_id, observed_at) \
+                select s.id, d.direction, t.id, i.id, (random() * 1000000000)::bigint \
+                from services s \
+                cross join connection_identifiers i \
+                cross join (values (1), (2)) d(direction) \
+                join communication_types t on t.communication_type = 'type-' || (i.id % ? + 1)""",
+                NUM_COMMUNICATION_TYPES);
+        handle.execute("analyze connection_event_facts");
+    }
+
+    @Test
+    void shouldBeFasterWithCompositeIndexes() {
+        var compositeNanos = timeLookups();
+        var compositePlan = explainAssociatedEvents();
+
+        handle.execute("drop index connection_event_facts_associated_events");
+        handle.execute("drop index connection_event_facts_service_id_observed_at");
+        handle.execute("create index connection_event_facts_service_id on connection_event_facts (service_id)");
+        handle.execute("create index connection_event_facts_event_direction on connection_event_facts (event_direction)");
+        handle.execute("create index connection_event_facts_communication_type_id on connection_event_facts (communication_type_id)");
+        handle.execute("create index connection_event_facts_connection_identifier_id on connection_event_facts (connection_identifier_id)");
+        handle.execute("analyze connection_event_facts");
+
+        var singleColumnNanos = timeLookups();
+        var singleColumnPlan = explainAssociatedEvents();
+
+        LOG.info("{} findAssociatedEvents and findEventsByServiceName lookups: single-column indexes {} ms, composite indexes {} ms",
+                NUM_LOOKUPS, TimeUnit.NANOSECONDS.toMillis(singleColumnNanos), TimeUnit.NANOSECONDS.toMillis(compositeNanos));
+        LOG.info("findAssociatedEvents plan with single-column indexes:\n{}", singleColumnPlan);
+        LOG.info("findAssociatedEvents plan with composite indexes:\n{}", compositePlan);
+
+        assertThat(compositePlan).contains("connection_event_facts_associated_events");
+    }
+
+    private long timeLookups() {
+        var random = new Random(42);
+        var start = System.nanoTime();
+
+        for (var i = 0; i < NUM_LOOKUPS; i++) {
+            var identifierId = random.nextInt(NUM_CONNECTION_IDENTIFIERS) + 1;
+            var associatedEvents = dao.findAssociatedEvents(Direction.INBOUND,
+                    "GET /some/endpoint/" + identifierId, "type-" + (identifierId % NUM_COMMUNICATION_TYPES + 1));
+            assertThat(associatedEvents).hasSize(NUM_SERVICES);
+
+            dao.findEventsByServiceName("service-" + (random.nextInt(NUM_SERVICES) + 1));
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    private String explainAssociatedEvents() {
+        return String.join("\n", handle.createQuery("explain " + ConnectionEventDao.SELECT_EVENTS +
+                        "where e.event_direction = 1 and i.connection_identifier = 'GET /some/endpoint/42' " +
+                        "and t.communication_type = 'type-3'")
+                .mapTo(String.class)
+                .list());
+    }
+}
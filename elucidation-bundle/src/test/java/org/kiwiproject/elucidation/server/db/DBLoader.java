@@ -34,17 +34,12 @@ public class DBLoader {
              var iterator = newMappingIterator(mapper, schema, inputStream, ConnectionEvent.class)) {
 
             LOG.info("Starting to load events");
+            var writer = SqlDialect.POSTGRES.newConnectionEventWriter(jdbi, jdbi.onDemand(ConnectionEventDao.class));
             var eventInsertCount = StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
-                    .mapToInt(event ->
-                            jdbi.withHandle(handle -> handle.execute("""
-                                            insert into connection_events\
-                                             (service_name, event_direction, communication_type, connection_identifier, observed_at)\
-                                             values (?, ?, ?, ?, ?)""",
-                                    event.getServiceName(),
-                                    event.getEventDirection(),
-                                    event.getCommunicationType(),
-                                    event.getConnectionIdentifier(),
-                                    event.getObservedAt())))
+                    .mapToLong(event -> {
+                        writer.write(event);
+                        return 1;
+                    })
                     .sum();
             LOG.info("Events loaded {}", eventInsertCount);
         }
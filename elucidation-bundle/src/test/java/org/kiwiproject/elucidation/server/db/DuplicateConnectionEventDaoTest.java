@@ -0,0 +1,89 @@
+package org.kiwiproject.elucidation.server.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import org.jdbi.v3.core.Handle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.kiwiproject.elucidation.common.model.ConnectionEvent;
+import org.kiwiproject.elucidation.common.model.Direction;
+import org.kiwiproject.elucidation.server.db.mapper.ConnectionEventMapper;
+import org.kiwiproject.test.junit.jupiter.Jdbi3DaoExtension;
+import org.kiwiproject.test.junit.jupiter.PostgresLiquibaseTestExtension;
+
+@DisplayName("DuplicateConnectionEventDao")
+@SuppressWarnings("SqlNoDataSourceInspection")
+class DuplicateConnectionEventDaoTest {
+
+    @RegisterExtension
+    static final PostgresLiquibaseTestExtension POSTGRES = new PostgresLiquibaseTestExtension("elucidation-migrations.xml");
+
+    @RegisterExtension
+    final Jdbi3DaoExtension<DuplicateConnectionEventDao> daoExtension = Jdbi3DaoExtension.<DuplicateConnectionEventDao>builder()
+            .daoType(DuplicateConnectionEventDao.class)
+            .dataSource(POSTGRES.getTestDataSource())
+            .build();
+
+    private static final String TEST_SERVICE_NAME = "test-service";
+    private static final String TEST_CONNECTION_PATH = "GET /test/path";
+
+    private DuplicateConnectionEventDao dao;
+    private Handle handle;
+
+    /**
+     * Recreates the connection_events table as it was before the natural-key index was added, so that it can hold
+     * duplicates. This is rolled back with the rest of the test transaction.
+     */
+    @BeforeEach
+    void setUp() {
+        dao = daoExtension.getDao();
+        handle = daoExtension.getHandle();
+
+        handle.execute("drop view connection_events");
+        handle.execute("""
+                create table connection_events (\
+                id bigserial primary key, \
+                service_name varchar(255) not null, \
+                event_direction varchar(255) not null, \
+                communication_type varchar(255) not null, \
+                connection_identifier varchar(255) not null, \
+                observed_at bigint not null)""");
+    }
+
+    @Test
+    void shouldKeepOnlyTheLatestObservationOfEachConnection() {
+        setupConnectionEvent(Direction.OUTBOUND, 1_000L);
+        setupConnectionEvent(Direction.OUTBOUND, 3_000L);
+        setupConnectionEvent(Direction.OUTBOUND, 2_000L);
+        setupConnectionEvent(Direction.INBOUND, 1_000L);
+
+        var duplicatedEvents = dao.findDuplicatedEvents(10);
+
+        assertThat(duplicatedEvents).hasSize(1)
+                .extracting(ConnectionEvent::getEventDirection)
+                .containsExactly(Direction.OUTBOUND);
+
+        var numDeleted = dao.mergeDuplicates(duplicatedEvents);
+
+        assertThat(numDeleted).isEqualTo(2);
+        assertThat(handle.createQuery("select * from connection_events")
+                .map(new ConnectionEventMapper())
+                .list())
+                .extracting(ConnectionEvent::getEventDirection, ConnectionEvent::getObservedAt)
+                .containsExactlyInAnyOrder(
+                        tuple(Direction.OUTBOUND, 3_000L),
+                        tuple(Direction.INBOUND, 1_000L));
+        assertThat(dao.findDuplicatedEvents(10)).isEmpty();
+    }
+
+    private void setupConnectionEvent(Direction direction, long observedAt) {
+        handle.execute("""
+                        insert into connection_events \
+                        (service_name, event_direction, communication_type, connection_identifier, observed_at) \
+                        values (?, ?, ?, ?, ?)""",
+                TEST_SERVICE_NAME, direction.name(), "HTTP", TEST_CONNECTION_PATH, observedAt);
+    }
+}
@@ -0,0 +1,113 @@
+package org.kiwiproject.elucidation.server.db;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.kiwiproject.elucidation.common.test.ConnectionEvents.newConnectionEvent;
+import static org.kiwiproject.elucidation.server.test.TestConstants.A_SERVICE_NAME;
+import static org.kiwiproject.elucidation.server.test.TestConstants.MSG_TO_ANOTHER_SERVICE;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.jdbi.v3.core.statement.StatementContext;
+import org.jdbi.v3.core.statement.UnableToExecuteStatementException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.elucidation.common.model.Direction;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Optional;
+
+@DisplayName("GenericConnectionEventWriter")
+class GenericConnectionEventWriterTest {
+
+    private ConnectionEventDao dao;
+    private ConnectionEventDimensions dimensions;
+    private GenericConnectionEventWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        dao = mock(ConnectionEventDao.class);
+        when(dao.findServiceId(anyString())).thenReturn(Optional.of(1));
+        when(dao.findCommunicationTypeId(anyString())).thenReturn(Optional.of(2));
+        when(dao.findConnectionIdentifierId(anyString())).thenReturn(Optional.of(3));
+
+        dimensions = new ConnectionEventDimensions(dao);
+        writer = new GenericConnectionEventWriter(dao, dimensions);
+    }
+
+    @Test
+    void shouldRetryWrite_WhenAConcurrentWriterInsertedTheSameConnection() {
+        var event = newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE);
+
+        doThrow(newStatementException("23505")).doNothing().when(dao).createOrUpdateFacts(anyList());
+
+        writer.write(event);
+
+        verify(dao, times(2)).createOrUpdateFacts(List.of(dimensions.toFact(event)));
+    }
+
+    @Test
+    void shouldRetryWriteAll_WhenAConcurrentWriterInsertedTheSameConnection() {
+        var events = List.of(newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE));
+
+        doThrow(newStatementException("23000")).doNothing().when(dao).createOrUpdateFacts(anyList());
+
+        writer.writeAll(events);
+
+        verify(dao, times(2)).createOrUpdateFacts(List.of(dimensions.toFact(events.get(0))));
+    }
+
+    @Test
+    void shouldNotRetry_OtherErrors() {
+        var event = newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE);
+        var exception = newStatementException("08006");
+
+        doThrow(exception).when(dao).createOrUpdateFacts(anyList());
+
+        assertThatThrownBy(() -> writer.write(event)).isSameAs(exception);
+
+        verify(dao).createOrUpdateFacts(anyList());
+    }
+
+    @Test
+    void shouldCheckEachFact_WhenTheDriverDoesNotReportBatchUpdateCounts() {
+        var dao = mock(ConnectionEventDao.class, CALLS_REAL_METHODS);
+        var existingFact = newFact(1);
+        var newFact = newFact(2);
+
+        doReturn(new int[] { Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO })
+                .when(dao).updateObservedAt(List.of(existingFact, newFact));
+        doReturn(1).when(dao).updateObservedAt(existingFact);
+        doReturn(0).when(dao).updateObservedAt(newFact);
+        doNothing().when(dao).insertFacts(anyList());
+
+        dao.createOrUpdateFacts(List.of(existingFact, newFact));
+
+        verify(dao).insertFacts(List.of(newFact));
+    }
+
+    private static ConnectionEventFact newFact(int connectionIdentifierId) {
+        return ConnectionEventFact.builder()
+                .serviceId(1)
+                .eventDirection(Direction.OUTBOUND)
+                .communicationTypeId(2)
+                .connectionIdentifierId(connectionIdentifierId)
+                .observedAt(1_000L)
+                .build();
+    }
+
+    private static UnableToExecuteStatementException newStatementException(String sqlState) {
+        return new UnableToExecuteStatementException(
+                new SQLException("statement failed", sqlState), mock(StatementContext.class));
+    }
+}
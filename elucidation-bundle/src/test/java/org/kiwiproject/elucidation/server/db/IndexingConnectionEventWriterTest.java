@@ -0,0 +1,90 @@
+package org.kiwiproject.elucidation.server.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.kiwiproject.elucidation.common.test.ConnectionEvents.newConnectionEvent;
+import static org.kiwiproject.elucidation.server.test.TestConstants.A_SERVICE_NAME;
+import static org.kiwiproject.elucidation.server.test.TestConstants.MSG_FROM_ANOTHER_SERVICE;
+import static org.kiwiproject.elucidation.server.test.TestConstants.MSG_TO_ANOTHER_SERVICE;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.elucidation.common.model.Direction;
+import org.kiwiproject.elucidation.server.graph.ConnectionGraphIndex;
+import org.kiwiproject.elucidation.server.service.GraphVersion;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@DisplayName("IndexingConnectionEventWriter")
+class IndexingConnectionEventWriterTest {
+
+    private ConnectionEventWriter delegate;
+    private ConnectionGraphIndex graphIndex;
+    private IndexingConnectionEventWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(ConnectionEventWriter.class);
+        graphIndex = mock(ConnectionGraphIndex.class);
+        writer = new IndexingConnectionEventWriter(delegate, graphIndex);
+    }
+
+    @Test
+    void shouldIndexAnEvent_AfterWritingIt() {
+        var event = newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE);
+
+        writer.write(event);
+
+        var inOrder = inOrder(delegate, graphIndex);
+        inOrder.verify(delegate).write(event);
+        inOrder.verify(graphIndex).add(event);
+    }
+
+    @Test
+    void shouldIndexEvents_AfterWritingThem() {
+        var events = List.of(
+                newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE),
+                newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE)
+        );
+
+        writer.writeAll(events);
+
+        var inOrder = inOrder(delegate, graphIndex);
+        inOrder.verify(delegate).writeAll(events);
+        inOrder.verify(graphIndex).addAll(events);
+    }
+
+    @Test
+    void shouldNotIndexEvents_WhenWriteFails() {
+        doThrow(new IllegalStateException("boom")).when(delegate).write(any());
+        doThrow(new IllegalStateException("boom")).when(delegate).writeAll(anyList());
+        var event = newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE);
+
+        assertThatThrownBy(() -> writer.write(event)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> writer.writeAll(List.of(event))).isInstanceOf(IllegalStateException.class);
+
+        verifyNoInteractions(graphIndex);
+    }
+
+    @Test
+    void shouldIndexEvents_BeforeTheGraphVersionChanges_WhenWrappedByVersionTrackingWriter() {
+        var graphVersion = new GraphVersion();
+        var versionsSeenWhileIndexing = new ArrayList<Long>();
+        doAnswer(invocation -> versionsSeenWhileIndexing.add(graphVersion.current())).when(graphIndex).add(any());
+
+        var versionTrackingWriter = new VersionTrackingConnectionEventWriter(writer, graphVersion);
+        versionTrackingWriter.write(newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE));
+
+        assertThat(versionsSeenWhileIndexing).containsExactly(0L);
+        assertThat(graphVersion.current()).isOne();
+    }
+}
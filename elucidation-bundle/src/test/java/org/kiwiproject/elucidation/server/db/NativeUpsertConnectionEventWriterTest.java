@@ -0,0 +1,128 @@
+package org.kiwiproject.elucidation.server.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.jdbi.v3.core.Handle;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.kiwiproject.elucidation.common.model.ConnectionEvent;
+import org.kiwiproject.elucidation.common.model.Direction;
+import org.kiwiproject.test.junit.jupiter.Jdbi3DaoExtension;
+import org.kiwiproject.test.junit.jupiter.PostgresLiquibaseTestExtension;
+
+import java.util.List;
+
+@DisplayName("NativeUpsertConnectionEventWriter (Postgres)")
+@SuppressWarnings("SqlNoDataSourceInspection")
+class NativeUpsertConnectionEventWriterTest {
+
+    @RegisterExtension
+    static final PostgresLiquibaseTestExtension POSTGRES = new PostgresLiquibaseTestExtension("elucidation-migrations.xml");
+
+    @RegisterExtension
+    final Jdbi3DaoExtension<ConnectionEventDao> daoExtension = Jdbi3DaoExtension.<ConnectionEventDao>builder()
+            .daoType(ConnectionEventDao.class)
+            .dataSource(POSTGRES.getTestDataSource())
+            .build();
+
+    private static final String TEST_SERVICE_NAME = "test-service";
+    private static final String TEST_CONNECTION_PATH = "GET /test/path";
+
+    private ConnectionEventWriter writer;
+    private ConnectionEventDao dao;
+    private Handle handle;
+
+    @BeforeEach
+    void setUp() {
+        dao = daoExtension.getDao();
+        handle = daoExtension.getHandle();
+        writer = SqlDialect.POSTGRES.newConnectionEventWriter(daoExtension.getJdbi(), dao);
+    }
+
+    /**
+     * The writer uses its own handles, so its changes are committed and not rolled back by the extension.
+     */
+    @AfterEach
+    void tearDown() {
+        daoExtension.getJdbi().useTransaction(jdbiHandle -> {
+            jdbiHandle.execute("delete from connection_event_facts");
+            jdbiHandle.execute("delete from services");
+            jdbiHandle.execute("delete from communication_types");
+            jdbiHandle.execute("delete from connection_identifiers");
+        });
+    }
+
+    @Nested
+    class Write {
+
+        @Test
+        void shouldInsertANewEvent() {
+            writer.write(newEvent(TEST_CONNECTION_PATH, 1_000L));
+
+            assertThat(dao.findEventsByServiceName(TEST_SERVICE_NAME))
+                    .extracting(ConnectionEvent::getObservedAt)
+                    .containsExactly(1_000L);
+        }
+
+        @Test
+        void shouldUpdateAnExistingEvent_WithTheLaterObservedAt() {
+            writer.write(newEvent(TEST_CONNECTION_PATH, 1_000L));
+            writer.write(newEvent(TEST_CONNECTION_PATH, 3_000L));
+            writer.write(newEvent(TEST_CONNECTION_PATH, 2_000L));
+
+            assertThat(dao.findEventsByServiceName(TEST_SERVICE_NAME))
+                    .extracting(ConnectionEvent::getObservedAt)
+                    .containsExactly(3_000L);
+        }
+
+        @Test
+        void shouldKeepTheEarliestFirstObservedAt() {
+            writer.write(newEvent(TEST_CONNECTION_PATH, 2_000L));
+            writer.write(newEvent(TEST_CONNECTION_PATH, 3_000L));
+            writer.write(newEvent(TEST_CONNECTION_PATH, 1_000L));
+
+            var firstObservedAt = handle.createQuery("select first_observed_at from connection_event_facts")
+                    .mapTo(Long.class)
+                    .one();
+
+            assertThat(firstObservedAt).isEqualTo(1_000L);
+        }
+    }
+
+    @Nested
+    class WriteAll {
+
+        @Test
+        void shouldInsertAndUpdateEvents() {
+            writer.write(newEvent(TEST_CONNECTION_PATH, 1_000L));
+
+            writer.writeAll(List.of(
+                    newEvent(TEST_CONNECTION_PATH, 2_000L),
+                    newEvent("GET /other/path", 2_000L)
+            ));
+
+            var count = handle.createQuery("select count(*) from connection_events")
+                    .mapTo(Integer.class)
+                    .one();
+
+            assertThat(count).isEqualTo(2);
+            assertThat(dao.findEventsByServiceName(TEST_SERVICE_NAME))
+                    .extracting(ConnectionEvent::getObservedAt)
+                    .containsOnly(2_000L);
+        }
+    }
+
+    private static ConnectionEvent newEvent(String connectionIdentifier, long observedAt) {
+        return ConnectionEvent.builder()
+                .serviceName(TEST_SERVICE_NAME)
+                .eventDirection(Direction.OUTBOUND)
+                .communicationType("HTTP")
+                .connectionIdentifier(connectionIdentifier)
+                .observedAt(observedAt)
+                .build();
+    }
+}
@@ -0,0 +1,60 @@
+package org.kiwiproject.elucidation.server.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+
+@DisplayName("SqlDialect")
+class SqlDialectTest {
+
+    @Nested
+    class FromJdbcUrl {
+
+        @ParameterizedTest
+        @CsvSource({
+                "jdbc:postgresql://localhost:5432/elucidation, POSTGRES",
+                "JDBC:POSTGRESQL://localhost:5432/elucidation, POSTGRES",
+                "jdbc:h2:mem:elucidation, H2",
+                "jdbc:h2:~/test-run, H2",
+                "jdbc:mysql://localhost:3306/elucidation, MYSQL",
+                "jdbc:mariadb://localhost:3306/elucidation, MYSQL",
+                "jdbc:oracle:thin:@localhost:1521:elucidation, GENERIC"
+        })
+        void shouldDetermineDialectFromUrl(String jdbcUrl, SqlDialect expectedDialect) {
+            assertThat(SqlDialect.fromJdbcUrl(jdbcUrl)).isEqualTo(expectedDialect);
+        }
+
+        @ParameterizedTest
+        @NullAndEmptySource
+        void shouldFallBackToGeneric_WhenUrlIsMissing(String jdbcUrl) {
+            assertThat(SqlDialect.fromJdbcUrl(jdbcUrl)).isEqualTo(SqlDialect.GENERIC);
+        }
+    }
+
+    @Nested
+    class NewConnectionEventWriter {
+
+        @Test
+        void shouldUseGenericWriter_ForGenericDialect() {
+            var writer = SqlDialect.GENERIC.newConnectionEventWriter(mock(Jdbi.class), mock(ConnectionEventDao.class));
+
+            assertThat(writer).isInstanceOf(GenericConnectionEventWriter.class);
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = SqlDialect.class, names = "GENERIC", mode = EnumSource.Mode.EXCLUDE)
+        void shouldUseNativeUpsertWriter_ForOtherDialects(SqlDialect dialect) {
+            var writer = dialect.newConnectionEventWriter(mock(Jdbi.class), mock(ConnectionEventDao.class));
+
+            assertThat(writer).isInstanceOf(NativeUpsertConnectionEventWriter.class);
+        }
+    }
+}
@@ -1,18 +1,25 @@
 package org.kiwiproject.elucidation.server.db;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.kiwiproject.collect.KiwiLists.first;
 
 import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.statement.UnableToExecuteStatementException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.kiwiproject.elucidation.common.model.TrackedConnectionIdentifier;
+import org.kiwiproject.elucidation.server.core.TrackedConnectionIdentifiers;
 import org.kiwiproject.test.junit.jupiter.Jdbi3DaoExtension;
 import org.kiwiproject.test.junit.jupiter.PostgresLiquibaseTestExtension;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import java.util.stream.IntStream;
 
 @DisplayName("TrackedConnectionIdentifierDao")
@@ -62,6 +69,20 @@ class TrackedConnectionIdentifierDaoTest {
 
             assertThat(serviceNames).hasSize(1).containsExactly(TEST_SERVICE_NAME);
         }
+
+        @Test
+        void shouldRejectADuplicateIdentifier() {
+            setupIdentifier(TEST_SERVICE_NAME);
+
+            var duplicate = TrackedConnectionIdentifier.builder()
+                    .serviceName(TEST_SERVICE_NAME)
+                    .communicationType("HTTP")
+                    .connectionIdentifier(TEST_CONNECTION_PATH)
+                    .build();
+
+            assertThatThrownBy(() -> dao.insertIdentifier(duplicate))
+                    .isInstanceOf(UnableToExecuteStatementException.class);
+        }
     }
 
     @Nested
@@ -79,6 +100,23 @@ class TrackedConnectionIdentifierDaoTest {
         }
     }
 
+    @Nested
+    class ForEachIdentifier {
+        @Test
+        void shouldPassIdentifiersAfterTheGivenIdInOrder_UpToTheLimit() {
+            IntStream.rangeClosed(1,4)
+                    .forEach(idx -> setupIdentifier(TEST_SERVICE_NAME + idx));
+            var firstId = first(dao.findIdentifiers().stream().map(TrackedConnectionIdentifier::getId).sorted().toList());
+
+            var identifiers = new ArrayList<TrackedConnectionIdentifier>();
+            dao.forEachIdentifier(firstId, 2, 1, identifiers::add);
+
+            assertThat(identifiers)
+                    .extracting(SERVICE_NAME_PROPERTY)
+                    .containsExactly(TEST_SERVICE_NAME + 2, TEST_SERVICE_NAME + 3);
+        }
+    }
+
     @Nested
     class ClearIdentifiersFor {
 
@@ -99,6 +137,64 @@ class TrackedConnectionIdentifierDaoTest {
         }
     }
 
+    @Nested
+    class ReplaceIdentifiers {
+
+        @Test
+        void shouldOnlyInsertAddedAndDeleteRemovedIdentifiers() {
+            setupIdentifier(TEST_SERVICE_NAME);
+            var keptId = first(dao.findByServiceName(TEST_SERVICE_NAME)).getId();
+            setupIdentifier(TEST_SERVICE_NAME, "GET /removed");
+
+            var changed = dao.replaceIdentifiers(TEST_SERVICE_NAME, "HTTP", Set.of(TEST_CONNECTION_PATH, "GET /added"));
+
+            assertThat(changed).isTrue();
+            assertThat(dao.findByServiceName(TEST_SERVICE_NAME))
+                    .extracting(TrackedConnectionIdentifier::getConnectionIdentifier)
+                    .containsExactlyInAnyOrder(TEST_CONNECTION_PATH, "GET /added");
+            assertThat(dao.findByServiceName(TEST_SERVICE_NAME))
+                    .filteredOn(identifier -> identifier.getConnectionIdentifier().equals(TEST_CONNECTION_PATH))
+                    .extracting(TrackedConnectionIdentifier::getId)
+                    .containsExactly(keptId);
+        }
+
+        @Test
+        void shouldNotChangeAnything_WhenTheIdentifiersAreUnchanged() {
+            setupIdentifier(TEST_SERVICE_NAME);
+
+            var changed = dao.replaceIdentifiers(TEST_SERVICE_NAME, "HTTP", Set.of(TEST_CONNECTION_PATH));
+
+            assertThat(changed).isFalse();
+            assertThat(dao.findByServiceName(TEST_SERVICE_NAME)).hasSize(1);
+        }
+
+        @Test
+        void shouldReplaceTheIdentifiersOfSeveralServices() {
+            setupIdentifier(TEST_SERVICE_NAME + 1);
+            setupIdentifier(TEST_SERVICE_NAME + 2);
+
+            var changed = dao.replaceAllIdentifiers(List.of(
+                    TrackedConnectionIdentifiers.builder()
+                            .serviceName(TEST_SERVICE_NAME + 1)
+                            .communicationType("HTTP")
+                            .connectionIdentifiers(List.of(TEST_CONNECTION_PATH))
+                            .build(),
+                    TrackedConnectionIdentifiers.builder()
+                            .serviceName(TEST_SERVICE_NAME + 2)
+                            .communicationType("HTTP")
+                            .connectionIdentifiers(List.of("GET /other/path"))
+                            .build()));
+
+            assertThat(changed).isTrue();
+            assertThat(dao.findIdentifiers())
+                    .extracting(TrackedConnectionIdentifier::getServiceName,
+                            TrackedConnectionIdentifier::getConnectionIdentifier)
+                    .containsExactlyInAnyOrder(
+                            tuple(TEST_SERVICE_NAME + 1, TEST_CONNECTION_PATH),
+                            tuple(TEST_SERVICE_NAME + 2, "GET /other/path"));
+        }
+    }
+
     @Nested
     class FindAllServiceNames {
         @Test
@@ -130,11 +226,15 @@ class TrackedConnectionIdentifierDaoTest {
     }
 
     private void setupIdentifier(String serviceName) {
+        setupIdentifier(serviceName, TEST_CONNECTION_PATH);
+    }
+
+    private void setupIdentifier(String serviceName, String connectionIdentifier) {
         handle.execute("""
                         insert into tracked_connection_identifiers \
                         (service_name, communication_type, connection_identifier) \
                         values (?, ?, ?)""",
-                        serviceName, "HTTP", TEST_CONNECTION_PATH);
+                        serviceName, "HTTP", connectionIdentifier);
     }
 
 }
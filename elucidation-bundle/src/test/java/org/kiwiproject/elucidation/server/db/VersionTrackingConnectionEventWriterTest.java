@@ -0,0 +1,73 @@
+package org.kiwiproject.elucidation.server.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.kiwiproject.elucidation.common.test.ConnectionEvents.newConnectionEvent;
+import static org.kiwiproject.elucidation.server.test.TestConstants.A_SERVICE_NAME;
+import static org.kiwiproject.elucidation.server.test.TestConstants.MSG_FROM_ANOTHER_SERVICE;
+import static org.kiwiproject.elucidation.server.test.TestConstants.MSG_TO_ANOTHER_SERVICE;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.elucidation.common.model.Direction;
+import org.kiwiproject.elucidation.server.service.GraphVersion;
+
+import java.util.List;
+
+@DisplayName("VersionTrackingConnectionEventWriter")
+class VersionTrackingConnectionEventWriterTest {
+
+    private ConnectionEventWriter delegate;
+    private GraphVersion graphVersion;
+    private VersionTrackingConnectionEventWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(ConnectionEventWriter.class);
+        graphVersion = new GraphVersion();
+        writer = new VersionTrackingConnectionEventWriter(delegate, graphVersion);
+    }
+
+    @Test
+    void shouldUpdateGraphVersion_AfterWritingAnEvent() {
+        var event = newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE);
+
+        writer.write(event);
+
+        verify(delegate).write(event);
+        assertThat(graphVersion.current()).isOne();
+        assertThat(graphVersion.changeSequence()).isOne();
+    }
+
+    @Test
+    void shouldUpdateGraphVersion_AfterWritingEvents() {
+        var events = List.of(
+                newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE),
+                newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE)
+        );
+
+        writer.writeAll(events);
+
+        verify(delegate).writeAll(events);
+        assertThat(graphVersion.current()).isOne();
+    }
+
+    @Test
+    void shouldNotUpdateGraphVersion_WhenWriteFails() {
+        doThrow(new IllegalStateException("boom")).when(delegate).write(any());
+        doThrow(new IllegalStateException("boom")).when(delegate).writeAll(anyList());
+        var event = newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE);
+
+        assertThatThrownBy(() -> writer.write(event)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> writer.writeAll(List.of(event))).isInstanceOf(IllegalStateException.class);
+
+        assertThat(graphVersion.current()).isZero();
+        assertThat(graphVersion.changeSequence()).isZero();
+    }
+}
@@ -0,0 +1,196 @@
+package org.kiwiproject.elucidation.server.db;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.kiwiproject.elucidation.common.test.ConnectionEvents.newConnectionEvent;
+import static org.kiwiproject.elucidation.server.test.TestConstants.ANOTHER_SERVICE_NAME;
+import static org.kiwiproject.elucidation.server.test.TestConstants.A_SERVICE_NAME;
+import static org.kiwiproject.elucidation.server.test.TestConstants.MSG_FROM_ANOTHER_SERVICE;
+import static org.kiwiproject.elucidation.server.test.TestConstants.MSG_TO_ANOTHER_SERVICE;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.elucidation.common.model.ConnectionEvent;
+import org.kiwiproject.elucidation.common.model.Direction;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+
+@DisplayName("WriteBehindConnectionEventWriter")
+class WriteBehindConnectionEventWriterTest {
+
+    private ConnectionEventWriter delegate;
+    private MetricRegistry metrics;
+    private WriteBehindConnectionEventWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(ConnectionEventWriter.class);
+        metrics = new MetricRegistry();
+        writer = new WriteBehindConnectionEventWriter(delegate, 3, 4, 2, metrics);
+    }
+
+    @Test
+    void shouldRequirePositiveLimits() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> new WriteBehindConnectionEventWriter(delegate, 0, 4, 2, metrics));
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> new WriteBehindConnectionEventWriter(delegate, 3, 4, 0, metrics));
+    }
+
+    @Test
+    void shouldRequireMaxBufferedEvents_ToBeAtLeastMaxPendingEvents() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> new WriteBehindConnectionEventWriter(delegate, 3, 2, 2, metrics));
+    }
+
+    @Test
+    void shouldRegisterPendingGauge() {
+        writer.write(newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE));
+
+        var pendingGauge = metrics.getGauges().get(name(WriteBehindConnectionEventWriter.class, "pending"));
+        assertThat(pendingGauge.getValue()).isEqualTo(1);
+    }
+
+    @Nested
+    class Write {
+
+        @Test
+        void shouldBufferEvents_UntilFlushed() {
+            writer.write(newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE));
+
+            verifyNoInteractions(delegate);
+            assertThat(writer.pendingCount()).isOne();
+        }
+
+        @Test
+        void shouldKeepOnlyTheLatestObservation_OfEachConnection() {
+            var latest = newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE, 3_000L);
+
+            writer.write(newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE, 2_000L));
+            writer.write(latest);
+            writer.write(newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE, 1_000L));
+
+            assertThat(writer.pendingCount()).isOne();
+            assertThat(writer.flush()).isOne();
+
+            verify(delegate).writeAll(List.of(latest));
+        }
+
+        @Test
+        void shouldFlush_WhenMaxPendingEventsIsReached() {
+            writer.writeAll(List.of(
+                    newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE),
+                    newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE),
+                    newConnectionEvent(ANOTHER_SERVICE_NAME, Direction.INBOUND, MSG_TO_ANOTHER_SERVICE)
+            ));
+
+            verify(delegate, times(2)).writeAll(anyList());
+            assertThat(writer.pendingCount()).isZero();
+        }
+
+        @Test
+        void shouldDropEventsForNewConnections_WhenTheBufferIsFull() {
+            doThrow(new IllegalStateException("database is down")).when(delegate).writeAll(anyList());
+
+            writer.writeAll(List.of(
+                    newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE),
+                    newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE),
+                    newConnectionEvent(ANOTHER_SERVICE_NAME, Direction.INBOUND, MSG_TO_ANOTHER_SERVICE),
+                    newConnectionEvent(ANOTHER_SERVICE_NAME, Direction.OUTBOUND, MSG_FROM_ANOTHER_SERVICE),
+                    newConnectionEvent(ANOTHER_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE)
+            ));
+
+            assertThat(writer.pendingCount()).isEqualTo(4);
+            assertThat(metrics.meter(name(WriteBehindConnectionEventWriter.class, "dropped")).getCount()).isOne();
+        }
+
+        @Test
+        void shouldStillCoalesceBufferedConnections_WhenTheBufferIsFull() {
+            doThrow(new IllegalStateException("database is down")).when(delegate).writeAll(anyList());
+            var latest = newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE, 5_000L);
+
+            writer.writeAll(List.of(
+                    newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE, 1_000L),
+                    newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE),
+                    newConnectionEvent(ANOTHER_SERVICE_NAME, Direction.INBOUND, MSG_TO_ANOTHER_SERVICE),
+                    newConnectionEvent(ANOTHER_SERVICE_NAME, Direction.OUTBOUND, MSG_FROM_ANOTHER_SERVICE)
+            ));
+            writer.write(latest);
+
+            assertThat(writer.pendingCount()).isEqualTo(4);
+            assertThat(metrics.meter(name(WriteBehindConnectionEventWriter.class, "dropped")).getCount()).isZero();
+
+            doNothing().when(delegate).writeAll(anyList());
+            writer.flush();
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<ConnectionEvent>> batchCaptor = ArgumentCaptor.forClass(List.class);
+            verify(delegate, atLeastOnce()).writeAll(batchCaptor.capture());
+            assertThat(batchCaptor.getAllValues()).anySatisfy(batch -> assertThat(batch).contains(latest));
+        }
+    }
+
+    @Nested
+    class Flush {
+
+        @Test
+        void shouldWriteInBatches() {
+            writer.write(newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE));
+            writer.write(newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE));
+
+            assertThat(writer.flush()).isEqualTo(2);
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<ConnectionEvent>> batchCaptor = ArgumentCaptor.forClass(List.class);
+            verify(delegate).writeAll(batchCaptor.capture());
+            assertThat(batchCaptor.getValue()).hasSize(2);
+        }
+
+        @Test
+        void shouldDoNothing_WhenNothingIsBuffered() {
+            assertThat(writer.flush()).isZero();
+
+            verifyNoInteractions(delegate);
+        }
+
+        @Test
+        void shouldKeepEvents_ThatCouldNotBeWritten() {
+            var event = newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE);
+            writer.write(event);
+
+            doThrow(new IllegalStateException("database is down")).when(delegate).writeAll(List.of(event));
+
+            assertThat(writer.flush()).isZero();
+            assertThat(writer.pendingCount()).isOne();
+        }
+    }
+
+    @Nested
+    class Stop {
+
+        @Test
+        void shouldDrainTheBuffer() {
+            var event = newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE);
+            writer.write(event);
+
+            writer.stop();
+
+            verify(delegate).writeAll(List.of(event));
+            assertThat(writer.pendingCount()).isZero();
+        }
+    }
+}
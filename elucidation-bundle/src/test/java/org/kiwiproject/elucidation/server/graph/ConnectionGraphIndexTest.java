@@ -0,0 +1,130 @@
+package org.kiwiproject.elucidation.server.graph;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.kiwiproject.elucidation.common.test.ConnectionEvents.newConnectionEvent;
+import static org.kiwiproject.elucidation.server.test.TestConstants.ANOTHER_SERVICE_NAME;
+import static org.kiwiproject.elucidation.server.test.TestConstants.A_SERVICE_NAME;
+import static org.kiwiproject.elucidation.server.test.TestConstants.MSG_FROM_ANOTHER_SERVICE;
+import static org.kiwiproject.elucidation.server.test.TestConstants.MSG_TO_ANOTHER_SERVICE;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.elucidation.common.model.ConnectionEvent;
+import org.kiwiproject.elucidation.common.model.Direction;
+import org.kiwiproject.elucidation.server.core.ConnectionEventPair;
+import org.kiwiproject.elucidation.server.db.ConnectionEventDao;
+
+import java.util.List;
+
+@DisplayName("ConnectionGraphIndex")
+class ConnectionGraphIndexTest {
+
+    private ConnectionEventDao dao;
+    private ConnectionGraphIndex index;
+
+    @BeforeEach
+    void setUp() {
+        dao = mock(ConnectionEventDao.class);
+        index = new ConnectionGraphIndex(dao);
+    }
+
+    @Nested
+    class Start {
+
+        @Test
+        void shouldLoadAllEventsFromTheDatabase() {
+            when(dao.findAllEvents()).thenReturn(List.of(
+                    newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE),
+                    newConnectionEvent(ANOTHER_SERVICE_NAME, Direction.INBOUND, MSG_TO_ANOTHER_SERVICE)
+            ));
+
+            index.start();
+
+            assertThat(index.serviceNames()).containsExactly(ANOTHER_SERVICE_NAME, A_SERVICE_NAME);
+        }
+    }
+
+    @Nested
+    class EventPairsForService {
+
+        @Test
+        void shouldPairEventsWithTheServicesOnTheOtherSide() {
+            index.add(newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE, 1_000L));
+            index.add(newConnectionEvent(ANOTHER_SERVICE_NAME, Direction.INBOUND, MSG_TO_ANOTHER_SERVICE, 2_000L));
+
+            assertThat(index.eventPairsForService(A_SERVICE_NAME))
+                    .extracting(pair -> pair.getEvent().getObservedAt(),
+                            pair -> pair.getAssociatedEvent().getServiceName(),
+                            pair -> pair.getAssociatedEvent().getEventDirection(),
+                            pair -> pair.getAssociatedEvent().getObservedAt())
+                    .containsExactly(tuple(1_000L, ANOTHER_SERVICE_NAME, Direction.INBOUND, 2_000L));
+        }
+
+        @Test
+        void shouldPairEventsWithoutOtherSide_WithTheUnknownService() {
+            index.add(newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE, 1_000L));
+
+            assertThat(index.eventPairsForService(A_SERVICE_NAME))
+                    .extracting(ConnectionEventPair::getAssociatedEvent)
+                    .extracting(ConnectionEvent::getServiceName, ConnectionEvent::getEventDirection,
+                            ConnectionEvent::getObservedAt)
+                    .containsExactly(tuple(ConnectionEvent.UNKNOWN_SERVICE, Direction.OUTBOUND, 1_000L));
+        }
+
+        @Test
+        void shouldKeepTheLatestObservedAt() {
+            index.add(newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE, 2_000L));
+            index.add(newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE, 1_000L));
+
+            assertThat(index.eventPairsForService(A_SERVICE_NAME))
+                    .extracting(pair -> pair.getEvent().getObservedAt())
+                    .containsExactly(2_000L);
+        }
+
+        @Test
+        void shouldReturnEmptyList_ForUnknownServices() {
+            assertThat(index.eventPairsForService("foo-service")).isEmpty();
+        }
+    }
+
+    @Nested
+    class AllEventPairs {
+
+        @Test
+        void shouldReturnThePairsOfAllServices() {
+            index.addAll(List.of(
+                    newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE),
+                    newConnectionEvent(ANOTHER_SERVICE_NAME, Direction.INBOUND, MSG_TO_ANOTHER_SERVICE)
+            ));
+
+            assertThat(index.allEventPairs())
+                    .extracting(pair -> pair.getEvent().getServiceName(), pair -> pair.getAssociatedEvent().getServiceName())
+                    .containsExactlyInAnyOrder(
+                            tuple(A_SERVICE_NAME, ANOTHER_SERVICE_NAME),
+                            tuple(ANOTHER_SERVICE_NAME, A_SERVICE_NAME));
+        }
+    }
+
+    @Nested
+    class RemoveEventsObservedBefore {
+
+        @Test
+        void shouldRemoveExpiredEvents_AndServicesWithoutEvents() {
+            index.add(newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE, 1_000L));
+            index.add(newConnectionEvent(ANOTHER_SERVICE_NAME, Direction.INBOUND, MSG_TO_ANOTHER_SERVICE, 3_000L));
+
+            var numRemoved = index.removeEventsObservedBefore(2_000L);
+
+            assertThat(numRemoved).isOne();
+            assertThat(index.serviceNames()).containsExactly(ANOTHER_SERVICE_NAME);
+            assertThat(index.eventPairsForService(ANOTHER_SERVICE_NAME))
+                    .extracting(pair -> pair.getAssociatedEvent().getServiceName())
+                    .containsExactly(ConnectionEvent.UNKNOWN_SERVICE);
+        }
+    }
+}
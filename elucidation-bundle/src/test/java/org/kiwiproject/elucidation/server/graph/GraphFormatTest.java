@@ -0,0 +1,97 @@
+package org.kiwiproject.elucidation.server.graph;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.dropwizard.jackson.Jackson;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.w3c.dom.Element;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+class GraphFormatTest {
+
+    private static final DependencyGraph GRAPH = new DependencyGraph(
+            List.of("a-service", "b-service", "c-service", "lonely \"service\""),
+            List.of(
+                    new DependencyEdge("a-service", "b-service", "HTTP", 2, 1_700_000_000_000L),
+                    new DependencyEdge("a-service", "b-service", "JMS", 1, 1_700_000_001_000L),
+                    new DependencyEdge("c-service", "a-service", "HTTP", 3, 1_700_000_002_000L)
+            ));
+
+    @ParameterizedTest
+    @ValueSource(strings = { "dot", "DOT", "GraphML", "adjacency" })
+    void shouldFindFormatsByNameIgnoringCase(String name) {
+        assertThat(GraphFormat.fromName(name)).isPresent();
+    }
+
+    @Test
+    void shouldNotFindUnknownFormats() {
+        assertThat(GraphFormat.fromName("svg")).isEmpty();
+    }
+
+    @Nested
+    class Dot {
+
+        @Test
+        void shouldWriteNodesAndLabeledEdges() throws IOException {
+            var dot = new String(write(GraphFormat.DOT), UTF_8);
+
+            assertThat(dot).startsWith("digraph elucidation {")
+                    .contains("\"lonely \\\"service\\\"\";")
+                    .contains("\"a-service\" -> \"b-service\" [label=\"HTTP\"];")
+                    .contains("\"a-service\" -> \"b-service\" [label=\"JMS\"];")
+                    .contains("\"c-service\" -> \"a-service\" [label=\"HTTP\"];")
+                    .endsWith("}\n");
+        }
+    }
+
+    @Nested
+    class GraphMl {
+
+        @Test
+        void shouldWriteADirectedGraph() throws Exception {
+            var document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                    .parse(new ByteArrayInputStream(write(GraphFormat.GRAPHML)));
+
+            var graph = (Element) document.getElementsByTagName("graph").item(0);
+            assertThat(graph.getAttribute("edgedefault")).isEqualTo("directed");
+            assertThat(document.getElementsByTagName("node").getLength()).isEqualTo(4);
+
+            var edges = document.getElementsByTagName("edge");
+            assertThat(edges.getLength()).isEqualTo(3);
+
+            var lastEdge = (Element) edges.item(2);
+            assertThat(lastEdge.getAttribute("source")).isEqualTo("c-service");
+            assertThat(lastEdge.getAttribute("target")).isEqualTo("a-service");
+            assertThat(lastEdge.getTextContent()).isEqualTo("HTTP31700000002000");
+        }
+    }
+
+    @Nested
+    class Adjacency {
+
+        @Test
+        void shouldWriteEdgesAsIndexes() throws IOException {
+            var json = Jackson.newObjectMapper().readTree(write(GraphFormat.ADJACENCY));
+
+            assertThat(json.get("services")).hasSize(4);
+            assertThat(json.get("communicationTypes").toString()).isEqualTo("[\"HTTP\",\"JMS\"]");
+            assertThat(json.get("edges").toString()).isEqualTo(
+                    "[[0,1,0,2,1700000000000],[0,1,1,1,1700000001000],[2,0,0,3,1700000002000]]");
+        }
+    }
+
+    private static byte[] write(GraphFormat format) throws IOException {
+        var output = new ByteArrayOutputStream();
+        format.write(GRAPH, output);
+        return output.toByteArray();
+    }
+}
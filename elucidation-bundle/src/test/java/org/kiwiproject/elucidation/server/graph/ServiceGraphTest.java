@@ -0,0 +1,211 @@
+package org.kiwiproject.elucidation.server.graph;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.elucidation.server.core.ServiceDistance;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class ServiceGraphTest {
+
+    /**
+     * web -> gateway -> (orders, users); orders -> (users, db); users -> db; batch -> db; lonely has no edges.
+     * The gateway depends on orders over both HTTP and JMS.
+     */
+    private static final ServiceGraph GRAPH = ServiceGraph.of(new DependencyGraph(
+            List.of("batch", "db", "gateway", "lonely", "orders", "users", "web"),
+            List.of(
+                    edge("batch", "db"),
+                    edge("gateway", "orders"),
+                    new DependencyEdge("gateway", "orders", "JMS", 1, 0),
+                    edge("gateway", "users"),
+                    edge("orders", "db"),
+                    edge("orders", "users"),
+                    edge("users", "db"),
+                    edge("web", "gateway")
+            )));
+
+    @Test
+    void shouldCountServices() {
+        assertThat(GRAPH.size()).isEqualTo(7);
+    }
+
+    @Nested
+    class DependenciesOf {
+
+        @Test
+        void shouldReturnAllTransitiveDependencies_WithTheirShortestDistance() {
+            assertThat(GRAPH.dependenciesOf("web", Integer.MAX_VALUE))
+                    .extracting(ServiceDistance::getServiceName, ServiceDistance::getDistance)
+                    .containsExactly(
+                            tuple("gateway", 1),
+                            tuple("orders", 2),
+                            tuple("users", 2),
+                            tuple("db", 3));
+        }
+
+        @Test
+        void shouldStopAtMaxDepth() {
+            assertThat(GRAPH.dependenciesOf("web", 2))
+                    .extracting(ServiceDistance::getServiceName)
+                    .containsExactly("gateway", "orders", "users");
+        }
+
+        @Test
+        void shouldReturnNothing_ForServicesWithoutDependencies() {
+            assertThat(GRAPH.dependenciesOf("db", Integer.MAX_VALUE)).isEmpty();
+            assertThat(GRAPH.dependenciesOf("lonely", Integer.MAX_VALUE)).isEmpty();
+        }
+
+        @Test
+        void shouldReturnNothing_ForUnknownServices() {
+            assertThat(GRAPH.dependenciesOf("unknown", Integer.MAX_VALUE)).isEmpty();
+        }
+    }
+
+    @Nested
+    class DependentsOf {
+
+        @Test
+        void shouldReturnEverythingThatDependsOnTheService() {
+            assertThat(GRAPH.dependentsOf("db", Integer.MAX_VALUE))
+                    .extracting(ServiceDistance::getServiceName, ServiceDistance::getDistance)
+                    .containsExactly(
+                            tuple("batch", 1),
+                            tuple("orders", 1),
+                            tuple("users", 1),
+                            tuple("gateway", 2),
+                            tuple("web", 3));
+        }
+
+        @Test
+        void shouldStopAtMaxDepth() {
+            assertThat(GRAPH.dependentsOf("db", 1))
+                    .extracting(ServiceDistance::getServiceName)
+                    .containsExactly("batch", "orders", "users");
+        }
+    }
+
+    @Test
+    void shouldNotLoopForever_WhenThereAreCycles() {
+        var cyclic = ServiceGraph.of(new DependencyGraph(List.of("a", "b", "c"),
+                List.of(edge("a", "b"), edge("b", "c"), edge("c", "a"))));
+
+        assertThat(cyclic.dependenciesOf("a", Integer.MAX_VALUE))
+                .extracting(ServiceDistance::getServiceName, ServiceDistance::getDistance)
+                .containsExactly(tuple("b", 1), tuple("c", 2));
+    }
+
+    @Nested
+    class Cycles {
+
+        @Test
+        void shouldReturnNothing_WhenThereAreNoCycles() {
+            assertThat(GRAPH.cycles()).isEmpty();
+        }
+
+        @Test
+        void shouldReturnEveryGroupOfServicesThatDependOnEachOther_LargestFirst() {
+            var graph = ServiceGraph.of(new DependencyGraph(
+                    List.of("a", "b", "c", "d", "e", "f", "g", "h"),
+                    List.of(
+                            edge("a", "b"),
+                            edge("b", "c"),
+                            edge("c", "a"),
+                            edge("c", "d"),
+                            edge("d", "e"),
+                            edge("e", "d"),
+                            edge("f", "f"),
+                            edge("g", "h")
+                    )));
+
+            assertThat(graph.cycles()).containsExactly(
+                    List.of("a", "b", "c"),
+                    List.of("d", "e"),
+                    List.of("f"));
+        }
+
+        @Test
+        void shouldHandleLongChainsWithoutRecursion() {
+            var numServices = 100_000;
+            var services = new ArrayList<String>();
+            var edges = new ArrayList<DependencyEdge>();
+            for (var i = 0; i < numServices; i++) {
+                services.add(String.format("service-%06d", i));
+            }
+            for (var i = 0; i < numServices; i++) {
+                edges.add(edge(services.get(i), services.get((i + 1) % numServices)));
+            }
+
+            var cycles = ServiceGraph.of(new DependencyGraph(services, edges)).cycles();
+
+            assertThat(cycles).hasSize(1);
+            assertThat(cycles.get(0)).hasSize(numServices);
+        }
+    }
+
+    @Nested
+    class ShortestPaths {
+
+        @Test
+        void shouldFindTheShortestPath() {
+            assertThat(GRAPH.shortestPaths("web", "db", 1))
+                    .containsExactly(List.of("web", "gateway", "orders", "db"));
+        }
+
+        @Test
+        void shouldFindTheKShortestPaths_ShortestFirst() {
+            assertThat(GRAPH.shortestPaths("web", "db", 10)).containsExactly(
+                    List.of("web", "gateway", "orders", "db"),
+                    List.of("web", "gateway", "users", "db"),
+                    List.of("web", "gateway", "orders", "users", "db"));
+        }
+
+        @Test
+        void shouldOnlyFollowDependencies() {
+            assertThat(GRAPH.shortestPaths("db", "web", 1)).isEmpty();
+            assertThat(GRAPH.shortestPaths("batch", "orders", 1)).isEmpty();
+        }
+
+        @Test
+        void shouldReturnNothing_ForUnknownServices() {
+            assertThat(GRAPH.shortestPaths("web", "unknown", 1)).isEmpty();
+            assertThat(GRAPH.shortestPaths("unknown", "db", 1)).isEmpty();
+        }
+
+        @Test
+        void shouldNotRepeatServices_WhenThereAreCycles() {
+            var cyclic = ServiceGraph.of(new DependencyGraph(List.of("a", "b", "c", "d"),
+                    List.of(edge("a", "b"), edge("b", "a"), edge("b", "c"), edge("c", "b"), edge("c", "d"))));
+
+            assertThat(cyclic.shortestPaths("a", "d", 10)).containsExactly(List.of("a", "b", "c", "d"));
+        }
+
+        @Test
+        void shouldFindPathsThatAreLongerThanTheSearchFrontiers() {
+            var services = new ArrayList<String>();
+            var edges = new ArrayList<DependencyEdge>();
+            for (var i = 0; i < 50; i++) {
+                services.add(String.format("service-%02d", i));
+            }
+            for (var i = 0; i < 49; i++) {
+                edges.add(edge(services.get(i), services.get(i + 1)));
+            }
+            edges.add(edge(services.get(10), services.get(40)));
+
+            var graph = ServiceGraph.of(new DependencyGraph(services, edges));
+
+            assertThat(graph.shortestPaths("service-00", "service-49", 2))
+                    .extracting(List::size)
+                    .containsExactly(21, 50);
+        }
+    }
+
+    private static DependencyEdge edge(String from, String to) {
+        return new DependencyEdge(from, to, "HTTP", 1, 0);
+    }
+}
@@ -1,10 +1,14 @@
 package org.kiwiproject.elucidation.server.jobs;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import org.kiwiproject.elucidation.server.db.ConnectionEventDao;
+import org.kiwiproject.elucidation.server.graph.ConnectionGraphIndex;
+import org.kiwiproject.elucidation.server.service.GraphVersion;
 import io.dropwizard.util.Duration;
 import org.assertj.core.data.Offset;
 import org.junit.jupiter.api.BeforeEach;
@@ -36,4 +40,51 @@ class ArchiveEventsJobTest {
 
         assertThat(longArgumentCaptor.getValue()).isCloseTo(expectedTime, Offset.offset(500L));
     }
+
+    @Test
+    void testArchiveEvents_RemovesExpiredEventsFromGraphIndex() {
+        var graphIndex = mock(ConnectionGraphIndex.class);
+        job = new ArchiveEventsJob(dao, Duration.days(7), graphIndex, new GraphVersion());
+
+        job.run();
+
+        var longArgumentCaptor = ArgumentCaptor.forClass(Long.class);
+
+        verify(dao).deleteExpiredEvents(longArgumentCaptor.capture());
+        verify(graphIndex).removeEventsObservedBefore(longArgumentCaptor.getValue());
+    }
+
+    @Test
+    void testArchiveEvents_IncrementsGraphVersion_WhenEventsAreDeleted() {
+        var graphVersion = new GraphVersion();
+        job = new ArchiveEventsJob(dao, Duration.days(7), null, graphVersion);
+        when(dao.deleteExpiredEvents(anyLong())).thenReturn(1);
+
+        job.run();
+
+        assertThat(graphVersion.current()).isOne();
+    }
+
+    @Test
+    void testArchiveEvents_IncrementsGraphVersion_WhenOnlyTheGraphIndexRemovesEvents() {
+        var graphIndex = mock(ConnectionGraphIndex.class);
+        var graphVersion = new GraphVersion();
+        job = new ArchiveEventsJob(dao, Duration.days(7), graphIndex, graphVersion);
+        when(dao.deleteExpiredEvents(anyLong())).thenReturn(0);
+        when(graphIndex.removeEventsObservedBefore(anyLong())).thenReturn(2);
+
+        job.run();
+
+        assertThat(graphVersion.current()).isOne();
+    }
+
+    @Test
+    void testArchiveEvents_KeepsGraphVersion_WhenNothingIsDeleted() {
+        var graphVersion = new GraphVersion();
+        job = new ArchiveEventsJob(dao, Duration.days(7), null, graphVersion);
+
+        job.run();
+
+        assertThat(graphVersion.current()).isZero();
+    }
 }
@@ -0,0 +1,63 @@
+package org.kiwiproject.elucidation.server.jobs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.kiwiproject.elucidation.common.test.ConnectionEvents.newConnectionEvent;
+import static org.kiwiproject.elucidation.server.test.TestConstants.A_SERVICE_NAME;
+import static org.kiwiproject.elucidation.server.test.TestConstants.MSG_FROM_ANOTHER_SERVICE;
+import static org.kiwiproject.elucidation.server.test.TestConstants.MSG_TO_ANOTHER_SERVICE;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.elucidation.common.model.Direction;
+import org.kiwiproject.elucidation.server.db.DuplicateConnectionEventDao;
+
+import java.util.List;
+
+class CompactDuplicateEventsJobTest {
+
+    private CompactDuplicateEventsJob job;
+    private DuplicateConnectionEventDao dao;
+
+    @BeforeEach
+    void setUp() {
+        dao = mock(DuplicateConnectionEventDao.class);
+        job = new CompactDuplicateEventsJob(dao, 2);
+    }
+
+    @Test
+    void shouldMergeDuplicatesInBatchesUntilNoneAreLeft() {
+        var firstBatch = List.of(
+                newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE),
+                newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE));
+        var secondBatch = List.of(newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, "another-message"));
+
+        when(dao.findDuplicatedEvents(2)).thenReturn(firstBatch, secondBatch, List.of());
+        when(dao.mergeDuplicates(firstBatch)).thenReturn(5);
+        when(dao.mergeDuplicates(secondBatch)).thenReturn(1);
+
+        assertThat(job.compact()).isEqualTo(6);
+
+        verify(dao, times(3)).findDuplicatedEvents(2);
+    }
+
+    @Test
+    void shouldDoNothing_WhenThereAreNoDuplicates() {
+        when(dao.findDuplicatedEvents(2)).thenReturn(List.of());
+
+        job.run();
+
+        verify(dao, never()).mergeDuplicates(anyList());
+    }
+
+    @Test
+    void shouldRequireAPositiveBatchSize() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new CompactDuplicateEventsJob(dao, 0));
+    }
+}
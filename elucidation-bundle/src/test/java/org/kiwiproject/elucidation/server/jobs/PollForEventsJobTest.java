@@ -2,19 +2,27 @@ package org.kiwiproject.elucidation.server.jobs;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.kiwiproject.elucidation.common.test.ConnectionEvents.newConnectionEvent;
 import static org.kiwiproject.elucidation.server.test.TestConstants.A_SERVICE_NAME;
 import static org.kiwiproject.elucidation.server.test.TestConstants.IGNORED_MSG;
 import static org.kiwiproject.elucidation.server.test.TestConstants.MSG_FROM_ANOTHER_SERVICE;
 import static org.kiwiproject.elucidation.server.test.TestConstants.MSG_TO_ANOTHER_SERVICE;
-import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.jersey.validation.Validators;
 import io.dropwizard.testing.junit5.DropwizardClientExtension;
 import io.dropwizard.testing.junit5.DropwizardExtensionsSupport;
 import jakarta.ws.rs.client.ClientBuilder;
@@ -22,9 +30,12 @@ import org.assertj.core.data.Offset;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.kiwiproject.elucidation.common.model.ConnectionEvent;
 import org.kiwiproject.elucidation.common.model.Direction;
+import org.kiwiproject.elucidation.server.core.EventCursor;
+import org.kiwiproject.elucidation.server.db.IngestQueueFullException;
 import org.kiwiproject.elucidation.server.resources.RelationshipResource;
+import org.kiwiproject.elucidation.server.service.EventImporter;
+import org.kiwiproject.elucidation.server.service.GraphVersion;
 import org.kiwiproject.elucidation.server.service.RelationshipService;
 import org.mockito.ArgumentCaptor;
 
@@ -35,7 +46,10 @@ import java.util.List;
 class PollForEventsJobTest {
 
     private static final RelationshipService SERVICE = mock(RelationshipService.class);
-    private static final DropwizardClientExtension RESOURCES = new DropwizardClientExtension(new RelationshipResource(SERVICE));
+    private static final ObjectMapper MAPPER = Jackson.newObjectMapper();
+    private static final DropwizardClientExtension RESOURCES = new DropwizardClientExtension(
+            new RelationshipResource(SERVICE, new EventImporter(SERVICE, MAPPER,
+                    Validators.newValidator(), EventImporter.DEFAULT_CHUNK_SIZE), MAPPER, new GraphVersion()));
 
     private PollForEventsJob job;
 
@@ -47,9 +61,9 @@ class PollForEventsJobTest {
 
     @Test
     void firstPoll() {
-        var sinceCaptor = ArgumentCaptor.forClass(Long.class);
+        var cursorCaptor = ArgumentCaptor.forClass(EventCursor.class);
 
-        when(SERVICE.listEventsSince(anyLong())).thenReturn(newArrayList(
+        when(SERVICE.listEventsAfter(any(EventCursor.class), anyInt())).thenReturn(newArrayList(
                 newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE),
                 newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE),
                 newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, IGNORED_MSG)
@@ -57,11 +71,11 @@ class PollForEventsJobTest {
 
         job.run();
 
-        verify(SERVICE, times(3)).createEvent(isA(ConnectionEvent.class));
-        verify(SERVICE).listEventsSince(sinceCaptor.capture());
+        verify(SERVICE).createEvents(argThat(events -> events.size() == 3));
+        verify(SERVICE).listEventsAfter(cursorCaptor.capture(), eq(RelationshipResource.MAX_PAGE_SIZE));
 
         var expected = ZonedDateTime.now().minusDays(7).toInstant().toEpochMilli();
-        assertThat(sinceCaptor.getValue()).isCloseTo(expected, Offset.offset(1500L));
+        assertThat(cursorCaptor.getValue().getObservedAt()).isCloseTo(expected, Offset.offset(1500L));
     }
 
     @Test
@@ -78,8 +92,8 @@ class PollForEventsJobTest {
                 newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, IGNORED_MSG)
         );
 
-        when(SERVICE.listEventsSince(anyLong())).thenReturn(firstConnectionEvents);
-        when(SERVICE.listEventsSince(firstConnectionEvents.get(firstConnectionEvents.size()-1).getObservedAt()))
+        when(SERVICE.listEventsAfter(any(EventCursor.class), anyInt())).thenReturn(firstConnectionEvents);
+        when(SERVICE.listEventsAfter(eq(EventCursor.after(firstConnectionEvents.get(firstConnectionEvents.size() - 1))), anyInt()))
                 .thenReturn(secondConnectionEvents);
 
         // Run first time
@@ -88,6 +102,46 @@ class PollForEventsJobTest {
         // Run a second time
         job.run();
 
-        verify(SERVICE, times(6)).createEvent(isA(ConnectionEvent.class));
+        verify(SERVICE, times(2)).createEvents(argThat(events -> events.size() == 3));
+    }
+
+    @Test
+    void shouldDrainAllPages() {
+        job = new PollForEventsJob(()-> RESOURCES.baseUri().toString(), ClientBuilder.newClient(), SERVICE, 2);
+
+        var firstPage = List.of(
+                newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE, 1_000L),
+                newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE, 1_000L)
+        );
+        var lastPage = List.of(
+                newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, IGNORED_MSG, 2_000L)
+        );
+
+        when(SERVICE.listEventsAfter(any(EventCursor.class), eq(2))).thenReturn(firstPage);
+        when(SERVICE.listEventsAfter(EventCursor.after(firstPage.get(1)), 2)).thenReturn(lastPage);
+
+        job.run();
+
+        verify(SERVICE, times(2)).listEventsAfter(any(EventCursor.class), eq(2));
+        verify(SERVICE).createEvents(argThat(events -> events.size() == 2));
+        verify(SERVICE).createEvents(argThat(events -> events.size() == 1));
+    }
+
+    @Test
+    void shouldRetryThePage_WhenWritingItFails() {
+        var cursorCaptor = ArgumentCaptor.forClass(EventCursor.class);
+        var page = List.of(newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE, 1_000L));
+
+        when(SERVICE.listEventsAfter(any(EventCursor.class), anyInt())).thenReturn(page);
+        doThrow(new IngestQueueFullException("Ingest queue is full", null))
+                .doNothing()
+                .when(SERVICE).createEvents(anyList());
+
+        assertThatCode(job::run).doesNotThrowAnyException();
+        job.run();
+
+        verify(SERVICE, times(2)).createEvents(anyList());
+        verify(SERVICE, times(2)).listEventsAfter(cursorCaptor.capture(), anyInt());
+        assertThat(cursorCaptor.getAllValues().get(1)).isEqualTo(cursorCaptor.getAllValues().get(0));
     }
 }
@@ -0,0 +1,42 @@
+package org.kiwiproject.elucidation.server.resources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.elucidation.server.service.GraphVersion;
+
+@DisplayName("ConditionalResponses")
+class ConditionalResponsesTest {
+
+    private GraphVersion graphVersion;
+
+    @BeforeEach
+    void setUp() {
+        graphVersion = mock(GraphVersion.class);
+        when(graphVersion.epoch()).thenReturn("abc");
+        when(graphVersion.current()).thenReturn(1L);
+        when(graphVersion.changeSequence()).thenReturn(2L);
+        when(graphVersion.period()).thenReturn(3L);
+    }
+
+    @Test
+    void shouldChangeTags_WhenThePeriodAdvances() {
+        var graphTag = ConditionalResponses.graphTag(graphVersion);
+        var changeTag = ConditionalResponses.changeTag(graphVersion);
+
+        when(graphVersion.period()).thenReturn(4L);
+
+        assertThat(ConditionalResponses.graphTag(graphVersion)).isNotEqualTo(graphTag);
+        assertThat(ConditionalResponses.changeTag(graphVersion)).isNotEqualTo(changeTag);
+    }
+
+    @Test
+    void shouldKeepTags_WithinAPeriod() {
+        assertThat(ConditionalResponses.graphTag(graphVersion)).isEqualTo(ConditionalResponses.graphTag(graphVersion));
+        assertThat(ConditionalResponses.changeTag(graphVersion)).isEqualTo(ConditionalResponses.changeTag(graphVersion));
+    }
+}
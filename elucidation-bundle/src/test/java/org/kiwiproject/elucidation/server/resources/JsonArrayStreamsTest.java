@@ -0,0 +1,57 @@
+package org.kiwiproject.elucidation.server.resources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.kiwiproject.elucidation.server.test.TestConstants.A_SERVICE_NAME;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import io.dropwizard.jackson.Jackson;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.elucidation.common.model.TrackedConnectionIdentifier;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+@DisplayName("JsonArrayStreams")
+class JsonArrayStreamsTest {
+
+    @Test
+    void shouldWriteAllProducedElements() throws IOException {
+        var jsonArrays = new JsonArrayStreams(Jackson.newObjectMapper());
+
+        var json = write(jsonArrays, List.of("a", "b", "c"));
+
+        assertThat(json).isEqualTo("[\"a\",\"b\",\"c\"]");
+    }
+
+    @Test
+    void shouldWriteAnEmptyArray_WhenNothingIsProduced() throws IOException {
+        var jsonArrays = new JsonArrayStreams(Jackson.newObjectMapper());
+
+        assertThat(write(jsonArrays, List.of())).isEqualTo("[]");
+    }
+
+    @Test
+    void shouldWriteElementsWithTheGivenMapper() throws IOException {
+        var mapper = Jackson.newObjectMapper().setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+        var jsonArrays = new JsonArrayStreams(mapper);
+
+        var identifier = TrackedConnectionIdentifier.builder()
+                .serviceName(A_SERVICE_NAME)
+                .communicationType("HTTP")
+                .connectionIdentifier("GET /test/path")
+                .build();
+
+        var json = write(jsonArrays, List.of(identifier));
+
+        assertThat(json).contains("\"service_name\"").doesNotContain("\"serviceName\"");
+    }
+
+    private static <T> String write(JsonArrayStreams jsonArrays, List<T> elements) throws IOException {
+        var output = new ByteArrayOutputStream();
+        jsonArrays.<T>jsonArray(elements::forEach).write(output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -2,6 +2,7 @@ package org.kiwiproject.elucidation.server.resources;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Sets.newHashSet;
+import static java.util.stream.Collectors.joining;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
 import static org.kiwiproject.collect.KiwiMaps.newHashMap;
@@ -17,18 +18,31 @@ import static org.kiwiproject.elucidation.server.test.TestConstants.SERVICE_NAME
 import static org.kiwiproject.test.jaxrs.JaxrsTestHelper.assertAcceptedResponse;
 import static org.kiwiproject.test.jaxrs.JaxrsTestHelper.assertBadRequest;
 import static org.kiwiproject.test.jaxrs.JaxrsTestHelper.assertOkResponse;
+import static org.kiwiproject.test.jaxrs.JaxrsTestHelper.assertUnprocessableEntity;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Strings;
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.jersey.validation.Validators;
 import io.dropwizard.testing.junit5.DropwizardExtensionsSupport;
 import io.dropwizard.testing.junit5.ResourceExtension;
+import io.dropwizard.util.Duration;
 import jakarta.ws.rs.client.Entity;
 import jakarta.ws.rs.core.GenericType;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response.Status;
 import org.glassfish.jersey.uri.UriComponent;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.DisplayName;
@@ -37,26 +51,57 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.kiwiproject.elucidation.common.codec.ConnectionEventBatchCodec;
 import org.kiwiproject.elucidation.common.model.ConnectionEvent;
 import org.kiwiproject.elucidation.common.model.Direction;
 import org.kiwiproject.elucidation.common.model.RelationshipDetails;
 import org.kiwiproject.elucidation.server.core.ConnectionSummary;
+import org.kiwiproject.elucidation.server.core.DependencyChange;
+import org.kiwiproject.elucidation.server.core.DependencyCycle;
+import org.kiwiproject.elucidation.server.core.DependencyGraphDiff;
+import org.kiwiproject.elucidation.server.core.DependencyPath;
+import org.kiwiproject.elucidation.server.core.DependencyRelationshipDetails;
+import org.kiwiproject.elucidation.server.core.EventCursor;
+import org.kiwiproject.elucidation.server.core.EventImportResult;
+import org.kiwiproject.elucidation.server.core.ObservationWindow;
 import org.kiwiproject.elucidation.server.core.ServiceConnections;
 import org.kiwiproject.elucidation.server.core.ServiceDependencies;
 import org.kiwiproject.elucidation.server.core.ServiceDetails;
+import org.kiwiproject.elucidation.server.core.ServiceDetailsOrder;
+import org.kiwiproject.elucidation.server.core.ServiceDistance;
+import org.kiwiproject.elucidation.server.db.IngestQueueFullException;
+import org.kiwiproject.elucidation.server.graph.DependencyEdge;
+import org.kiwiproject.elucidation.server.graph.DependencyGraph;
+import org.kiwiproject.elucidation.server.service.EventImporter;
+import org.kiwiproject.elucidation.server.service.GraphVersion;
 import org.kiwiproject.elucidation.server.service.RelationshipService;
 import org.kiwiproject.test.junit.jupiter.params.provider.AsciiOnlyBlankStringSource;
+import org.mockito.stubbing.Answer;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
 
 @ExtendWith(DropwizardExtensionsSupport.class)
 class RelationshipResourceTest {
 
     private static final RelationshipService SERVICE = mock(RelationshipService.class);
+    private static final GraphVersion GRAPH_VERSION = new GraphVersion();
+    private static final ObjectMapper MAPPER = Jackson.newObjectMapper();
 
     private static final ResourceExtension RESOURCES = ResourceExtension.builder()
-            .addResource(new RelationshipResource(SERVICE))
+            .setMapper(MAPPER)
+            .addResource(new RelationshipResource(SERVICE, new EventImporter(SERVICE, MAPPER,
+                    Validators.newValidator(), EventImporter.DEFAULT_CHUNK_SIZE), MAPPER, GRAPH_VERSION))
+            .addProvider(new IngestQueueFullExceptionMapper(Duration.seconds(2)))
+            .addProvider(new ConnectionEventBatchMessageBodyReader())
             .build();
 
     private static final GenericType<List<ConnectionEvent>> CONNECTION_EVENT_LIST_TYPE = new GenericType<>() {
@@ -79,10 +124,167 @@ class RelationshipResourceTest {
         verify(SERVICE).createEvent(event);
     }
 
+    @Test
+    @DisplayName("given the ingest queue is full should ask the client to retry later")
+    void testRecordEvent_WhenIngestQueueIsFull() {
+        var event = newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, "some-identifier");
+
+        doThrow(new IngestQueueFullException("queue is full", null)).when(SERVICE).createEvent(event);
+
+        var response = RESOURCES.target("/elucidate/event").request().post(Entity.json(event));
+
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeaderString(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+    }
+
+    @Nested
+    class RecordEvents {
+
+        @Test
+        void shouldAttemptToSaveAllEvents() {
+            var events = List.of(
+                    newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE),
+                    newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE)
+            );
+
+            var response = RESOURCES.target("/elucidate/events").request().post(Entity.json(events));
+
+            assertAcceptedResponse(response);
+
+            verify(SERVICE).createEvents(events);
+        }
+
+        @Test
+        void shouldAcceptBinaryEncodedEvents() throws IOException {
+            var events = List.of(
+                    newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE),
+                    newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE)
+            );
+            var body = new ByteArrayOutputStream();
+            ConnectionEventBatchCodec.encode(events, body);
+
+            var response = RESOURCES.target("/elucidate/events")
+                    .request()
+                    .post(Entity.entity(body.toByteArray(), ConnectionEventBatchCodec.MEDIA_TYPE));
+
+            assertAcceptedResponse(response);
+
+            verify(SERVICE).createEvents(events.stream().map(event -> event.withId(null)).toList());
+        }
+
+        @Test
+        void shouldReturn400_WhenBinaryEncodedEventsAreMalformed() {
+            var response = RESOURCES.target("/elucidate/events")
+                    .request()
+                    .post(Entity.entity(new byte[] { 1, 5 }, ConnectionEventBatchCodec.MEDIA_TYPE));
+
+            assertBadRequest(response);
+
+            verifyNoInteractions(SERVICE);
+        }
+
+        @Test
+        void shouldReturn422_WhenNoEventsAreGiven() {
+            var response = RESOURCES.target("/elucidate/events").request().post(Entity.json(List.of()));
+
+            assertUnprocessableEntity(response);
+
+            verifyNoInteractions(SERVICE);
+        }
+
+        @Test
+        void shouldReturn422_WhenAnyEventIsInvalid() {
+            var events = List.of(
+                    newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE),
+                    newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, "")
+            );
+
+            var response = RESOURCES.target("/elucidate/events").request().post(Entity.json(events));
+
+            assertUnprocessableEntity(response);
+
+            verifyNoInteractions(SERVICE);
+        }
+    }
+
     @Nested
-    class ViewEventsSince {
+    class ImportEvents {
+
         @Test
-        @DisplayName("should return a 400 when 'since' param is null")
+        void shouldImportNewlineDelimitedEvents() {
+            var first = newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE);
+            var second = newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE);
+            var body = toNdjson(first, second) + "{not json\n";
+
+            var response = RESOURCES.target("/elucidate/events")
+                    .request()
+                    .post(Entity.entity(body, RelationshipResource.APPLICATION_NDJSON));
+
+            assertOkResponse(response);
+
+            var result = response.readEntity(EventImportResult.class);
+            assertThat(result.getAccepted()).isEqualTo(2);
+            assertThat(result.getRejected()).isOne();
+            assertThat(result.getChunks()).hasSize(1);
+
+            verify(SERVICE).createEvents(List.of(first, second));
+        }
+
+        @Test
+        void shouldImportGzippedEvents() throws IOException {
+            var event = newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE);
+
+            var response = RESOURCES.target("/elucidate/events")
+                    .request()
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .post(Entity.entity(gzip(toNdjson(event)), RelationshipResource.APPLICATION_NDJSON));
+
+            assertOkResponse(response);
+            assertThat(response.readEntity(EventImportResult.class).getAccepted()).isOne();
+
+            verify(SERVICE).createEvents(List.of(event));
+        }
+
+        @Test
+        void shouldReturn400_WhenBodyIsNotGzipped() {
+            var event = newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE);
+
+            var response = RESOURCES.target("/elucidate/events")
+                    .request()
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .post(Entity.entity(toNdjson(event), RelationshipResource.APPLICATION_NDJSON));
+
+            assertBadRequest(response);
+
+            verifyNoInteractions(SERVICE);
+        }
+
+        private String toNdjson(ConnectionEvent... events) {
+            var mapper = Jackson.newObjectMapper();
+            return Arrays.stream(events)
+                    .map(event -> {
+                        try {
+                            return mapper.writeValueAsString(event) + "\n";
+                        } catch (JsonProcessingException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .collect(joining());
+        }
+
+        private byte[] gzip(String value) throws IOException {
+            var bytes = new ByteArrayOutputStream();
+            try (var gzip = new GZIPOutputStream(bytes)) {
+                gzip.write(value.getBytes(StandardCharsets.UTF_8));
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    @Nested
+    class ViewEvents {
+        @Test
+        @DisplayName("should return a 400 when neither 'since' nor 'cursor' param is given")
         void testSinceParamIsNull() {
             var response = RESOURCES.target("/elucidate/events").request().get();
 
@@ -101,7 +303,7 @@ class RelationshipResourceTest {
         @DisplayName("should return all events that exist when 'since' param is given")
         void testSinceParamIsPresentAndValid() {
             long time = System.currentTimeMillis();
-            when(SERVICE.listEventsSince(time)).thenReturn(newArrayList(
+            when(SERVICE.listEventsAfter(EventCursor.since(time), RelationshipResource.DEFAULT_PAGE_SIZE)).thenReturn(newArrayList(
                     newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE),
                     newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE),
                     newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, IGNORED_MSG)
@@ -121,16 +323,84 @@ class RelationshipResourceTest {
                             tuple(A_SERVICE_NAME, Direction.OUTBOUND, IGNORED_MSG)
                     );
         }
+
+        @Test
+        void shouldReturnCursorAfterLastEvent() {
+            var lastEvent = newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE, 2_000L);
+            when(SERVICE.listEventsAfter(EventCursor.since(1_000L), 2)).thenReturn(List.of(
+                    newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE, 2_000L),
+                    lastEvent
+            ));
+
+            var response = RESOURCES.target("/elucidate/events")
+                    .queryParam("since", 1_000L)
+                    .queryParam("limit", 2)
+                    .request()
+                    .get();
+
+            assertOkResponse(response);
+            assertThat(EventCursor.decode(response.getHeaderString(RelationshipResource.NEXT_CURSOR_HEADER)))
+                    .contains(EventCursor.after(lastEvent));
+        }
+
+        @Test
+        void shouldNotReturnCursor_WhenThereAreNoEvents() {
+            when(SERVICE.listEventsAfter(EventCursor.since(1_000L), RelationshipResource.DEFAULT_PAGE_SIZE))
+                    .thenReturn(List.of());
+
+            var response = RESOURCES.target("/elucidate/events").queryParam("since", 1_000L).request().get();
+
+            assertOkResponse(response);
+            assertThat(response.getHeaderString(RelationshipResource.NEXT_CURSOR_HEADER)).isNull();
+        }
+
+        @Test
+        void shouldContinueFromCursor() {
+            var cursor = new EventCursor(1_000L, 42L);
+            var event = newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE, 1_000L);
+            when(SERVICE.listEventsAfter(cursor, RelationshipResource.DEFAULT_PAGE_SIZE)).thenReturn(List.of(event));
+
+            var response = RESOURCES.target("/elucidate/events")
+                    .queryParam("since", 0)
+                    .queryParam("cursor", cursor.encode())
+                    .request()
+                    .get();
+
+            assertOkResponse(response);
+            assertThat(response.readEntity(CONNECTION_EVENT_LIST_TYPE)).hasSize(1);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = { "not-a-cursor", "MTIz", "YTpi" })
+        void shouldReturn400_WhenCursorIsInvalid(String cursor) {
+            var response = RESOURCES.target("/elucidate/events").queryParam("cursor", cursor).request().get();
+
+            assertBadRequest(response);
+            verifyNoInteractions(SERVICE);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = { "abc", "0", "-1", "10001" })
+        void shouldReturn400_WhenLimitIsInvalid(String limit) {
+            var response = RESOURCES.target("/elucidate/events")
+                    .queryParam("since", 1_000L)
+                    .queryParam("limit", limit)
+                    .request()
+                    .get();
+
+            assertBadRequest(response);
+            verifyNoInteractions(SERVICE);
+        }
     }
 
     @Test
     @DisplayName("should return a list of ConnectionEvents for a given service")
     void testViewEventsForService() {
-        when(SERVICE.listEventsForService(A_SERVICE_NAME)).thenReturn(newArrayList(
+        doAnswer(passingEach(List.of(
                 newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE),
                 newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE),
                 newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, IGNORED_MSG)
-        ));
+        ))).when(SERVICE).forEachEventOfService(eq(A_SERVICE_NAME), eq(EventCursor.START), eq(Integer.MAX_VALUE), any());
 
         var response = RESOURCES.target("/elucidate/service/test-service/events").request().get();
 
@@ -147,6 +417,47 @@ class RelationshipResourceTest {
                 );
     }
 
+    @Test
+    void shouldPageEventsForService_WhenLimitIsGiven() {
+        var cursor = new EventCursor(1_000L, 42L);
+        var lastEvent = newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE, 2_000L);
+        doAnswer(passingEach(List.of(
+                newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE, 1_500L),
+                lastEvent
+        ))).when(SERVICE).forEachEventOfService(eq(A_SERVICE_NAME), eq(cursor), eq(2), any());
+
+        var response = RESOURCES.target("/elucidate/service/test-service/events")
+                .queryParam("cursor", cursor.encode())
+                .queryParam("limit", 2)
+                .request()
+                .get();
+
+        assertOkResponse(response);
+        assertThat(response.readEntity(CONNECTION_EVENT_LIST_TYPE)).hasSize(2);
+        assertThat(EventCursor.decode(response.getHeaderString(RelationshipResource.NEXT_CURSOR_HEADER)))
+                .contains(EventCursor.after(lastEvent));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "cursor", "limit" })
+    void shouldReturn400_FromGetEventsForService_WhenParamIsInvalid(String param) {
+        var response = RESOURCES.target("/elucidate/service/test-service/events")
+                .queryParam(param, "invalid")
+                .request()
+                .get();
+
+        assertBadRequest(response);
+        verifyNoInteractions(SERVICE);
+    }
+
+    private static Answer<Void> passingEach(List<ConnectionEvent> events) {
+        return invocation -> {
+            Consumer<ConnectionEvent> action = invocation.getArgument(3);
+            events.forEach(action);
+            return null;
+        };
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {
             MSG_FROM_ANOTHER_SERVICE,
@@ -179,9 +490,9 @@ class RelationshipResourceTest {
     private void assertCanGetEventsForConnectionIdentifier(String connectionIdentifier,
                                                            String queryParamValue) {
 
-        when(SERVICE.findAllEventsByConnectionIdentifier(anyString())).thenReturn(List.of(
+        doAnswer(passingEach(List.of(
                 newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, connectionIdentifier)
-        ));
+        ))).when(SERVICE).forEachEventWithConnectionIdentifier(anyString(), any(EventCursor.class), anyInt(), any());
 
         var response = RESOURCES
                 .target("/elucidate/connectionIdentifier/events")
@@ -199,7 +510,8 @@ class RelationshipResourceTest {
                         tuple(A_SERVICE_NAME, Direction.INBOUND, connectionIdentifier)
                 );
 
-        verify(SERVICE).findAllEventsByConnectionIdentifier(connectionIdentifier);
+        verify(SERVICE).forEachEventWithConnectionIdentifier(eq(connectionIdentifier), eq(EventCursor.START),
+                eq(Integer.MAX_VALUE), any());
     }
 
     @Test
@@ -255,7 +567,7 @@ class RelationshipResourceTest {
                                 .build()))
                 .build();
 
-        when(SERVICE.buildRelationships(A_SERVICE_NAME)).thenReturn(connections);
+        when(SERVICE.buildRelationships(A_SERVICE_NAME, ObservationWindow.ALL)).thenReturn(connections);
 
         var response = RESOURCES.target("/elucidate/service/test-service/relationships").request().get();
 
@@ -278,7 +590,8 @@ class RelationshipResourceTest {
                         .eventDirection(Direction.OUTBOUND)
                         .build());
 
-        when(SERVICE.findRelationshipDetails(A_SERVICE_NAME, "other-service")).thenReturn(details);
+        when(SERVICE.findRelationshipDetails(A_SERVICE_NAME, "other-service", ObservationWindow.ALL))
+                .thenReturn(details);
 
         var response = RESOURCES.target("/elucidate/service/test-service/relationship/other-service").request().get();
 
@@ -292,7 +605,7 @@ class RelationshipResourceTest {
     @Test
     @DisplayName("should return the list of dependent services for each service recorded")
     void testGetAllDependencies() {
-        when(SERVICE.buildAllDependencies()).thenReturn(newArrayList(
+        when(SERVICE.buildAllDependencies(ObservationWindow.ALL)).thenReturn(newArrayList(
                 ServiceDependencies.builder()
                         .serviceName(A_SERVICE_NAME)
                         .dependencies(newHashSet(ANOTHER_SERVICE_NAME))
@@ -306,6 +619,69 @@ class RelationshipResourceTest {
         assertThat(responseList).hasSize(1);
     }
 
+    @Nested
+    class ObservationWindows {
+
+        @Test
+        void shouldPassTheWindowToTheService() {
+            var window = new ObservationWindow(1_000, 2_000);
+            when(SERVICE.buildAllDependencies(window)).thenReturn(List.of());
+            when(SERVICE.buildAllDependenciesWithDetails(window)).thenReturn(List.of());
+            when(SERVICE.buildRelationships(A_SERVICE_NAME, window)).thenReturn(ServiceConnections.builder()
+                    .serviceName(A_SERVICE_NAME)
+                    .children(Set.of())
+                    .build());
+
+            for (var path : List.of("/elucidate/dependencies", "/elucidate/dependencies/details",
+                    "/elucidate/service/test-service/relationships")) {
+                var response = RESOURCES.target(path)
+                        .queryParam("from", 1_000)
+                        .queryParam("to", 2_000)
+                        .request()
+                        .get();
+
+                assertOkResponse(response);
+            }
+
+            verify(SERVICE).buildAllDependencies(window);
+            verify(SERVICE).buildAllDependenciesWithDetails(window);
+            verify(SERVICE).buildRelationships(A_SERVICE_NAME, window);
+        }
+
+        @Test
+        void shouldDefaultToAnOpenEnd() {
+            var window = new ObservationWindow(1_000, Long.MAX_VALUE);
+            when(SERVICE.findRelationshipDetails(A_SERVICE_NAME, ANOTHER_SERVICE_NAME, window)).thenReturn(List.of());
+
+            var response = RESOURCES.target("/elucidate/service/{serviceName}/relationship/{relatedServiceName}")
+                    .resolveTemplate("serviceName", A_SERVICE_NAME)
+                    .resolveTemplate("relatedServiceName", ANOTHER_SERVICE_NAME)
+                    .queryParam("from", 1_000)
+                    .request()
+                    .get();
+
+            assertOkResponse(response);
+            verify(SERVICE).findRelationshipDetails(A_SERVICE_NAME, ANOTHER_SERVICE_NAME, window);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = { "from=2000&to=1000", "from=an-hour-ago", "to=now" })
+        void shouldReturn400_WhenWindowIsInvalid(String query) {
+            for (var path : List.of("/elucidate/dependencies", "/elucidate/dependencies/details",
+                    "/elucidate/services/details", "/elucidate/service/test-service/relationships")) {
+                var target = RESOURCES.target(path);
+                for (var param : query.split("&")) {
+                    var nameAndValue = param.split("=");
+                    target = target.queryParam(nameAndValue[0], nameAndValue[1]);
+                }
+
+                assertBadRequest(target.request().get());
+            }
+
+            verifyNoInteractions(SERVICE);
+        }
+    }
+
     @Nested
     class CurrentServiceNames {
 
@@ -333,7 +709,8 @@ class RelationshipResourceTest {
                     .communicationTypes(newHashMap("HTTP", 1))
                     .build();
 
-            when(SERVICE.currentServiceDetails()).thenReturn(newArrayList(details));
+            when(SERVICE.currentServiceDetails(ServiceDetailsOrder.NAME, Integer.MAX_VALUE, ObservationWindow.ALL))
+                    .thenReturn(newArrayList(details));
 
             var response = RESOURCES.target("/elucidate/services/details").request().get();
             assertOkResponse(response);
@@ -342,6 +719,346 @@ class RelationshipResourceTest {
             });
             assertThat(services).usingRecursiveFieldByFieldElementComparator().contains(details);
         }
+
+        @Test
+        void shouldReturnTopServices_WhenSortAndLimitAreGiven() {
+            var details = ServiceDetails.builder()
+                    .serviceName(A_SERVICE_NAME)
+                    .inboundEvents(5)
+                    .communicationTypes(newHashMap("HTTP", 5))
+                    .build();
+
+            when(SERVICE.currentServiceDetails(ServiceDetailsOrder.INBOUND, 1, ObservationWindow.ALL))
+                    .thenReturn(List.of(details));
+
+            var response = RESOURCES.target("/elucidate/services/details")
+                    .queryParam("sort", "inbound")
+                    .queryParam("limit", 1)
+                    .request()
+                    .get();
+            assertOkResponse(response);
+
+            var services = response.readEntity(new GenericType<List<ServiceDetails>>() {
+            });
+            assertThat(services).extracting(ServiceDetails::getServiceName).containsExactly(A_SERVICE_NAME);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = { "sort=popularity", "limit=0", "limit=ten" })
+        void shouldReturn400_WhenSortOrLimitIsInvalid(String query) {
+            var param = query.split("=");
+
+            var response = RESOURCES.target("/elucidate/services/details")
+                    .queryParam(param[0], param[1])
+                    .request()
+                    .get();
+
+            assertBadRequest(response);
+            verifyNoInteractions(SERVICE);
+        }
+    }
+
+    @Nested
+    class TransitiveClosures {
+
+        private final List<ServiceDistance> distances = List.of(
+                ServiceDistance.builder().serviceName(ANOTHER_SERVICE_NAME).distance(1).build());
+
+        @Test
+        void shouldReturnTheDependents() {
+            when(SERVICE.buildTransitiveDependents(A_SERVICE_NAME, Integer.MAX_VALUE)).thenReturn(distances);
+
+            var response = RESOURCES.target("/elucidate/service/{serviceName}/dependents")
+                    .resolveTemplate("serviceName", A_SERVICE_NAME)
+                    .request()
+                    .get();
+            assertOkResponse(response);
+
+            var dependents = response.readEntity(new GenericType<List<ServiceDistance>>() {
+            });
+            assertThat(dependents).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(distances);
+        }
+
+        @Test
+        void shouldReturnTheDependencies_UpToMaxDepth() {
+            when(SERVICE.buildTransitiveDependencies(A_SERVICE_NAME, 2)).thenReturn(distances);
+
+            var response = RESOURCES.target("/elucidate/service/{serviceName}/dependencies")
+                    .resolveTemplate("serviceName", A_SERVICE_NAME)
+                    .queryParam("maxDepth", 2)
+                    .request()
+                    .get();
+            assertOkResponse(response);
+
+            var dependencies = response.readEntity(new GenericType<List<ServiceDistance>>() {
+            });
+            assertThat(dependencies).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(distances);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = { "0", "-1", "deep" })
+        void shouldReturn400_WhenMaxDepthIsInvalid(String maxDepth) {
+            var response = RESOURCES.target("/elucidate/service/{serviceName}/dependents")
+                    .resolveTemplate("serviceName", A_SERVICE_NAME)
+                    .queryParam("maxDepth", maxDepth)
+                    .request()
+                    .get();
+
+            assertBadRequest(response);
+            verifyNoInteractions(SERVICE);
+        }
+    }
+
+    @Nested
+    class FindDependencyPaths {
+
+        @Test
+        void shouldReturnTheShortestPath() {
+            var path = DependencyPath.builder()
+                    .services(List.of(A_SERVICE_NAME, ANOTHER_SERVICE_NAME))
+                    .hops(List.of(DependencyRelationshipDetails.builder()
+                            .serviceName(ANOTHER_SERVICE_NAME)
+                            .details(List.of(RelationshipDetails.builder()
+                                    .communicationType("HTTP")
+                                    .connectionIdentifier(MSG_TO_ANOTHER_SERVICE)
+                                    .eventDirection(Direction.OUTBOUND)
+                                    .lastObserved(1_700_000_000_000L)
+                                    .build()))
+                            .build()))
+                    .build();
+
+            when(SERVICE.findDependencyPaths(A_SERVICE_NAME, ANOTHER_SERVICE_NAME, 1)).thenReturn(List.of(path));
+
+            var response = RESOURCES.target("/elucidate/path/{from}/{to}")
+                    .resolveTemplate("from", A_SERVICE_NAME)
+                    .resolveTemplate("to", ANOTHER_SERVICE_NAME)
+                    .request()
+                    .get();
+            assertOkResponse(response);
+
+            var paths = response.readEntity(new GenericType<List<DependencyPath>>() {
+            });
+            assertThat(paths).usingRecursiveFieldByFieldElementComparator().containsExactly(path);
+        }
+
+        @Test
+        void shouldReturnTheKShortestPaths() {
+            when(SERVICE.findDependencyPaths(A_SERVICE_NAME, ANOTHER_SERVICE_NAME, 3)).thenReturn(List.of());
+
+            var response = RESOURCES.target("/elucidate/path/{from}/{to}")
+                    .resolveTemplate("from", A_SERVICE_NAME)
+                    .resolveTemplate("to", ANOTHER_SERVICE_NAME)
+                    .queryParam("k", 3)
+                    .request()
+                    .get();
+
+            assertOkResponse(response);
+            verify(SERVICE).findDependencyPaths(A_SERVICE_NAME, ANOTHER_SERVICE_NAME, 3);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = { "0", "11", "all" })
+        void shouldReturn400_WhenKIsInvalid(String k) {
+            var response = RESOURCES.target("/elucidate/path/{from}/{to}")
+                    .resolveTemplate("from", A_SERVICE_NAME)
+                    .resolveTemplate("to", ANOTHER_SERVICE_NAME)
+                    .queryParam("k", k)
+                    .request()
+                    .get();
+
+            assertBadRequest(response);
+            verifyNoInteractions(SERVICE);
+        }
+    }
+
+    @Nested
+    class FindDependencyCycles {
+
+        @Test
+        void shouldReturnTheCycles() {
+            var edges = List.of(
+                    new DependencyEdge(A_SERVICE_NAME, ANOTHER_SERVICE_NAME, "HTTP", 1, 1_700_000_000_000L),
+                    new DependencyEdge(ANOTHER_SERVICE_NAME, A_SERVICE_NAME, "HTTP", 2, 1_700_000_000_000L));
+            var cycle = DependencyCycle.builder()
+                    .services(List.of(ANOTHER_SERVICE_NAME, A_SERVICE_NAME))
+                    .edgesByCommunicationType(Map.of("HTTP", edges))
+                    .build();
+
+            when(SERVICE.findDependencyCycles()).thenReturn(List.of(cycle));
+
+            var response = RESOURCES.target("/elucidate/dependencies/cycles").request().get();
+            assertOkResponse(response);
+
+            var cycles = response.readEntity(new GenericType<List<DependencyCycle>>() {
+            });
+            assertThat(cycles).usingRecursiveFieldByFieldElementComparator().containsExactly(cycle);
+        }
     }
 
+    @Nested
+    class DiffDependencies {
+
+        @Test
+        void shouldReturnTheDiffBetweenTheWindows() {
+            var before = new ObservationWindow(1_000, 2_000);
+            var after = new ObservationWindow(3_000, Long.MAX_VALUE);
+            var diff = DependencyGraphDiff.builder()
+                    .added(List.of(DependencyChange.builder()
+                            .serviceName(A_SERVICE_NAME)
+                            .dependency(ANOTHER_SERVICE_NAME)
+                            .communicationTypesBefore(Set.of())
+                            .communicationTypesAfter(Set.of("HTTP"))
+                            .build()))
+                    .removed(List.of())
+                    .changed(List.of())
+                    .build();
+
+            when(SERVICE.diffDependencies(before, after)).thenReturn(diff);
+
+            var response = RESOURCES.target("/elucidate/dependencies/diff")
+                    .queryParam("beforeFrom", 1_000)
+                    .queryParam("beforeTo", 2_000)
+                    .queryParam("afterFrom", 3_000)
+                    .request()
+                    .get();
+            assertOkResponse(response);
+
+            assertThat(response.readEntity(DependencyGraphDiff.class)).usingRecursiveComparison().isEqualTo(diff);
+        }
+
+        @Test
+        void shouldReturnBadRequest_WhenAWindowIsInvalid() {
+            var response = RESOURCES.target("/elucidate/dependencies/diff")
+                    .queryParam("afterFrom", 2_000)
+                    .queryParam("afterTo", 1_000)
+                    .request()
+                    .get();
+
+            assertBadRequest(response);
+
+            verifyNoInteractions(SERVICE);
+        }
+    }
+
+    @Nested
+    class ExportGraph {
+
+        private final DependencyGraph graph = new DependencyGraph(List.of(A_SERVICE_NAME, ANOTHER_SERVICE_NAME),
+                List.of(new DependencyEdge(A_SERVICE_NAME, ANOTHER_SERVICE_NAME, "HTTP", 1, 1_700_000_000_000L)));
+
+        @Test
+        void shouldExportDot_ByDefault() {
+            when(SERVICE.buildDependencyGraph(Set.of(), ObservationWindow.ALL)).thenReturn(graph);
+
+            var response = RESOURCES.target("/elucidate/graph").request().get();
+
+            assertOkResponse(response);
+            assertThat(response.getMediaType().toString()).isEqualTo("text/vnd.graphviz");
+            assertThat(response.getEntityTag()).isNotNull();
+            assertThat(response.readEntity(String.class))
+                    .contains("\"test-service\" -> \"another-service-1\" [label=\"HTTP\"];");
+        }
+
+        @Test
+        void shouldExportTheRequestedFormat_WithFilters() {
+            when(SERVICE.buildDependencyGraph(Set.of("HTTP", "JMS"), new ObservationWindow(100, 200)))
+                    .thenReturn(graph);
+
+            var response = RESOURCES.target("/elucidate/graph")
+                    .queryParam("format", "adjacency")
+                    .queryParam("communicationType", "HTTP", "JMS")
+                    .queryParam("from", 100)
+                    .queryParam("to", 200)
+                    .request()
+                    .get();
+
+            assertOkResponse(response);
+            assertThat(response.getMediaType().toString()).isEqualTo("application/json");
+            assertThat(response.readEntity(String.class)).contains("\"edges\":[[0,1,0,1,1700000000000]]");
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = { "format=svg", "from=yesterday", "to=now", "from=2&to=1" })
+        void shouldReturn400_WhenParametersAreInvalid(String query) {
+            var target = RESOURCES.target("/elucidate/graph");
+            for (var param : query.split("&")) {
+                var nameAndValue = param.split("=");
+                target = target.queryParam(nameAndValue[0], nameAndValue[1]);
+            }
+
+            var response = target.request().get();
+
+            assertBadRequest(response);
+            verifyNoInteractions(SERVICE);
+        }
+    }
+
+    @Nested
+    class ConditionalRequests {
+
+        @Test
+        void shouldTagResponses() {
+            when(SERVICE.buildAllDependencies(ObservationWindow.ALL)).thenReturn(List.of());
+
+            var response = RESOURCES.target("/elucidate/dependencies").request().get();
+
+            assertOkResponse(response);
+            assertThat(response.getEntityTag()).isNotNull();
+            assertThat(response.getEntityTag().isWeak()).isFalse();
+        }
+
+        @Test
+        void shouldReturn304_WithoutQueryingTheService_WhenTagMatches() {
+            when(SERVICE.buildAllDependencies(ObservationWindow.ALL)).thenReturn(List.of());
+            var tag = RESOURCES.target("/elucidate/dependencies").request().get().getEntityTag();
+            reset(SERVICE);
+
+            var response = RESOURCES.target("/elucidate/dependencies").request()
+                    .header(HttpHeaders.IF_NONE_MATCH, tag.toString())
+                    .get();
+
+            assertThat(response.getStatus()).isEqualTo(Status.NOT_MODIFIED.getStatusCode());
+            assertThat(response.getEntityTag()).isEqualTo(tag);
+            verifyNoInteractions(SERVICE);
+        }
+
+        @Test
+        void shouldReturn200_WhenGraphChangedSinceTagWasIssued() {
+            when(SERVICE.buildAllDependencies(ObservationWindow.ALL)).thenReturn(List.of());
+            var tag = RESOURCES.target("/elucidate/dependencies").request().get().getEntityTag();
+
+            GRAPH_VERSION.increment();
+
+            var response = RESOURCES.target("/elucidate/dependencies").request()
+                    .header(HttpHeaders.IF_NONE_MATCH, tag.toString())
+                    .get();
+
+            assertOkResponse(response);
+            assertThat(response.getEntityTag()).isNotEqualTo(tag);
+        }
+
+        @Test
+        void shouldKeepStructuralTags_ButChangeEventTags_WhenKnownConnectionIsObservedAgain() {
+            var event = newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE);
+            GRAPH_VERSION.eventsRecorded(List.of(event));
+
+            var dependenciesTag = RESOURCES.target("/elucidate/dependencies").request().get().getEntityTag();
+            var eventsTag = RESOURCES.target("/elucidate/service/{serviceName}/events")
+                    .resolveTemplate("serviceName", A_SERVICE_NAME)
+                    .request()
+                    .get()
+                    .getEntityTag();
+
+            GRAPH_VERSION.eventsRecorded(List.of(event));
+
+            assertThat(RESOURCES.target("/elucidate/dependencies").request().get().getEntityTag())
+                    .isEqualTo(dependenciesTag);
+            assertThat(RESOURCES.target("/elucidate/service/{serviceName}/events")
+                    .resolveTemplate("serviceName", A_SERVICE_NAME)
+                    .request()
+                    .get()
+                    .getEntityTag())
+                    .isNotEqualTo(eventsTag);
+        }
+    }
 }
@@ -7,6 +7,9 @@ import static org.assertj.core.api.Assertions.tuple;
 import static org.kiwiproject.test.jaxrs.JaxrsTestHelper.assertAcceptedResponse;
 import static org.kiwiproject.test.jaxrs.JaxrsTestHelper.assertOkResponse;
 import static org.kiwiproject.test.jaxrs.JaxrsTestHelper.assertUnprocessableEntity;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
@@ -14,9 +17,13 @@ import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import org.kiwiproject.elucidation.common.model.TrackedConnectionIdentifier;
+import org.kiwiproject.elucidation.server.core.TrackedConnectionIdentifiers;
 import org.kiwiproject.elucidation.server.core.UnusedIdentifier;
 import org.kiwiproject.elucidation.server.core.UnusedServiceIdentifiers;
+import org.kiwiproject.elucidation.server.service.GraphVersion;
 import org.kiwiproject.elucidation.server.service.TrackedConnectionIdentifierService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.jackson.Jackson;
 import io.dropwizard.testing.junit5.DropwizardExtensionsSupport;
 import io.dropwizard.testing.junit5.ResourceExtension;
 import org.junit.jupiter.api.BeforeEach;
@@ -24,19 +31,26 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.stubbing.Answer;
 
 import jakarta.ws.rs.core.GenericType;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response.Status;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 @ExtendWith(DropwizardExtensionsSupport.class)
 @DisplayName("TrackedConnectionIdentifierResource")
 class TrackedConnectionIdentifierResourceTest {
 
     private static final TrackedConnectionIdentifierService SERVICE = mock(TrackedConnectionIdentifierService.class);
+    private static final GraphVersion GRAPH_VERSION = new GraphVersion();
+    private static final ObjectMapper MAPPER = Jackson.newObjectMapper();
 
     private static final ResourceExtension RESOURCES = ResourceExtension.builder()
-            .addResource(new TrackedConnectionIdentifierResource(SERVICE))
+            .setMapper(MAPPER)
+            .addResource(new TrackedConnectionIdentifierResource(SERVICE, MAPPER, GRAPH_VERSION))
             .build();
 
     @BeforeEach
@@ -117,6 +131,43 @@ class TrackedConnectionIdentifierResourceTest {
         }
     }
 
+    @Nested
+    class LoadAllTrackedIdentifiers {
+
+        @Test
+        void shouldReturnAccepted_WhenInputsAreValid() {
+            var identifiers = List.of(TrackedConnectionIdentifiers.builder()
+                    .serviceName(A_SERVICE_NAME)
+                    .communicationType("HTTP")
+                    .connectionIdentifiers(List.of("identifier-a", "identifier-b"))
+                    .build());
+
+            var response = RESOURCES.target("/elucidate/trackedIdentifiers")
+                    .request()
+                    .post(json(identifiers));
+
+            assertAcceptedResponse(response);
+
+            verify(SERVICE).loadNewIdentifiers(identifiers);
+        }
+
+        @Test
+        void shouldReturn422_WhenAnyEntryHasNoIdentifiers() {
+            var identifiers = List.of(TrackedConnectionIdentifiers.builder()
+                    .serviceName(A_SERVICE_NAME)
+                    .communicationType("HTTP")
+                    .connectionIdentifiers(List.of())
+                    .build());
+
+            var response = RESOURCES.target("/elucidate/trackedIdentifiers")
+                    .request()
+                    .post(json(identifiers));
+
+            assertUnprocessableEntity(response);
+            verifyNoInteractions(SERVICE);
+        }
+    }
+
     @Nested
     class FindUnusedIdentifiers {
         @Test
@@ -145,6 +196,21 @@ class TrackedConnectionIdentifierResourceTest {
                     .usingRecursiveFieldByFieldElementComparatorOnFields("serviceName")
                     .containsAll(unused);
         }
+
+        @Test
+        void shouldReturn304_WithoutQueryingTheService_WhenTagMatches() {
+            when(SERVICE.findUnusedIdentifiers()).thenReturn(List.of());
+            var tag = RESOURCES.target("/elucidate/connectionIdentifier/unused").request().get().getEntityTag();
+            reset(SERVICE);
+
+            var response = RESOURCES.target("/elucidate/connectionIdentifier/unused")
+                    .request()
+                    .header(HttpHeaders.IF_NONE_MATCH, tag.toString())
+                    .get();
+
+            assertThat(response.getStatus()).isEqualTo(Status.NOT_MODIFIED.getStatusCode());
+            verifyNoInteractions(SERVICE);
+        }
     }
 
     @Nested
@@ -189,7 +255,8 @@ class TrackedConnectionIdentifierResourceTest {
                     .connectionIdentifier("/path/unused")
                     .build());
 
-            when(SERVICE.allTrackedConnectionIdentifiers()).thenReturn(trackedIdentifiers);
+            doAnswer(passingEach(trackedIdentifiers))
+                    .when(SERVICE).forEachTrackedConnectionIdentifier(eq(0L), eq(Integer.MAX_VALUE), any());
 
             var response = RESOURCES.target("/elucidate/trackedIdentifiers")
                     .request()
@@ -203,5 +270,28 @@ class TrackedConnectionIdentifierResourceTest {
                     .usingRecursiveFieldByFieldElementComparatorOnFields("serviceName", "communicationType", "connectionIdentifier")
                     .containsAll(trackedIdentifiers);
         }
+
+        @Test
+        void shouldPassAfterAndLimit() {
+            var response = RESOURCES.target("/elucidate/trackedIdentifiers")
+                    .queryParam("after", 42)
+                    .queryParam("limit", 10)
+                    .request()
+                    .get();
+
+            assertOkResponse(response);
+            assertThat(response.readEntity(new GenericType<List<TrackedConnectionIdentifier>>() {
+            })).isEmpty();
+
+            verify(SERVICE).forEachTrackedConnectionIdentifier(eq(42L), eq(10), any());
+        }
+
+        private Answer<Void> passingEach(List<TrackedConnectionIdentifier> identifiers) {
+            return invocation -> {
+                Consumer<TrackedConnectionIdentifier> action = invocation.getArgument(2);
+                identifiers.forEach(action);
+                return null;
+            };
+        }
     }
 }
@@ -0,0 +1,156 @@
+package org.kiwiproject.elucidation.server.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.kiwiproject.elucidation.common.test.ConnectionEvents.newConnectionEvent;
+import static org.kiwiproject.elucidation.server.test.TestConstants.A_SERVICE_NAME;
+import static org.kiwiproject.elucidation.server.test.TestConstants.MSG_FROM_ANOTHER_SERVICE;
+import static org.kiwiproject.elucidation.server.test.TestConstants.MSG_TO_ANOTHER_SERVICE;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.jersey.validation.Validators;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.elucidation.common.model.ConnectionEvent;
+import org.kiwiproject.elucidation.common.model.Direction;
+import org.kiwiproject.elucidation.server.core.EventImportChunk;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+@DisplayName("EventImporter")
+class EventImporterTest {
+
+    private static final ObjectMapper MAPPER = Jackson.newObjectMapper();
+
+    private RelationshipService service;
+    private EventImporter importer;
+
+    @BeforeEach
+    void setUp() {
+        service = mock(RelationshipService.class);
+        importer = new EventImporter(service, MAPPER, Validators.newValidator(), 2);
+    }
+
+    @Test
+    void shouldRequirePositiveChunkSize() {
+        assertThatIllegalArgumentException().isThrownBy(() ->
+                new EventImporter(service, MAPPER, Validators.newValidator(), 0));
+    }
+
+    @Test
+    void shouldWriteEventsInChunks() throws IOException {
+        var first = newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE);
+        var second = newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE);
+        var third = newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, "another-message");
+
+        var result = importer.importEvents(readerOf(toJson(first), toJson(second), toJson(third)));
+
+        assertThat(result.getAccepted()).isEqualTo(3);
+        assertThat(result.getRejected()).isZero();
+        assertThat(result.getChunks())
+                .extracting(EventImportChunk::getFirstLine, EventImportChunk::getLastLine,
+                        EventImportChunk::getAccepted, EventImportChunk::getRejected)
+                .containsExactly(tuple(1L, 2L, 2, 0), tuple(3L, 3L, 1, 0));
+
+        verify(service).createEvents(List.of(first, second));
+        verify(service).createEvents(List.of(third));
+    }
+
+    @Test
+    void shouldRejectMalformedAndInvalidLines() throws IOException {
+        var valid = newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE);
+        var invalid = newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, "");
+
+        var result = importer.importEvents(readerOf("{not json", toJson(valid), "null", toJson(invalid)));
+
+        assertThat(result.getAccepted()).isOne();
+        assertThat(result.getRejected()).isEqualTo(3);
+        assertThat(result.getChunks())
+                .extracting(EventImportChunk::getAccepted, EventImportChunk::getRejected)
+                .containsExactly(tuple(1, 1), tuple(0, 2));
+
+        verify(service).createEvents(List.of(valid));
+    }
+
+    @Test
+    void shouldRequirePositiveMaxLineLength() {
+        assertThatIllegalArgumentException().isThrownBy(() ->
+                new EventImporter(service, MAPPER, Validators.newValidator(), 2, 0));
+    }
+
+    @Test
+    void shouldRejectLinesWithTrailingContent() throws IOException {
+        var event = newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE);
+
+        var result = importer.importEvents(readerOf(toJson(event) + " " + toJson(event), toJson(event) + " garbage"));
+
+        assertThat(result.getAccepted()).isZero();
+        assertThat(result.getRejected()).isEqualTo(2);
+
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void shouldRejectLinesLongerThanTheMaximum() throws IOException {
+        var event = newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE);
+        var json = toJson(event);
+        var longImporter = new EventImporter(service, MAPPER, Validators.newValidator(), 2, json.length());
+
+        var result = longImporter.importEvents(readerOf(json + " ", json, "x".repeat(10 * json.length())));
+
+        assertThat(result.getAccepted()).isOne();
+        assertThat(result.getRejected()).isEqualTo(2);
+        assertThat(result.getChunks())
+                .extracting(EventImportChunk::getFirstLine, EventImportChunk::getLastLine,
+                        EventImportChunk::getAccepted, EventImportChunk::getRejected)
+                .containsExactly(tuple(1L, 2L, 1, 1), tuple(3L, 3L, 0, 1));
+
+        verify(service).createEvents(List.of(event));
+    }
+
+    @Test
+    void shouldAcceptLinesEndingWithCarriageReturnAndLineFeed() throws IOException {
+        var first = newConnectionEvent(A_SERVICE_NAME, Direction.INBOUND, MSG_FROM_ANOTHER_SERVICE);
+        var second = newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE);
+
+        var result = importer.importEvents(
+                new BufferedReader(new StringReader(toJson(first) + "\r\n" + toJson(second) + "\r\n")));
+
+        assertThat(result.getAccepted()).isEqualTo(2);
+        assertThat(result.getRejected()).isZero();
+        assertThat(result.getChunks())
+                .extracting(EventImportChunk::getFirstLine, EventImportChunk::getLastLine)
+                .containsExactly(tuple(1L, 2L));
+
+        verify(service).createEvents(List.of(first, second));
+    }
+
+    @Test
+    void shouldIgnoreBlankLines() throws IOException {
+        var result = importer.importEvents(readerOf("", "   ", ""));
+
+        assertThat(result.getAccepted()).isZero();
+        assertThat(result.getRejected()).isZero();
+        assertThat(result.getChunks()).isEmpty();
+
+        verifyNoInteractions(service);
+    }
+
+    private static String toJson(ConnectionEvent event) throws JsonProcessingException {
+        return MAPPER.writeValueAsString(event);
+    }
+
+    private static BufferedReader readerOf(String... lines) {
+        return new BufferedReader(new StringReader(String.join("\n", lines)));
+    }
+}
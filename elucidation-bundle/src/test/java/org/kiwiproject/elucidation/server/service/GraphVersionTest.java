@@ -0,0 +1,97 @@
+package org.kiwiproject.elucidation.server.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.kiwiproject.elucidation.common.test.ConnectionEvents.newConnectionEvent;
+import static org.kiwiproject.elucidation.server.test.TestConstants.A_SERVICE_NAME;
+import static org.kiwiproject.elucidation.server.test.TestConstants.MSG_TO_ANOTHER_SERVICE;
+
+import io.dropwizard.util.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.elucidation.common.model.Direction;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+@DisplayName("GraphVersion")
+class GraphVersionTest {
+
+    private GraphVersion graphVersion;
+
+    @BeforeEach
+    void setUp() {
+        graphVersion = new GraphVersion();
+    }
+
+    @Test
+    void shouldIncrement_WhenANewConnectionIsRecorded() {
+        graphVersion.eventsRecorded(List.of(newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE)));
+
+        assertThat(graphVersion.current()).isOne();
+    }
+
+    @Test
+    void shouldNotIncrement_WhenAKnownConnectionIsRecordedAgain() {
+        graphVersion.eventsRecorded(List.of(newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE, 1_000L)));
+        graphVersion.eventsRecorded(List.of(newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE, 2_000L)));
+
+        assertThat(graphVersion.current()).isOne();
+    }
+
+    @Test
+    void shouldForgetKnownConnections_WhenEventsAreRemoved() {
+        var event = newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE);
+        graphVersion.eventsRecorded(List.of(event));
+
+        graphVersion.eventsRemoved();
+        graphVersion.eventsRecorded(List.of(event));
+
+        assertThat(graphVersion.current()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldIncrementChangeSequence_WhenAnyConnectionIsRecorded() {
+        var event = newConnectionEvent(A_SERVICE_NAME, Direction.OUTBOUND, MSG_TO_ANOTHER_SERVICE);
+
+        graphVersion.eventsRecorded(List.of(event));
+        graphVersion.eventsRecorded(List.of(event));
+
+        assertThat(graphVersion.current()).isOne();
+        assertThat(graphVersion.changeSequence()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotIncrementChangeSequence_WhenNoEventsAreRecorded() {
+        graphVersion.eventsRecorded(List.of());
+
+        assertThat(graphVersion.changeSequence()).isZero();
+    }
+
+    @Test
+    void shouldHaveDifferentEpochs_ForDifferentInstances() {
+        assertThat(graphVersion.epoch()).isNotEqualTo(new GraphVersion().epoch());
+    }
+
+    @Test
+    void shouldAdvancePeriod_OncePerMaxTagAge() {
+        var now = new AtomicLong(119_999L);
+        var expiringGraphVersion = new GraphVersion(10, Duration.minutes(1), now::get);
+
+        assertThat(expiringGraphVersion.period()).isOne();
+
+        now.set(120_000L);
+        assertThat(expiringGraphVersion.period()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNeverAdvancePeriod_WhenMaxTagAgeIsZero() {
+        var now = new AtomicLong(1_000L);
+        var nonExpiringGraphVersion = new GraphVersion(10, Duration.milliseconds(0), now::get);
+
+        now.set(Long.MAX_VALUE);
+
+        assertThat(nonExpiringGraphVersion.period()).isZero();
+        assertThat(graphVersion.period()).isZero();
+    }
+}
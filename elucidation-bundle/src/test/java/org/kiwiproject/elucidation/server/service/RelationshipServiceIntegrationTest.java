@@ -4,6 +4,7 @@ import static java.util.Objects.nonNull;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
 import static org.kiwiproject.collect.KiwiLists.first;
+import static org.kiwiproject.elucidation.common.model.Direction.INBOUND;
 import static org.kiwiproject.elucidation.common.model.Direction.OUTBOUND;
 import static org.kiwiproject.elucidation.common.test.ConnectionEvents.newConnectionEvent;
 import static org.kiwiproject.elucidation.server.test.TestConstants.COMMUNICATION_TYPE_FIELD;
@@ -19,15 +20,33 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.kiwiproject.elucidation.common.definition.CommunicationDefinition;
 import org.kiwiproject.elucidation.common.model.ConnectionEvent;
+import org.kiwiproject.elucidation.common.model.Direction;
+import org.kiwiproject.elucidation.common.model.RelationshipDetails;
 import org.kiwiproject.elucidation.server.config.ElucidationConfiguration;
+import org.kiwiproject.elucidation.server.core.ConnectionSummary;
+import org.kiwiproject.elucidation.server.core.DependencyChange;
+import org.kiwiproject.elucidation.server.core.DependencyRelationshipDetails;
+import org.kiwiproject.elucidation.server.core.EventCursor;
+import org.kiwiproject.elucidation.server.core.ObservationWindow;
+import org.kiwiproject.elucidation.server.core.ServiceDependencies;
+import org.kiwiproject.elucidation.server.core.ServiceDependencyDetails;
+import org.kiwiproject.elucidation.server.core.ServiceDetails;
+import org.kiwiproject.elucidation.server.core.ServiceDetailsOrder;
+import org.kiwiproject.elucidation.server.core.ServiceDistance;
 import org.kiwiproject.elucidation.server.db.ConnectionEventDao;
 import org.kiwiproject.elucidation.server.db.DBLoader;
+import org.kiwiproject.elucidation.server.db.GenericConnectionEventWriter;
+import org.kiwiproject.elucidation.server.db.IndexingConnectionEventWriter;
 import org.kiwiproject.elucidation.server.db.mapper.ConnectionEventMapper;
+import org.kiwiproject.elucidation.server.graph.ConnectionGraphIndex;
+import org.kiwiproject.elucidation.server.graph.DependencyEdge;
 import org.kiwiproject.test.junit.jupiter.Jdbi3DaoExtension;
 import org.kiwiproject.test.junit.jupiter.PostgresLiquibaseTestExtension;
 
 import java.io.IOException;
 import java.time.Instant;
+import java.util.List;
+import java.util.Set;
 
 @DisplayName("RelationshipServiceIntegration")
 @SuppressWarnings("SqlNoDataSourceInspection")
@@ -102,7 +121,29 @@ class RelationshipServiceIntegrationTest {
     }
 
     @Nested
-    class ListEventsSince {
+    class CreateEvents {
+
+        @Test
+        void shouldCreateOneEventPerDistinctConnection() {
+            var countBeforeCreate = countExistingEvents();
+
+            var events = List.of(
+                    newConnectionEvent(null, NON_EXISTENT_SERVICE_NAME, OUTBOUND, "some-identifier", 1_000L),
+                    newConnectionEvent(null, NON_EXISTENT_SERVICE_NAME, OUTBOUND, "some-identifier", 2_000L),
+                    newConnectionEvent(null, NON_EXISTENT_SERVICE_NAME, OUTBOUND, "some-other-identifier", 1_000L)
+            );
+
+            service.createEvents(events);
+
+            assertThat(countExistingEvents()).isEqualTo(countBeforeCreate + 2);
+            assertThat(service.listEventsForService(NON_EXISTENT_SERVICE_NAME))
+                    .extracting(ConnectionEvent::getConnectionIdentifier)
+                    .containsExactlyInAnyOrder("some-identifier", "some-other-identifier");
+        }
+    }
+
+    @Nested
+    class ListEventsAfter {
 
         @Test
         void shouldReturnAListOfAllEventsOccurringAfterSinceParam() {
@@ -113,16 +154,27 @@ class RelationshipServiceIntegrationTest {
                     .mapTo(Long.class)
                     .first();
 
-            var events = service.listEventsSince(earliestObservedAt - 1);
+            var events = service.listEventsAfter(EventCursor.since(earliestObservedAt - 1), countOfExistingEvents + 1);
 
-            assertThat(events).hasSize(countOfExistingEvents);
+            assertThat(events).hasSize(countOfExistingEvents)
+                    .extracting(ConnectionEvent::getObservedAt)
+                    .isSorted();
+        }
+
+        @Test
+        void shouldReturnAtMostTheGivenNumberOfEvents() {
+            assertDataIsLoaded();
+
+            var events = service.listEventsAfter(EventCursor.since(0), 1);
+
+            assertThat(events).hasSize(1);
         }
 
         @Test
         void shouldReturnAnEmptyListWhenNoEventsFoundAfterSinceParam() {
             assertDataIsLoaded();
 
-            var events = service.listEventsSince(Instant.now().toEpochMilli());
+            var events = service.listEventsAfter(EventCursor.since(Instant.now().toEpochMilli()), 100);
             assertThat(events).isEmpty();
         }
     }
@@ -296,6 +348,20 @@ class RelationshipServiceIntegrationTest {
             });
 
         }
+
+        @Test
+        void shouldReturnServicesWithTheMostInboundEventsFirst_UpToTheLimit() {
+            assertDataIsLoaded();
+
+            var mostInbound = handle.createQuery("""
+                            select service_name from connection_events where event_direction = 'INBOUND'                             group by service_name order by count(*) desc, service_name limit 2""")
+                    .mapTo(String.class)
+                    .list();
+
+            var details = service.currentServiceDetails(ServiceDetailsOrder.INBOUND, 2);
+
+            assertThat(details).extracting(ServiceDetails::getServiceName).containsExactlyElementsOf(mostInbound);
+        }
     }
 
     @Nested
@@ -333,6 +399,315 @@ class RelationshipServiceIntegrationTest {
         }
     }
 
+    @Nested
+    class ObservationWindows {
+
+        private static final long WINDOW_START = 1_900_000_000_000L;
+
+        private final ObservationWindow window = new ObservationWindow(WINDOW_START, WINDOW_START + 60_000);
+
+        @BeforeEach
+        void setUp() {
+            service.createEvent(newConnectionEvent("window-producer", OUTBOUND, "window-queue", WINDOW_START));
+            service.createEvent(newConnectionEvent("window-consumer", INBOUND, "window-queue", WINDOW_START + 1));
+            service.createEvent(newConnectionEvent("stale-consumer", INBOUND, "window-queue", WINDOW_START - 1));
+        }
+
+        @Test
+        void shouldOnlyIncludeServicesAndDependenciesObservedInTheWindow() {
+            assertThat(service.buildAllDependencies(window))
+                    .extracting(ServiceDependencies::getServiceName, ServiceDependencies::getDependencies)
+                    .containsExactlyInAnyOrder(
+                            tuple("window-producer", Set.of()),
+                            tuple("window-consumer", Set.of("window-producer")));
+
+            assertThat(service.buildAllDependencies(ObservationWindow.ALL))
+                    .extracting(ServiceDependencies::getServiceName)
+                    .contains("stale-consumer");
+        }
+
+        @Test
+        void shouldOnlyIncludeRelationshipsObservedInTheWindow() {
+            assertThat(service.buildRelationships("window-producer", window).getChildren())
+                    .extracting(ConnectionSummary::getServiceName)
+                    .containsExactly("window-consumer");
+
+            assertThat(service.findRelationshipDetails("window-consumer", "window-producer", window))
+                    .extracting(RelationshipDetails::getLastObserved)
+                    .containsExactly(WINDOW_START);
+            assertThat(service.findRelationshipDetails("stale-consumer", "window-producer", window)).isEmpty();
+        }
+
+        @Test
+        void shouldOnlyIncludeDependencyDetailsObservedInTheWindow() {
+            assertThat(service.buildAllDependenciesWithDetails(window))
+                    .extracting(ServiceDependencyDetails::getServiceName)
+                    .containsExactlyInAnyOrder("window-producer", "window-consumer");
+        }
+
+        @Test
+        void shouldOnlyCountEventsObservedInTheWindow() {
+            assertThat(service.currentServiceDetails(ServiceDetailsOrder.NAME, Integer.MAX_VALUE, window))
+                    .extracting(ServiceDetails::getServiceName, ServiceDetails::getInboundEvents,
+                            ServiceDetails::getOutboundEvents)
+                    .containsExactly(
+                            tuple("window-consumer", 1, 0),
+                            tuple("window-producer", 0, 1));
+        }
+    }
+
+    @Nested
+    class BuildDependencyGraph {
+
+        @Test
+        void shouldIncludeTheSameDependenciesAsBuildAllDependencies() {
+            assertDataIsLoaded();
+
+            var graph = service.buildDependencyGraph(Set.of(), ObservationWindow.ALL);
+
+            var expectedEdges = service.buildAllDependencies().stream()
+                    .flatMap(deps -> deps.getDependencies().stream().map(dep -> tuple(deps.getServiceName(), dep)))
+                    .toList();
+
+            assertThat(graph.getServices()).containsExactlyInAnyOrderElementsOf(service.currentServiceNames());
+            assertThat(graph.getEdges())
+                    .extracting(DependencyEdge::getFrom, DependencyEdge::getTo)
+                    .containsAll(expectedEdges)
+                    .allMatch(expectedEdges::contains);
+            assertThat(graph.getEdges()).allMatch(edge -> edge.getConnections() > 0);
+        }
+
+        @Test
+        void shouldOnlyIncludeTheGivenCommunicationTypes() {
+            assertDataIsLoaded();
+
+            var graph = service.buildDependencyGraph(Set.of("JMS"), ObservationWindow.ALL);
+
+            assertThat(graph.getEdges()).isNotEmpty()
+                    .extracting(DependencyEdge::getCommunicationType)
+                    .containsOnly("JMS");
+        }
+
+        @Test
+        void shouldOnlyIncludeConnectionsObservedInTheGivenWindow() {
+            assertDataIsLoaded();
+            var windowStart = 1_900_000_000_000L;
+            service.createEvent(newConnectionEvent("window-producer", OUTBOUND, "window-queue", windowStart));
+            service.createEvent(newConnectionEvent("window-consumer", INBOUND, "window-queue", windowStart + 1));
+
+            var graph = service.buildDependencyGraph(Set.of(), new ObservationWindow(windowStart, Long.MAX_VALUE));
+
+            assertThat(graph.getServices()).containsExactly("window-consumer", "window-producer");
+            assertThat(graph.getEdges())
+                    .extracting(DependencyEdge::getFrom, DependencyEdge::getTo, DependencyEdge::getLastObserved)
+                    .containsExactly(tuple("window-consumer", "window-producer", windowStart + 1));
+        }
+    }
+
+    @Nested
+    class BuildTransitiveDependencies {
+
+        @Test
+        void shouldIncludeTheDirectDependencies_AtDistanceOne() {
+            assertDataIsLoaded();
+
+            for (var dependencies : service.buildAllDependencies()) {
+                var transitive = service.buildTransitiveDependencies(dependencies.getServiceName(), Integer.MAX_VALUE);
+
+                assertThat(transitive)
+                        .filteredOn(distance -> distance.getDistance() == 1)
+                        .extracting(ServiceDistance::getServiceName)
+                        .containsExactlyInAnyOrderElementsOf(dependencies.getDependencies());
+                assertThat(service.buildTransitiveDependencies(dependencies.getServiceName(), 1))
+                        .hasSize(dependencies.getDependencies().size());
+            }
+        }
+
+        @Test
+        void shouldBeTheInverseOfBuildTransitiveDependents() {
+            assertDataIsLoaded();
+
+            for (var serviceName : service.currentServiceNames()) {
+                for (var dependency : service.buildTransitiveDependencies(serviceName, Integer.MAX_VALUE)) {
+                    assertThat(service.buildTransitiveDependents(dependency.getServiceName(), Integer.MAX_VALUE))
+                            .extracting(ServiceDistance::getServiceName)
+                            .contains(serviceName);
+                }
+            }
+        }
+    }
+
+    @Nested
+    class FindDependencyCycles {
+
+        @Test
+        void shouldFindServicesThatDependOnEachOther() {
+            assertDataIsLoaded();
+            var cyclesBefore = service.findDependencyCycles();
+
+            service.createEvent(newConnectionEvent("cycle-service-a", OUTBOUND, "cycle-queue-1"));
+            service.createEvent(newConnectionEvent("cycle-service-b", INBOUND, "cycle-queue-1"));
+            service.createEvent(newConnectionEvent("cycle-service-b", OUTBOUND, "cycle-queue-2"));
+            service.createEvent(newConnectionEvent("cycle-service-a", INBOUND, "cycle-queue-2"));
+
+            var cycles = service.findDependencyCycles();
+
+            assertThat(cycles).hasSize(cyclesBefore.size() + 1);
+            var cycle = cycles.stream()
+                    .filter(group -> group.getServices().contains("cycle-service-a"))
+                    .findFirst()
+                    .orElseThrow();
+            assertThat(cycle.getServices()).containsExactly("cycle-service-a", "cycle-service-b");
+            assertThat(cycle.getEdgesByCommunicationType()).containsOnlyKeys("JMS");
+            assertThat(cycle.getEdgesByCommunicationType().get("JMS"))
+                    .extracting(DependencyEdge::getFrom, DependencyEdge::getTo)
+                    .containsExactly(
+                            tuple("cycle-service-a", "cycle-service-b"),
+                            tuple("cycle-service-b", "cycle-service-a"));
+        }
+    }
+
+    @Nested
+    class DiffDependencies {
+
+        private static final long BEFORE_START = 2_000_000_000_000L;
+        private static final long AFTER_START = BEFORE_START + 3_600_000;
+
+        private final ObservationWindow before = new ObservationWindow(BEFORE_START, BEFORE_START + 60_000);
+        private final ObservationWindow after = new ObservationWindow(AFTER_START, AFTER_START + 60_000);
+
+        @Test
+        void shouldListAddedRemovedAndChangedDependencies() {
+            assertDataIsLoaded();
+
+            service.createEvent(newConnectionEvent("diff-producer", OUTBOUND, "diff-queue-old", BEFORE_START));
+            service.createEvent(newConnectionEvent("diff-old-consumer", INBOUND, "diff-queue-old", BEFORE_START));
+
+            service.createEvent(newConnectionEvent("diff-producer", OUTBOUND, "diff-queue-new", AFTER_START));
+            service.createEvent(newConnectionEvent("diff-new-consumer", INBOUND, "diff-queue-new", AFTER_START));
+
+            service.createEvent(newConnectionEvent("diff-producer", OUTBOUND, "diff-queue-changed", BEFORE_START));
+            service.createEvent(newConnectionEvent("diff-client", INBOUND, "diff-queue-changed", BEFORE_START));
+            service.createEvent(newHttpEvent("diff-client", OUTBOUND, AFTER_START));
+            service.createEvent(newHttpEvent("diff-producer", INBOUND, AFTER_START));
+
+            var diff = service.diffDependencies(before, after);
+
+            assertThat(diff.getAdded())
+                    .extracting(DependencyChange::getServiceName, DependencyChange::getDependency,
+                            DependencyChange::getCommunicationTypesAfter)
+                    .containsExactly(tuple("diff-new-consumer", "diff-producer", Set.of("JMS")));
+            assertThat(diff.getRemoved())
+                    .extracting(DependencyChange::getServiceName, DependencyChange::getDependency,
+                            DependencyChange::getCommunicationTypesBefore)
+                    .containsExactly(tuple("diff-old-consumer", "diff-producer", Set.of("JMS")));
+            assertThat(diff.getChanged())
+                    .extracting(DependencyChange::getServiceName, DependencyChange::getDependency,
+                            DependencyChange::getCommunicationTypesBefore, DependencyChange::getCommunicationTypesAfter)
+                    .containsExactly(tuple("diff-client", "diff-producer", Set.of("JMS"), Set.of("HTTP")));
+        }
+
+        @Test
+        void shouldNotListDependenciesObservedThroughoutBothWindows() {
+            assertDataIsLoaded();
+
+            service.createEvent(newConnectionEvent("diff-producer", OUTBOUND, "diff-queue-steady", BEFORE_START));
+            service.createEvent(newConnectionEvent("diff-steady-consumer", INBOUND, "diff-queue-steady", BEFORE_START));
+            service.createEvent(newConnectionEvent("diff-producer", OUTBOUND, "diff-queue-steady", AFTER_START));
+            service.createEvent(newConnectionEvent("diff-steady-consumer", INBOUND, "diff-queue-steady", AFTER_START));
+
+            var diff = service.diffDependencies(before, after);
+
+            assertThat(diff.getAdded()).isEmpty();
+            assertThat(diff.getRemoved()).isEmpty();
+            assertThat(diff.getChanged()).isEmpty();
+        }
+
+        private ConnectionEvent newHttpEvent(String serviceName, Direction direction, long observedAt) {
+            return ConnectionEvent.builder()
+                    .serviceName(serviceName)
+                    .eventDirection(direction)
+                    .communicationType("HTTP")
+                    .connectionIdentifier("GET /diff")
+                    .observedAt(observedAt)
+                    .build();
+        }
+    }
+
+    @Nested
+    class FindDependencyPaths {
+
+        @Test
+        void shouldReturnThePathWithTheDetailsOfEveryHop() {
+            assertDataIsLoaded();
+
+            service.createEvent(newConnectionEvent("path-service-a", OUTBOUND, "path-queue-1"));
+            service.createEvent(newConnectionEvent("path-service-b", INBOUND, "path-queue-1"));
+            service.createEvent(newConnectionEvent("path-service-b", OUTBOUND, "path-queue-2"));
+            service.createEvent(newConnectionEvent("path-service-c", INBOUND, "path-queue-2"));
+
+            var paths = service.findDependencyPaths("path-service-c", "path-service-a", 5);
+
+            assertThat(paths).hasSize(1);
+            var path = first(paths);
+            assertThat(path.getServices()).containsExactly("path-service-c", "path-service-b", "path-service-a");
+            assertThat(path.getHops())
+                    .extracting(DependencyRelationshipDetails::getServiceName)
+                    .containsExactly("path-service-b", "path-service-a");
+            assertThat(path.getHops())
+                    .flatExtracting(DependencyRelationshipDetails::getDetails)
+                    .extracting(RelationshipDetails::getConnectionIdentifier, RelationshipDetails::getEventDirection)
+                    .containsExactly(tuple("path-queue-2", INBOUND), tuple("path-queue-1", INBOUND));
+        }
+
+        @Test
+        void shouldReturnNothing_WhenThereIsNoPath() {
+            assertDataIsLoaded();
+
+            assertThat(service.findDependencyPaths(NON_EXISTENT_SERVICE_NAME, first(service.currentServiceNames()), 1))
+                    .isEmpty();
+        }
+    }
+
+    @Nested
+    class WithGraphIndex {
+
+        private RelationshipService indexedService;
+
+        @BeforeEach
+        void setUp() {
+            var dao = daoExtension.getDao();
+            var graphIndex = new ConnectionGraphIndex(dao);
+            graphIndex.start();
+
+            var writer = new IndexingConnectionEventWriter(new GenericConnectionEventWriter(dao), graphIndex);
+            indexedService = new RelationshipService(dao, writer,
+                    CommunicationDefinition.toMap(ElucidationConfiguration.defaultCommunicationDefinitions()), graphIndex);
+        }
+
+        @Test
+        void shouldReturnTheSameResultsAsTheDatabase() {
+            assertDataIsLoaded();
+
+            assertThat(indexedService.currentServiceNames())
+                    .containsExactlyInAnyOrderElementsOf(service.currentServiceNames());
+            assertThat(indexedService.buildAllDependencies())
+                    .containsExactlyInAnyOrderElementsOf(service.buildAllDependencies());
+
+            var serviceName = first(service.currentServiceNames());
+            assertThat(indexedService.buildRelationships(serviceName).getChildren())
+                    .usingRecursiveFieldByFieldElementComparator()
+                    .containsExactlyInAnyOrderElementsOf(service.buildRelationships(serviceName).getChildren());
+        }
+
+        @Test
+        void shouldIndexNewEvents() {
+            indexedService.createEvent(newConnectionEvent(null, NON_EXISTENT_SERVICE_NAME, OUTBOUND, "some-identifier"));
+
+            assertThat(indexedService.currentServiceNames()).contains(NON_EXISTENT_SERVICE_NAME);
+        }
+    }
+
     private int countExistingEvents() {
         return handle.createQuery("select count(*) from connection_events")
                 .mapTo(Integer.class)
@@ -0,0 +1,67 @@
+package org.kiwiproject.elucidation.server.service;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.util.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@DisplayName("ResultCache")
+class ResultCacheTest {
+
+    private GraphVersion graphVersion;
+    private MetricRegistry metrics;
+    private ResultCache cache;
+    private AtomicInteger computations;
+
+    @BeforeEach
+    void setUp() {
+        graphVersion = new GraphVersion();
+        metrics = new MetricRegistry();
+        cache = new ResultCache(graphVersion, 10, Duration.minutes(1), metrics);
+        computations = new AtomicInteger();
+    }
+
+    @Test
+    void shouldReturnCachedResult_WhileTheGraphVersionIsUnchanged() {
+        assertThat(cache.get("test", this::compute)).isEqualTo(1);
+        assertThat(cache.get("test", this::compute)).isEqualTo(1);
+
+        assertThat(metrics.meter(name(ResultCache.class, "hits")).getCount()).isOne();
+        assertThat(metrics.meter(name(ResultCache.class, "misses")).getCount()).isOne();
+        assertThat(metrics.timer(name(ResultCache.class, "rebuild-time")).getCount()).isOne();
+    }
+
+    @Test
+    void shouldRecompute_WhenTheGraphVersionChanges() {
+        cache.get("test", this::compute);
+        graphVersion.increment();
+
+        assertThat(cache.get("test", this::compute)).isEqualTo(2);
+    }
+
+    @Test
+    void shouldCacheResultsPerNameAndParameters() {
+        assertThat(cache.get("test", this::compute, "a")).isEqualTo(1);
+        assertThat(cache.get("test", this::compute, "b")).isEqualTo(2);
+        assertThat(cache.get("other", this::compute, "a")).isEqualTo(3);
+        assertThat(cache.get("test", this::compute, "a")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNeverCache_WhenUncached() {
+        var uncached = ResultCache.uncached(graphVersion);
+
+        assertThat(uncached.get("test", this::compute)).isEqualTo(1);
+        assertThat(uncached.get("test", this::compute)).isEqualTo(2);
+    }
+
+    private Integer compute() {
+        return computations.incrementAndGet();
+    }
+}
@@ -2,8 +2,18 @@ package org.kiwiproject.elucidation.server.service;
 
 import static java.util.stream.Collectors.toSet;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.statement.StatementContext;
+import org.jdbi.v3.core.statement.UnableToExecuteStatementException;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -20,8 +30,13 @@ import org.kiwiproject.test.junit.jupiter.Jdbi3MultiDaoExtension;
 import org.kiwiproject.test.junit.jupiter.PostgresLiquibaseTestExtension;
 
 import java.io.IOException;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 @DisplayName("TrackedConnectionIdentifierServiceIntegration")
@@ -100,6 +115,83 @@ class TrackedConnectionIdentifierServiceIntegrationTest {
                     .extracting("connectionIdentifier")
                     .containsOnly(identifiers.toArray());
         }
+
+        @Test
+        void shouldNotChangeTheGraphVersion_WhenTheIdentifiersAreUnchanged() {
+            var identifiers = List.of("identifier-1", "identifier-2");
+            service.loadNewIdentifiers(TEST_ONLY_SERVICE, "HTTP", identifiers);
+            var version = service.getGraphVersion().current();
+
+            service.loadNewIdentifiers(TEST_ONLY_SERVICE, "HTTP", identifiers);
+
+            assertThat(service.getGraphVersion().current()).isEqualTo(version);
+        }
+    }
+
+    @Nested
+    class ConcurrentLoadNewIdentifiers {
+
+        private static final String CONCURRENT_SERVICE = "concurrent-service";
+        private static final int NUM_REPLICAS = 8;
+
+        /**
+         * Each replica uses its own handles, so its changes are committed and not rolled back by the extension.
+         */
+        @AfterEach
+        void tearDown() {
+            daoExtension.getJdbi().useHandle(jdbiHandle -> jdbiHandle.execute(
+                    "delete from tracked_connection_identifiers where service_name = ?", CONCURRENT_SERVICE));
+        }
+
+        @Test
+        void shouldLoadTheSameIdentifiers_FromSeveralReplicasAtOnce() throws Exception {
+            var jdbi = daoExtension.getJdbi();
+            var identifiers = IntStream.rangeClosed(1, 50).mapToObj(i -> "GET /path/" + i).toList();
+            var start = new CountDownLatch(1);
+            var executor = Executors.newFixedThreadPool(NUM_REPLICAS);
+
+            try {
+                var loads = IntStream.range(0, NUM_REPLICAS)
+                        .mapToObj(i -> new TrackedConnectionIdentifierService(
+                                jdbi.onDemand(TrackedConnectionIdentifierDao.class),
+                                jdbi.onDemand(ConnectionEventDao.class)))
+                        .map(replica -> executor.submit(() -> {
+                            start.await();
+                            return replica.loadNewIdentifiers(CONCURRENT_SERVICE, "HTTP", identifiers);
+                        }))
+                        .toList();
+
+                start.countDown();
+
+                for (var load : loads) {
+                    assertThat(load.get(30, TimeUnit.SECONDS)).isEqualTo(identifiers.size());
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            var savedIdentifiers = jdbi.withHandle(jdbiHandle -> jdbiHandle.createQuery(
+                            "select connection_identifier from tracked_connection_identifiers where service_name = ?")
+                    .bind(0, CONCURRENT_SERVICE)
+                    .mapTo(String.class)
+                    .list());
+
+            assertThat(savedIdentifiers).containsExactlyInAnyOrderElementsOf(identifiers);
+        }
+
+        @Test
+        void shouldNotRetry_OtherErrors() {
+            var dao = mock(TrackedConnectionIdentifierDao.class);
+            var error = new UnableToExecuteStatementException(
+                    new SQLException("statement failed", "40001"), mock(StatementContext.class));
+            when(dao.replaceIdentifiers(anyString(), anyString(), anySet())).thenThrow(error);
+
+            var replica = new TrackedConnectionIdentifierService(dao, mock(ConnectionEventDao.class));
+
+            assertThatThrownBy(() -> replica.loadNewIdentifiers(CONCURRENT_SERVICE, "HTTP", List.of("GET /path")))
+                    .isSameAs(error);
+            verify(dao, times(1)).replaceIdentifiers(anyString(), anyString(), anySet());
+        }
     }
 
     @Nested
@@ -1,20 +1,26 @@
 package org.kiwiproject.elucidation.client;
 
 import static jakarta.ws.rs.client.Entity.json;
+import static jakarta.ws.rs.core.Response.Status.UNSUPPORTED_MEDIA_TYPE;
 import static java.lang.String.format;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import jakarta.ws.rs.client.Client;
 import jakarta.ws.rs.client.ClientBuilder;
+import jakarta.ws.rs.client.Entity;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.Response.Status.Family;
 import lombok.extern.slf4j.Slf4j;
+import org.kiwiproject.elucidation.common.codec.ConnectionEventBatchCodec;
 import org.kiwiproject.elucidation.common.model.ConnectionEvent;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 
 /**
@@ -34,6 +40,7 @@ public class ElucidationRecorder {
     private final Client client;
     private final Supplier<String> serverBaseUriSupplier;
     private final ExecutorService executorService;
+    private final AtomicBoolean binaryBatchesSupported = new AtomicBoolean(true);
 
     /**
      * Creates a new instance of the recorder specifying a given base uri for the elucidation server.
@@ -130,6 +137,55 @@ public class ElucidationRecorder {
         }
     }
 
+    /**
+     * Attempts to send the given batch of connection events to the elucidation server in a single request.
+     * <p>
+     * The events are sent in the compact binary format of {@link ConnectionEventBatchCodec}. If the server does not
+     * support that format (i.e. responds with 415 Unsupported Media Type), the events are sent as JSON instead, and so
+     * are all later batches sent by this recorder.
+     *
+     * @param events        The {@link ConnectionEvent}s that are being sent
+     * @return a future that will return the result of recording the new events
+     */
+    public CompletableFuture<ElucidationResult> recordNewEvents(List<ConnectionEvent> events) {
+        Supplier<ElucidationResult> task = () -> sendEvents(events);
+        return CompletableFuture.supplyAsync(task, executorService);
+    }
+
+    private ElucidationResult sendEvents(List<ConnectionEvent> events) {
+        try {
+            if (binaryBatchesSupported.get()) {
+                var response = postEvents(Entity.entity(encode(events), ConnectionEventBatchCodec.MEDIA_TYPE));
+
+                if (response.getStatus() != UNSUPPORTED_MEDIA_TYPE.getStatusCode()) {
+                    return elucidationResult(response, UNSUCCESSFUL_EVENT_RECORDING_RESPONSE_ERROR_TEMPLATE);
+                }
+
+                LOG.info("Elucidation server does not accept binary event batches; falling back to JSON");
+                response.close();
+                binaryBatchesSupported.set(false);
+            }
+
+            var response = postEvents(json(events));
+            return elucidationResult(response, UNSUCCESSFUL_EVENT_RECORDING_RESPONSE_ERROR_TEMPLATE);
+        } catch (Exception e) {
+            return ElucidationResult.fromException(e);
+        }
+    }
+
+    private Response postEvents(Entity<?> entity) {
+        return client.target(serverBaseUriSupplier.get())
+                .path("/elucidate/events")
+                .request()
+                .post(entity);
+    }
+
+    private static byte[] encode(List<ConnectionEvent> events) throws IOException {
+        var output = new ByteArrayOutputStream();
+        ConnectionEventBatchCodec.encode(events, output);
+        return output.toByteArray();
+    }
+
     /**
      * Attempts to send the given identifiers to be tracked for the given service name and given communication type.
      *
@@ -18,13 +18,18 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.kiwiproject.elucidation.common.codec.ConnectionEventBatchCodec;
 import org.kiwiproject.elucidation.common.model.ConnectionEvent;
 import org.kiwiproject.elucidation.common.model.Direction;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 @ExtendWith(DropwizardExtensionsSupport.class)
@@ -40,6 +45,12 @@ class ElucidationRecorderTest {
         static final AtomicReference<Response.Status> STATUS =
                 new AtomicReference<>(Response.Status.OK);
 
+        static final AtomicBoolean BINARY_SUPPORTED = new AtomicBoolean(true);
+
+        static final AtomicReference<String> RECEIVED_MEDIA_TYPE = new AtomicReference<>();
+
+        static final List<ConnectionEvent> RECEIVED_EVENTS = new CopyOnWriteArrayList<>();
+
         @Path("/event")
         @POST
         public Response recordEvent(ConnectionEvent event) {
@@ -48,6 +59,27 @@ class ElucidationRecorderTest {
             return Response.status(STATUS.get()).build();
         }
 
+        @Path("/events")
+        @POST
+        @Consumes(ConnectionEventBatchCodec.MEDIA_TYPE)
+        public Response recordBinaryEvents(InputStream body) throws IOException {
+            if (!BINARY_SUPPORTED.get()) {
+                return Response.status(Response.Status.UNSUPPORTED_MEDIA_TYPE).build();
+            }
+
+            RECEIVED_MEDIA_TYPE.set(ConnectionEventBatchCodec.MEDIA_TYPE);
+            RECEIVED_EVENTS.addAll(ConnectionEventBatchCodec.decode(body));
+            return Response.status(STATUS.get()).build();
+        }
+
+        @Path("/events")
+        @POST
+        public Response recordEvents(List<ConnectionEvent> events) {
+            RECEIVED_MEDIA_TYPE.set(APPLICATION_JSON);
+            RECEIVED_EVENTS.addAll(events);
+            return Response.status(STATUS.get()).build();
+        }
+
         @Path("/trackedIdentifier/{serviceName}/{communicationType}")
         @POST
         public Response track(@PathParam("serviceName") String serviceName,
@@ -68,6 +100,9 @@ class ElucidationRecorderTest {
     void setUp() {
         recorder = new ElucidationRecorder(CLIENT.baseUri().toString());
         TestElucidationServerResource.STATUS.set(Response.Status.OK);
+        TestElucidationServerResource.BINARY_SUPPORTED.set(true);
+        TestElucidationServerResource.RECEIVED_MEDIA_TYPE.set(null);
+        TestElucidationServerResource.RECEIVED_EVENTS.clear();
     }
 
     @Nested
@@ -126,6 +161,64 @@ class ElucidationRecorderTest {
         }
     }
 
+    @Nested
+    class RecordEvents {
+
+        @Test
+        void shouldSendBinaryEncodedEvents() throws InterruptedException, ExecutionException, TimeoutException {
+            var events = newEvents();
+
+            var result = recorder.recordNewEvents(events).get(1, TimeUnit.SECONDS);
+
+            assertThat(result.getStatus()).isEqualTo(Status.SUCCESS);
+            assertThat(TestElucidationServerResource.RECEIVED_MEDIA_TYPE).hasValue(ConnectionEventBatchCodec.MEDIA_TYPE);
+            assertThat(TestElucidationServerResource.RECEIVED_EVENTS).containsExactlyElementsOf(events);
+        }
+
+        @Test
+        void shouldFallBackToJson_WhenServerDoesNotSupportBinaryEncodedEvents() throws InterruptedException, ExecutionException, TimeoutException {
+            TestElucidationServerResource.BINARY_SUPPORTED.set(false);
+            var events = newEvents();
+
+            var result = recorder.recordNewEvents(events).get(1, TimeUnit.SECONDS);
+
+            assertThat(result.getStatus()).isEqualTo(Status.SUCCESS);
+            assertThat(TestElucidationServerResource.RECEIVED_MEDIA_TYPE).hasValue(APPLICATION_JSON);
+            assertThat(TestElucidationServerResource.RECEIVED_EVENTS).containsExactlyElementsOf(events);
+        }
+
+        @Test
+        void shouldReceiveAnErrorResult_WhenErrorMessageReturnedFromService() throws InterruptedException, ExecutionException, TimeoutException {
+            TestElucidationServerResource.STATUS.set(Response.Status.INTERNAL_SERVER_ERROR);
+
+            var result = recorder.recordNewEvents(newEvents()).get(1, TimeUnit.SECONDS);
+
+            assertThat(result.getStatus()).isEqualTo(Status.ERROR);
+            assertThat(result.getErrorMessage().orElse("")).contains("Status: 500");
+        }
+
+        private List<ConnectionEvent> newEvents() {
+            var now = System.currentTimeMillis();
+
+            return List.of(
+                    ConnectionEvent.builder()
+                            .eventDirection(Direction.INBOUND)
+                            .communicationType("JMS")
+                            .connectionIdentifier("SOME_MESSAGE")
+                            .observedAt(now)
+                            .serviceName("my-service")
+                            .build(),
+                    ConnectionEvent.builder()
+                            .eventDirection(Direction.OUTBOUND)
+                            .communicationType("HTTP")
+                            .connectionIdentifier("/some/path")
+                            .observedAt(now + 1)
+                            .serviceName("my-service")
+                            .build()
+            );
+        }
+    }
+
     @Nested
     class Track {
         @Test
@@ -0,0 +1,224 @@
+package org.kiwiproject.elucidation.common.codec;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import org.kiwiproject.elucidation.common.model.ConnectionEvent;
+import org.kiwiproject.elucidation.common.model.Direction;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes and decodes batches of {@link ConnectionEvent}s in a compact binary format.
+ * <p>
+ * Compared to JSON, the format avoids repeating field names and the (usually long) service names, communication
+ * types, and connection identifiers for every event. A batch is laid out as follows, where all integers are unsigned
+ * LEB128 varints:
+ * <ol>
+ *     <li>a format version byte</li>
+ *     <li>the number of strings in the batch dictionary, followed by each string as its UTF-8 byte length and
+ *     bytes</li>
+ *     <li>the number of events, and the base timestamp, i.e. the earliest {@code observedAt} in the batch</li>
+ *     <li>for each event: the dictionary index of its service name, a single direction byte, the dictionary indexes
+ *     of its communication type and connection identifier, and its {@code observedAt} as a delta from the base
+ *     timestamp</li>
+ * </ol>
+ * Event ids are not encoded, since they are assigned by the server.
+ */
+public final class ConnectionEventBatchCodec {
+
+    /**
+     * The media type of a batch of connection events encoded by this codec.
+     */
+    public static final String MEDIA_TYPE = "application/x-elucidation-events";
+
+    private static final int VERSION = 1;
+
+    private static final int INBOUND = 1;
+    private static final int OUTBOUND = 2;
+
+    private ConnectionEventBatchCodec() {
+        // utility class
+    }
+
+    /**
+     * Encode the given events to the given stream. The stream is not closed.
+     *
+     * @param events the events to encode
+     * @param output the stream to write the encoded batch to, which should generally be buffered
+     * @throws IOException if writing to the stream fails
+     */
+    public static void encode(List<ConnectionEvent> events, OutputStream output) throws IOException {
+        var dictionary = new LinkedDictionary();
+        var indexes = new int[events.size() * 3];
+        var baseTimestamp = Long.MAX_VALUE;
+
+        for (var i = 0; i < events.size(); i++) {
+            var event = events.get(i);
+            indexes[i * 3] = dictionary.indexOf(event.getServiceName());
+            indexes[i * 3 + 1] = dictionary.indexOf(event.getCommunicationType());
+            indexes[i * 3 + 2] = dictionary.indexOf(event.getConnectionIdentifier());
+            baseTimestamp = Math.min(baseTimestamp, event.getObservedAt());
+        }
+
+        output.write(VERSION);
+
+        writeVarLong(output, dictionary.strings.size());
+        for (var value : dictionary.strings) {
+            var bytes = value.getBytes(UTF_8);
+            writeVarLong(output, bytes.length);
+            output.write(bytes);
+        }
+
+        writeVarLong(output, events.size());
+        if (events.isEmpty()) {
+            return;
+        }
+
+        writeVarLong(output, zigZag(baseTimestamp));
+        for (var i = 0; i < events.size(); i++) {
+            var event = events.get(i);
+            writeVarLong(output, indexes[i * 3]);
+            output.write(directionCode(event.getEventDirection()));
+            writeVarLong(output, indexes[i * 3 + 1]);
+            writeVarLong(output, indexes[i * 3 + 2]);
+            writeVarLong(output, event.getObservedAt() - baseTimestamp);
+        }
+    }
+
+    /**
+     * Decode a batch of events from the given stream. The stream is not closed.
+     *
+     * @param input the stream to read the encoded batch from, which should generally be buffered
+     * @return the decoded events
+     * @throws IOException if reading from the stream fails or the stream does not contain a valid batch
+     */
+    public static List<ConnectionEvent> decode(InputStream input) throws IOException {
+        var version = readByte(input);
+        if (version != VERSION) {
+            throw new StreamCorruptedException("Unsupported connection event batch version: " + version);
+        }
+
+        var dictionarySize = readVarInt(input);
+        var dictionary = new ArrayList<String>();
+        for (var i = 0; i < dictionarySize; i++) {
+            var length = readVarInt(input);
+            var bytes = input.readNBytes(length);
+            if (bytes.length != length) {
+                throw new EOFException("Connection event batch ended in the middle of its dictionary");
+            }
+            dictionary.add(new String(bytes, UTF_8));
+        }
+
+        var numEvents = readVarInt(input);
+        var events = new ArrayList<ConnectionEvent>();
+        if (numEvents == 0) {
+            return events;
+        }
+
+        var baseTimestamp = unZigZag(readVarLong(input));
+        for (var i = 0; i < numEvents; i++) {
+            events.add(ConnectionEvent.builder()
+                    .serviceName(lookup(dictionary, readVarInt(input)))
+                    .eventDirection(direction(readByte(input)))
+                    .communicationType(lookup(dictionary, readVarInt(input)))
+                    .connectionIdentifier(lookup(dictionary, readVarInt(input)))
+                    .observedAt(baseTimestamp + readVarLong(input))
+                    .build());
+        }
+
+        return events;
+    }
+
+    private static int directionCode(Direction direction) {
+        return direction == Direction.INBOUND ? INBOUND : OUTBOUND;
+    }
+
+    private static Direction direction(int code) throws StreamCorruptedException {
+        return switch (code) {
+            case INBOUND -> Direction.INBOUND;
+            case OUTBOUND -> Direction.OUTBOUND;
+            default -> throw new StreamCorruptedException("Invalid direction in connection event batch: " + code);
+        };
+    }
+
+    private static String lookup(List<String> dictionary, int index) throws StreamCorruptedException {
+        if (index >= dictionary.size()) {
+            throw new StreamCorruptedException("Invalid dictionary index in connection event batch: " + index);
+        }
+
+        return dictionary.get(index);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(OutputStream output, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            output.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        output.write((int) value);
+    }
+
+    private static int readVarInt(InputStream input) throws IOException {
+        var value = readVarLong(input);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new StreamCorruptedException("Count or index out of range in connection event batch: " + value);
+        }
+
+        return (int) value;
+    }
+
+    private static long readVarLong(InputStream input) throws IOException {
+        long value = 0;
+
+        for (var shift = 0; shift < 64; shift += 7) {
+            var b = readByte(input);
+            value |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new StreamCorruptedException("Malformed varint in connection event batch");
+    }
+
+    private static int readByte(InputStream input) throws IOException {
+        var b = input.read();
+        if (b < 0) {
+            throw new EOFException("Connection event batch ended unexpectedly");
+        }
+
+        return b;
+    }
+
+    /**
+     * Assigns each distinct string an index in the order it is first seen.
+     */
+    private static class LinkedDictionary {
+
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+
+        int indexOf(String value) {
+            return indexes.computeIfAbsent(value, key -> {
+                strings.add(key);
+                return strings.size() - 1;
+            });
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.kiwiproject.elucidation.common.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.kiwiproject.elucidation.common.test.ConnectionEvents.newConnectionEvent;
+
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.elucidation.common.model.ConnectionEvent;
+import org.kiwiproject.elucidation.common.model.Direction;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.Arrays;
+import java.util.List;
+
+class ConnectionEventBatchCodecTest {
+
+    @Test
+    void shouldRoundTripEvents() throws IOException {
+        var events = List.of(
+                newConnectionEvent("a-service", Direction.OUTBOUND, "/some/endpoint", 1_700_000_000_000L),
+                newConnectionEvent("another-service", Direction.INBOUND, "/some/endpoint", 1_700_000_005_000L),
+                newConnectionEvent("a-service", Direction.INBOUND, "SOME_MESSAGE", 1_699_999_999_000L)
+        );
+
+        var decoded = decode(encode(events));
+
+        assertThat(decoded).usingRecursiveFieldByFieldElementComparatorIgnoringFields("id")
+                .containsExactlyElementsOf(events);
+    }
+
+    @Test
+    void shouldRoundTripAnEmptyBatch() throws IOException {
+        assertThat(decode(encode(List.of()))).isEmpty();
+    }
+
+    @Test
+    void shouldRoundTripTimestampsBeforeTheEpoch() throws IOException {
+        var events = List.of(newConnectionEvent("a-service", Direction.OUTBOUND, "/some/endpoint", -42L));
+
+        assertThat(decode(encode(events))).extracting(ConnectionEvent::getObservedAt).containsExactly(-42L);
+    }
+
+    @Test
+    void shouldStoreRepeatedStringsOnlyOnce() throws IOException {
+        var identifier = "/a/rather/long/endpoint/path/that/repeats/for/every/event";
+        var oneEvent = encode(List.of(newConnectionEvent("a-service", Direction.OUTBOUND, identifier)));
+        var manyEvents = encode(List.of(
+                newConnectionEvent("a-service", Direction.OUTBOUND, identifier),
+                newConnectionEvent("a-service", Direction.INBOUND, identifier),
+                newConnectionEvent("a-service", Direction.OUTBOUND, identifier)
+        ));
+
+        assertThat(manyEvents.length - oneEvent.length).isLessThan(identifier.length());
+    }
+
+    @Test
+    void shouldRejectUnsupportedVersions() {
+        assertThatThrownBy(() -> decode(new byte[] { 42 }))
+                .isInstanceOf(StreamCorruptedException.class)
+                .hasMessageContaining("version");
+    }
+
+    @Test
+    void shouldRejectNegativeDictionaryIndexes() throws IOException {
+        var encoded = new ByteArrayOutputStream();
+        encoded.write(1);
+        encoded.write(new byte[] { 1, 1, 'a' });
+        encoded.write(new byte[] { 1, 0 });
+        // a ten byte varint of all ones decodes to -1
+        encoded.write(new byte[] { -1, -1, -1, -1, -1, -1, -1, -1, -1, 1 });
+
+        assertThatThrownBy(() -> decode(encoded.toByteArray()))
+                .isInstanceOf(StreamCorruptedException.class)
+                .hasMessageContaining("out of range");
+    }
+
+    @Test
+    void shouldRejectTruncatedBatches() throws IOException {
+        var encoded = encode(List.of(newConnectionEvent("a-service", Direction.OUTBOUND, "/some/endpoint")));
+
+        assertThatThrownBy(() -> decode(Arrays.copyOf(encoded, encoded.length - 2)))
+                .isInstanceOf(EOFException.class);
+    }
+
+    private static byte[] encode(List<ConnectionEvent> events) throws IOException {
+        var output = new ByteArrayOutputStream();
+        ConnectionEventBatchCodec.encode(events, output);
+        return output.toByteArray();
+    }
+
+    private static List<ConnectionEvent> decode(byte[] bytes) throws IOException {
+        return ConnectionEventBatchCodec.decode(new ByteArrayInputStream(bytes));
+    }
+}